@@ -0,0 +1,146 @@
+package com.finki.intellicard.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result file against the committed baseline and exits with a
+ * non-zero status when any benchmark regressed by more than the allowed percentage.
+ * Usage: {@code BaselineComparator <baseline.json> <result.json> <maxRegressionPercent> [update]}.
+ * With {@code update} the result replaces the baseline instead.
+ * <p>
+ * Absolute scores depend on the machine, so neither the baseline nor the comparison use
+ * them: every benchmark is expressed as its time per operation divided by that of
+ * {@link ReferenceBenchmark} in the same run.
+ */
+public final class BaselineComparator {
+
+    static final String REFERENCE = ReferenceBenchmark.class.getName() + ".reference";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private BaselineComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path baselinePath = Path.of(args[0]);
+        Path resultPath = Path.of(args[1]);
+        double maxRegression = Double.parseDouble(args[2]) / 100.0;
+        boolean update = args.length > 3 && Boolean.parseBoolean(args[3]);
+
+        Map<String, Double> results = relativeScores(resultPath);
+
+        if (update || !Files.exists(baselinePath)) {
+            writeBaseline(baselinePath, results);
+            System.out.println("Benchmark baseline written to " + baselinePath);
+            return;
+        }
+
+        Map<String, Double> baseline = readBaseline(baselinePath);
+
+        int regressions = 0;
+        for (Map.Entry<String, Double> entry : results.entrySet()) {
+            Double before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("NEW        %-90s %12.4gx%n", entry.getKey(), entry.getValue());
+                continue;
+            }
+
+            double change = (entry.getValue() - before) / before;
+            boolean regressed = change > maxRegression;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-10s %-90s %12.4gx -> %12.4gx (%+.1f%%)%n",
+                    regressed ? "REGRESSED" : "OK", entry.getKey(), before, entry.getValue(), change * 100);
+        }
+
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) regressed by more than " + args[2] + "%");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Time per operation of every benchmark in the result file as a multiple of the
+     * reference benchmark's; higher means slower.
+     */
+    static Map<String, Double> relativeScores(Path resultPath) throws IOException {
+        Map<String, Double> nanosPerOp = new LinkedHashMap<>();
+        for (JsonNode run : MAPPER.readTree(resultPath.toFile())) {
+            nanosPerOp.put(key(run), nanosPerOp(run));
+        }
+
+        Double reference = nanosPerOp.remove(REFERENCE);
+        if (reference == null || reference <= 0) {
+            throw new IllegalStateException(resultPath + " has no result for " + REFERENCE);
+        }
+
+        Map<String, Double> relative = new TreeMap<>();
+        nanosPerOp.forEach((key, nanos) -> relative.put(key, nanos / reference));
+        return relative;
+    }
+
+    private static Map<String, Double> readBaseline(Path baselinePath) throws IOException {
+        Map<String, Double> baseline = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> entries = MAPPER.readTree(baselinePath.toFile()).path("relativeScores").fields();
+        while (entries.hasNext()) {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            baseline.put(entry.getKey(), entry.getValue().asDouble());
+        }
+        return baseline;
+    }
+
+    private static void writeBaseline(Path baselinePath, Map<String, Double> results) throws IOException {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("reference", REFERENCE);
+        ObjectNode scores = root.putObject("relativeScores");
+        results.forEach((key, value) -> scores.put(key, new BigDecimal(value).round(new MathContext(4)).doubleValue()));
+
+        Files.createDirectories(baselinePath.toAbsolutePath().getParent());
+        MAPPER.writeValue(baselinePath.toFile(), root);
+    }
+
+    private static String key(JsonNode run) {
+        StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+        Iterator<Map.Entry<String, JsonNode>> params = run.path("params").fields();
+        while (params.hasNext()) {
+            Map.Entry<String, JsonNode> param = params.next();
+            key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+        }
+        return key.toString();
+    }
+
+    private static double nanosPerOp(JsonNode run) {
+        double score = run.path("primaryMetric").path("score").asDouble();
+        String unit = run.path("primaryMetric").path("scoreUnit").asText();
+        String[] parts = unit.split("/");
+        if ("ops".equals(parts[0])) {
+            return nanosIn(parts[1]) / score;
+        }
+        return score * nanosIn(parts[0]);
+    }
+
+    private static double nanosIn(String unit) {
+        return switch (unit) {
+            case "ns" -> 1;
+            case "us" -> 1e3;
+            case "ms" -> 1e6;
+            case "s" -> 1e9;
+            case "min" -> 60e9;
+            default -> throw new IllegalArgumentException("Unknown JMH time unit: " + unit);
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package com.finki.intellicard.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed workload that only depends on the machine and JVM it runs on. The other
+ * benchmarks are compared against the baseline as a multiple of this one's score from
+ * the same run, so the baseline holds across hardware.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class ReferenceBenchmark {
+
+    private int[] values;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        values = new SplittableRandom(42).ints(1024).toArray();
+        text = "The mitochondria is the powerhouse of the cell. ".repeat(20);
+    }
+
+    @Benchmark
+    public int reference() {
+        int[] sorted = Arrays.copyOf(values, values.length);
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2] ^ text.toUpperCase().hashCode();
+    }
+}
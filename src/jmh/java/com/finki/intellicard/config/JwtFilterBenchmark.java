@@ -0,0 +1,56 @@
+package com.finki.intellicard.config;
+
+import com.finki.intellicard.model.User;
+import com.finki.intellicard.model.UserPrincipal;
+import com.finki.intellicard.service.JWTService;
+import com.finki.intellicard.service.MyUserDetailsService;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Full pass through {@link JwtFilter} for an authenticated request: header parsing, token
+ * parsing, user lookup (mocked, so no database time is included) and validation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class JwtFilterBenchmark {
+
+    private JwtFilter jwtFilter;
+    private String authorizationHeader;
+
+    @Setup
+    public void setUp() {
+        JWTService jwtService = new JWTService("ZTJkNTU2M2ItOTFiMi00ODJhLWFmMzYtZmE0NmM4MWYyODg3");
+        MyUserDetailsService userDetailsService = mock(MyUserDetailsService.class);
+        when(userDetailsService.loadUserByUsername("benchmark-user"))
+                .thenReturn(new UserPrincipal(User.builder().username("benchmark-user").password("secret").build()));
+
+        jwtFilter = new JwtFilter(jwtService, userDetailsService);
+        authorizationHeader = "Bearer " + jwtService.generateToken("benchmark-user");
+    }
+
+    @TearDown(Level.Invocation)
+    public void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse authenticatedRequest() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/cardsets");
+        request.addHeader("Authorization", authorizationHeader);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        jwtFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,42 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.model.User;
+import com.finki.intellicard.model.UserPrincipal;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class JwtBenchmark {
+
+    private static final String SECRET = "ZTJkNTU2M2ItOTFiMi00ODJhLWFmMzYtZmE0NmM4MWYyODg3";
+
+    private JWTService jwtService;
+    private String token;
+    private UserDetails userDetails;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JWTService(SECRET);
+        token = jwtService.generateToken("benchmark-user");
+        userDetails = new UserPrincipal(User.builder().username("benchmark-user").password("secret").build());
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken("benchmark-user");
+    }
+
+    @Benchmark
+    public String extractUserName() {
+        return jwtService.extractUserName(token);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtService.validateToken(token, userDetails);
+    }
+}
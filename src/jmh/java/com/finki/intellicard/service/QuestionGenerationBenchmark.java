@@ -0,0 +1,84 @@
+package com.finki.intellicard.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finki.intellicard.record.AiCompletion;
+import com.finki.intellicard.record.GeneratedCardDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class QuestionGenerationBenchmark {
+
+    @Param({"10", "50"})
+    public int cardCount;
+
+    private QuestionGenerationService questionGenerationService;
+    private AiCompletionParser aiCompletionParser;
+    private String plainResponse;
+    private String wrappedResponse;
+    private byte[] completionBody;
+
+    @Setup
+    public void setUp() throws IOException {
+        aiCompletionParser = new AiCompletionParser();
+        questionGenerationService = new QuestionGenerationService(mock(RestTemplate.class), mock(AiCallExecutor.class),
+                aiCompletionParser, new SimpleMeterRegistry());
+
+        StringBuilder cards = new StringBuilder("[");
+        for (int i = 0; i < cardCount; i++) {
+            if (i > 0) {
+                cards.append(',');
+            }
+            cards.append("\n  {\"term\": \"What is concept number ").append(i)
+                    .append("?\", \"definition\": \"Concept number ").append(i)
+                    .append(" is explained in detail in section ").append(i % 7)
+                    .append(" of the uploaded lecture notes.\"}");
+        }
+        cards.append("\n]");
+
+        plainResponse = cards.toString();
+        wrappedResponse = "Here are the flashcards you asked for:\n```json\n" + plainResponse + "\n```\nGood luck!";
+        completionBody = new ObjectMapper().writeValueAsString(Map.of(
+                "id", "chatcmpl-benchmark",
+                "model", "gpt-3.5-turbo",
+                "choices", List.of(Map.of(
+                        "index", 0,
+                        "finish_reason", "stop",
+                        "message", Map.of("role", "assistant", "content", wrappedResponse))),
+                "usage", Map.of("prompt_tokens", 900, "completion_tokens", 400)))
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<GeneratedCardDto> parseCardsFromAiResponse() {
+        return questionGenerationService.parseCardsFromAiResponse(wrappedResponse);
+    }
+
+    @Benchmark
+    public AiCompletion readCompletion() throws IOException {
+        return aiCompletionParser.readCompletion(new ByteArrayInputStream(completionBody));
+    }
+
+    @Benchmark
+    public List<GeneratedCardDto> completionBodyToCards() throws IOException {
+        AiCompletion completion = aiCompletionParser.readCompletion(new ByteArrayInputStream(completionBody));
+        return aiCompletionParser.readCards(completion.content());
+    }
+
+    @Benchmark
+    public List<GeneratedCardDto> parseCardsFromPlainJson() {
+        return questionGenerationService.parseCardsFromAiResponse(plainResponse);
+    }
+}
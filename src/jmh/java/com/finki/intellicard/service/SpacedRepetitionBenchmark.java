@@ -0,0 +1,85 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.model.Card;
+import com.finki.intellicard.model.UserCardProgress;
+import com.finki.intellicard.model.enums.CardStatus;
+import com.finki.intellicard.record.CardRecord;
+import com.finki.intellicard.repository.CardRepository;
+import com.finki.intellicard.repository.CardSetRepository;
+import com.finki.intellicard.repository.TombstoneRepository;
+import com.finki.intellicard.repository.UserCardProgressRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class SpacedRepetitionBenchmark {
+
+    private SpacedRepetitionService spacedRepetitionService;
+    private CardService cardService;
+    private Card card;
+    private UserCardProgress reviewedProgress;
+
+    @Setup
+    public void setUp() {
+        // Only the scheduler and the record mapping run; the persistence collaborators are never touched
+        spacedRepetitionService = new SpacedRepetitionService(mock(UserCardProgressRepository.class),
+                mock(CardRepository.class), mock(CardSetRepository.class), mock(MyUserDetailsService.class),
+                new Sm2Scheduler(), mock(DailyQueueService.class), mock(ReviewEventLog.class),
+                mock(LeaderboardService.class), mock(SingleWriterExecutor.class));
+        cardService = new CardService(mock(CardRepository.class), mock(CardSetRepository.class),
+                mock(MyUserDetailsService.class), mock(UserCardProgressRepository.class),
+                mock(QuestionGenerationService.class), mock(PromptCompactionService.class),
+                mock(GenerationAdmissionService.class), new SimpleMeterRegistry(), mock(TombstoneRepository.class),
+                mock(SingleWriterExecutor.class));
+        card = Card.builder()
+                .id(42L)
+                .term("Mitochondria")
+                .definition("The organelle that produces most of the cell's supply of ATP")
+                .build();
+        reviewedProgress = UserCardProgress.builder()
+                .timesReviewed(7)
+                .timesCorrect(5)
+                .consecutiveCorrect(3)
+                .interval(15)
+                .status(CardStatus.REVIEW)
+                .nextReviewDate(LocalDateTime.now().plusDays(15))
+                .build();
+    }
+
+    @Benchmark
+    public UserCardProgress updateCardProgressCorrect() {
+        UserCardProgress progress = UserCardProgress.builder()
+                .consecutiveCorrect(3)
+                .interval(15)
+                .build();
+        spacedRepetitionService.updateCardProgress(progress, true, 3);
+        return progress;
+    }
+
+    @Benchmark
+    public UserCardProgress updateCardProgressIncorrect() {
+        UserCardProgress progress = UserCardProgress.builder()
+                .consecutiveCorrect(3)
+                .interval(15)
+                .build();
+        spacedRepetitionService.updateCardProgress(progress, false, 4);
+        return progress;
+    }
+
+    @Benchmark
+    public CardRecord convertToRecordWithProgress() {
+        return cardService.convertToRecord(card, reviewedProgress);
+    }
+
+    @Benchmark
+    public CardRecord convertToRecordNew() {
+        return cardService.convertToRecord(card, null);
+    }
+}
@@ -4,15 +4,24 @@ package com.finki.intellicard;
 import io.github.cdimascio.dotenv.Dotenv;
 */
 import org.springframework.boot.SpringApplication;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 @SpringBootApplication
 public class IntelliCardApplication {
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(RestTemplateBuilder builder,
+                                     @Value("${openai.timeout.connect:5s}") Duration connectTimeout,
+                                     @Value("${openai.timeout.read:60s}") Duration readTimeout) {
+        return builder
+                .connectTimeout(connectTimeout)
+                .readTimeout(readTimeout)
+                .build();
     }
     public static void main(String[] args) {
         /*Dotenv dotenv = Dotenv.load();
@@ -0,0 +1,39 @@
+package com.finki.intellicard.config;
+
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps every {@link DataSource} bean in a datasource-proxy so statement counts and
+ * timings can be observed without touching repositories or Hibernate settings. Every
+ * {@link QueryExecutionListener} bean is attached to the proxy. Delegating data sources
+ * (such as the desktop read/write router) are left alone; the pools behind them are
+ * proxied instead, so every statement is seen exactly once.
+ */
+@Component
+public class DataSourceProxyPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<QueryExecutionListener> listeners;
+
+    public DataSourceProxyPostProcessor(ObjectProvider<QueryExecutionListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource
+                || bean instanceof DelegatingDataSource) {
+            return bean;
+        }
+        ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(dataSource).name(beanName);
+        listeners.orderedStream().forEach(builder::listener);
+        return builder.build();
+    }
+}
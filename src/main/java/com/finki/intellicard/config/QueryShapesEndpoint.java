@@ -0,0 +1,43 @@
+package com.finki.intellicard.config;
+
+import com.finki.intellicard.record.QueryShapeRecord;
+import com.finki.intellicard.service.QueryShapeStatistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code GET /actuator/queryshapes?limit=20&orderBy=total|mean|max}: the slowest query
+ * shapes seen over the rolling window. Served on the management port only (see
+ * {@link ManagementPortRequestMatcher}), since the shapes reveal the schema. An unknown
+ * ordering is a 400.
+ */
+@Component
+@Endpoint(id = "queryshapes")
+public class QueryShapesEndpoint {
+
+    private final QueryShapeStatistics queryShapeStatistics;
+
+    @Value("${sql.profile.top-shapes:20}")
+    private int defaultLimit;
+
+    public QueryShapesEndpoint(QueryShapeStatistics queryShapeStatistics) {
+        this.queryShapeStatistics = queryShapeStatistics;
+    }
+
+    @ReadOperation
+    public List<QueryShapeRecord> queryShapes(@Nullable Integer limit, @Nullable String orderBy) {
+        try {
+            return queryShapeStatistics.slowest(
+                    limit != null ? Math.max(1, limit) : defaultLimit,
+                    orderBy != null ? orderBy : "total");
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), "Unknown orderBy");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.finki.intellicard.config;
+
+import com.finki.intellicard.service.ReadYourWritesTracker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Picks the connection for a read-only transaction: the replica, unless the current user
+ * wrote within the read-your-writes window, in which case the primary so the user sees
+ * their own changes even while the replica lags.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final Counter replicaReads;
+    private final Counter pinnedReads;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica,
+                                    ReadYourWritesTracker readYourWritesTracker, MeterRegistry meterRegistry) {
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.replicaReads = readCounter(meterRegistry, REPLICA);
+        this.pinnedReads = readCounter(meterRegistry, PRIMARY);
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (readYourWritesTracker.wroteRecently()) {
+            pinnedReads.increment();
+            return PRIMARY;
+        }
+        replicaReads.increment();
+        return REPLICA;
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("intellicard.db.readonly.connections")
+                .description("Read-only transactions by the data source they were routed to")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,95 @@
+package com.finki.intellicard.config;
+
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache on an in-process, bounded Ehcache. Every region is declared
+ * here; Hibernate refuses to start if an entity or collection names a region that is
+ * missing, so nothing ends up in an unbounded default cache. Entries expire after the
+ * configured time to live, which bounds how stale a node can be when another node writes
+ * (there is no cross-node invalidation). Approved users and cached query results, which
+ * include the access checks, get a much shorter time to live of their own so that a
+ * revoked approval stops working on every node within seconds. The update-timestamps
+ * region never expires, since a missing timestamp would make a stale query result look
+ * current.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    static final List<String> ENTITY_REGIONS = List.of("card", "card-set", "card-set.cards", "user");
+
+    static final String APPROVED_USERS_REGION = "card-set.approved-users";
+
+    static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Value("${persistence.second-level-cache.time-to-live:10m}")
+    private Duration timeToLive;
+
+    @Value("${persistence.second-level-cache.access-time-to-live:30s}")
+    private Duration accessTimeToLive;
+
+    @Value("${persistence.second-level-cache.max-entries:10000}")
+    private long maxEntries;
+
+    @Value("${persistence.second-level-cache.max-query-results:5000}")
+    private long maxQueryResults;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName());
+        // A URI of its own, so that application contexts sharing a JVM never share regions
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("urn:intellicard:hibernate:" + UUID.randomUUID()),
+                new DefaultConfiguration(getClass().getClassLoader()));
+
+        for (String region : ENTITY_REGIONS) {
+            createCache(cacheManager, region, expiring(maxEntries, timeToLive));
+        }
+        createCache(cacheManager, APPROVED_USERS_REGION, expiring(maxEntries, accessTimeToLive));
+        createCache(cacheManager, QUERY_RESULTS_REGION, expiring(maxQueryResults, accessTimeToLive));
+        createCache(cacheManager, UPDATE_TIMESTAMPS_REGION, CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                .withExpiry(ExpiryPolicyBuilder.noExpiration())
+                .build());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static CacheConfiguration<Object, Object> expiring(long entries, Duration timeToLive) {
+        return CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(entries))
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(timeToLive))
+                .build();
+    }
+
+    private static void createCache(CacheManager cacheManager, String name, CacheConfiguration<Object, Object> configuration) {
+        cacheManager.createCache(name, Eh107Configuration.fromEhcacheCacheConfiguration(configuration));
+    }
+}
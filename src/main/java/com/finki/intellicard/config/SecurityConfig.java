@@ -28,13 +28,16 @@ public class SecurityConfig {
 
     private final MyUserDetailsService userDetailsService;
     private final JwtFilter jwtFilter;
+    private final ManagementPortRequestMatcher managementPort;
 
     @Value("${spring.profiles.active:}")
     private String activeProfile;
 
-    public SecurityConfig(MyUserDetailsService userDetailsService, JwtFilter jwtFilter) {
+    public SecurityConfig(MyUserDetailsService userDetailsService, JwtFilter jwtFilter,
+                          ManagementPortRequestMatcher managementPort) {
         this.userDetailsService = userDetailsService;
         this.jwtFilter = jwtFilter;
+        this.managementPort = managementPort;
     }
 
     @Bean
@@ -51,8 +54,12 @@ public class SecurityConfig {
                     )
                     .headers(headers -> headers.frameOptions().disable());
         } else {
+            // Metrics and query shapes are only served on the internal management port
             http.authorizeHttpRequests(request -> request
+                            .requestMatchers(managementPort).permitAll()
                             .requestMatchers("/api/v1/auth/**").permitAll()
+                            .requestMatchers("/livez", "/readyz", "/actuator/health", "/actuator/health/**").permitAll()
+                            .requestMatchers("/actuator/**").denyAll()
                             .anyRequest().authenticated()
                     )
                     .authenticationProvider(authenticationProvider())
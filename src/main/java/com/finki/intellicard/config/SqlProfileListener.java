@@ -0,0 +1,45 @@
+package com.finki.intellicard.config;
+
+import com.finki.intellicard.service.QueryShapeStatistics;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Receives every statement executed through the proxied data source and feeds both the
+ * per-request profile (when one is open on this thread) and the rolling query-shape
+ * statistics.
+ */
+@Component
+public class SqlProfileListener implements QueryExecutionListener {
+
+    private final QueryShapeStatistics queryShapeStatistics;
+
+    public SqlProfileListener(QueryShapeStatistics queryShapeStatistics) {
+        this.queryShapeStatistics = queryShapeStatistics;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (queryInfoList.isEmpty()) {
+            return;
+        }
+
+        String shape = QueryShapeStatistics.normalize(queryInfoList.get(0).getQuery());
+        long elapsedMillis = execInfo.getElapsedTime();
+
+        queryShapeStatistics.record(shape, elapsedMillis);
+
+        SqlRequestProfile profile = SqlRequestProfile.current();
+        if (profile != null) {
+            profile.record(shape, elapsedMillis);
+        }
+    }
+}
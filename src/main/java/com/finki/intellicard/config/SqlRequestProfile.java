@@ -0,0 +1,66 @@
+package com.finki.intellicard.config;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * SQL statements executed on the current thread while an HTTP request is being served:
+ * how many, how long they took in total and the slowest few. Opened and closed by
+ * {@link SqlRequestProfileFilter}, filled in by {@link SqlProfileListener}.
+ */
+public class SqlRequestProfile {
+
+    public record Statement(String sql, long elapsedMillis) {
+    }
+
+    private static final ThreadLocal<SqlRequestProfile> CURRENT = new ThreadLocal<>();
+
+    private final int slowestKept;
+    private final List<Statement> slowest = new ArrayList<>();
+    private int statements;
+    private long elapsedMillis;
+
+    private SqlRequestProfile(int slowestKept) {
+        this.slowestKept = slowestKept;
+    }
+
+    static SqlRequestProfile start(int slowestKept) {
+        SqlRequestProfile profile = new SqlRequestProfile(slowestKept);
+        CURRENT.set(profile);
+        return profile;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    static SqlRequestProfile current() {
+        return CURRENT.get();
+    }
+
+    void record(String sql, long elapsedMillis) {
+        statements++;
+        this.elapsedMillis += elapsedMillis;
+
+        if (slowest.size() < slowestKept) {
+            slowest.add(new Statement(sql, elapsedMillis));
+            slowest.sort(Comparator.comparingLong(Statement::elapsedMillis).reversed());
+        } else if (slowestKept > 0 && elapsedMillis > slowest.get(slowest.size() - 1).elapsedMillis()) {
+            slowest.set(slowest.size() - 1, new Statement(sql, elapsedMillis));
+            slowest.sort(Comparator.comparingLong(Statement::elapsedMillis).reversed());
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public List<Statement> getSlowest() {
+        return List.copyOf(slowest);
+    }
+}
@@ -0,0 +1,101 @@
+package com.finki.intellicard.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens a {@link SqlRequestProfile} for each HTTP request, records the statement count and
+ * database time per method and URI template (never the raw path, so ids do not end up in
+ * tag values) and logs requests that exceed the configured thresholds together with their
+ * slowest statements. Runs ahead of the security chain so the user lookups done by
+ * {@link JwtFilter} are included.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class SqlRequestProfileFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlRequestProfileFilter.class);
+
+    private final MeterRegistry meterRegistry;
+    private final int slowStatementCount;
+    private final long slowDatabaseMillis;
+    private final int slowestKept;
+
+    public SqlRequestProfileFilter(
+            MeterRegistry meterRegistry,
+            @Value("${sql.profile.slow-request-statements:30}") int slowStatementCount,
+            @Value("${sql.profile.slow-request-time:500ms}") Duration slowDatabaseTime,
+            @Value("${sql.profile.slowest-per-request:5}") int slowestKept) {
+        this.meterRegistry = meterRegistry;
+        this.slowStatementCount = slowStatementCount;
+        this.slowDatabaseMillis = slowDatabaseTime.toMillis();
+        this.slowestKept = slowestKept;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        SqlRequestProfile profile = SqlRequestProfile.start(slowestKept);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlRequestProfile.stop();
+            record(request, response, profile);
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, SqlRequestProfile profile) {
+        String method = request.getMethod();
+        String uri = uriTemplate(request);
+
+        DistributionSummary.builder("intellicard.db.statements")
+                .description("SQL statements executed per HTTP request")
+                .baseUnit("statements")
+                .tag("method", method)
+                .tag("uri", uri)
+                .serviceLevelObjectives(1, 2, 5, 10, 20, 50, 100, 200, 500)
+                .register(meterRegistry)
+                .record(profile.getStatements());
+        Timer.builder("intellicard.db.time")
+                .description("Database time spent per HTTP request")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(profile.getElapsedMillis(), TimeUnit.MILLISECONDS);
+
+        if (profile.getStatements() < slowStatementCount && profile.getElapsedMillis() < slowDatabaseMillis) {
+            return;
+        }
+
+        StringBuilder message = new StringBuilder()
+                .append(method).append(' ').append(uri)
+                .append(" -> ").append(response.getStatus())
+                .append(": ").append(profile.getStatements()).append(" statements, ")
+                .append(profile.getElapsedMillis()).append(" ms in the database; slowest:");
+        for (SqlRequestProfile.Statement statement : profile.getSlowest()) {
+            message.append("\n  [").append(statement.elapsedMillis()).append(" ms] ").append(statement.sql());
+        }
+        log.warn(message.toString());
+    }
+
+    private String uriTemplate(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
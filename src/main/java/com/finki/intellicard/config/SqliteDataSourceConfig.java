@@ -0,0 +1,103 @@
+package com.finki.intellicard.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+
+/**
+ * Desktop persistence: SQLite in WAL mode with one writer connection and a pool of
+ * query-only reader connections. The pragmas are applied to every connection as it is
+ * opened. Read-only transactions are routed to the readers, everything else to the
+ * writer; the routing proxy defers picking a connection until the first statement, by
+ * which time the transaction's read-only flag is known.
+ */
+@Configuration
+@Profile("desktop")
+public class SqliteDataSourceConfig {
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${desktop.sqlite.reader-pool-size:4}")
+    private int readerPoolSize;
+
+    @Value("${desktop.sqlite.busy-timeout:5s}")
+    private Duration busyTimeout;
+
+    @Value("${desktop.sqlite.synchronous:NORMAL}")
+    private SQLiteConfig.SynchronousMode synchronous;
+
+    @Value("${desktop.sqlite.cache-size-kib:16384}")
+    private int cacheSizeKib;
+
+    @Value("${desktop.sqlite.mmap-size:268435456}")
+    private long mmapSize;
+
+    @Value("${desktop.sqlite.writer-wait:30s}")
+    private Duration writerWait;
+
+    @Bean
+    public DataSource sqliteWriterDataSource() {
+        SQLiteConfig config = sqliteConfig();
+        config.setTransactionMode(SQLiteConfig.TransactionMode.IMMEDIATE);
+
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("sqlite-writer");
+        dataSource.setDataSource(sqliteDataSource(config));
+        dataSource.setMaximumPoolSize(1);
+        dataSource.setConnectionTimeout(writerWait.toMillis());
+        return dataSource;
+    }
+
+    @Bean
+    public DataSource sqliteReaderDataSource() {
+        SQLiteConfig config = sqliteConfig();
+        config.setExplicitReadOnly(true);
+
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("sqlite-reader");
+        dataSource.setDataSource(sqliteDataSource(config));
+        dataSource.setMaximumPoolSize(readerPoolSize);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("sqliteWriterDataSource") DataSource writer,
+                                 @Qualifier("sqliteReaderDataSource") DataSource reader) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(writer);
+        dataSource.setReadOnlyDataSource(reader);
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+        return dataSource;
+    }
+
+    private SQLiteConfig sqliteConfig() {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        config.setSynchronous(synchronous);
+        config.setBusyTimeout((int) busyTimeout.toMillis());
+        config.setCacheSize(-cacheSizeKib);
+        config.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(mmapSize));
+        config.setTempStore(SQLiteConfig.TempStore.MEMORY);
+        return config;
+    }
+
+    private SQLiteDataSource sqliteDataSource(SQLiteConfig config) {
+        SQLiteDataSource dataSource = new SQLiteDataSource(config);
+        dataSource.setUrl(url);
+        return dataSource;
+    }
+}
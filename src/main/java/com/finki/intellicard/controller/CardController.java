@@ -1,13 +1,22 @@
 package com.finki.intellicard.controller;
 
+import com.finki.intellicard.exceptions.AiProviderUnavailableException;
+import com.finki.intellicard.exceptions.GenerationRejectedException;
+import com.finki.intellicard.model.enums.CardImportFormat;
+import com.finki.intellicard.record.CardImportResultRecord;
 import com.finki.intellicard.record.CardRecord;
+import com.finki.intellicard.record.ResourceVersion;
+import com.finki.intellicard.service.CardImportService;
 import com.finki.intellicard.service.CardService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -18,19 +27,29 @@ import java.util.List;
 public class CardController {
 
     private final CardService cardService;
+    private final CardImportService cardImportService;
 
-    public CardController(CardService cardService) {
+    public CardController(CardService cardService, CardImportService cardImportService) {
         this.cardService = cardService;
+        this.cardImportService = cardImportService;
     }
 
     @Operation(summary = "Get all cards in a card set",
-            description = "Retrieve all flashcards from a specific card set")
+            description = "Retrieve all flashcards from a specific card set. Supports If-None-Match / If-Modified-Since.")
     @GetMapping("/cardset/{cardSetId}")
     public ResponseEntity<List<CardRecord>> getAllCardsByCardSetId(
             @Parameter(description = "ID of the card set")
-            @PathVariable Long cardSetId) {
+            @PathVariable Long cardSetId,
+            WebRequest request) {
+        ResourceVersion version = cardService.getCardsVersion(cardSetId);
+        if (request.checkNotModified(version.eTag(), version.lastModifiedMillis())) {
+            return null;
+        }
         List<CardRecord> cards = cardService.getAllCardsByCardSetId(cardSetId);
-        return ResponseEntity.ok(cards);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(cards);
     }
 
     @Operation(summary = "Create a new card",
@@ -44,6 +63,20 @@ public class CardController {
         return ResponseEntity.status(HttpStatus.CREATED).body(newCard);
     }
 
+    @Operation(summary = "Import cards from a file",
+            description = "Add cards from a CSV, TSV or Anki plain-text export (format guessed from the file " +
+                    "extension unless given). Terms already in the set are skipped; invalid rows are reported by line.")
+    @PostMapping("/cardset/{cardSetId}/import")
+    public ResponseEntity<CardImportResultRecord> importCards(
+            @Parameter(description = "ID of the card set")
+            @PathVariable Long cardSetId,
+            @RequestParam("file") MultipartFile file,
+            @Parameter(description = "CSV, TSV or ANKI")
+            @RequestParam(value = "format", required = false) CardImportFormat format) {
+        CardImportResultRecord result = cardImportService.importCards(cardSetId, file, format);
+        return ResponseEntity.ok(result);
+    }
+
     @Operation(summary = "Update a card",
             description = "Update an existing flashcard")
     @PutMapping("/{cardId}")
@@ -78,6 +111,14 @@ public class CardController {
                     cardSetId, file, questionCount, difficultyLevel, language);
 
             return ResponseEntity.ok(generatedCards);
+        } catch (GenerationRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .build();
+        } catch (AiProviderUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .build();
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(null);
         } catch (Exception e) {
@@ -1,14 +1,25 @@
 package com.finki.intellicard.controller;
 
+import com.finki.intellicard.model.enums.CardExportFormat;
+import com.finki.intellicard.record.CardSetExport;
 import com.finki.intellicard.record.CardSetRecord;
+import com.finki.intellicard.record.ResourceVersion;
+import com.finki.intellicard.service.CardExportService;
 import com.finki.intellicard.service.CardSetService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -17,9 +28,11 @@ import java.util.List;
 public class CardSetController {
 
     private final CardSetService cardSetService;
+    private final CardExportService cardExportService;
 
-    public CardSetController(CardSetService cardSetService) {
+    public CardSetController(CardSetService cardSetService, CardExportService cardExportService) {
         this.cardSetService = cardSetService;
+        this.cardExportService = cardExportService;
     }
 
     @Operation(summary = "Get all accessible card sets",
@@ -39,13 +52,59 @@ public class CardSetController {
     }
 
     @Operation(summary = "Get card set by ID",
-            description = "Retrieve a specific card set by its ID")
+            description = "Retrieve a specific card set by its ID. Supports If-None-Match / If-Modified-Since.")
     @GetMapping("/{cardSetId}")
     public ResponseEntity<CardSetRecord> getCardSetById(
             @Parameter(description = "ID of the card set")
-            @PathVariable Long cardSetId) {
+            @PathVariable Long cardSetId,
+            WebRequest request) {
+        ResourceVersion version = cardSetService.getCardSetVersion(cardSetId);
+        if (request.checkNotModified(version.eTag(), version.lastModifiedMillis())) {
+            return null;
+        }
         CardSetRecord cardSet = cardSetService.getCardSetById(cardSetId);
-        return ResponseEntity.ok(cardSet);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(cardSet);
+    }
+
+    @Operation(summary = "Clone a card set",
+            description = "Copy a card set the current user can access into a new private set they own")
+    @PostMapping("/{cardSetId}/clone")
+    public ResponseEntity<CardSetRecord> cloneCardSet(
+            @Parameter(description = "ID of the card set to copy")
+            @PathVariable Long cardSetId,
+            @Parameter(description = "Name of the copy; defaults to the original name with \" (copy)\"")
+            @RequestParam(required = false) String name) {
+        CardSetRecord clonedCardSet = cardSetService.cloneCardSet(cardSetId, name);
+        return ResponseEntity.status(HttpStatus.CREATED).body(clonedCardSet);
+    }
+
+    @Operation(summary = "Export a card set",
+            description = "Download the cards of a set as CSV, JSON lines or a zip archive (manifest plus CSV), " +
+                    "optionally with the current user's study progress")
+    @GetMapping("/{cardSetId}/export")
+    public ResponseEntity<StreamingResponseBody> exportCardSet(
+            @Parameter(description = "ID of the card set")
+            @PathVariable Long cardSetId,
+            @Parameter(description = "CSV, JSONL or ZIP")
+            @RequestParam(defaultValue = "CSV") CardExportFormat format,
+            @Parameter(description = "Whether to include the current user's progress")
+            @RequestParam(defaultValue = "false") boolean includeProgress) {
+        CardSetExport export = cardExportService.exportCardSet(cardSetId, format, includeProgress);
+        MediaType contentType = switch (format) {
+            case CSV -> new MediaType("text", "csv", StandardCharsets.UTF_8);
+            case JSONL -> MediaType.APPLICATION_NDJSON;
+            case ZIP -> MediaType.parseMediaType("application/zip");
+        };
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(export.fileName(), StandardCharsets.UTF_8)
+                        .build()
+                        .toString())
+                .body(export.body());
     }
 
     @Operation(summary = "Update a card set",
@@ -60,12 +119,15 @@ public class CardSetController {
     }
 
     @Operation(summary = "Delete a card set",
-            description = "Delete a card set (owner only)")
+            description = "Delete a card set (owner only). Answers 202 Accepted when the set is large "
+                    + "enough to be deleted in the background; it is private to its owner until then.")
     @DeleteMapping("/{cardSetId}")
     public ResponseEntity<Void> deleteCardSet(
             @Parameter(description = "ID of the card set to delete")
             @PathVariable Long cardSetId) {
-        cardSetService.deleteCardSet(cardSetId);
-        return ResponseEntity.noContent().build();
+        if (cardSetService.deleteCardSet(cardSetId)) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.accepted().build();
     }
 }
\ No newline at end of file
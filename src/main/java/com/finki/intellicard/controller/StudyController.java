@@ -1,7 +1,15 @@
 package com.finki.intellicard.controller;
 
+import com.finki.intellicard.model.enums.LeaderboardMetric;
 import com.finki.intellicard.record.CardRecord;
+import com.finki.intellicard.record.DailyQueueCardRecord;
+import com.finki.intellicard.record.DueCountRecord;
+import com.finki.intellicard.record.LeaderboardRecord;
+import com.finki.intellicard.record.LearningStatsRecord;
 import com.finki.intellicard.record.StudySessionRecord;
+import com.finki.intellicard.service.DailyQueueService;
+import com.finki.intellicard.service.LeaderboardService;
+import com.finki.intellicard.service.LearningStatsService;
 import com.finki.intellicard.service.SpacedRepetitionService;
 import com.finki.intellicard.service.CardService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -19,10 +27,61 @@ public class StudyController {
 
     private final SpacedRepetitionService spacedRepetitionService;
     private final CardService cardService;
+    private final DailyQueueService dailyQueueService;
+    private final LearningStatsService learningStatsService;
+    private final LeaderboardService leaderboardService;
 
-    public StudyController(SpacedRepetitionService spacedRepetitionService, CardService cardService) {
+    public StudyController(SpacedRepetitionService spacedRepetitionService, CardService cardService,
+                           DailyQueueService dailyQueueService, LearningStatsService learningStatsService,
+                           LeaderboardService leaderboardService) {
         this.spacedRepetitionService = spacedRepetitionService;
         this.cardService = cardService;
+        this.dailyQueueService = dailyQueueService;
+        this.learningStatsService = learningStatsService;
+        this.leaderboardService = leaderboardService;
+    }
+
+    @Operation(summary = "Get today's review queue",
+            description = "Due and new cards across all sets the user studies, most overdue first, "
+                    + "with per-set caps and an overall limit")
+    @GetMapping("/queue")
+    public ResponseEntity<List<DailyQueueCardRecord>> getDailyQueue(
+            @Parameter(description = "Maximum number of cards in the queue")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Maximum number of cards taken from one set")
+            @RequestParam(required = false) Integer perSetLimit,
+            @Parameter(description = "Maximum number of new cards taken from one set")
+            @RequestParam(required = false) Integer newPerSet) {
+        return ResponseEntity.ok(dailyQueueService.getDailyQueue(limit, perSetLimit, newPerSet));
+    }
+
+    @Operation(summary = "Count today's due cards",
+            description = "Number of reviews due today across all sets the user studies")
+    @GetMapping("/due-count")
+    public ResponseEntity<DueCountRecord> getDueCount() {
+        return ResponseEntity.ok(dailyQueueService.getDueCount());
+    }
+
+    @Operation(summary = "Get learning statistics",
+            description = "Reviews, accuracy and new cards per day, retention and streaks for the current user")
+    @GetMapping("/stats")
+    public ResponseEntity<LearningStatsRecord> getStats(
+            @Parameter(description = "Number of days to report, ending today")
+            @RequestParam(required = false) Integer days) {
+        return ResponseEntity.ok(learningStatsService.getStats(days));
+    }
+
+    @Operation(summary = "Get a public card set's leaderboard",
+            description = "Top learners of the set by mastered cards, streak or accuracy, and the current user's rank")
+    @GetMapping("/cardset/{cardSetId}/leaderboard")
+    public ResponseEntity<LeaderboardRecord> getLeaderboard(
+            @Parameter(description = "ID of the card set")
+            @PathVariable Long cardSetId,
+            @Parameter(description = "What learners are ranked by: MASTERED, STREAK or ACCURACY")
+            @RequestParam(required = false) LeaderboardMetric metric,
+            @Parameter(description = "Number of top learners to return")
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(leaderboardService.getLeaderboard(cardSetId, metric, limit));
     }
 
     @Operation(summary = "Get due cards for review",
@@ -0,0 +1,46 @@
+package com.finki.intellicard.controller;
+
+import com.finki.intellicard.record.OfflineReviewRecord;
+import com.finki.intellicard.record.OfflineReviewResultRecord;
+import com.finki.intellicard.record.SyncPageRecord;
+import com.finki.intellicard.service.SyncService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/sync")
+@Tag(name = "Sync", description = "Incremental sync for offline clients")
+public class SyncController {
+
+    private final SyncService syncService;
+
+    public SyncController(SyncService syncService) {
+        this.syncService = syncService;
+    }
+
+    @Operation(summary = "Get changes since a cursor",
+            description = "Returns card sets, cards, own progress and deletions changed since the cursor. " +
+                    "Call again with the returned cursor while hasMore is true. A card set seen for the " +
+                    "first time (e.g. after access was granted) should be fetched in full.")
+    @GetMapping
+    public ResponseEntity<SyncPageRecord> getChanges(
+            @Parameter(description = "Cursor from the previous page; omit for a full sync")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum rows per stream")
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(syncService.getChanges(cursor, limit));
+    }
+
+    @Operation(summary = "Upload offline reviews",
+            description = "Applies reviews recorded offline in the order they happened and reports, per review, " +
+                    "whether it was applied or lost to a newer review from another device")
+    @PostMapping("/reviews")
+    public ResponseEntity<List<OfflineReviewResultRecord>> uploadReviews(@RequestBody List<OfflineReviewRecord> reviews) {
+        return ResponseEntity.ok(syncService.applyOfflineReviews(reviews));
+    }
+}
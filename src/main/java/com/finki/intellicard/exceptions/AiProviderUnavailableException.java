@@ -0,0 +1,20 @@
+package com.finki.intellicard.exceptions;
+
+public class AiProviderUnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public AiProviderUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public AiProviderUnavailableException(String message, long retryAfterSeconds, Throwable cause) {
+        super(message, cause);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,15 @@
+package com.finki.intellicard.exceptions;
+
+public class GenerationRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public GenerationRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
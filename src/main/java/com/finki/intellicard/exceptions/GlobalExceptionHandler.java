@@ -1,11 +1,13 @@
 package com.finki.intellicard.exceptions;
 
 import com.finki.intellicard.record.Response;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ResponseStatusException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -40,6 +42,20 @@ public class GlobalExceptionHandler {
                 .body(new Response("error", e.getMessage()));
     }
 
+    @ExceptionHandler(WriterBusyException.class)
+    public ResponseEntity<Response> handleWriterBusy(WriterBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(new Response("error", e.getMessage()));
+    }
+
+    // Keeps the status of exceptions that carry one, such as actuator's bad request
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<Response> handleResponseStatus(ResponseStatusException e) {
+        return ResponseEntity.status(e.getStatusCode())
+                .body(new Response("error", e.getReason()));
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Response> handleRuntimeException(RuntimeException e) {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -0,0 +1,12 @@
+package com.finki.intellicard.exceptions;
+
+/**
+ * The database writer was too busy to start the write in time. The write was not
+ * applied, so the request can safely be retried.
+ */
+public class WriterBusyException extends RuntimeException {
+
+    public WriterBusyException(String message) {
+        super(message);
+    }
+}
@@ -6,6 +6,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -19,6 +21,7 @@ import java.util.Set;
 @NoArgsConstructor
 @Builder
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "card-set")
 public class CardSet {
 
     @Id
@@ -29,6 +32,7 @@ public class CardSet {
 
     @OneToMany(mappedBy = "cardSet", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @JsonManagedReference
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "card-set.cards")
     private List<Card> cards;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -41,6 +45,7 @@ public class CardSet {
             joinColumns = @JoinColumn(name = "set_id"),
             inverseJoinColumns = @JoinColumn(name = "user_id")
     )
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "card-set.approved-users")
     private Set<User> approvedUsers = new HashSet<>();
 
     @Column(nullable = false)
@@ -49,6 +54,9 @@ public class CardSet {
     private LocalDateTime createdAt;
     private LocalDateTime lastModified;
 
+    // Set while the set is deleted in the background; such a set is gone for every reader
+    private LocalDateTime deletingAt;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
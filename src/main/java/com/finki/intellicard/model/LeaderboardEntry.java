@@ -0,0 +1,50 @@
+package com.finki.intellicard.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Snapshot of a learner's standing on a public set's leaderboard. The leaderboards live in
+ * memory ({@code LeaderboardService}) and are written here periodically. Only the streak
+ * cannot be recomputed from {@link UserCardProgress}, so it is what a restart reads back.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@IdClass(LeaderboardEntry.Key.class)
+public class LeaderboardEntry {
+
+    @Id
+    @Column(name = "card_set_id")
+    private Long cardSetId;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    private int mastered;
+
+    private int reviews;
+
+    private int correct;
+
+    private int streak;
+
+    private LocalDate lastReviewDate;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long cardSetId;
+        private Long userId;
+    }
+}
@@ -0,0 +1,46 @@
+package com.finki.intellicard.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One answered review, as appended to the review log. Unlike {@link UserCardProgress},
+ * which only holds the latest state, the log keeps every answer. Rows are never updated,
+ * and they only point at the user and card by id: deleting either leaves the history alone.
+ * Written in batches by {@code ReviewEventLog}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(indexes = @Index(name = "idx_review_event_user_reviewed_at", columnList = "user_id, reviewed_at"))
+public class ReviewEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "card_id", nullable = false)
+    private Long cardId;
+
+    @Column(name = "reviewed_at", nullable = false)
+    private LocalDateTime reviewedAt;
+
+    @Column(nullable = false)
+    private boolean correct;
+
+    @Column(nullable = false)
+    private short difficulty;
+
+    // Time since the previous review of the card; null on the first review
+    private Integer elapsedSeconds;
+}
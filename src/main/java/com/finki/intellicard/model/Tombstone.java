@@ -0,0 +1,52 @@
+package com.finki.intellicard.model;
+
+import com.finki.intellicard.model.enums.SyncEntityType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Record of a deleted card or card set, kept so that syncing clients learn about the
+ * deletion. Card tombstones are found through their (still existing) set. A deleted set
+ * is out of everyone's sync scope, so it gets one tombstone per user who could see it
+ * (see {@code TombstoneRepository#insertCardSetTombstones}). A public set made private
+ * gets the same per-user tombstone for the learners who lose it.
+ * Progress rows go with their card and need no tombstone of their own; the cards of a
+ * deleted set are covered by the set's tombstone.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(indexes = @Index(name = "idx_tombstone_deleted_at", columnList = "deleted_at, id"))
+public class Tombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SyncEntityType entityType;
+
+    @Column(nullable = false)
+    private Long entityId;
+
+    @Column(name = "card_set_id", nullable = false)
+    private Long cardSetId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    public static Tombstone forCard(Long cardId, Long cardSetId) {
+        return new Tombstone(null, SyncEntityType.CARD, cardId, cardSetId, null, LocalDateTime.now());
+    }
+}
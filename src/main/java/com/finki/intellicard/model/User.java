@@ -7,6 +7,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.Collection;
 import java.util.List;
@@ -19,6 +21,7 @@ import java.util.Set;
 @NoArgsConstructor
 @Builder
 @Entity(name = "Users")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
 public class User {
 
     @Id
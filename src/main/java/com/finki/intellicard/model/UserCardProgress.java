@@ -52,6 +52,13 @@ public class UserCardProgress {
     @Builder.Default
     private CardStatus status = CardStatus.NEW;
 
+    // FSRS memory state; null until the card has been scheduled by FSRS
+    private Double stability;
+    private Double difficulty;
+
+    @Column(length = 64)
+    private String scheduleVersion;
+
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
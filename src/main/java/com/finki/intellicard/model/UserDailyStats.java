@@ -0,0 +1,54 @@
+package com.finki.intellicard.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * One user's reviews on one day, rolled up from the review log as reviews are appended
+ * (see {@code LearningStatsService#rollUp}). Repeat reviews are the reviews of cards the
+ * user had seen before; their accuracy is the retention estimate. The streak is the number
+ * of consecutive days with reviews ending on this one, kept up to date as days are added.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@IdClass(UserDailyStats.Key.class)
+@Table(indexes = @Index(name = "idx_user_daily_stats_streak", columnList = "user_id, streak"))
+public class UserDailyStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "review_date")
+    private LocalDate reviewDate;
+
+    private int reviews;
+
+    private int correct;
+
+    private int newCards;
+
+    private int repeatReviews;
+
+    private int repeatCorrect;
+
+    private int streak;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private LocalDate reviewDate;
+    }
+}
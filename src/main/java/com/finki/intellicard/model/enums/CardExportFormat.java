@@ -0,0 +1,5 @@
+package com.finki.intellicard.model.enums;
+
+public enum CardExportFormat {
+    CSV, JSONL, ZIP
+}
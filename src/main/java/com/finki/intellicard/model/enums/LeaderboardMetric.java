@@ -0,0 +1,5 @@
+package com.finki.intellicard.model.enums;
+
+public enum LeaderboardMetric {
+    MASTERED, STREAK, ACCURACY
+}
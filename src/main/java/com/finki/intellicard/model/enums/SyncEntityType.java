@@ -0,0 +1,5 @@
+package com.finki.intellicard.model.enums;
+
+public enum SyncEntityType {
+    CARD, CARD_SET
+}
@@ -0,0 +1,8 @@
+package com.finki.intellicard.record;
+
+public record AiCompletion(
+        String model,
+        String content,
+        Integer promptTokens,
+        Integer completionTokens) {
+}
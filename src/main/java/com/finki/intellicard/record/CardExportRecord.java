@@ -0,0 +1,20 @@
+package com.finki.intellicard.record;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.finki.intellicard.model.enums.CardStatus;
+
+import java.time.LocalDateTime;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CardExportRecord(
+        String term,
+        String definition,
+        Integer timesReviewed,
+        Integer timesCorrect,
+        Integer consecutiveCorrect,
+        Double easeFactor,
+        Integer interval,
+        CardStatus status,
+        LocalDateTime lastReviewed,
+        LocalDateTime nextReviewDate) {
+}
@@ -0,0 +1,6 @@
+package com.finki.intellicard.record;
+
+public record CardImportErrorRecord(
+        long line,
+        String message) {
+}
@@ -0,0 +1,10 @@
+package com.finki.intellicard.record;
+
+import java.util.List;
+
+public record CardImportResultRecord(
+        int imported,
+        int duplicates,
+        int rejected,
+        List<CardImportErrorRecord> errors) {
+}
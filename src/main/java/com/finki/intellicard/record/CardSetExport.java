@@ -0,0 +1,8 @@
+package com.finki.intellicard.record;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+public record CardSetExport(
+        String fileName,
+        StreamingResponseBody body) {
+}
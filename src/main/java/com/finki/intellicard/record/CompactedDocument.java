@@ -0,0 +1,7 @@
+package com.finki.intellicard.record;
+
+public record CompactedDocument(
+        String content,
+        int originalTokens,
+        int compactedTokens) {
+}
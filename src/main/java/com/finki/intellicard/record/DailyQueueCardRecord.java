@@ -0,0 +1,15 @@
+package com.finki.intellicard.record;
+
+import java.time.LocalDateTime;
+
+public record DailyQueueCardRecord(
+        Long cardId,
+        Long cardSetId,
+        String cardSetName,
+        String term,
+        String definition,
+        Integer timesReviewed,
+        Integer timesCorrect,
+        LocalDateTime nextReviewDate,
+        String status) {
+}
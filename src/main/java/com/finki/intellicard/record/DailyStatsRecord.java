@@ -0,0 +1,11 @@
+package com.finki.intellicard.record;
+
+import java.time.LocalDate;
+
+public record DailyStatsRecord(
+        LocalDate date,
+        int reviews,
+        int correct,
+        int newCards,
+        Double accuracy) {
+}
@@ -0,0 +1,8 @@
+package com.finki.intellicard.record;
+
+import java.time.LocalDate;
+
+public record DueCountRecord(
+        LocalDate date,
+        int dueCards) {
+}
@@ -0,0 +1,10 @@
+package com.finki.intellicard.record;
+
+public record LeaderboardEntryRecord(
+        Integer rank,
+        String username,
+        int mastered,
+        int streak,
+        Double accuracy,
+        int reviews) {
+}
@@ -0,0 +1,13 @@
+package com.finki.intellicard.record;
+
+import com.finki.intellicard.model.enums.LeaderboardMetric;
+
+import java.util.List;
+
+public record LeaderboardRecord(
+        Long cardSetId,
+        LeaderboardMetric metric,
+        int learners,
+        List<LeaderboardEntryRecord> top,
+        LeaderboardEntryRecord you) {
+}
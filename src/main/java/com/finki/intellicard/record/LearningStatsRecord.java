@@ -0,0 +1,17 @@
+package com.finki.intellicard.record;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record LearningStatsRecord(
+        LocalDate from,
+        LocalDate to,
+        int reviews,
+        int correct,
+        int newCards,
+        Double accuracy,
+        Double retention,
+        int currentStreak,
+        int longestStreak,
+        List<DailyStatsRecord> days) {
+}
@@ -0,0 +1,10 @@
+package com.finki.intellicard.record;
+
+import java.time.LocalDateTime;
+
+public record OfflineReviewRecord(
+        Long cardId,
+        boolean correct,
+        int difficulty,
+        LocalDateTime reviewedAt) {
+}
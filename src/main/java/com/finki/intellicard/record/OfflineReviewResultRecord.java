@@ -0,0 +1,9 @@
+package com.finki.intellicard.record;
+
+import java.time.LocalDateTime;
+
+public record OfflineReviewResultRecord(
+        Long cardId,
+        LocalDateTime reviewedAt,
+        String outcome) {
+}
@@ -0,0 +1,9 @@
+package com.finki.intellicard.record;
+
+public record QueryShapeRecord(
+        String sql,
+        long executions,
+        double totalMillis,
+        double meanMillis,
+        double maxMillis) {
+}
@@ -0,0 +1,24 @@
+package com.finki.intellicard.record;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Validators for a conditional GET: a weak ETag over everything the response depends on,
+ * and the time it last changed.
+ */
+public record ResourceVersion(String eTag, long lastModifiedMillis) {
+
+    public static ResourceVersion of(LocalDateTime lastModified, Object... parts) {
+        String joined = Arrays.stream(parts).map(Objects::toString).collect(Collectors.joining("|"));
+        String hash = DigestUtils.md5DigestAsHex(joined.getBytes(StandardCharsets.UTF_8));
+        long millis = lastModified == null ? -1 : lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return new ResourceVersion("W/\"" + hash + "\"", millis);
+    }
+}
@@ -0,0 +1,11 @@
+package com.finki.intellicard.record;
+
+import java.time.LocalDateTime;
+
+public record SyncCardRecord(
+        Long id,
+        Long cardSetId,
+        String term,
+        String definition,
+        LocalDateTime updatedAt) {
+}
@@ -0,0 +1,12 @@
+package com.finki.intellicard.record;
+
+import java.time.LocalDateTime;
+
+public record SyncCardSetRecord(
+        Long id,
+        String name,
+        Boolean isPublic,
+        Long creatorId,
+        String creatorName,
+        LocalDateTime lastModified) {
+}
@@ -0,0 +1,48 @@
+package com.finki.intellicard.record;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Where a client is in each sync stream: the (timestamp, id) of the last row it has
+ * received, so that the next page resumes right after it. Handed to clients as an opaque
+ * URL-safe string.
+ */
+public record SyncCursor(Position cardSets, Position cards, Position progress, Position deletions) {
+
+    public record Position(LocalDateTime after, long afterId) {
+    }
+
+    public static SyncCursor from(LocalDateTime origin) {
+        Position start = new Position(origin, 0);
+        return new SyncCursor(start, start, start, start);
+    }
+
+    public String encode() {
+        String text = String.join(",", format(cardSets), format(cards), format(progress), format(deletions));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SyncCursor decode(String token) {
+        try {
+            String[] positions = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(",");
+            if (positions.length != 4) {
+                throw new IllegalArgumentException("Invalid sync cursor");
+            }
+            return new SyncCursor(parse(positions[0]), parse(positions[1]), parse(positions[2]), parse(positions[3]));
+        } catch (DateTimeParseException | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid sync cursor", e);
+        }
+    }
+
+    private static String format(Position position) {
+        return position.after() + "|" + position.afterId();
+    }
+
+    private static Position parse(String text) {
+        String[] parts = text.split("\\|");
+        return new Position(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+    }
+}
@@ -0,0 +1,13 @@
+package com.finki.intellicard.record;
+
+import com.finki.intellicard.model.enums.SyncEntityType;
+
+import java.time.LocalDateTime;
+
+public record SyncDeletionRecord(
+        Long id,
+        SyncEntityType entityType,
+        Long entityId,
+        Long cardSetId,
+        LocalDateTime deletedAt) {
+}
@@ -0,0 +1,12 @@
+package com.finki.intellicard.record;
+
+import java.util.List;
+
+public record SyncPageRecord(
+        List<SyncCardSetRecord> cardSets,
+        List<SyncCardRecord> cards,
+        List<SyncProgressRecord> progress,
+        List<SyncDeletionRecord> deletions,
+        String cursor,
+        boolean hasMore) {
+}
@@ -0,0 +1,20 @@
+package com.finki.intellicard.record;
+
+import com.finki.intellicard.model.enums.CardStatus;
+
+import java.time.LocalDateTime;
+
+public record SyncProgressRecord(
+        Long id,
+        Long cardId,
+        Long cardSetId,
+        Integer timesReviewed,
+        Integer timesCorrect,
+        Integer consecutiveCorrect,
+        Double easeFactor,
+        Integer interval,
+        CardStatus status,
+        LocalDateTime lastReviewed,
+        LocalDateTime nextReviewDate,
+        LocalDateTime updatedAt) {
+}
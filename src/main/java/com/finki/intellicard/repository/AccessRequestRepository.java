@@ -12,7 +12,7 @@ import java.util.Optional;
 
 public interface AccessRequestRepository extends JpaRepository<AccessRequest, Long> {
 
-    @Query("SELECT r FROM AccessRequest r WHERE r.cardSet.id = :cardSetId AND r.status = :status")
+    @Query("SELECT r FROM AccessRequest r JOIN FETCH r.cardSet JOIN FETCH r.requester WHERE r.cardSet.id = :cardSetId AND r.status = :status")
     List<AccessRequest> findByCardSetIdAndStatus(@Param("cardSetId") Long cardSetId,
                                                  @Param("status") AccessRequestStatus status);
 
@@ -1,12 +1,70 @@
 package com.finki.intellicard.repository;
 
 import com.finki.intellicard.model.Card;
+import com.finki.intellicard.record.CardExportRecord;
+import com.finki.intellicard.record.SyncCardRecord;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface CardRepository extends JpaRepository<Card, Long> {
     List<Card> findByCardSetId(Long cardSetId);
+
+    int countByCardSetId(Long cardSetId);
+
+    @Query("SELECT new com.finki.intellicard.record.SyncCardRecord(c.id, c.cardSet.id, c.term, c.definition, c.updatedAt) " +
+            "FROM Card c WHERE c.cardSet.id IN :cardSetIds " +
+            "AND (c.updatedAt > :after OR (c.updatedAt = :after AND c.id > :afterId)) AND c.updatedAt <= :upTo " +
+            "ORDER BY c.updatedAt, c.id")
+    List<SyncCardRecord> findChangedSince(@Param("cardSetIds") Collection<Long> cardSetIds,
+                                          @Param("after") LocalDateTime after,
+                                          @Param("afterId") Long afterId,
+                                          @Param("upTo") LocalDateTime upTo,
+                                          Limit limit);
+
+    @Query("SELECT LOWER(c.term) FROM Card c WHERE c.cardSet.id = :cardSetId AND LOWER(c.term) IN :terms")
+    List<String> findExistingTerms(@Param("cardSetId") Long cardSetId, @Param("terms") Collection<String> terms);
+
+    /**
+     * Cards of a set in id order, with the given user's progress when {@code userId} is
+     * not null. Read through a forward-only cursor; must be consumed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.finki.intellicard.record.CardExportRecord(c.term, c.definition, " +
+            "ucp.timesReviewed, ucp.timesCorrect, ucp.consecutiveCorrect, ucp.easeFactor, ucp.interval, ucp.status, " +
+            "ucp.lastReviewed, ucp.nextReviewDate) " +
+            "FROM Card c LEFT JOIN UserCardProgress ucp ON ucp.card = c AND ucp.user.id = :userId " +
+            "WHERE c.cardSet.id = :cardSetId ORDER BY c.id")
+    Stream<CardExportRecord> streamForExport(@Param("cardSetId") Long cardSetId, @Param("userId") Long userId);
+
+    // One statement however large the set; naming the table keeps Hibernate from clearing every cache region
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "card"))
+    @Query(value = "INSERT INTO card (set_id, term, definition, created_at, updated_at) " +
+            "SELECT :targetId, term, definition, :now, :now FROM card WHERE set_id = :sourceId ORDER BY id",
+            nativeQuery = true)
+    int copyCards(@Param("sourceId") Long sourceId, @Param("targetId") Long targetId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM Card c WHERE c.cardSet.id = :cardSetId")
+    void deleteByCardSetId(@Param("cardSetId") Long cardSetId);
+
+    // One chunk of a background set deletion; pairs with UserCardProgressRepository.deleteFirstCardsProgress
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "card"))
+    @Query(value = "DELETE FROM card WHERE id IN " +
+            "(SELECT id FROM card WHERE set_id = :cardSetId ORDER BY id LIMIT :limit)", nativeQuery = true)
+    int deleteFirstCards(@Param("cardSetId") Long cardSetId, @Param("limit") int limit);
 }
\ No newline at end of file
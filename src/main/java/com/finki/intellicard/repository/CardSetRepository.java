@@ -1,12 +1,19 @@
 package com.finki.intellicard.repository;
 
 import com.finki.intellicard.record.CardSetRecord;
+import com.finki.intellicard.record.SyncCardSetRecord;
 import com.finki.intellicard.model.CardSet;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,14 +33,58 @@ public interface CardSetRepository extends JpaRepository<CardSet, Long> {
             "   ELSE 'PRIVATE' " +
             "END, " +
             "SIZE(c.cards)) " +
-            "FROM CardSet c")
+            "FROM CardSet c WHERE c.deletingAt IS NULL")
     List<CardSetRecord> findAllPublicAndAccessibleCardsets(@Param("currentUserId") Long currentUserId);
 
     @Query("SELECT c.creator.username FROM CardSet c WHERE c.id = :cardSetId")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<String> findOwnerUsernameByCardSetId(@Param("cardSetId") Long cardSetId);
 
+    @Query("SELECT CASE WHEN COUNT(u) > 0 THEN true ELSE false END " +
+            "FROM CardSet c JOIN c.approvedUsers u WHERE c.id = :cardSetId AND u.id = :userId")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    boolean isApprovedUser(@Param("cardSetId") Long cardSetId, @Param("userId") Long userId);
+
+    /**
+     * The set, unless it is being deleted in the background.
+     */
+    default Optional<CardSet> findActiveById(Long id) {
+        return findById(id).filter(cardSet -> cardSet.getDeletingAt() == null);
+    }
+
+    @Query("SELECT c.id FROM CardSet c WHERE c.deletingAt IS NOT NULL")
+    List<Long> findIdsBeingDeleted();
+
+    @Query("SELECT c.id FROM CardSet c WHERE c.creator.id = :userId AND c.deletingAt IS NULL")
+    List<Long> findIdsByCreatorId(@Param("userId") Long userId);
+
+    @Query("SELECT c.id FROM CardSet c JOIN c.approvedUsers u WHERE u.id = :userId AND c.deletingAt IS NULL")
+    List<Long> findIdsByApprovedUserId(@Param("userId") Long userId);
+
+    @Query("SELECT new com.finki.intellicard.record.SyncCardSetRecord(c.id, c.name, c.isPublic, c.creator.id, c.creator.username, c.lastModified) " +
+            "FROM CardSet c WHERE c.id IN :cardSetIds " +
+            "AND (c.lastModified > :after OR (c.lastModified = :after AND c.id > :afterId)) AND c.lastModified <= :upTo " +
+            "ORDER BY c.lastModified, c.id")
+    List<SyncCardSetRecord> findChangedSince(@Param("cardSetIds") Collection<Long> cardSetIds,
+                                             @Param("after") LocalDateTime after,
+                                             @Param("afterId") Long afterId,
+                                             @Param("upTo") LocalDateTime upTo,
+                                             Limit limit);
+
+    // Naming the table keeps Hibernate from clearing every cache region after this native insert
     @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "accessible_sets"))
     @Query(value = "INSERT INTO accessible_sets (set_id, user_id) VALUES (?1, ?2)", nativeQuery = true)
     void addApprovedUser(Long cardSetId, Long userId);
 
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "accessible_sets"))
+    @Query(value = "DELETE FROM accessible_sets WHERE set_id = ?1", nativeQuery = true)
+    void removeApprovedUsers(Long cardSetId);
+
+    // Hibernate clears the set's accessible_sets rows before deleting the row itself
+    @Modifying
+    @Query("DELETE FROM CardSet cs WHERE cs.id = :id")
+    void deleteCardSetById(@Param("id") Long id);
+
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.finki.intellicard.repository;
+
+import com.finki.intellicard.model.ReviewEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ReviewEventRepository extends JpaRepository<ReviewEvent, Long> {
+
+    List<ReviewEvent> findByUserIdOrderByReviewedAtAscIdAsc(Long userId);
+}
@@ -0,0 +1,59 @@
+package com.finki.intellicard.repository;
+
+import com.finki.intellicard.model.Tombstone;
+import com.finki.intellicard.record.SyncDeletionRecord;
+import org.springframework.data.domain.Limit;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface TombstoneRepository extends JpaRepository<Tombstone, Long> {
+
+    @Query("SELECT new com.finki.intellicard.record.SyncDeletionRecord(t.id, t.entityType, t.entityId, t.cardSetId, t.deletedAt) " +
+            "FROM Tombstone t WHERE (t.userId = :userId OR (t.userId IS NULL AND t.cardSetId IN :cardSetIds)) " +
+            "AND (t.deletedAt > :after OR (t.deletedAt = :after AND t.id > :afterId)) AND t.deletedAt <= :upTo " +
+            "ORDER BY t.deletedAt, t.id")
+    List<SyncDeletionRecord> findChangedSince(@Param("userId") Long userId,
+                                              @Param("cardSetIds") Collection<Long> cardSetIds,
+                                              @Param("after") LocalDateTime after,
+                                              @Param("afterId") Long afterId,
+                                              @Param("upTo") LocalDateTime upTo,
+                                              Limit limit);
+
+    /**
+     * One tombstone per user who may have the set on a device: the owner, approved users and
+     * anyone with progress in it. Must run before those rows are deleted.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "tombstone"))
+    @Query(value = "INSERT INTO tombstone (entity_type, entity_id, card_set_id, user_id, deleted_at) " +
+            "SELECT 'CARD_SET', :cardSetId, :cardSetId, recipient.user_id, :deletedAt FROM (" +
+            "SELECT creator_id AS user_id FROM card_set WHERE id = :cardSetId " +
+            "UNION SELECT user_id FROM accessible_sets WHERE set_id = :cardSetId " +
+            "UNION SELECT ucp.user_id FROM user_card_progress ucp JOIN card c ON c.id = ucp.card_id " +
+            "WHERE c.set_id = :cardSetId) recipient", nativeQuery = true)
+    void insertCardSetTombstones(@Param("cardSetId") Long cardSetId, @Param("deletedAt") LocalDateTime deletedAt);
+
+    /**
+     * One tombstone per user who studied the set only because it was public: everyone with
+     * progress in it except the owner and approved users. Call when the set turns private.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "tombstone"))
+    @Query(value = "INSERT INTO tombstone (entity_type, entity_id, card_set_id, user_id, deleted_at) " +
+            "SELECT 'CARD_SET', :cardSetId, :cardSetId, recipient.user_id, :deletedAt FROM (" +
+            "SELECT DISTINCT ucp.user_id FROM user_card_progress ucp JOIN card c ON c.id = ucp.card_id " +
+            "WHERE c.set_id = :cardSetId " +
+            "AND ucp.user_id <> (SELECT creator_id FROM card_set WHERE id = :cardSetId) " +
+            "AND ucp.user_id NOT IN (SELECT user_id FROM accessible_sets WHERE set_id = :cardSetId)) recipient",
+            nativeQuery = true)
+    void insertLostAccessTombstones(@Param("cardSetId") Long cardSetId, @Param("deletedAt") LocalDateTime deletedAt);
+}
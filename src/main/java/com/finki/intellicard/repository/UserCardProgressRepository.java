@@ -2,13 +2,19 @@ package com.finki.intellicard.repository;
 
 import com.finki.intellicard.model.UserCardProgress;
 import com.finki.intellicard.model.enums.CardStatus;
+import com.finki.intellicard.record.SyncProgressRecord;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,7 +25,7 @@ public interface UserCardProgressRepository extends JpaRepository<UserCardProgre
 
     List<UserCardProgress> findByUserIdAndCard_CardSet_Id(Long userId, Long cardSetId);
 
-    @Query("SELECT ucp FROM UserCardProgress ucp WHERE ucp.user.id = :userId AND ucp.card.cardSet.id = :cardSetId AND ucp.nextReviewDate <= :now")
+    @Query("SELECT ucp FROM UserCardProgress ucp JOIN FETCH ucp.card c WHERE ucp.user.id = :userId AND c.cardSet.id = :cardSetId AND ucp.nextReviewDate <= :now")
     List<UserCardProgress> findDueCardsForUser(@Param("userId") Long userId, @Param("cardSetId") Long cardSetId, @Param("now") LocalDateTime now);
 
     @Query("SELECT COUNT(ucp) FROM UserCardProgress ucp WHERE ucp.user.id = :userId AND ucp.card.cardSet.id = :cardSetId AND ucp.nextReviewDate <= :now")
@@ -28,9 +34,41 @@ public interface UserCardProgressRepository extends JpaRepository<UserCardProgre
     @Query("SELECT COUNT(ucp) FROM UserCardProgress ucp WHERE ucp.user.id = :userId AND ucp.card.cardSet.id = :cardSetId AND ucp.status = :status")
     int countCardsByStatusForUser(@Param("userId") Long userId, @Param("cardSetId") Long cardSetId, @Param("status") CardStatus status);
 
+    @Query("SELECT MAX(ucp.updatedAt) FROM UserCardProgress ucp WHERE ucp.user.id = :userId AND ucp.card.cardSet.id = :cardSetId")
+    Optional<LocalDateTime> findLastProgressUpdate(@Param("userId") Long userId, @Param("cardSetId") Long cardSetId);
+
+    List<UserCardProgress> findByUserIdAndCardIdIn(Long userId, Collection<Long> cardIds);
+
+    @Query("SELECT DISTINCT ucp.card.cardSet.id FROM UserCardProgress ucp " +
+            "WHERE ucp.user.id = :userId AND ucp.card.cardSet.isPublic = true")
+    List<Long> findPublicCardSetIdsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT new com.finki.intellicard.record.SyncProgressRecord(ucp.id, ucp.card.id, ucp.card.cardSet.id, " +
+            "ucp.timesReviewed, ucp.timesCorrect, ucp.consecutiveCorrect, ucp.easeFactor, ucp.interval, ucp.status, " +
+            "ucp.lastReviewed, ucp.nextReviewDate, ucp.updatedAt) " +
+            "FROM UserCardProgress ucp WHERE ucp.user.id = :userId " +
+            "AND (ucp.updatedAt > :after OR (ucp.updatedAt = :after AND ucp.id > :afterId)) AND ucp.updatedAt <= :upTo " +
+            "ORDER BY ucp.updatedAt, ucp.id")
+    List<SyncProgressRecord> findChangedSince(@Param("userId") Long userId,
+                                              @Param("after") LocalDateTime after,
+                                              @Param("afterId") Long afterId,
+                                              @Param("upTo") LocalDateTime upTo,
+                                              Limit limit);
+
     @Query("SELECT COUNT(c) FROM Card c WHERE c.cardSet.id = :cardSetId")
     int countTotalCardsInSet(@Param("cardSetId") Long cardSetId);
 
     @Modifying
     @Query("DELETE FROM UserCardProgress ucp WHERE ucp.card.id = :cardId")
-    void deleteByCardId(@Param("cardId") Long cardId);}
\ No newline at end of file
+    void deleteByCardId(@Param("cardId") Long cardId);
+
+    @Modifying
+    @Query("DELETE FROM UserCardProgress ucp WHERE ucp.card.id IN (SELECT c.id FROM Card c WHERE c.cardSet.id = :cardSetId)")
+    void deleteByCardSetId(@Param("cardSetId") Long cardSetId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_card_progress"))
+    @Query(value = "DELETE FROM user_card_progress WHERE card_id IN " +
+            "(SELECT id FROM card WHERE set_id = :cardSetId ORDER BY id LIMIT :limit)", nativeQuery = true)
+    void deleteFirstCardsProgress(@Param("cardSetId") Long cardSetId, @Param("limit") int limit);
+}
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.finki.intellicard.repository;
+
+import com.finki.intellicard.model.UserDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface UserDailyStatsRepository extends JpaRepository<UserDailyStats, UserDailyStats.Key> {
+
+    @Query("SELECT s FROM UserDailyStats s WHERE s.userId = :userId AND s.reviewDate >= :from ORDER BY s.reviewDate")
+    List<UserDailyStats> findFrom(@Param("userId") Long userId, @Param("from") LocalDate from);
+
+    @Query("SELECT MAX(s.streak) FROM UserDailyStats s WHERE s.userId = :userId")
+    Integer findLongestStreak(@Param("userId") Long userId);
+}
@@ -2,18 +2,23 @@ package com.finki.intellicard.repository;
 
 import com.finki.intellicard.model.User;
 import com.finki.intellicard.record.UserRecord;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
 
     boolean existsByUsername(String username);
 
     @Query("SELECT u.id FROM Users u where u.username = :username")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Long getUserIdByUsername(@Param("username") String username);
 
     @Query("SELECT new com.finki.intellicard.record.UserRecord(u.id, u.fullName, u.username) " +
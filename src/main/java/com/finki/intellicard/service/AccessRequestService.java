@@ -1,7 +1,6 @@
 package com.finki.intellicard.service;
 
 import com.finki.intellicard.exceptions.*;
-import jakarta.transaction.Transactional;
 import com.finki.intellicard.model.AccessRequest;
 import com.finki.intellicard.model.CardSet;
 import com.finki.intellicard.model.User;
@@ -14,7 +13,9 @@ import com.finki.intellicard.repository.CardSetRepository;
 import com.finki.intellicard.repository.UserRepository;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -26,88 +27,101 @@ public class AccessRequestService {
     private final CardSetRepository cardSetRepository;
     private final UserRepository userRepository;
     private final MyUserDetailsService myUserDetailsService;
+    private final SecondLevelCacheEvictor secondLevelCacheEvictor;
+    private final SingleWriterExecutor singleWriterExecutor;
 
     public AccessRequestService(AccessRequestRepository accessRequestRepository,
                                 CardSetRepository cardSetRepository,
                                 UserRepository userRepository,
-                                MyUserDetailsService myUserDetailsService) {
+                                MyUserDetailsService myUserDetailsService,
+                                SecondLevelCacheEvictor secondLevelCacheEvictor,
+                                SingleWriterExecutor singleWriterExecutor) {
         this.accessRequestRepository = accessRequestRepository;
         this.cardSetRepository = cardSetRepository;
         this.userRepository = userRepository;
         this.myUserDetailsService = myUserDetailsService;
+        this.secondLevelCacheEvictor = secondLevelCacheEvictor;
+        this.singleWriterExecutor = singleWriterExecutor;
     }
 
     public Response requestAccess(Long cardSetId) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        return singleWriterExecutor.execute(() -> {
+            String username = SecurityContextHolder.getContext().getAuthentication().getName();
 
-        UserRecord requester = userRepository.findUserRecordByUsername(username)
-                .orElseThrow(() -> new UserNotFoundException("User not found"));
+            UserRecord requester = userRepository.findUserRecordByUsername(username)
+                    .orElseThrow(() -> new UserNotFoundException("User not found"));
 
-        User user = new User();
-        user.setId(requester.id());
+            User user = new User();
+            user.setId(requester.id());
 
-        CardSet cardSet = cardSetRepository.findById(cardSetId)
-                .orElseThrow(() -> new CardSetNotFoundException("Card set not found"));
+            CardSet cardSet = cardSetRepository.findActiveById(cardSetId)
+                    .orElseThrow(() -> new CardSetNotFoundException("Card set not found"));
 
-        if (cardSet.getCreator().getId().equals(requester.id())) {
-            return new Response("message", "You are the creator of this card set.");
-        }
-
-        if (cardSet.getApprovedUsers().stream().anyMatch(u -> u.getId().equals(requester.id()))) {
-            return new Response("message", "You already have access to this card set.");
-        }
+            if (cardSet.getCreator().getId().equals(requester.id())) {
+                return new Response("message", "You are the creator of this card set.");
+            }
 
-        Optional<AccessRequest> existingRequest = accessRequestRepository
-                .findByCardSetIdAndRequesterId(cardSetId, requester.id());
+            if (cardSetRepository.isApprovedUser(cardSetId, requester.id())) {
+                return new Response("message", "You already have access to this card set.");
+            }
 
-        if (existingRequest.isPresent()) {
-            AccessRequest request = existingRequest.get();
-            if (request.getStatus() == AccessRequestStatus.PENDING) {
-                return new Response("message", "You already have a pending request for this card set.");
-            } else if (request.getStatus() == AccessRequestStatus.REJECTED) {
-                request.setStatus(AccessRequestStatus.PENDING);
-                accessRequestRepository.save(request);
-                return new Response("message", "Request sent successfully!");
+            Optional<AccessRequest> existingRequest = accessRequestRepository
+                    .findByCardSetIdAndRequesterId(cardSetId, requester.id());
+
+            if (existingRequest.isPresent()) {
+                AccessRequest request = existingRequest.get();
+                if (request.getStatus() == AccessRequestStatus.PENDING) {
+                    return new Response("message", "You already have a pending request for this card set.");
+                } else if (request.getStatus() == AccessRequestStatus.REJECTED) {
+                    request.setStatus(AccessRequestStatus.PENDING);
+                    accessRequestRepository.save(request);
+                    return new Response("message", "Request sent successfully!");
+                }
             }
-        }
 
-        AccessRequest request = new AccessRequest();
-        request.setRequester(user);
-        request.setCardSet(cardSet);
-        request.setStatus(AccessRequestStatus.PENDING);
-        accessRequestRepository.save(request);
+            AccessRequest request = new AccessRequest();
+            request.setRequester(user);
+            request.setCardSet(cardSet);
+            request.setStatus(AccessRequestStatus.PENDING);
+            accessRequestRepository.save(request);
 
-        return new Response("message", "Request sent successfully!");
+            return new Response("message", "Request sent successfully!");
+        });
     }
 
-    @Transactional
     public Response respondToRequest(Long cardSetId, Long requestId, boolean approve) {
-        AccessRequest request = accessRequestRepository.findById(requestId)
-                .orElseThrow(() -> new UnauthorizedAccessException("Access request not found"));
+        return singleWriterExecutor.execute(() -> {
+            AccessRequest request = accessRequestRepository.findById(requestId)
+                    .orElseThrow(() -> new UnauthorizedAccessException("Access request not found"));
 
-        if (!request.getCardSet().getId().equals(cardSetId)) {
-            throw new CardSetNotFoundException("Invalid cardSetId for the given request");
-        }
+            if (!request.getCardSet().getId().equals(cardSetId)) {
+                throw new CardSetNotFoundException("Invalid cardSetId for the given request");
+            }
 
-        String username = myUserDetailsService.getUsername();
-        Long requesterId = myUserDetailsService.getUserIdByUsername(username);
+            String username = myUserDetailsService.getUsername();
+            Long requesterId = myUserDetailsService.getUserIdByUsername(username);
 
-        if (!request.getCardSet().getCreator().getId().equals(requesterId)) {
-            throw new UnauthorizedAccessException("You are not authorized to respond to this request");
-        }
+            if (!request.getCardSet().getCreator().getId().equals(requesterId)) {
+                throw new UnauthorizedAccessException("You are not authorized to respond to this request");
+            }
 
-        if (approve) {
-            request.setStatus(AccessRequestStatus.APPROVED);
-            cardSetRepository.addApprovedUser(cardSetId, request.getRequester().getId());
-            accessRequestRepository.delete(request);
-        } else {
-            request.setStatus(AccessRequestStatus.REJECTED);
-            accessRequestRepository.save(request);
-        }
+            if (approve) {
+                request.setStatus(AccessRequestStatus.APPROVED);
+                cardSetRepository.addApprovedUser(cardSetId, request.getRequester().getId());
+                secondLevelCacheEvictor.evictApprovedUsers(cardSetId);
+                // Brings the set into the new reader's next sync
+                request.getCardSet().setLastModified(LocalDateTime.now());
+                accessRequestRepository.delete(request);
+            } else {
+                request.setStatus(AccessRequestStatus.REJECTED);
+                accessRequestRepository.save(request);
+            }
 
-        return new Response("message", "Request has been " + (approve ? "approved" : "rejected"));
+            return new Response("message", "Request has been " + (approve ? "approved" : "rejected"));
+        });
     }
 
+    @Transactional(readOnly = true)
     public List<AccessRequestRecord> getPendingRequests(Long cardsetId) {
         String creatorUsername = cardSetRepository.findOwnerUsernameByCardSetId(cardsetId)
                 .orElseThrow(() -> new CardNotFoundException("Card Set not found"));
@@ -135,17 +149,19 @@ public class AccessRequestService {
     }
 
     public Response revokeMyRequest(Long cardSetId) {
-        String username = myUserDetailsService.getUsername();
-        Long currentUserId = myUserDetailsService.getUserIdByUsername(username);
-
-        Optional<AccessRequest> request = accessRequestRepository
-                .findByCardSetIdAndRequesterId(cardSetId, currentUserId);
-
-        if (request.isPresent()) {
-            accessRequestRepository.delete(request.get());
-            return new Response("message", "Access request revoked successfully");
-        } else {
-            throw new AccessRequestNotFoundException("No pending request found");
-        }
+        return singleWriterExecutor.execute(() -> {
+            String username = myUserDetailsService.getUsername();
+            Long currentUserId = myUserDetailsService.getUserIdByUsername(username);
+
+            Optional<AccessRequest> request = accessRequestRepository
+                    .findByCardSetIdAndRequesterId(cardSetId, currentUserId);
+
+            if (request.isPresent()) {
+                accessRequestRepository.delete(request.get());
+                return new Response("message", "Access request revoked successfully");
+            } else {
+                throw new AccessRequestNotFoundException("No pending request found");
+            }
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,230 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.exceptions.AiProviderUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs calls to the AI provider with jittered exponential retries and a circuit breaker.
+ * Rate limiting (429) and server errors (5xx) are retried, honoring the provider's
+ * Retry-After header, as long as the overall deadline leaves room for another attempt to
+ * run to its read timeout. Consecutive failures open the circuit so that further calls
+ * fail fast until a trial call succeeds. Other 4xx responses are the caller's fault and
+ * neither close nor open the circuit.
+ */
+@Service
+public class AiCallExecutor implements HealthIndicator {
+
+    public enum CircuitState { CLOSED, OPEN, HALF_OPEN }
+
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(429, 500, 502, 503, 504);
+
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration totalDeadline;
+    private final Duration attemptTimeout;
+    private final int failureThreshold;
+    private final Duration openDuration;
+
+    private final Counter retries;
+    private final Counter rejectedByCircuit;
+
+    private CircuitState state = CircuitState.CLOSED;
+    private int consecutiveFailures;
+    private Instant openedAt;
+    private boolean trialInFlight;
+
+    public AiCallExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${openai.retry.max-attempts:4}") int maxAttempts,
+            @Value("${openai.retry.initial-backoff:500ms}") Duration initialBackoff,
+            @Value("${openai.retry.max-backoff:20s}") Duration maxBackoff,
+            @Value("${openai.retry.total-deadline:120s}") Duration totalDeadline,
+            @Value("${openai.timeout.connect:5s}") Duration connectTimeout,
+            @Value("${openai.timeout.read:60s}") Duration readTimeout,
+            @Value("${openai.circuit.failure-threshold:5}") int failureThreshold,
+            @Value("${openai.circuit.open-duration:30s}") Duration openDuration) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.totalDeadline = totalDeadline;
+        this.attemptTimeout = connectTimeout.plus(readTimeout);
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+
+        this.retries = Counter.builder("intellicard.ai.retries")
+                .description("AI provider calls retried after a retryable failure")
+                .register(meterRegistry);
+        this.rejectedByCircuit = Counter.builder("intellicard.ai.circuit.rejected")
+                .description("AI provider calls rejected because the circuit was open")
+                .register(meterRegistry);
+        Gauge.builder("intellicard.ai.circuit.state", this, executor -> executor.getState().ordinal())
+                .description("AI provider circuit state (0=closed, 1=open, 2=half-open)")
+                .register(meterRegistry);
+    }
+
+    public <T> T execute(Supplier<T> call) {
+        Instant deadline = Instant.now().plus(totalDeadline);
+
+        for (int attempt = 1; ; attempt++) {
+            acquireCircuitPermission();
+
+            Duration retryAfter;
+            RuntimeException failure;
+            try {
+                T result = call.get();
+                onSuccess();
+                return result;
+            } catch (HttpStatusCodeException e) {
+                if (!RETRYABLE_STATUSES.contains(e.getStatusCode().value())) {
+                    onRejectedRequest();
+                    throw e;
+                }
+                onFailure();
+                retryAfter = parseRetryAfter(e.getResponseHeaders());
+                failure = e;
+            } catch (ResourceAccessException e) {
+                onFailure();
+                retryAfter = null;
+                failure = e;
+            }
+
+            Duration backoff = backoffFor(attempt, retryAfter);
+            // Only retry if the next attempt could still run to its timeout within the deadline
+            if (attempt >= maxAttempts || Instant.now().plus(backoff).plus(attemptTimeout).isAfter(deadline)) {
+                long retryAfterSeconds = Math.max(1, retryAfter != null ? retryAfter.toSeconds() : backoff.toSeconds());
+                throw new AiProviderUnavailableException(
+                        "AI provider unavailable after " + attempt + " attempt(s): " + failure.getMessage(),
+                        retryAfterSeconds, failure);
+            }
+
+            retries.increment();
+            sleep(backoff);
+        }
+    }
+
+    public synchronized CircuitState getState() {
+        if (state == CircuitState.OPEN && openDurationElapsed()) {
+            return CircuitState.HALF_OPEN;
+        }
+        return state;
+    }
+
+    @Override
+    public Health health() {
+        CircuitState current = getState();
+        return (current == CircuitState.OPEN ? Health.down() : Health.up())
+                .withDetail("circuit", current)
+                .withDetail("consecutiveFailures", currentFailures())
+                .build();
+    }
+
+    private synchronized int currentFailures() {
+        return consecutiveFailures;
+    }
+
+    private synchronized void acquireCircuitPermission() {
+        if (state == CircuitState.OPEN) {
+            if (!openDurationElapsed()) {
+                rejectedByCircuit.increment();
+                throw new AiProviderUnavailableException("AI provider circuit is open", secondsUntilHalfOpen());
+            }
+            state = CircuitState.HALF_OPEN;
+            trialInFlight = false;
+        }
+
+        if (state == CircuitState.HALF_OPEN) {
+            if (trialInFlight) {
+                rejectedByCircuit.increment();
+                throw new AiProviderUnavailableException("AI provider circuit is half-open", 1);
+            }
+            trialInFlight = true;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        state = CircuitState.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    // The provider answered, but refused this request: says nothing about its health
+    private synchronized void onRejectedRequest() {
+        trialInFlight = false;
+    }
+
+    private synchronized void onFailure() {
+        consecutiveFailures++;
+        trialInFlight = false;
+        if (state == CircuitState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = CircuitState.OPEN;
+            openedAt = Instant.now();
+        }
+    }
+
+    private boolean openDurationElapsed() {
+        return openedAt == null || !Instant.now().isBefore(openedAt.plus(openDuration));
+    }
+
+    private long secondsUntilHalfOpen() {
+        long remaining = Duration.between(Instant.now(), openedAt.plus(openDuration)).toSeconds();
+        return Math.max(1, remaining);
+    }
+
+    /**
+     * Full-jitter exponential backoff, but never shorter than what the provider asked for.
+     */
+    private Duration backoffFor(int attempt, Duration retryAfter) {
+        long ceiling = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt - 1, 20));
+        Duration jittered = Duration.ofMillis(ThreadLocalRandom.current().nextLong(0, ceiling + 1));
+        if (retryAfter != null && retryAfter.compareTo(jittered) > 0) {
+            return retryAfter;
+        }
+        return jittered;
+    }
+
+    private Duration parseRetryAfter(HttpHeaders headers) {
+        String value = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException ignored) {
+        }
+        try {
+            ZonedDateTime retryAt = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            Duration delay = Duration.between(Instant.now(), retryAt.toInstant());
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private void sleep(Duration backoff) {
+        try {
+            Thread.sleep(backoff.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AiProviderUnavailableException("Interrupted while waiting to retry the AI provider", 1, e);
+        }
+    }
+}
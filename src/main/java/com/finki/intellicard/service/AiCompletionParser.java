@@ -0,0 +1,229 @@
+package com.finki.intellicard.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.finki.intellicard.record.AiCompletion;
+import com.finki.intellicard.record.GeneratedCardDto;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser for chat-completion responses. The envelope is read token by token
+ * straight from the response body, and the cards embedded in the message content are
+ * read with a second streaming pass, so no intermediate maps, trees or substrings of
+ * the response are built.
+ */
+@Component
+public class AiCompletionParser {
+
+    private final JsonFactory jsonFactory;
+
+    public AiCompletionParser() {
+        this.jsonFactory = JsonFactory.builder()
+                .enable(JsonReadFeature.ALLOW_TRAILING_COMMA)
+                .build();
+    }
+
+    public AiCompletion readCompletion(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "AI response is not a JSON object");
+            }
+
+            String model = null;
+            String content = null;
+            Integer promptTokens = null;
+            Integer completionTokens = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                switch (field) {
+                    case "model" -> model = parser.getValueAsString();
+                    case "generated_text" -> {
+                        if (content == null) {
+                            content = parser.getValueAsString();
+                        }
+                    }
+                    case "choices" -> {
+                        String choiceContent = readFirstChoiceContent(parser, value);
+                        if (choiceContent != null) {
+                            content = choiceContent;
+                        }
+                    }
+                    case "usage" -> {
+                        if (value == JsonToken.START_OBJECT) {
+                            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                                String usageField = parser.currentName();
+                                parser.nextToken();
+                                if ("prompt_tokens".equals(usageField)) {
+                                    promptTokens = parser.getValueAsInt();
+                                } else if ("completion_tokens".equals(usageField)) {
+                                    completionTokens = parser.getValueAsInt();
+                                } else {
+                                    parser.skipChildren();
+                                }
+                            }
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+
+            return new AiCompletion(model, content, promptTokens, completionTokens);
+        }
+    }
+
+    /**
+     * Reads the flashcards from message content. The first JSON array (or object, for a
+     * single card) in the text is parsed in place; any prose or markdown around it is ignored.
+     */
+    public List<GeneratedCardDto> readCards(String content) throws IOException {
+        int start = jsonStart(content);
+        if (start < 0) {
+            return List.of();
+        }
+
+        StringReader reader = new StringReader(content);
+        reader.skip(start);
+
+        try (JsonParser parser = jsonFactory.createParser(reader)) {
+            JsonToken first = parser.nextToken();
+            List<GeneratedCardDto> cards = new ArrayList<>();
+
+            if (first == JsonToken.START_OBJECT) {
+                addIfValid(cards, readCard(parser));
+            } else if (first == JsonToken.START_ARRAY) {
+                JsonToken token;
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                    if (token == JsonToken.START_OBJECT) {
+                        addIfValid(cards, readCard(parser));
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                throw new JsonParseException(parser, "Response is not a valid JSON array or object");
+            }
+            return cards;
+        }
+    }
+
+    private String readFirstChoiceContent(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+
+        String content = null;
+        boolean first = true;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (!first || token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            first = false;
+
+            String text = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken fieldValue = parser.nextToken();
+                if ("message".equals(field) && fieldValue == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String messageField = parser.currentName();
+                        parser.nextToken();
+                        if ("content".equals(messageField)) {
+                            content = parser.getValueAsString();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else if ("text".equals(field)) {
+                    text = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (content == null) {
+                content = text;
+            }
+        }
+        return content;
+    }
+
+    /**
+     * Reads one card object, keeping the lenient aliases: term/question/text for the
+     * front and definition/answer/explanation for the back, in that order of preference.
+     */
+    private GeneratedCardDto readCard(JsonParser parser) throws IOException {
+        String term = null;
+        String question = null;
+        String text = null;
+        String definition = null;
+        String answer = null;
+        String explanation = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value.isStructStart()) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case "term" -> term = parser.getValueAsString();
+                case "question" -> question = parser.getValueAsString();
+                case "text" -> text = parser.getValueAsString();
+                case "definition" -> definition = parser.getValueAsString();
+                case "answer" -> answer = parser.getValueAsString();
+                case "explanation" -> explanation = parser.getValueAsString();
+                default -> {
+                }
+            }
+        }
+
+        return new GeneratedCardDto(
+                firstNonNull(term, question, text),
+                firstNonNull(definition, answer, explanation));
+    }
+
+    private void addIfValid(List<GeneratedCardDto> cards, GeneratedCardDto card) {
+        String term = card.term();
+        String definition = card.definition();
+        if (term == null || term.trim().isEmpty() || definition == null || definition.trim().length() < 10) {
+            return;
+        }
+        cards.add(new GeneratedCardDto(term.trim(), definition.trim()));
+    }
+
+    private int jsonStart(String content) {
+        if (content == null) {
+            return -1;
+        }
+        int arrayStart = content.indexOf('[');
+        if (arrayStart >= 0 && content.indexOf(']', arrayStart) > arrayStart) {
+            return arrayStart;
+        }
+        int objectStart = content.indexOf('{');
+        if (objectStart >= 0 && content.indexOf('}', objectStart) > objectStart) {
+            return objectStart;
+        }
+        return -1;
+    }
+
+    private static String firstNonNull(String first, String second, String third) {
+        return first != null ? first : second != null ? second : third;
+    }
+}
@@ -0,0 +1,188 @@
+package com.finki.intellicard.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finki.intellicard.exceptions.CardSetNotFoundException;
+import com.finki.intellicard.exceptions.UnauthorizedAccessException;
+import com.finki.intellicard.model.CardSet;
+import com.finki.intellicard.model.enums.CardExportFormat;
+import com.finki.intellicard.record.CardExportRecord;
+import com.finki.intellicard.record.CardSetExport;
+import com.finki.intellicard.repository.CardRepository;
+import com.finki.intellicard.repository.CardSetRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams a card set to the client. Access is checked while the request is still being
+ * handled; the rows are then read through a forward-only cursor and written straight to
+ * the response, so a set is never held in memory whatever its size. The CSV layout is the
+ * one {@link CardImportService} reads, so an export can be imported into another set.
+ */
+@Service
+public class CardExportService {
+
+    private static final List<String> CARD_COLUMNS = List.of("term", "definition");
+    private static final List<String> PROGRESS_COLUMNS = List.of("times_reviewed", "times_correct",
+            "consecutive_correct", "ease_factor", "interval", "status", "last_reviewed", "next_review_date");
+
+    private final CardSetRepository cardSetRepository;
+    private final CardRepository cardRepository;
+    private final MyUserDetailsService myUserDetailsService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public CardExportService(CardSetRepository cardSetRepository,
+                             CardRepository cardRepository,
+                             MyUserDetailsService myUserDetailsService,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.cardSetRepository = cardSetRepository;
+        this.cardRepository = cardRepository;
+        this.myUserDetailsService = myUserDetailsService;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Transactional(readOnly = true)
+    public CardSetExport exportCardSet(Long cardSetId, CardExportFormat format, boolean includeProgress) {
+        CardSet cardSet = cardSetRepository.findActiveById(cardSetId)
+                .orElseThrow(() -> new CardSetNotFoundException("CardSet not found"));
+
+        Long currentUserId = myUserDetailsService.getUserIdByUsername(myUserDetailsService.getUsername());
+        verifyCardSetAccess(cardSet, currentUserId);
+
+        // The body runs after this method has returned, on another thread
+        Long progressUserId = includeProgress ? currentUserId : null;
+        Map<String, Object> manifest = new LinkedHashMap<>();
+        manifest.put("name", cardSet.getName());
+        manifest.put("isPublic", cardSet.isPublic());
+        manifest.put("includesProgress", includeProgress);
+        manifest.put("exportedAt", LocalDateTime.now());
+
+        String fileName = fileName(cardSet.getName());
+        return switch (format) {
+            case CSV -> new CardSetExport(fileName + ".csv", out -> {
+                Writer writer = writer(out);
+                writeRows(cardSetId, progressUserId, rows -> writeCsv(writer, rows, includeProgress));
+                writer.flush();
+            });
+            case JSONL -> new CardSetExport(fileName + ".jsonl", out -> {
+                Writer writer = writer(out);
+                writeRows(cardSetId, progressUserId, rows -> writeJsonLines(writer, rows));
+                writer.flush();
+            });
+            case ZIP -> new CardSetExport(fileName + ".zip", out -> {
+                ZipOutputStream zip = new ZipOutputStream(out);
+                zip.putNextEntry(new ZipEntry("cardset.json"));
+                zip.write(objectMapper.writeValueAsBytes(manifest));
+                zip.closeEntry();
+
+                zip.putNextEntry(new ZipEntry("cards.csv"));
+                Writer writer = writer(zip);
+                writeRows(cardSetId, progressUserId, rows -> writeCsv(writer, rows, includeProgress));
+                writer.flush();
+                zip.closeEntry();
+                zip.finish();
+            });
+        };
+    }
+
+    private void writeRows(Long cardSetId, Long progressUserId, RowWriter rowWriter) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<CardExportRecord> rows = cardRepository.streamForExport(cardSetId, progressUserId)) {
+                rowWriter.write(rows.iterator());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static void writeCsv(Writer writer, Iterator<CardExportRecord> rows, boolean includeProgress) throws IOException {
+        List<String> header = new ArrayList<>(CARD_COLUMNS);
+        if (includeProgress) {
+            header.addAll(PROGRESS_COLUMNS);
+        }
+        writeCsvLine(writer, header);
+
+        while (rows.hasNext()) {
+            CardExportRecord row = rows.next();
+            List<String> values = new ArrayList<>(List.of(row.term(), row.definition()));
+            if (includeProgress) {
+                for (Object value : new Object[]{row.timesReviewed(), row.timesCorrect(), row.consecutiveCorrect(),
+                        row.easeFactor(), row.interval(), row.status(), row.lastReviewed(), row.nextReviewDate()}) {
+                    values.add(Objects.toString(value, ""));
+                }
+            }
+            writeCsvLine(writer, values);
+        }
+    }
+
+    private void writeJsonLines(Writer writer, Iterator<CardExportRecord> rows) throws IOException {
+        while (rows.hasNext()) {
+            writer.write(objectMapper.writeValueAsString(rows.next()));
+            writer.write('\n');
+        }
+    }
+
+    private static void writeCsvLine(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values.get(i) == null ? "" : values.get(i);
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static Writer writer(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    private static String fileName(String cardSetName) {
+        String name = cardSetName == null ? "" : cardSetName.replaceAll("[^\\p{L}\\p{N} _-]", "").trim();
+        return name.isEmpty() ? "cardset" : name;
+    }
+
+    private void verifyCardSetAccess(CardSet cardSet, Long currentUserId) {
+        boolean hasAccess = cardSet.getCreator().getId().equals(currentUserId) ||
+                cardSet.isPublic() ||
+                cardSetRepository.isApprovedUser(cardSet.getId(), currentUserId);
+
+        if (!hasAccess) {
+            throw new UnauthorizedAccessException("You are not authorized to access this card set");
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(Iterator<CardExportRecord> rows) throws IOException;
+    }
+}
@@ -0,0 +1,234 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.model.enums.CardImportFormat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads a delimited card file one record at a time. Fields may be quoted ({@code "a, b"},
+ * with {@code ""} for a literal quote) and quoted fields may span lines. Fields and field
+ * counts are capped, so even a malformed file (say, an unbalanced quote) is read in
+ * bounded memory. Anki plain-text exports start with {@code #key:value} lines naming the
+ * separator, whether fields are HTML, and which columns hold the guid, note type, deck
+ * or tags; those columns are skipped.
+ */
+class CardFileReader implements Closeable {
+
+    record Row(long line, List<String> fields, boolean truncated, boolean unterminated) {
+    }
+
+    static final int MAX_FIELD_LENGTH = 4096;
+    private static final int MAX_FIELDS = 64;
+    private static final int EOF = -1;
+    private static final int NONE = -2;
+
+    private static final Pattern COLUMN_DIRECTIVE = Pattern.compile("(guid|notetype|deck|tags) column:(\\d+)");
+    private static final Pattern LINE_BREAK_TAG = Pattern.compile("(?i)<br\\s*/?>|</div>|</p>");
+    private static final Pattern TAG = Pattern.compile("<[^>]*>");
+    private static final Pattern NUMERIC_ENTITY = Pattern.compile("&#(?:[xX]([0-9a-fA-F]{1,6})|([0-9]{1,7}));");
+
+    private final Reader reader;
+    private final boolean anki;
+    private char delimiter;
+    private boolean html;
+    private final Set<Integer> skippedColumns = new HashSet<>();
+    private boolean started;
+    private int peeked = NONE;
+    private long line = 1;
+
+    CardFileReader(Reader reader, CardImportFormat format) {
+        this.reader = reader;
+        this.anki = format == CardImportFormat.ANKI;
+        this.delimiter = format == CardImportFormat.CSV ? ',' : '\t';
+    }
+
+    /**
+     * The next record, or {@code null} at the end of the file. Blank lines are skipped.
+     */
+    Row next() throws IOException {
+        if (!started) {
+            started = true;
+            if (peek() == '﻿') {
+                read();
+            }
+            if (anki) {
+                readAnkiHeader();
+            }
+        }
+
+        int c = read();
+        while (c == '\r' || c == '\n') {
+            endOfLine(c);
+            c = read();
+        }
+        if (c == EOF) {
+            return null;
+        }
+
+        long start = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStart = true;
+        boolean truncated = false;
+        while (true) {
+            if (c == EOF) {
+                truncated |= addField(fields, field);
+                return new Row(start, fields, truncated, quoted);
+            }
+            if (quoted) {
+                if (c == '"' && peek() == '"') {
+                    read();
+                    truncated |= append(field, '"');
+                } else if (c == '"') {
+                    quoted = false;
+                } else if (c == '\r' || c == '\n') {
+                    endOfLine(c);
+                    truncated |= append(field, '\n');
+                } else {
+                    truncated |= append(field, (char) c);
+                }
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+            } else if (c == delimiter) {
+                truncated |= addField(fields, field);
+                fieldStart = true;
+                c = read();
+                continue;
+            } else if (c == '\r' || c == '\n') {
+                endOfLine(c);
+                truncated |= addField(fields, field);
+                return new Row(start, fields, truncated, false);
+            } else {
+                truncated |= append(field, (char) c);
+            }
+            fieldStart = false;
+            c = read();
+        }
+    }
+
+    /**
+     * The fields of a row that hold card content, in order, as plain text.
+     */
+    List<String> cardFields(Row row) {
+        List<String> content = new ArrayList<>();
+        for (int i = 0; i < row.fields().size(); i++) {
+            if (!skippedColumns.contains(i + 1)) {
+                content.add(html ? plainText(row.fields().get(i)) : row.fields().get(i));
+            }
+        }
+        return content;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void readAnkiHeader() throws IOException {
+        while (peek() == '#') {
+            read();
+            StringBuilder directive = new StringBuilder();
+            int c = read();
+            while (c != EOF && c != '\r' && c != '\n') {
+                append(directive, (char) c);
+                c = read();
+            }
+            if (c != EOF) {
+                endOfLine(c);
+            }
+            applyDirective(directive.toString().trim());
+        }
+    }
+
+    private void applyDirective(String directive) {
+        int colon = directive.indexOf(':');
+        if (colon < 0) {
+            return;
+        }
+        String key = directive.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+        String value = directive.substring(colon + 1).trim();
+        Matcher column = COLUMN_DIRECTIVE.matcher(directive.toLowerCase(Locale.ROOT));
+        if (column.matches()) {
+            skippedColumns.add(Integer.parseInt(column.group(2)));
+        } else if (key.equals("html")) {
+            html = value.equalsIgnoreCase("true");
+        } else if (key.equals("separator")) {
+            delimiter = switch (value.toLowerCase(Locale.ROOT)) {
+                case "tab" -> '\t';
+                case "comma" -> ',';
+                case "semicolon" -> ';';
+                case "pipe" -> '|';
+                case "space" -> ' ';
+                case "colon" -> ':';
+                default -> value.length() == 1 ? value.charAt(0) : delimiter;
+            };
+        }
+    }
+
+    private static String plainText(String html) {
+        String text = TAG.matcher(LINE_BREAK_TAG.matcher(html).replaceAll("\n")).replaceAll("");
+        text = NUMERIC_ENTITY.matcher(text).replaceAll(entity -> {
+            int codePoint = entity.group(1) != null
+                    ? Integer.parseInt(entity.group(1), 16)
+                    : Integer.parseInt(entity.group(2));
+            return Matcher.quoteReplacement(Character.isValidCodePoint(codePoint)
+                    ? Character.toString(codePoint)
+                    : entity.group());
+        });
+        return text.replace("&nbsp;", " ")
+                .replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&quot;", "\"")
+                .replace("&amp;", "&");
+    }
+
+    private static boolean addField(List<String> fields, StringBuilder field) {
+        boolean dropped = fields.size() >= MAX_FIELDS;
+        if (!dropped) {
+            fields.add(field.toString());
+        }
+        field.setLength(0);
+        return dropped;
+    }
+
+    private static boolean append(StringBuilder field, char c) {
+        if (field.length() >= MAX_FIELD_LENGTH) {
+            return true;
+        }
+        field.append(c);
+        return false;
+    }
+
+    private void endOfLine(int c) throws IOException {
+        if (c == '\r' && peek() == '\n') {
+            read();
+        }
+        line++;
+    }
+
+    private int read() throws IOException {
+        if (peeked != NONE) {
+            int c = peeked;
+            peeked = NONE;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private int peek() throws IOException {
+        if (peeked == NONE) {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+}
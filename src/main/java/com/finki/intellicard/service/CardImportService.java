@@ -0,0 +1,226 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.exceptions.CardSetNotFoundException;
+import com.finki.intellicard.exceptions.UnauthorizedAccessException;
+import com.finki.intellicard.model.enums.CardImportFormat;
+import com.finki.intellicard.record.CardImportErrorRecord;
+import com.finki.intellicard.record.CardImportResultRecord;
+import com.finki.intellicard.repository.CardRepository;
+import com.finki.intellicard.repository.CardSetRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Imports cards from an uploaded CSV, TSV or Anki plain-text export. The file is read a
+ * row at a time and written in batches, each its own transaction, so memory stays flat
+ * however large the file is and other writes get in between batches. A row whose term
+ * (ignoring case) is already in the set or earlier in the file is skipped as a duplicate;
+ * invalid rows are skipped and reported by line.
+ */
+@Service
+public class CardImportService {
+
+    private static final String INSERT_CARD =
+            "INSERT INTO card (set_id, term, definition, created_at, updated_at) VALUES (?, ?, ?, ?, ?)";
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private final CardSetRepository cardSetRepository;
+    private final CardRepository cardRepository;
+    private final MyUserDetailsService myUserDetailsService;
+    private final SecondLevelCacheEvictor secondLevelCacheEvictor;
+    private final JdbcTemplate jdbcTemplate;
+    private final SingleWriterExecutor singleWriterExecutor;
+
+    @Value("${cards.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${cards.import.max-reported-errors:100}")
+    private int maxReportedErrors;
+
+    public CardImportService(CardSetRepository cardSetRepository,
+                             CardRepository cardRepository,
+                             MyUserDetailsService myUserDetailsService,
+                             SecondLevelCacheEvictor secondLevelCacheEvictor,
+                             JdbcTemplate jdbcTemplate,
+                             SingleWriterExecutor singleWriterExecutor) {
+        this.cardSetRepository = cardSetRepository;
+        this.cardRepository = cardRepository;
+        this.myUserDetailsService = myUserDetailsService;
+        this.secondLevelCacheEvictor = secondLevelCacheEvictor;
+        this.jdbcTemplate = jdbcTemplate;
+        this.singleWriterExecutor = singleWriterExecutor;
+    }
+
+    public CardImportResultRecord importCards(Long cardSetId, MultipartFile file, CardImportFormat format) {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("File is empty");
+        }
+        verifyCardSetOwnership(cardSetId);
+        CardImportFormat resolved = format != null ? format : detectFormat(file.getOriginalFilename());
+
+        ImportTally tally = new ImportTally(maxReportedErrors);
+        try (CardFileReader reader = new CardFileReader(
+                new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)), resolved)) {
+            List<PendingCard> batch = new ArrayList<>(batchSize);
+            Set<String> batchTerms = new HashSet<>();
+            boolean firstRow = true;
+
+            for (CardFileReader.Row row = reader.next(); row != null; row = reader.next()) {
+                List<String> fields = reader.cardFields(row);
+                if (firstRow) {
+                    firstRow = false;
+                    if (isHeader(fields)) {
+                        continue;
+                    }
+                }
+
+                String error = validate(row, fields);
+                if (error != null) {
+                    tally.reject(row.line(), error);
+                    continue;
+                }
+                PendingCard card = new PendingCard(fields.get(0).trim(), fields.get(1).trim());
+                if (!batchTerms.add(card.key())) {
+                    tally.duplicates++;
+                    continue;
+                }
+
+                batch.add(card);
+                if (batch.size() >= batchSize) {
+                    write(cardSetId, batch, tally);
+                    batch.clear();
+                    batchTerms.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(cardSetId, batch, tally);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the uploaded file", e);
+        }
+
+        return new CardImportResultRecord(tally.imported, tally.duplicates, tally.rejected, tally.errors);
+    }
+
+    private void write(Long cardSetId, List<PendingCard> batch, ImportTally tally) {
+        int inserted = singleWriterExecutor.execute(() -> {
+            Set<String> existing = new HashSet<>(cardRepository.findExistingTerms(
+                    cardSetId, batch.stream().map(PendingCard::key).toList()));
+            List<PendingCard> fresh = batch.stream().filter(card -> !existing.contains(card.key())).toList();
+            if (fresh.isEmpty()) {
+                return 0;
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            Timestamp timestamp = Timestamp.valueOf(now);
+            jdbcTemplate.batchUpdate(INSERT_CARD, fresh, fresh.size(), (statement, card) -> {
+                statement.setLong(1, cardSetId);
+                statement.setString(2, card.term());
+                statement.setString(3, card.definition());
+                statement.setTimestamp(4, timestamp);
+                statement.setTimestamp(5, timestamp);
+            });
+            cardSetRepository.findActiveById(cardSetId)
+                    .orElseThrow(() -> new CardSetNotFoundException("CardSet not found"))
+                    .setLastModified(now);
+            secondLevelCacheEvictor.evictCards(cardSetId);
+            return fresh.size();
+        });
+        tally.imported += inserted;
+        tally.duplicates += batch.size() - inserted;
+    }
+
+    private void verifyCardSetOwnership(Long cardSetId) {
+        String owner = cardSetRepository.findOwnerUsernameByCardSetId(cardSetId)
+                .orElseThrow(() -> new CardSetNotFoundException("CardSet not found"));
+        if (!owner.equals(myUserDetailsService.getUsername())) {
+            throw new UnauthorizedAccessException("You are not authorized to perform this action on this card set");
+        }
+    }
+
+    private static String validate(CardFileReader.Row row, List<String> fields) {
+        if (row.unterminated()) {
+            return "Quoted field is never closed";
+        }
+        if (row.truncated()) {
+            return "Row is too long";
+        }
+        if (fields.size() < 2) {
+            return "Expected a term and a definition";
+        }
+        String term = fields.get(0).trim();
+        String definition = fields.get(1).trim();
+        if (term.isEmpty()) {
+            return "Term is empty";
+        }
+        if (definition.isEmpty()) {
+            return "Definition is empty";
+        }
+        if (term.length() > MAX_TEXT_LENGTH) {
+            return "Term is longer than " + MAX_TEXT_LENGTH + " characters";
+        }
+        if (definition.length() > MAX_TEXT_LENGTH) {
+            return "Definition is longer than " + MAX_TEXT_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    private static boolean isHeader(List<String> fields) {
+        if (fields.size() < 2) {
+            return false;
+        }
+        String columns = fields.get(0).trim().toLowerCase(Locale.ROOT) + "," + fields.get(1).trim().toLowerCase(Locale.ROOT);
+        return columns.equals("term,definition") || columns.equals("front,back") || columns.equals("question,answer");
+    }
+
+    static CardImportFormat detectFormat(String filename) {
+        String name = filename == null ? "" : filename.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".tsv") || name.endsWith(".tab")) {
+            return CardImportFormat.TSV;
+        }
+        if (name.endsWith(".txt")) {
+            return CardImportFormat.ANKI;
+        }
+        return CardImportFormat.CSV;
+    }
+
+    private record PendingCard(String term, String definition) {
+        String key() {
+            return term.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static class ImportTally {
+        private final int maxErrors;
+        private final List<CardImportErrorRecord> errors = new ArrayList<>();
+        private int imported;
+        private int duplicates;
+        private int rejected;
+
+        ImportTally(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void reject(long line, String message) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add(new CardImportErrorRecord(line, message));
+            }
+        }
+    }
+}
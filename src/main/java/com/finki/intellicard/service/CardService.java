@@ -1,22 +1,30 @@
 package com.finki.intellicard.service;
 
+import com.finki.intellicard.exceptions.AiProviderUnavailableException;
 import com.finki.intellicard.exceptions.CardNotFoundException;
 import com.finki.intellicard.exceptions.CardSetNotFoundException;
 import com.finki.intellicard.exceptions.UnauthorizedAccessException;
 import com.finki.intellicard.model.Card;
 import com.finki.intellicard.model.CardSet;
+import com.finki.intellicard.model.Tombstone;
 import com.finki.intellicard.model.UserCardProgress;
 import com.finki.intellicard.record.CardRecord;
+import com.finki.intellicard.record.CompactedDocument;
 import com.finki.intellicard.record.Document;
 import com.finki.intellicard.record.GenerateQuestionsRequest;
 import com.finki.intellicard.record.GeneratedCardDto;
+import com.finki.intellicard.record.ResourceVersion;
 import com.finki.intellicard.repository.CardRepository;
 import com.finki.intellicard.repository.CardSetRepository;
+import com.finki.intellicard.repository.TombstoneRepository;
 import com.finki.intellicard.repository.UserCardProgressRepository;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -24,7 +32,9 @@ import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,86 +45,126 @@ public class CardService {
     private final MyUserDetailsService myUserDetailsService;
     private final UserCardProgressRepository userCardProgressRepository;
     private final QuestionGenerationService questionGenerationService;
+    private final PromptCompactionService promptCompactionService;
+    private final GenerationAdmissionService generationAdmissionService;
+    private final MeterRegistry meterRegistry;
+    private final TombstoneRepository tombstoneRepository;
+    private final SingleWriterExecutor singleWriterExecutor;
 
-    public CardService(CardRepository cardRepository, CardSetRepository cardSetRepository, MyUserDetailsService myUserDetailsService, UserCardProgressRepository userCardProgressRepository, QuestionGenerationService questionGenerationService) {
+    public CardService(CardRepository cardRepository, CardSetRepository cardSetRepository, MyUserDetailsService myUserDetailsService, UserCardProgressRepository userCardProgressRepository, QuestionGenerationService questionGenerationService, PromptCompactionService promptCompactionService, GenerationAdmissionService generationAdmissionService, MeterRegistry meterRegistry, TombstoneRepository tombstoneRepository, SingleWriterExecutor singleWriterExecutor) {
         this.cardRepository = cardRepository;
         this.cardSetRepository = cardSetRepository;
         this.myUserDetailsService = myUserDetailsService;
         this.userCardProgressRepository = userCardProgressRepository;
         this.questionGenerationService = questionGenerationService;
+        this.promptCompactionService = promptCompactionService;
+        this.generationAdmissionService = generationAdmissionService;
+        this.meterRegistry = meterRegistry;
+        this.tombstoneRepository = tombstoneRepository;
+        this.singleWriterExecutor = singleWriterExecutor;
     }
 
+    @Transactional(readOnly = true)
     public List<CardRecord> getAllCardsByCardSetId(Long cardSetId) {
-        CardSet cardSet = cardSetRepository.findById(cardSetId)
+        CardSet cardSet = cardSetRepository.findActiveById(cardSetId)
                 .orElseThrow(() -> new CardSetNotFoundException("CardSet not found"));
 
-        verifyCardSetAccess(cardSet);
-
         Long currentUserId = myUserDetailsService.getUserIdByUsername(myUserDetailsService.getUsername());
-        List<Card> cards = cardRepository.findByCardSetId(cardSetId);
-
-        return cards.stream()
-                .map(card -> {
-                    Optional<UserCardProgress> progress = userCardProgressRepository
-                            .findByUserIdAndCardId(currentUserId, card.getId());
-                    return convertToRecord(card, progress.orElse(null));
-                })
+        verifyCardSetAccess(cardSet, currentUserId);
+
+        Map<Long, UserCardProgress> progressByCardId = userCardProgressRepository
+                .findByUserIdAndCard_CardSet_Id(currentUserId, cardSetId)
+                .stream()
+                .collect(Collectors.toMap(progress -> progress.getCard().getId(), Function.identity()));
+
+        return cardRepository.findByCardSetId(cardSetId).stream()
+                .map(card -> convertToRecord(card, progressByCardId.get(card.getId())))
                 .collect(Collectors.toList());
     }
 
-    @Transactional
-    public CardRecord addCard(Long cardSetId, CardRecord cardRecord) {
-        CardSet cardSet = cardSetRepository.findById(cardSetId)
+    /**
+     * Version of {@link #getAllCardsByCardSetId} for the current user: the set's
+     * {@code lastModified} (bumped by every card edit) plus the user's latest progress
+     * update in the set.
+     */
+    @Transactional(readOnly = true)
+    public ResourceVersion getCardsVersion(Long cardSetId) {
+        CardSet cardSet = cardSetRepository.findActiveById(cardSetId)
                 .orElseThrow(() -> new CardSetNotFoundException("CardSet not found"));
 
-        verifyCardSetOwnership(cardSet);
+        Long currentUserId = myUserDetailsService.getUserIdByUsername(myUserDetailsService.getUsername());
+        verifyCardSetAccess(cardSet, currentUserId);
 
-        Card card = Card.builder()
-                .term(cardRecord.term())
-                .definition(cardRecord.definition())
-                .cardSet(cardSet)
-                .build();
+        LocalDateTime progressUpdated = userCardProgressRepository.findLastProgressUpdate(currentUserId, cardSetId)
+                .orElse(null);
+        LocalDateTime lastModified = cardSet.getLastModified();
+        if (progressUpdated != null && (lastModified == null || progressUpdated.isAfter(lastModified))) {
+            lastModified = progressUpdated;
+        }
 
-        Card savedCard = cardRepository.save(card);
-        return new CardRecord(
-                card.getId(),
-                card.getTerm(),
-                card.getDefinition(),
-                0,
-                0,
-                LocalDateTime.now().plusDays(1),
-                "NEW"
-        );
+        return ResourceVersion.of(lastModified, cardSetId, currentUserId, cardSet.getLastModified(), progressUpdated);
+    }
+
+    public CardRecord addCard(Long cardSetId, CardRecord cardRecord) {
+        return singleWriterExecutor.execute(() -> {
+            CardSet cardSet = cardSetRepository.findActiveById(cardSetId)
+                    .orElseThrow(() -> new CardSetNotFoundException("CardSet not found"));
+
+            verifyCardSetOwnership(cardSet);
+            cardSet.setLastModified(LocalDateTime.now());
+
+            Card card = Card.builder()
+                    .term(cardRecord.term())
+                    .definition(cardRecord.definition())
+                    .cardSet(cardSet)
+                    .build();
+
+            Card savedCard = cardRepository.save(card);
+            return new CardRecord(
+                    card.getId(),
+                    card.getTerm(),
+                    card.getDefinition(),
+                    0,
+                    0,
+                    LocalDateTime.now().plusDays(1),
+                    "NEW"
+            );
+        });
     }
 
-    @Transactional
     public CardRecord updateCard(Long cardId, CardRecord cardRecord) {
-        Card card = cardRepository.findById(cardId)
-                .orElseThrow(() -> new CardNotFoundException("Card not found with id: " + cardId));
+        return singleWriterExecutor.execute(() -> {
+            Card card = cardRepository.findById(cardId)
+                    .orElseThrow(() -> new CardNotFoundException("Card not found with id: " + cardId));
 
-        verifyCardSetOwnership(card.getCardSet());
+            verifyCardSetOwnership(card.getCardSet());
+            card.getCardSet().setLastModified(LocalDateTime.now());
 
-        card.setTerm(cardRecord.term());
-        card.setDefinition(cardRecord.definition());
-        Card updatedCard = cardRepository.save(card);
+            card.setTerm(cardRecord.term());
+            card.setDefinition(cardRecord.definition());
+            Card updatedCard = cardRepository.save(card);
 
-        Long currentUserId = myUserDetailsService.getUserIdByUsername(myUserDetailsService.getUsername());
-        Optional<UserCardProgress> progress = userCardProgressRepository
-                .findByUserIdAndCardId(currentUserId, updatedCard.getId());
+            Long currentUserId = myUserDetailsService.getUserIdByUsername(myUserDetailsService.getUsername());
+            Optional<UserCardProgress> progress = userCardProgressRepository
+                    .findByUserIdAndCardId(currentUserId, updatedCard.getId());
 
-        return convertToRecord(updatedCard, progress.orElse(null));
+            return convertToRecord(updatedCard, progress.orElse(null));
+        });
     }
 
-    @Transactional
     public void deleteCard(Long cardId) {
-        Card card = cardRepository.findById(cardId)
-                .orElseThrow(() -> new CardNotFoundException("Card not found with id: " + cardId));
+        singleWriterExecutor.run(() -> {
+            Card card = cardRepository.findById(cardId)
+                    .orElseThrow(() -> new CardNotFoundException("Card not found with id: " + cardId));
 
-        verifyCardSetOwnership(card.getCardSet());
+            verifyCardSetOwnership(card.getCardSet());
+            card.getCardSet().setLastModified(LocalDateTime.now());
 
-        userCardProgressRepository.deleteByCardId(cardId);
+            userCardProgressRepository.deleteByCardId(cardId);
 
-        cardRepository.delete(card);
+            cardRepository.delete(card);
+            tombstoneRepository.save(Tombstone.forCard(cardId, card.getCardSet().getId()));
+        });
     }
 
     private void verifyCardSetOwnership(CardSet cardSet) {
@@ -124,20 +174,17 @@ public class CardService {
         }
     }
 
-    private void verifyCardSetAccess(CardSet cardSet) {
-        String currentUsername = myUserDetailsService.getUsername();
-        Long currentUserId = myUserDetailsService.getUserIdByUsername(currentUsername);
-
+    private void verifyCardSetAccess(CardSet cardSet, Long currentUserId) {
         boolean hasAccess = cardSet.getCreator().getId().equals(currentUserId) ||
                 cardSet.isPublic() ||
-                cardSet.getApprovedUsers().stream().anyMatch(user -> user.getId().equals(currentUserId));
+                cardSetRepository.isApprovedUser(cardSet.getId(), currentUserId);
 
         if (!hasAccess) {
             throw new UnauthorizedAccessException("You are not authorized to access this card set");
         }
     }
 
-    private CardRecord convertToRecord(Card card, UserCardProgress progress) {
+    CardRecord convertToRecord(Card card, UserCardProgress progress) {
         return new CardRecord(
                 card.getId(),
                 card.getTerm(),
@@ -149,7 +196,6 @@ public class CardService {
         );
     }
 
-    @Transactional
     public List<CardRecord> generateCardsFromDocument(
             Long cardSetId,
             MultipartFile file,
@@ -157,53 +203,63 @@ public class CardService {
             String difficultyLevel,
             String language) {
 
-        CardSet cardSet = cardSetRepository.findById(cardSetId)
+        CardSet cardSet = cardSetRepository.findActiveById(cardSetId)
                 .orElseThrow(() -> new CardSetNotFoundException("CardSet not found"));
         verifyCardSetOwnership(cardSet);
 
-        String documentText = extractTextFromDocument(file);
+        Long currentUserId = myUserDetailsService.getCurrentUserId();
 
-        if (documentText == null || documentText.trim().length() < 100) {
-            throw new IllegalArgumentException("Document appears to be empty or too short. Minimum 100 characters required.");
-        }
+        List<GeneratedCardDto> generatedCards = generationAdmissionService.execute(currentUserId, () -> {
+            String documentText = extractTextFromDocument(file);
+
+            if (documentText == null || documentText.trim().length() < 100) {
+                throw new IllegalArgumentException("Document appears to be empty or too short. Minimum 100 characters required.");
+            }
+
+            CompactedDocument compactedDocument = promptCompactionService.compact(documentText);
 
-        List<GeneratedCardDto> generatedCards = generateCardsWithAI(
-                documentText, questionCount, difficultyLevel, language);
+            return generateCardsWithAI(compactedDocument.content(), questionCount, difficultyLevel, language);
+        });
 
         if (generatedCards.isEmpty()) {
             throw new RuntimeException("No cards could be generated from the document content");
         }
 
-        List<CardRecord> savedCards = new ArrayList<>();
-        for (GeneratedCardDto generatedCard : generatedCards) {
-            try {
-                if (generatedCard.getTerm() == null || generatedCard.getTerm().trim().isEmpty() ||
-                        generatedCard.getDefinition() == null || generatedCard.getDefinition().trim().isEmpty()) {
-                    continue;
+        return singleWriterExecutor.execute(() -> {
+            List<CardRecord> savedCards = new ArrayList<>();
+            for (GeneratedCardDto generatedCard : generatedCards) {
+                try {
+                    if (generatedCard.getTerm() == null || generatedCard.getTerm().trim().isEmpty() ||
+                            generatedCard.getDefinition() == null || generatedCard.getDefinition().trim().isEmpty()) {
+                        continue;
+                    }
+
+                    Card card = Card.builder()
+                            .term(generatedCard.getTerm().trim())
+                            .definition(generatedCard.getDefinition().trim())
+                            .cardSet(cardSetRepository.getReferenceById(cardSetId))
+                            .build();
+
+                    Card savedCard = cardRepository.save(card);
+                    savedCards.add(new CardRecord(
+                            card.getId(),
+                            card.getTerm(),
+                            card.getDefinition(),
+                            0,
+                            0,
+                            LocalDateTime.now().plusDays(1),
+                            "NEW"
+                    ));
+
+                } catch (Exception e) {
                 }
-
-                Card card = Card.builder()
-                        .term(generatedCard.getTerm().trim())
-                        .definition(generatedCard.getDefinition().trim())
-                        .cardSet(cardSet)
-                        .build();
-
-                Card savedCard = cardRepository.save(card);
-                savedCards.add(new CardRecord(
-                        card.getId(),
-                        card.getTerm(),
-                        card.getDefinition(),
-                        0,
-                        0,
-                        LocalDateTime.now().plusDays(1),
-                        "NEW"
-                ));
-
-            } catch (Exception e) {
             }
-        }
 
-        return savedCards;
+            if (!savedCards.isEmpty()) {
+                cardSetRepository.getReferenceById(cardSetId).setLastModified(LocalDateTime.now());
+            }
+            return savedCards;
+        });
     }
 
     private String extractTextFromDocument(MultipartFile file) {
@@ -218,14 +274,37 @@ public class CardService {
             }
 
             String extension = filename.substring(filename.lastIndexOf(".") + 1).toLowerCase();
+            if (!extension.equals("txt") && !extension.equals("pdf")) {
+                throw new IllegalArgumentException("Unsupported file format: " + extension + ". Supported formats: PDF, TXT");
+            }
+
+            DistributionSummary.builder("intellicard.document.size")
+                    .description("Size of uploaded documents")
+                    .baseUnit("bytes")
+                    .tag("format", extension)
+                    .register(meterRegistry)
+                    .record(file.getSize());
 
-            switch (extension) {
-                case "txt":
-                    return new String(file.getBytes(), StandardCharsets.UTF_8);
-                case "pdf":
-                    return extractTextFromPdf(file);
-                default:
-                    throw new IllegalArgumentException("Unsupported file format: " + extension + ". Supported formats: PDF, TXT");
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "error";
+            try {
+                String text = extension.equals("pdf")
+                        ? extractTextFromPdf(file)
+                        : new String(file.getBytes(), StandardCharsets.UTF_8);
+                outcome = "success";
+                DistributionSummary.builder("intellicard.document.extracted.chars")
+                        .description("Characters of text extracted from uploaded documents")
+                        .baseUnit("chars")
+                        .tag("format", extension)
+                        .register(meterRegistry)
+                        .record(text.length());
+                return text;
+            } finally {
+                sample.stop(Timer.builder("intellicard.document.extraction")
+                        .description("Time to extract text from an uploaded document")
+                        .tag("format", extension)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry));
             }
         } catch (IOException e) {
             throw new RuntimeException("Failed to read file: " + e.getMessage(), e);
@@ -235,6 +314,7 @@ public class CardService {
     private String extractTextFromPdf(MultipartFile file) {
         try (PDDocument document = PDDocument.load(file.getInputStream())) {
             PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setPageEnd(PromptCompactionService.PAGE_SEPARATOR);
             String text = stripper.getText(document);
 
             if (text == null || text.trim().isEmpty()) {
@@ -274,6 +354,8 @@ public class CardService {
 
             return cards;
 
+        } catch (AiProviderUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("AI card generation failed: " + e.getMessage(), e);
         }
@@ -0,0 +1,132 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.repository.AccessRequestRepository;
+import com.finki.intellicard.repository.CardRepository;
+import com.finki.intellicard.repository.CardSetRepository;
+import com.finki.intellicard.repository.UserCardProgressRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Deletes card sets with set-scoped DELETE statements, children first (progress, cards,
+ * access requests, then the set and its {@code accessible_sets} rows), so nothing is
+ * loaded into the persistence context however large the set is. Callers check access;
+ * this class only removes rows.
+ * <p>
+ * Huge sets can be deleted in the background instead: their cards (and the progress on
+ * them) go in chunks of {@code cardsets.delete.chunk-size}, one write transaction per
+ * chunk, so other writes are never held up for long. The last chunk removes the set.
+ * Such sets carry {@code deletingAt}, and the ones a restart interrupted are queued again
+ * once the application is ready.
+ */
+@Service
+public class CardSetPurger {
+
+    private static final Logger log = LoggerFactory.getLogger(CardSetPurger.class);
+
+    private final CardSetRepository cardSetRepository;
+    private final CardRepository cardRepository;
+    private final UserCardProgressRepository userCardProgressRepository;
+    private final AccessRequestRepository accessRequestRepository;
+    private final SecondLevelCacheEvictor secondLevelCacheEvictor;
+    private final SingleWriterExecutor singleWriterExecutor;
+    private final int chunkSize;
+
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final ExecutorService purger = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "card-set-purger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CardSetPurger(CardSetRepository cardSetRepository,
+                         CardRepository cardRepository,
+                         UserCardProgressRepository userCardProgressRepository,
+                         AccessRequestRepository accessRequestRepository,
+                         SecondLevelCacheEvictor secondLevelCacheEvictor,
+                         SingleWriterExecutor singleWriterExecutor,
+                         @Value("${cardsets.delete.chunk-size:1000}") int chunkSize) {
+        this.cardSetRepository = cardSetRepository;
+        this.cardRepository = cardRepository;
+        this.userCardProgressRepository = userCardProgressRepository;
+        this.accessRequestRepository = accessRequestRepository;
+        this.secondLevelCacheEvictor = secondLevelCacheEvictor;
+        this.singleWriterExecutor = singleWriterExecutor;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Deletes the set and all its rows. Must run inside a write transaction.
+     */
+    public void deleteNow(Long cardSetId) {
+        userCardProgressRepository.deleteByCardSetId(cardSetId);
+        cardRepository.deleteByCardSetId(cardSetId);
+        accessRequestRepository.deleteByCardSetId(cardSetId);
+        cardSetRepository.deleteCardSetById(cardSetId);
+        secondLevelCacheEvictor.evictCards(cardSetId);
+        secondLevelCacheEvictor.evictApprovedUsers(cardSetId);
+    }
+
+    /**
+     * Drops the set's access requests and approved users, so that only the owner can still
+     * see it while it is deleted in the background. Must run inside a write transaction.
+     */
+    public void revokeAccess(Long cardSetId) {
+        accessRequestRepository.deleteByCardSetId(cardSetId);
+        cardSetRepository.removeApprovedUsers(cardSetId);
+        secondLevelCacheEvictor.evictApprovedUsers(cardSetId);
+    }
+
+    /**
+     * Queues the set for deletion in chunks and returns at once. A set already queued is
+     * not queued twice. If a chunk fails the set is left partly deleted, and deleting it
+     * again (or restarting) picks up where this stopped.
+     */
+    public void deleteInBackground(Long cardSetId) {
+        if (pending.add(cardSetId)) {
+            purger.execute(() -> purge(cardSetId));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedDeletions() {
+        List<Long> cardSetIds = cardSetRepository.findIdsBeingDeleted();
+        if (!cardSetIds.isEmpty()) {
+            log.info("Resuming the background deletion of {} card set(s)", cardSetIds.size());
+            cardSetIds.forEach(this::deleteInBackground);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        purger.shutdownNow();
+    }
+
+    private void purge(Long cardSetId) {
+        try {
+            int deleted;
+            do {
+                deleted = singleWriterExecutor.execute(() -> {
+                    userCardProgressRepository.deleteFirstCardsProgress(cardSetId, chunkSize);
+                    return cardRepository.deleteFirstCards(cardSetId, chunkSize);
+                });
+            } while (deleted == chunkSize);
+            singleWriterExecutor.run(() -> deleteNow(cardSetId));
+        } catch (RuntimeException e) {
+            log.warn("Deleting card set {} in the background failed", cardSetId, e);
+        } finally {
+            pending.remove(cardSetId);
+        }
+    }
+}
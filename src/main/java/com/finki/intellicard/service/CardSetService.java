@@ -6,9 +6,13 @@ import com.finki.intellicard.exceptions.UserNotFoundException;
 import com.finki.intellicard.model.CardSet;
 import com.finki.intellicard.model.User;
 import com.finki.intellicard.record.CardSetRecord;
+import com.finki.intellicard.record.ResourceVersion;
 import com.finki.intellicard.record.UserRecord;
+import com.finki.intellicard.repository.CardRepository;
 import com.finki.intellicard.repository.CardSetRepository;
+import com.finki.intellicard.repository.TombstoneRepository;
 import com.finki.intellicard.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,21 +20,42 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
-@Transactional
 public class CardSetService {
 
     private final CardSetRepository cardSetRepository;
     private final MyUserDetailsService myUserDetailsService;
     private final UserRepository userRepository;
+    private final CardRepository cardRepository;
+    private final TombstoneRepository tombstoneRepository;
+    private final CardSetPurger cardSetPurger;
+    private final LeaderboardService leaderboardService;
+    private final SecondLevelCacheEvictor secondLevelCacheEvictor;
+    private final SingleWriterExecutor singleWriterExecutor;
+    private final int asyncDeleteThreshold;
 
     public CardSetService(CardSetRepository cardSetRepository,
                           MyUserDetailsService myUserDetailsService,
-                          UserRepository userRepository) {
+                          UserRepository userRepository,
+                          CardRepository cardRepository,
+                          TombstoneRepository tombstoneRepository,
+                          CardSetPurger cardSetPurger,
+                          LeaderboardService leaderboardService,
+                          SecondLevelCacheEvictor secondLevelCacheEvictor,
+                          SingleWriterExecutor singleWriterExecutor,
+                          @Value("${cardsets.delete.async-threshold:5000}") int asyncDeleteThreshold) {
         this.cardSetRepository = cardSetRepository;
         this.myUserDetailsService = myUserDetailsService;
         this.userRepository = userRepository;
+        this.cardRepository = cardRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.cardSetPurger = cardSetPurger;
+        this.leaderboardService = leaderboardService;
+        this.secondLevelCacheEvictor = secondLevelCacheEvictor;
+        this.singleWriterExecutor = singleWriterExecutor;
+        this.asyncDeleteThreshold = asyncDeleteThreshold;
     }
 
+    @Transactional(readOnly = true)
     public List<CardSetRecord> getAllCardSets() {
         String username = myUserDetailsService.getUsername();
         Long currentUserId = myUserDetailsService.getUserIdByUsername(username);
@@ -38,63 +63,163 @@ public class CardSetService {
         return cardSetRepository.findAllPublicAndAccessibleCardsets(currentUserId);
     }
 
+    @Transactional(readOnly = true)
     public CardSetRecord getCardSetById(Long cardSetId) {
-        CardSet cardSet = cardSetRepository.findById(cardSetId)
+        CardSet cardSet = cardSetRepository.findActiveById(cardSetId)
                 .orElseThrow(() -> new CardSetNotFoundException("CardSet not found"));
 
-        verifyCardSetAccess(cardSet);
-
         String username = myUserDetailsService.getUsername();
         Long currentUserId = myUserDetailsService.getUserIdByUsername(username);
 
         String accessType = determineAccessType(cardSet, currentUserId);
+        if (accessType.equals("NO_ACCESS")) {
+            throw new UnauthorizedAccessException("You are not authorized to access this card set");
+        }
 
         return convertCardSetToRecord(cardSet, accessType);
     }
 
+    /**
+     * Version of {@link #getCardSetById} for the current user, computed without counting
+     * the cards. Card edits bump the set's {@code lastModified}.
+     */
+    @Transactional(readOnly = true)
+    public ResourceVersion getCardSetVersion(Long cardSetId) {
+        CardSet cardSet = cardSetRepository.findActiveById(cardSetId)
+                .orElseThrow(() -> new CardSetNotFoundException("CardSet not found"));
+
+        Long currentUserId = myUserDetailsService.getUserIdByUsername(myUserDetailsService.getUsername());
+
+        String accessType = determineAccessType(cardSet, currentUserId);
+        if (accessType.equals("NO_ACCESS")) {
+            throw new UnauthorizedAccessException("You are not authorized to access this card set");
+        }
+
+        return ResourceVersion.of(cardSet.getLastModified(), cardSetId, cardSet.getLastModified(), accessType);
+    }
+
     public CardSetRecord createCardSet(CardSetRecord cardSetRecord) {
-        UserRecord creatorRecord = userRepository.findUserRecordByUsername(myUserDetailsService.getUsername())
-                .orElseThrow(() -> new UserNotFoundException("User not found"));
-
-        User creator = User.builder()
-                .id(creatorRecord.id())
-                .username(creatorRecord.username())
-                .fullName(creatorRecord.fullName())
-                .build();
-
-        CardSet cardSet = CardSet.builder()
-                .name(cardSetRecord.name())
-                .isPublic(cardSetRecord.isPublic())
-                .creator(creator)
-                .createdAt(LocalDateTime.now())
-                .lastModified(LocalDateTime.now())
-                .build();
-
-        CardSet savedCardSet = cardSetRepository.save(cardSet);
-        return convertCardSetToRecord(savedCardSet, "OWNER");
+        return singleWriterExecutor.execute(() -> {
+            UserRecord creatorRecord = userRepository.findUserRecordByUsername(myUserDetailsService.getUsername())
+                    .orElseThrow(() -> new UserNotFoundException("User not found"));
+
+            User creator = User.builder()
+                    .id(creatorRecord.id())
+                    .username(creatorRecord.username())
+                    .fullName(creatorRecord.fullName())
+                    .build();
+
+            CardSet cardSet = CardSet.builder()
+                    .name(cardSetRecord.name())
+                    .isPublic(cardSetRecord.isPublic())
+                    .creator(creator)
+                    .createdAt(LocalDateTime.now())
+                    .lastModified(LocalDateTime.now())
+                    .build();
+
+            CardSet savedCardSet = cardSetRepository.save(cardSet);
+            return convertCardSetToRecord(savedCardSet, "OWNER", 0);
+        });
     }
 
-    public void deleteCardSet(Long id) {
-        CardSet cardSet = cardSetRepository.findById(id)
-                .orElseThrow(() -> new CardSetNotFoundException("CardSet not found"));
+    /**
+     * Copies a set the current user can see into a new private set they own. The cards are
+     * copied by the database in a single statement, so this takes one round trip however
+     * many cards the set has. Progress is not copied.
+     */
+    public CardSetRecord cloneCardSet(Long cardSetId, String name) {
+        return singleWriterExecutor.execute(() -> {
+            CardSet source = cardSetRepository.findActiveById(cardSetId)
+                    .orElseThrow(() -> new CardSetNotFoundException("CardSet not found"));
+
+            UserRecord creatorRecord = userRepository.findUserRecordByUsername(myUserDetailsService.getUsername())
+                    .orElseThrow(() -> new UserNotFoundException("User not found"));
+            if (determineAccessType(source, creatorRecord.id()).equals("NO_ACCESS")) {
+                throw new UnauthorizedAccessException("You are not authorized to access this card set");
+            }
 
-        verifyCardSetOwnership(cardSet);
+            User creator = User.builder()
+                    .id(creatorRecord.id())
+                    .username(creatorRecord.username())
+                    .fullName(creatorRecord.fullName())
+                    .build();
 
-        cardSetRepository.delete(cardSet);
+            LocalDateTime now = LocalDateTime.now();
+            CardSet copy = cardSetRepository.saveAndFlush(CardSet.builder()
+                    .name(name == null || name.isBlank() ? copyName(source.getName()) : name)
+                    .isPublic(false)
+                    .creator(creator)
+                    .createdAt(now)
+                    .lastModified(now)
+                    .build());
+
+            int copiedCards = cardRepository.copyCards(cardSetId, copy.getId(), now);
+            secondLevelCacheEvictor.evictCards(copy.getId());
+            return convertCardSetToRecord(copy, "OWNER", copiedCards);
+        });
+    }
+
+    /**
+     * Deletes the set with set-scoped statements. A set with more cards than
+     * {@code cardsets.delete.async-threshold} is only marked as being deleted here (hidden
+     * from every reader, made private, approvals and requests dropped) and its cards are
+     * deleted in the background. Deleting a marked set again only queues it again.
+     *
+     * @return true if the set is gone, false if its deletion is still running
+     */
+    public boolean deleteCardSet(Long id) {
+        boolean deleted = singleWriterExecutor.execute(() -> {
+            CardSet cardSet = cardSetRepository.findById(id)
+                    .orElseThrow(() -> new CardSetNotFoundException("CardSet not found"));
+
+            verifyCardSetOwnership(cardSet);
+            if (cardSet.getDeletingAt() != null) {
+                return false;
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            tombstoneRepository.insertCardSetTombstones(id, now);
+            if (cardRepository.countByCardSetId(id) <= asyncDeleteThreshold) {
+                cardSetPurger.deleteNow(id);
+                return true;
+            }
+
+            cardSetPurger.revokeAccess(id);
+            cardSet.setPublic(false);
+            cardSet.setDeletingAt(now);
+            return false;
+        });
+        leaderboardService.forget(id);
+        if (!deleted) {
+            cardSetPurger.deleteInBackground(id);
+        }
+        return deleted;
     }
 
     public CardSetRecord updateCardSet(Long id, CardSetRecord cardSetRecord) {
-        CardSet cardSet = cardSetRepository.findById(id)
-                .orElseThrow(() -> new CardSetNotFoundException("CardSet not found"));
+        CardSetRecord updated = singleWriterExecutor.execute(() -> {
+            CardSet cardSet = cardSetRepository.findActiveById(id)
+                    .orElseThrow(() -> new CardSetNotFoundException("CardSet not found"));
 
-        verifyCardSetOwnership(cardSet);
+            verifyCardSetOwnership(cardSet);
 
-        cardSet.setName(cardSetRecord.name());
-        cardSet.setPublic(cardSetRecord.isPublic());
-        cardSet.setLastModified(LocalDateTime.now());
+            LocalDateTime now = LocalDateTime.now();
+            if (cardSet.isPublic() && !cardSetRecord.isPublic()) {
+                // Learners who only had it because it was public must drop it from their devices
+                tombstoneRepository.insertLostAccessTombstones(id, now);
+            }
+            cardSet.setName(cardSetRecord.name());
+            cardSet.setPublic(cardSetRecord.isPublic());
+            cardSet.setLastModified(now);
 
-        CardSet updatedCardSet = cardSetRepository.save(cardSet);
-        return convertCardSetToRecord(updatedCardSet, "OWNER");
+            CardSet updatedCardSet = cardSetRepository.save(cardSet);
+            return convertCardSetToRecord(updatedCardSet, "OWNER");
+        });
+        // Leaderboards are only kept for public sets
+        if (!updated.isPublic()) {
+            leaderboardService.forget(id);
+        }
+        return updated;
     }
 
     private void verifyCardSetOwnership(CardSet cardSet) {
@@ -104,23 +229,10 @@ public class CardSetService {
         }
     }
 
-    private void verifyCardSetAccess(CardSet cardSet) {
-        String currentUsername = myUserDetailsService.getUsername();
-        Long currentUserId = myUserDetailsService.getUserIdByUsername(currentUsername);
-
-        boolean hasAccess = cardSet.getCreator().getId().equals(currentUserId) ||
-                cardSet.isPublic() ||
-                cardSet.getApprovedUsers().stream().anyMatch(user -> user.getId().equals(currentUserId));
-
-        if (!hasAccess) {
-            throw new UnauthorizedAccessException("You are not authorized to access this card set");
-        }
-    }
-
     private String determineAccessType(CardSet cardSet, Long currentUserId) {
         if (cardSet.getCreator().getId().equals(currentUserId)) {
             return "OWNER";
-        } else if (cardSet.getApprovedUsers().stream().anyMatch(user -> user.getId().equals(currentUserId))) {
+        } else if (cardSetRepository.isApprovedUser(cardSet.getId(), currentUserId)) {
             return "ACCESSIBLE";
         } else if (cardSet.isPublic()) {
             return "PUBLIC";
@@ -129,7 +241,16 @@ public class CardSetService {
         }
     }
 
+    private static String copyName(String name) {
+        String base = name == null ? "" : name;
+        return (base.length() > 248 ? base.substring(0, 248) : base) + " (copy)";
+    }
+
     private CardSetRecord convertCardSetToRecord(CardSet cardSet, String accessType) {
+        return convertCardSetToRecord(cardSet, accessType, cardRepository.countByCardSetId(cardSet.getId()));
+    }
+
+    private CardSetRecord convertCardSetToRecord(CardSet cardSet, String accessType, int totalCards) {
         return new CardSetRecord(
                 cardSet.getId(),
                 cardSet.getName(),
@@ -137,7 +258,7 @@ public class CardSetService {
                 cardSet.getCreator().getId(),
                 cardSet.getCreator().getUsername(),
                 accessType,
-                cardSet.getCards() == null ? 0 : cardSet.getCards().size()
+                totalCards
         );
     }
 }
\ No newline at end of file
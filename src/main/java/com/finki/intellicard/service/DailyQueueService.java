@@ -0,0 +1,198 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.record.DailyQueueCardRecord;
+import com.finki.intellicard.record.DueCountRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Today's reviews across every set a learner studies: the sets they own, the sets they
+ * were approved for and the public sets they have progress in. Due cards come first, most
+ * overdue first, then new cards, taking turns between sets. Each set contributes at most
+ * {@code perSetLimit} cards, of which at most {@code newPerSet} are new.
+ * <p>
+ * The queue is one SQL statement. Due cards are read from the (user, next review date)
+ * index. New cards are read from the (set, id) card index with an anti-join on the
+ * learner's progress, and only up to each set's {@code newPerSet}-th unseen card, found
+ * by a correlated subquery that stops there. A set's cost is therefore bounded by the
+ * cards the learner has seen in it plus {@code newPerSet}, however large the set is. A
+ * window function applies the per-set cap. "Today" ends at midnight server time.
+ */
+@Service
+public class DailyQueueService {
+
+    private static final int MAX_CACHED_USERS = 10_000;
+
+    // Sets the learner owns, was approved for, or studies while they are public
+    private static final String SCOPE = """
+            WITH scope (set_id) AS (
+                SELECT id FROM card_set WHERE creator_id = :userId AND deleting_at IS NULL
+                UNION
+                SELECT set_id FROM accessible_sets WHERE user_id = :userId
+                UNION
+                SELECT c.set_id FROM user_card_progress p
+                JOIN card c ON c.id = p.card_id
+                JOIN card_set cs ON cs.id = c.set_id
+                WHERE p.user_id = :userId AND cs.is_public = TRUE
+            )
+            """;
+
+    private static final String QUEUE = SCOPE + """
+            , new_bounds AS (
+                SELECT s.set_id,
+                       (SELECT c.id FROM card c
+                        WHERE c.set_id = s.set_id
+                        AND NOT EXISTS (SELECT 1 FROM user_card_progress p WHERE p.user_id = :userId AND p.card_id = c.id)
+                        ORDER BY c.id
+                        LIMIT 1 OFFSET :newOffset) AS last_new_id
+                FROM scope s
+            ), candidates AS (
+                SELECT c.id AS card_id, c.set_id, p.next_review_date AS due_at, 0 AS is_new
+                FROM user_card_progress p
+                JOIN card c ON c.id = p.card_id
+                WHERE p.user_id = :userId AND p.next_review_date < :dueBefore
+                AND c.set_id IN (SELECT set_id FROM scope)
+                UNION ALL
+                SELECT c.id, c.set_id, NULL, 1
+                FROM new_bounds b
+                JOIN card c ON c.set_id = b.set_id
+                WHERE :newPerSet > 0 AND (b.last_new_id IS NULL OR c.id <= b.last_new_id)
+                AND NOT EXISTS (SELECT 1 FROM user_card_progress p WHERE p.user_id = :userId AND p.card_id = c.id)
+            ), ranked AS (
+                SELECT card_id, set_id, due_at, is_new,
+                       ROW_NUMBER() OVER (PARTITION BY set_id ORDER BY is_new, due_at, card_id) AS set_rank
+                FROM candidates
+            )
+            SELECT r.card_id, r.set_id, cs.name, c.term, c.definition,
+                   p.times_reviewed, p.times_correct, p.next_review_date, p.status
+            FROM ranked r
+            JOIN card c ON c.id = r.card_id
+            JOIN card_set cs ON cs.id = r.set_id
+            LEFT JOIN user_card_progress p ON p.card_id = r.card_id AND p.user_id = :userId
+            WHERE r.set_rank <= :perSetLimit
+            ORDER BY r.is_new, r.due_at, r.set_rank, r.card_id
+            LIMIT :limit
+            """;
+
+    private static final String DUE_COUNT = SCOPE + """
+            SELECT COUNT(*)
+            FROM user_card_progress p
+            JOIN card c ON c.id = p.card_id
+            WHERE p.user_id = :userId AND p.next_review_date < :dueBefore
+            AND c.set_id IN (SELECT set_id FROM scope)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final MyUserDetailsService myUserDetailsService;
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final int defaultPerSetLimit;
+    private final int defaultNewPerSet;
+    private final long dueCountTtlNanos;
+
+    private final Map<String, CachedDueCount> dueCounts = new ConcurrentHashMap<>();
+
+    public DailyQueueService(NamedParameterJdbcTemplate jdbcTemplate,
+                             MyUserDetailsService myUserDetailsService,
+                             @Value("${study.queue.default-limit:100}") int defaultLimit,
+                             @Value("${study.queue.max-limit:500}") int maxLimit,
+                             @Value("${study.queue.per-set-limit:50}") int defaultPerSetLimit,
+                             @Value("${study.queue.new-per-set:10}") int defaultNewPerSet,
+                             @Value("${study.due-count.time-to-live:5m}") Duration dueCountTtl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.myUserDetailsService = myUserDetailsService;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+        this.defaultPerSetLimit = defaultPerSetLimit;
+        this.defaultNewPerSet = defaultNewPerSet;
+        this.dueCountTtlNanos = dueCountTtl.toNanos();
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailyQueueCardRecord> getDailyQueue(Integer limit, Integer perSetLimit, Integer newPerSet) {
+        Long userId = myUserDetailsService.getCurrentUserId();
+        int newCards = Math.clamp(newPerSet == null ? defaultNewPerSet : newPerSet, 0, maxLimit);
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("dueBefore", Timestamp.valueOf(endOfToday()))
+                .addValue("limit", Math.clamp(limit == null ? defaultLimit : limit, 1, maxLimit))
+                .addValue("perSetLimit", Math.clamp(perSetLimit == null ? defaultPerSetLimit : perSetLimit, 1, maxLimit))
+                .addValue("newPerSet", newCards)
+                .addValue("newOffset", Math.max(newCards - 1, 0));
+        return jdbcTemplate.query(QUEUE, parameters, DailyQueueService::toRecord);
+    }
+
+    /**
+     * Number of reviews due by the end of today, for the dashboard badge. Counts are kept
+     * per learner for {@code study.due-count.time-to-live}; the learner's own reviews drop
+     * their entry at once, other changes (cards deleted, access revoked) show up when it
+     * expires.
+     */
+    @Transactional(readOnly = true)
+    public DueCountRecord getDueCount() {
+        String username = myUserDetailsService.getUsername();
+        LocalDate today = LocalDate.now();
+        long now = System.nanoTime();
+
+        CachedDueCount cached = dueCounts.get(username);
+        if (cached != null && cached.date().equals(today) && now - cached.computedAt() <= dueCountTtlNanos) {
+            return new DueCountRecord(today, cached.count());
+        }
+
+        Integer count = jdbcTemplate.queryForObject(DUE_COUNT, new MapSqlParameterSource()
+                .addValue("userId", myUserDetailsService.getUserIdByUsername(username))
+                .addValue("dueBefore", Timestamp.valueOf(endOfToday())), Integer.class);
+        int dueCards = count == null ? 0 : count;
+        if (dueCounts.size() >= MAX_CACHED_USERS) {
+            dueCounts.values().removeIf(entry -> now - entry.computedAt() > dueCountTtlNanos);
+        }
+        dueCounts.put(username, new CachedDueCount(today, dueCards, now));
+        return new DueCountRecord(today, dueCards);
+    }
+
+    /**
+     * Forgets the current learner's cached due count. Call once their reviews have committed.
+     */
+    public void evictDueCount() {
+        dueCounts.remove(myUserDetailsService.getUsername());
+    }
+
+    public void evictAllDueCounts() {
+        dueCounts.clear();
+    }
+
+    private static LocalDateTime endOfToday() {
+        return LocalDate.now().plusDays(1).atStartOfDay();
+    }
+
+    private static DailyQueueCardRecord toRecord(ResultSet rs, int rowNum) throws SQLException {
+        Timestamp nextReviewDate = rs.getTimestamp("next_review_date");
+        String status = rs.getString("status");
+        return new DailyQueueCardRecord(
+                rs.getLong("card_id"),
+                rs.getLong("set_id"),
+                rs.getString("name"),
+                rs.getString("term"),
+                rs.getString("definition"),
+                rs.getInt("times_reviewed"),
+                rs.getInt("times_correct"),
+                nextReviewDate == null ? null : nextReviewDate.toLocalDateTime(),
+                status == null ? "NEW" : status);
+    }
+
+    private record CachedDueCount(LocalDate date, int count, long computedAt) {
+    }
+}
@@ -0,0 +1,159 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.model.UserCardProgress;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * FSRS-4.5. Every card carries a memory state: stability (days until recall drops to
+ * 90%) and difficulty (1 to 10). Each review updates both from the grade and from how
+ * likely the card was to be recalled at that moment, and the next review is set for when
+ * recall is expected to fall to {@code study.scheduler.fsrs.desired-retention}.
+ * <p>
+ * Reviews are graded from the app's rating: a wrong answer is Again, a correct one is
+ * Easy (1-2), Good (3) or Hard (4-5). Cards first reviewed under SM-2 start from their
+ * SM-2 interval as stability and a difficulty derived from the ease factor.
+ */
+@Service
+@ConditionalOnProperty(name = "study.scheduler.algorithm", havingValue = "fsrs")
+public class FsrsScheduler implements ReviewScheduler {
+
+    static final double[] DEFAULT_WEIGHTS = {
+            0.4872, 1.4003, 3.7145, 13.8206, 5.1618, 1.2298, 0.8975, 0.031, 1.6474,
+            0.1367, 1.0461, 2.1072, 0.0793, 0.3246, 1.587, 0.2272, 2.8755};
+
+    private static final double DECAY = -0.5;
+    private static final double FACTOR = 19.0 / 81.0;
+
+    private static final int AGAIN = 1;
+    private static final int HARD = 2;
+    private static final int GOOD = 3;
+    private static final int EASY = 4;
+
+    private final double[] w;
+    private final double desiredRetention;
+    private final int maximumInterval;
+    private final String version;
+
+    public FsrsScheduler(@Value("${study.scheduler.fsrs.weights:}") double[] weights,
+                         @Value("${study.scheduler.fsrs.desired-retention:0.9}") double desiredRetention,
+                         @Value("${study.scheduler.fsrs.maximum-interval:36500}") int maximumInterval) {
+        if (weights.length != 0 && weights.length != DEFAULT_WEIGHTS.length) {
+            throw new IllegalArgumentException("FSRS needs " + DEFAULT_WEIGHTS.length + " weights, got " + weights.length);
+        }
+        if (desiredRetention <= 0 || desiredRetention >= 1) {
+            throw new IllegalArgumentException("Desired retention must be between 0 and 1");
+        }
+        this.w = weights.length == 0 ? DEFAULT_WEIGHTS.clone() : weights.clone();
+        this.desiredRetention = desiredRetention;
+        this.maximumInterval = Math.max(1, maximumInterval);
+        this.version = "fsrs-4.5:" + desiredRetention + ":" + this.maximumInterval + ":"
+                + Integer.toHexString(Arrays.hashCode(w));
+    }
+
+    @Override
+    public String version() {
+        return version;
+    }
+
+    @Override
+    public void schedule(UserCardProgress progress, boolean correct, int difficulty, LocalDateTime reviewedAt) {
+        int grade = grade(correct, difficulty);
+        double stability;
+        double cardDifficulty;
+
+        if (progress.getLastReviewed() == null) {
+            stability = initialStability(grade);
+            cardDifficulty = initialDifficulty(grade);
+        } else {
+            double[] state = memoryState(progress);
+            double elapsedDays = Math.max(0, Duration.between(progress.getLastReviewed(), reviewedAt).toMinutes() / 1440.0);
+            double retrievability = retrievability(elapsedDays, state[0]);
+            stability = grade == AGAIN
+                    ? Math.min(forgetStability(state[1], state[0], retrievability), state[0])
+                    : recallStability(state[1], state[0], retrievability, grade);
+            cardDifficulty = nextDifficulty(state[1], grade);
+        }
+
+        progress.setStability(stability);
+        progress.setDifficulty(cardDifficulty);
+        progress.setInterval(nextInterval(stability));
+        progress.setNextReviewDate(reviewedAt.plusDays(progress.getInterval()));
+        progress.setScheduleVersion(version);
+    }
+
+    @Override
+    public void reschedule(UserCardProgress progress) {
+        if (progress.getLastReviewed() != null) {
+            double[] state = memoryState(progress);
+            progress.setStability(state[0]);
+            progress.setDifficulty(state[1]);
+            progress.setInterval(nextInterval(state[0]));
+            progress.setNextReviewDate(progress.getLastReviewed().plusDays(progress.getInterval()));
+        }
+        progress.setScheduleVersion(version);
+    }
+
+    static int grade(boolean correct, int difficulty) {
+        if (!correct) {
+            return AGAIN;
+        }
+        if (difficulty <= 2) {
+            return EASY;
+        }
+        return difficulty == 3 ? GOOD : HARD;
+    }
+
+    int nextInterval(double stability) {
+        double interval = stability / FACTOR * (Math.pow(desiredRetention, 1 / DECAY) - 1);
+        return (int) Math.clamp(Math.round(interval), 1, maximumInterval);
+    }
+
+    // {stability, difficulty}, taken over from SM-2 when FSRS has not scheduled the card yet
+    private double[] memoryState(UserCardProgress progress) {
+        if (progress.getStability() != null && progress.getDifficulty() != null) {
+            return new double[]{progress.getStability(), progress.getDifficulty()};
+        }
+        int interval = progress.getInterval() == null ? 1 : progress.getInterval();
+        double easeFactor = progress.getEaseFactor() == null ? 2.5 : progress.getEaseFactor();
+        return new double[]{Math.max(interval, 0.1), clampDifficulty(10 - (easeFactor - 1.3) * 5 / 1.2)};
+    }
+
+    private double initialStability(int grade) {
+        return Math.max(w[grade - 1], 0.1);
+    }
+
+    private double initialDifficulty(int grade) {
+        return clampDifficulty(w[4] - (grade - GOOD) * w[5]);
+    }
+
+    private double nextDifficulty(double difficulty, int grade) {
+        double next = difficulty - w[6] * (grade - GOOD);
+        return clampDifficulty(w[7] * w[4] + (1 - w[7]) * next);
+    }
+
+    private static double retrievability(double elapsedDays, double stability) {
+        return Math.pow(1 + FACTOR * elapsedDays / stability, DECAY);
+    }
+
+    private double recallStability(double difficulty, double stability, double retrievability, int grade) {
+        double hardPenalty = grade == HARD ? w[15] : 1;
+        double easyBonus = grade == EASY ? w[16] : 1;
+        return stability * (1 + Math.exp(w[8]) * (11 - difficulty) * Math.pow(stability, -w[9])
+                * (Math.exp((1 - retrievability) * w[10]) - 1) * hardPenalty * easyBonus);
+    }
+
+    private double forgetStability(double difficulty, double stability, double retrievability) {
+        return w[11] * Math.pow(difficulty, -w[12]) * (Math.pow(stability + 1, w[13]) - 1)
+                * Math.exp((1 - retrievability) * w[14]);
+    }
+
+    private static double clampDifficulty(double difficulty) {
+        return Math.clamp(difficulty, 1, 10);
+    }
+}
@@ -0,0 +1,182 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.exceptions.GenerationRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for AI card generation. A per-user token bucket limits how often a
+ * single user may start a generation, a global semaphore caps concurrent generations,
+ * and callers that cannot get a permit wait in a bounded queue. Anything that does not
+ * fit is rejected immediately with a retry hint instead of tying up a servlet thread.
+ */
+@Service
+public class GenerationAdmissionService {
+
+    private static final int MAX_TRACKED_USERS = 10_000;
+
+    private final Semaphore permits;
+    private final int maxQueued;
+    private final Duration maxWait;
+    private final int bucketCapacity;
+    private final double refillPerSecond;
+    private final long busyRetryAfterSeconds;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Map<Long, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private final Timer waitTimer;
+    private final Counter rateLimited;
+    private final Counter queueFull;
+    private final Counter waitTimedOut;
+
+    public GenerationAdmissionService(
+            MeterRegistry meterRegistry,
+            @Value("${generation.admission.max-concurrent:4}") int maxConcurrent,
+            @Value("${generation.admission.max-queued:16}") int maxQueued,
+            @Value("${generation.admission.max-wait:30s}") Duration maxWait,
+            @Value("${generation.admission.user-burst:3}") int bucketCapacity,
+            @Value("${generation.admission.user-per-minute:6}") double userPerMinute,
+            @Value("${generation.admission.busy-retry-after:10s}") Duration busyRetryAfter) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxQueued = maxQueued;
+        this.maxWait = maxWait;
+        this.bucketCapacity = bucketCapacity;
+        this.refillPerSecond = userPerMinute / 60.0;
+        this.busyRetryAfterSeconds = Math.max(1, busyRetryAfter.toSeconds());
+
+        Gauge.builder("intellicard.generation.admission.queue.depth", queued, AtomicInteger::get)
+                .description("Generation requests waiting for a permit")
+                .register(meterRegistry);
+        Gauge.builder("intellicard.generation.admission.active", permits, p -> maxConcurrent - p.availablePermits())
+                .description("Generation requests currently running")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("intellicard.generation.admission.wait")
+                .description("Time spent waiting for a generation permit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rateLimited = rejectionCounter(meterRegistry, "rate_limited");
+        this.queueFull = rejectionCounter(meterRegistry, "queue_full");
+        this.waitTimedOut = rejectionCounter(meterRegistry, "wait_timeout");
+    }
+
+    public <T> T execute(Long userId, Supplier<T> generation) {
+        TokenBucket bucket = bucketFor(userId);
+        if (!bucket.tryConsume()) {
+            rateLimited.increment();
+            throw new GenerationRejectedException("Generation rate limit exceeded", bucket.secondsUntilNextToken());
+        }
+
+        acquirePermit(bucket);
+        try {
+            return generation.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void acquirePermit(TokenBucket bucket) {
+        if (permits.tryAcquire()) {
+            waitTimer.record(Duration.ZERO);
+            return;
+        }
+
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            bucket.refund();
+            queueFull.increment();
+            throw new GenerationRejectedException("Generation queue is full", busyRetryAfterSeconds);
+        }
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        } finally {
+            queued.decrementAndGet();
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        if (!acquired) {
+            bucket.refund();
+            waitTimedOut.increment();
+            throw new GenerationRejectedException("Timed out waiting for a generation slot", busyRetryAfterSeconds);
+        }
+    }
+
+    private TokenBucket bucketFor(Long userId) {
+        if (buckets.size() > MAX_TRACKED_USERS) {
+            buckets.values().removeIf(TokenBucket::isFull);
+        }
+        return buckets.computeIfAbsent(userId, id -> new TokenBucket(bucketCapacity, refillPerSecond));
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("intellicard.generation.admission.rejected")
+                .description("Generation requests rejected by admission control")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private static final class TokenBucket {
+        private final int capacity;
+        private final double refillPerNano;
+        private double tokens;
+        private long lastRefill;
+
+        private TokenBucket(int capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerNano = refillPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        synchronized boolean tryConsume() {
+            refill();
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void refund() {
+            tokens = Math.min(capacity, tokens + 1);
+        }
+
+        synchronized boolean isFull() {
+            refill();
+            return tokens >= capacity;
+        }
+
+        synchronized long secondsUntilNextToken() {
+            refill();
+            double missing = 1 - tokens;
+            if (missing <= 0 || refillPerNano <= 0) {
+                return 1;
+            }
+            return Math.max(1, (long) Math.ceil(missing / refillPerNano / TimeUnit.SECONDS.toNanos(1)));
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.finki.intellicard.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The learners of one set ordered by one non-negative score, highest first and ties by
+ * user id. The top K are read off a sorted set in O(log n + K). A learner's rank is one
+ * plus the number of learners with a higher score, counted by a Fenwick tree indexed by
+ * score in O(log maxScore); the tree doubles when a score outgrows it. Not thread-safe.
+ */
+final class LeaderboardRanking {
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::score).reversed()
+            .thenComparingLong(Entry::userId);
+
+    private final TreeSet<Entry> sorted = new TreeSet<>(ORDER);
+    // 1-based: index i counts score i - 1, so scores up to tree.length - 2 fit
+    private int[] tree = new int[65];
+
+    /**
+     * Moves the learner from one score to another. A negative score means not ranked.
+     */
+    void update(long userId, int oldScore, int newScore) {
+        if (oldScore == newScore) {
+            return;
+        }
+        if (newScore >= 0) {
+            ensureCapacity(newScore);
+        }
+        if (oldScore >= 0 && sorted.remove(new Entry(userId, oldScore))) {
+            add(oldScore, -1);
+        }
+        if (newScore >= 0 && sorted.add(new Entry(userId, newScore))) {
+            add(newScore, 1);
+        }
+    }
+
+    List<Long> top(int limit) {
+        List<Long> userIds = new ArrayList<>(Math.min(limit, sorted.size()));
+        for (Entry entry : sorted) {
+            if (userIds.size() == limit) {
+                break;
+            }
+            userIds.add(entry.userId());
+        }
+        return userIds;
+    }
+
+    int rank(int score) {
+        return 1 + sorted.size() - countAtMost(score);
+    }
+
+    int size() {
+        return sorted.size();
+    }
+
+    private void add(int score, int delta) {
+        for (int i = score + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private int countAtMost(int score) {
+        int count = 0;
+        for (int i = Math.min(score + 1, tree.length - 1); i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    private void ensureCapacity(int score) {
+        if (score + 1 < tree.length) {
+            return;
+        }
+        int length = tree.length;
+        while (score + 1 >= length) {
+            length = (length - 1) * 2 + 1;
+        }
+        tree = new int[length];
+        for (Entry entry : sorted) {
+            add(entry.score(), 1);
+        }
+    }
+
+    private record Entry(long userId, int score) {
+    }
+}
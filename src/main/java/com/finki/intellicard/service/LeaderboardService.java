@@ -0,0 +1,494 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.exceptions.CardSetNotFoundException;
+import com.finki.intellicard.exceptions.UnauthorizedAccessException;
+import com.finki.intellicard.model.CardSet;
+import com.finki.intellicard.model.enums.CardStatus;
+import com.finki.intellicard.model.enums.LeaderboardMetric;
+import com.finki.intellicard.record.LeaderboardEntryRecord;
+import com.finki.intellicard.record.LeaderboardRecord;
+import com.finki.intellicard.repository.CardSetRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Leaderboards of public sets, kept in memory: per set, the learners ranked by mastered
+ * cards, by streak (consecutive days studying the set) and by accuracy (learners with at
+ * least {@code leaderboard.min-reviews-for-accuracy} reviews). Reviews update them as they
+ * commit, so a leaderboard read never touches the progress table; see
+ * {@link LeaderboardRanking} for the top-K and rank costs.
+ * <p>
+ * At startup the boards are rebuilt with one aggregate over the progress of public sets,
+ * and streaks are read back from the {@code leaderboard_entry} snapshot, which changed
+ * learners are written to every {@code leaderboard.persist-interval}. A set that turns
+ * public later gets its board on the first read. A review that commits while its set's
+ * board is being loaded may or may not be in what the load read, so instead of counting
+ * it once more, its learner's row is read again once the board is in place.
+ */
+@Service
+public class LeaderboardService {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardService.class);
+
+    private static final String LEARNERS = """
+            SELECT c.set_id, p.user_id, u.username,
+                   SUM(CASE WHEN p.status = 'MASTERED' THEN 1 ELSE 0 END) AS mastered,
+                   SUM(COALESCE(p.times_reviewed, 0)) AS reviews,
+                   SUM(COALESCE(p.times_correct, 0)) AS correct,
+                   MAX(p.last_reviewed) AS last_reviewed
+            FROM user_card_progress p
+            JOIN card c ON c.id = p.card_id
+            JOIN card_set cs ON cs.id = c.set_id
+            JOIN users u ON u.id = p.user_id
+            WHERE cs.is_public = TRUE
+            """;
+
+    private static final String SNAPSHOT = "SELECT e.card_set_id, e.user_id, e.streak, e.last_review_date " +
+            "FROM leaderboard_entry e JOIN card_set cs ON cs.id = e.card_set_id WHERE cs.is_public = TRUE";
+
+    private static final String UPDATE = "UPDATE leaderboard_entry SET mastered = ?, reviews = ?, correct = ?, " +
+            "streak = ?, last_review_date = ? WHERE card_set_id = ? AND user_id = ?";
+
+    private static final String INSERT = "INSERT INTO leaderboard_entry " +
+            "(mastered, reviews, correct, streak, last_review_date, card_set_id, user_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final ParameterizedPreparedStatementSetter<Snapshot> SNAPSHOT_ROW = (PreparedStatement ps, Snapshot row) -> {
+        ps.setInt(1, row.mastered());
+        ps.setInt(2, row.reviews());
+        ps.setInt(3, row.correct());
+        ps.setInt(4, row.streak());
+        ps.setDate(5, row.lastReviewDate() == null ? null : Date.valueOf(row.lastReviewDate()));
+        ps.setLong(6, row.cardSetId());
+        ps.setLong(7, row.userId());
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CardSetRepository cardSetRepository;
+    private final MyUserDetailsService myUserDetailsService;
+    private final SingleWriterExecutor singleWriterExecutor;
+    private final int defaultSize;
+    private final int maxSize;
+    private final int minReviewsForAccuracy;
+    private final Duration persistInterval;
+
+    private final Map<Long, Board> boards = new ConcurrentHashMap<>();
+    private final Map<Long, Loading> loading = new ConcurrentHashMap<>();
+    private volatile Loading startup;
+    private final ScheduledExecutorService persister = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "leaderboard-persister");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private LocalDate lastSweep = LocalDate.now();
+
+    public LeaderboardService(JdbcTemplate jdbcTemplate,
+                              CardSetRepository cardSetRepository,
+                              MyUserDetailsService myUserDetailsService,
+                              SingleWriterExecutor singleWriterExecutor,
+                              @Value("${leaderboard.default-size:10}") int defaultSize,
+                              @Value("${leaderboard.max-size:100}") int maxSize,
+                              @Value("${leaderboard.min-reviews-for-accuracy:20}") int minReviewsForAccuracy,
+                              @Value("${leaderboard.persist-interval:1m}") Duration persistInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cardSetRepository = cardSetRepository;
+        this.myUserDetailsService = myUserDetailsService;
+        this.singleWriterExecutor = singleWriterExecutor;
+        this.defaultSize = defaultSize;
+        this.maxSize = maxSize;
+        this.minReviewsForAccuracy = Math.max(1, minReviewsForAccuracy);
+        this.persistInterval = persistInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Loading marker = new Loading();
+        startup = marker;
+        load(null).forEach(boards::putIfAbsent);
+        startup = null;
+        finishLoading(marker);
+        log.info("Loaded leaderboards for {} public card sets", boards.size());
+        long interval = persistInterval.toMillis();
+        persister.scheduleWithFixedDelay(() -> {
+            try {
+                persist();
+            } catch (RuntimeException e) {
+                log.warn("Persisting leaderboards failed; retrying in {}", persistInterval, e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        persister.shutdown();
+        persister.awaitTermination(30, TimeUnit.SECONDS);
+        try {
+            persist();
+        } catch (RuntimeException e) {
+            log.warn("Persisting leaderboards at shutdown failed; streaks since the last snapshot are lost", e);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public LeaderboardRecord getLeaderboard(Long cardSetId, LeaderboardMetric metric, Integer limit) {
+        CardSet cardSet = cardSetRepository.findActiveById(cardSetId)
+                .orElseThrow(() -> new CardSetNotFoundException("CardSet not found"));
+        if (!cardSet.isPublic()) {
+            throw new UnauthorizedAccessException("Leaderboards are only kept for public card sets");
+        }
+        Long userId = myUserDetailsService.getCurrentUserId();
+        LeaderboardMetric sortBy = metric == null ? LeaderboardMetric.MASTERED : metric;
+        int size = Math.clamp(limit == null ? defaultSize : limit, 1, maxSize);
+
+        Board board = boardFor(cardSetId);
+        synchronized (board) {
+            LeaderboardRanking ranking = board.rankings.get(sortBy);
+            List<LeaderboardEntryRecord> top = ranking.top(size).stream()
+                    .map(id -> toRecord(board.learners.get(id), sortBy, ranking))
+                    .toList();
+            Learner you = board.learners.get(userId);
+            return new LeaderboardRecord(cardSetId, sortBy, ranking.size(), top,
+                    you == null ? null : toRecord(you, sortBy, ranking));
+        }
+    }
+
+    // Loaded outside the map, so the query never runs under a bin lock; if two requests
+    // race, the board that got in first wins and the other is discarded
+    private Board boardFor(Long cardSetId) {
+        Board board = boards.get(cardSetId);
+        if (board != null) {
+            return board;
+        }
+        Loading marker = loading.computeIfAbsent(cardSetId, id -> new Loading());
+        Board loaded = load(cardSetId).getOrDefault(cardSetId, new Board());
+        Board existing = boards.putIfAbsent(cardSetId, loaded);
+        loading.remove(cardSetId, marker);
+        finishLoading(marker);
+        return existing != null ? existing : loaded;
+    }
+
+    // Reviews that committed while the board was loading are read again now that it is in place
+    private void finishLoading(Loading marker) {
+        List<PendingReview> raced;
+        synchronized (marker) {
+            marker.done = true;
+            raced = new ArrayList<>(marker.reviews);
+            marker.reviews.clear();
+        }
+        raced.forEach(this::reload);
+    }
+
+    /**
+     * Captures a review for the set's leaderboard. Call inside the review's write
+     * transaction and {@link #apply} the result once it has committed.
+     */
+    PendingReview prepare(Long cardSetId, Long userId, String username, CardStatus before, CardStatus after,
+                          boolean correct, LocalDate day) {
+        int masteredChange = (after == CardStatus.MASTERED ? 1 : 0) - (before == CardStatus.MASTERED ? 1 : 0);
+        return new PendingReview(cardSetId, boards.get(cardSetId), userId, username, correct, masteredChange, day);
+    }
+
+    /**
+     * Adds a committed review to the set's board. A review prepared against the board in
+     * the map is counted on it; one that raced a load (the set had no board yet, or a
+     * different one) has its learner read again instead, after the load if it is still
+     * running. A set with no board and no load running needs nothing: loading it later
+     * reads the committed review.
+     */
+    void apply(PendingReview review) {
+        if (review == null) {
+            return;
+        }
+        // The marker is looked up first: a load that finishes between the two lookups has put its board
+        Loading marker = loading.get(review.cardSetId());
+        if (marker == null) {
+            marker = startup;
+        }
+        Board board = boards.get(review.cardSetId());
+        if (board == null) {
+            if (marker != null) {
+                synchronized (marker) {
+                    if (!marker.done) {
+                        marker.reviews.add(review);
+                        return;
+                    }
+                }
+                reload(review);
+            }
+            return;
+        }
+        if (board != review.board()) {
+            reload(review);
+            return;
+        }
+        synchronized (board) {
+            Learner learner = board.learners.computeIfAbsent(review.userId(), id -> new Learner(id, review.username()));
+            change(board, learner, changed -> {
+                changed.mastered += review.masteredChange();
+                changed.reviews++;
+                changed.correct += review.correct() ? 1 : 0;
+                continueStreak(changed, review.day());
+            });
+        }
+    }
+
+    void apply(List<PendingReview> reviews) {
+        reviews.forEach(this::apply);
+    }
+
+    // Replaces the learner's counts with their committed progress; the streak carries on
+    // from the review's day, which leaves it alone if the board already counted that day
+    private void reload(PendingReview review) {
+        Board board = boards.get(review.cardSetId());
+        if (board == null) {
+            return;
+        }
+        synchronized (board) {
+            jdbcTemplate.query(LEARNERS + " AND cs.id = ? AND p.user_id = ? GROUP BY c.set_id, p.user_id, u.username", rs -> {
+                int mastered = rs.getInt("mastered");
+                int reviews = rs.getInt("reviews");
+                int correct = rs.getInt("correct");
+                Learner learner = board.learners.computeIfAbsent(review.userId(), id -> new Learner(id, review.username()));
+                change(board, learner, reloaded -> {
+                    reloaded.mastered = mastered;
+                    reloaded.reviews = reviews;
+                    reloaded.correct = correct;
+                    continueStreak(reloaded, review.day());
+                });
+            }, review.cardSetId(), review.userId());
+        }
+    }
+
+    /**
+     * Drops the board of a set that was deleted or turned private. A deleted set's snapshot
+     * rows go with the next daily sweep; a private set's are read back if it turns public
+     * again.
+     */
+    public void forget(Long cardSetId) {
+        boards.remove(cardSetId);
+    }
+
+    /**
+     * Writes the learners changed since the last call to the snapshot table. Once a day it
+     * also ends the streaks of learners who missed a day and removes snapshot rows of
+     * deleted sets.
+     */
+    public void persist() {
+        LocalDate today = LocalDate.now();
+        boolean sweep = !today.equals(lastSweep);
+        for (Map.Entry<Long, Board> entry : boards.entrySet()) {
+            Long cardSetId = entry.getKey();
+            Board board = entry.getValue();
+            List<Snapshot> rows = new ArrayList<>();
+            synchronized (board) {
+                if (sweep) {
+                    endMissedStreaks(board, today);
+                }
+                for (Long userId : board.dirty) {
+                    Learner learner = board.learners.get(userId);
+                    rows.add(new Snapshot(cardSetId, userId, learner.mastered, learner.reviews, learner.correct,
+                            learner.streak, learner.lastReviewDate));
+                }
+                board.dirty.clear();
+            }
+            if (!rows.isEmpty()) {
+                try {
+                    singleWriterExecutor.run(() -> write(rows));
+                } catch (RuntimeException e) {
+                    synchronized (board) {
+                        rows.forEach(row -> board.dirty.add(row.userId()));
+                    }
+                    throw e;
+                }
+            }
+        }
+        if (sweep) {
+            singleWriterExecutor.execute(() -> jdbcTemplate.update(
+                    "DELETE FROM leaderboard_entry WHERE card_set_id NOT IN (SELECT id FROM card_set)"));
+            lastSweep = today;
+        }
+    }
+
+    private void write(List<Snapshot> rows) {
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE, rows, rows.size(), SNAPSHOT_ROW)[0];
+        List<Snapshot> missing = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (updated[i] == 0) {
+                missing.add(rows.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT, missing, missing.size(), SNAPSHOT_ROW);
+        }
+    }
+
+    // Boards of every public set, or of the one set given
+    private Map<Long, Board> load(Long cardSetId) {
+        String filter = cardSetId == null ? "" : " AND cs.id = ?";
+        Object[] parameters = cardSetId == null ? new Object[0] : new Object[]{cardSetId};
+
+        Map<SetUser, Learner> snapshots = new HashMap<>();
+        jdbcTemplate.query(SNAPSHOT + filter, rs -> {
+            Learner snapshot = new Learner(rs.getLong("user_id"), null);
+            snapshot.streak = rs.getInt("streak");
+            Date lastReviewDate = rs.getDate("last_review_date");
+            snapshot.lastReviewDate = lastReviewDate == null ? null : lastReviewDate.toLocalDate();
+            snapshots.put(new SetUser(rs.getLong("card_set_id"), snapshot.userId), snapshot);
+        }, parameters);
+
+        LocalDate today = LocalDate.now();
+        Map<Long, Board> loaded = new HashMap<>();
+        jdbcTemplate.query(LEARNERS + filter + " GROUP BY c.set_id, p.user_id, u.username", rs -> {
+            long setId = rs.getLong("set_id");
+            Learner learner = new Learner(rs.getLong("user_id"), rs.getString("username"));
+            learner.mastered = rs.getInt("mastered");
+            learner.reviews = rs.getInt("reviews");
+            learner.correct = rs.getInt("correct");
+            Timestamp lastReviewed = rs.getTimestamp("last_reviewed");
+            Learner snapshot = snapshots.get(new SetUser(setId, learner.userId));
+            if (snapshot != null) {
+                learner.streak = snapshot.streak;
+                learner.lastReviewDate = snapshot.lastReviewDate;
+            }
+            // Reviews after the last snapshot carry the streak on
+            if (lastReviewed != null) {
+                continueStreak(learner, lastReviewed.toLocalDateTime().toLocalDate());
+            }
+            if (learner.lastReviewDate == null || learner.lastReviewDate.isBefore(today.minusDays(1))) {
+                learner.streak = 0;
+            }
+
+            Board board = loaded.computeIfAbsent(setId, id -> new Board());
+            board.learners.put(learner.userId, learner);
+            change(board, learner, unchanged -> {
+            });
+        }, parameters);
+        // Loaded learners only need writing back once they change
+        loaded.values().forEach(board -> board.dirty.clear());
+        return loaded;
+    }
+
+    // Applies the change and moves the learner in every ranking; a learner not yet ranked has no old scores
+    private void change(Board board, Learner learner, Consumer<Learner> mutation) {
+        Map<LeaderboardMetric, Integer> before = new EnumMap<>(LeaderboardMetric.class);
+        for (LeaderboardMetric metric : LeaderboardMetric.values()) {
+            before.put(metric, learner.ranked ? score(learner, metric) : -1);
+        }
+        mutation.accept(learner);
+        for (LeaderboardMetric metric : LeaderboardMetric.values()) {
+            board.rankings.get(metric).update(learner.userId, before.get(metric), score(learner, metric));
+        }
+        learner.ranked = true;
+        board.dirty.add(learner.userId);
+    }
+
+    private void endMissedStreaks(Board board, LocalDate today) {
+        for (Learner learner : board.learners.values()) {
+            if (learner.streak > 0 && learner.lastReviewDate.isBefore(today.minusDays(1))) {
+                change(board, learner, missed -> missed.streak = 0);
+            }
+        }
+    }
+
+    private static void continueStreak(Learner learner, LocalDate day) {
+        if (learner.lastReviewDate == null || day.isAfter(learner.lastReviewDate.plusDays(1)) || learner.streak == 0) {
+            learner.streak = 1;
+        } else if (day.equals(learner.lastReviewDate.plusDays(1))) {
+            learner.streak++;
+        }
+        if (learner.lastReviewDate == null || day.isAfter(learner.lastReviewDate)) {
+            learner.lastReviewDate = day;
+        }
+    }
+
+    // Accuracy in basis points; -1 keeps the learner out of that ranking
+    private int score(Learner learner, LeaderboardMetric metric) {
+        return switch (metric) {
+            case MASTERED -> learner.mastered;
+            case STREAK -> learner.streak;
+            case ACCURACY -> learner.reviews < minReviewsForAccuracy ? -1
+                    : (int) (10_000L * learner.correct / learner.reviews);
+        };
+    }
+
+    private LeaderboardEntryRecord toRecord(Learner learner, LeaderboardMetric metric, LeaderboardRanking ranking) {
+        int score = score(learner, metric);
+        return new LeaderboardEntryRecord(
+                score < 0 ? null : ranking.rank(score),
+                learner.username,
+                learner.mastered,
+                learner.streak,
+                learner.reviews == 0 ? null : (double) learner.correct / learner.reviews,
+                learner.reviews);
+    }
+
+    record PendingReview(long cardSetId, Board board, long userId, String username, boolean correct, int masteredChange,
+                         LocalDate day) {
+    }
+
+    // A board being loaded, and the reviews that committed meanwhile
+    private static final class Loading {
+        private final List<PendingReview> reviews = new ArrayList<>();
+        private boolean done;
+    }
+
+    private record SetUser(long cardSetId, long userId) {
+    }
+
+    private record Snapshot(long cardSetId, long userId, int mastered, int reviews, int correct, int streak,
+                            LocalDate lastReviewDate) {
+    }
+
+    static final class Board {
+        private final Map<Long, Learner> learners = new HashMap<>();
+        private final Map<LeaderboardMetric, LeaderboardRanking> rankings = new EnumMap<>(LeaderboardMetric.class);
+        private final Set<Long> dirty = new HashSet<>();
+
+        private Board() {
+            for (LeaderboardMetric metric : LeaderboardMetric.values()) {
+                rankings.put(metric, new LeaderboardRanking());
+            }
+        }
+    }
+
+    private static final class Learner {
+        private final long userId;
+        private final String username;
+        private int mastered;
+        private int reviews;
+        private int correct;
+        private int streak;
+        private LocalDate lastReviewDate;
+        private boolean ranked;
+
+        private Learner(long userId, String username) {
+            this.userId = userId;
+            this.username = username;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.model.ReviewEvent;
+import com.finki.intellicard.model.UserDailyStats;
+import com.finki.intellicard.record.DailyStatsRecord;
+import com.finki.intellicard.record.LearningStatsRecord;
+import com.finki.intellicard.repository.UserDailyStatsRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Learning statistics from the per-user daily rollups. The rollups are updated as reviews
+ * are appended to the review log, so the stats page reads one row per day of the window
+ * and the user's longest streak off an index, never the reviews themselves or the whole
+ * history. Each rollup row carries the streak ending on its day, set when the row is
+ * inserted. Days end at midnight server time.
+ */
+@Service
+public class LearningStatsService {
+
+    private static final String ADD = "UPDATE user_daily_stats SET reviews = reviews + ?, correct = correct + ?, " +
+            "new_cards = new_cards + ?, repeat_reviews = repeat_reviews + ?, repeat_correct = repeat_correct + ? " +
+            "WHERE user_id = ? AND review_date = ?";
+
+    private static final String INSERT = "INSERT INTO user_daily_stats " +
+            "(reviews, correct, new_cards, repeat_reviews, repeat_correct, user_id, review_date, streak) VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+
+    // The streak ending on a day continues the one ending on the day before, if that day had reviews
+    private static final String RESTREAK = "UPDATE user_daily_stats SET streak = 1 + COALESCE(" +
+            "(SELECT p.streak FROM user_daily_stats p WHERE p.user_id = ? AND p.review_date = ?), 0) " +
+            "WHERE user_id = ? AND review_date = ?";
+
+    private static final ParameterizedPreparedStatementSetter<UserDailyStats> COUNTS = (PreparedStatement ps, UserDailyStats day) -> {
+        ps.setInt(1, day.getReviews());
+        ps.setInt(2, day.getCorrect());
+        ps.setInt(3, day.getNewCards());
+        ps.setInt(4, day.getRepeatReviews());
+        ps.setInt(5, day.getRepeatCorrect());
+        ps.setLong(6, day.getUserId());
+        ps.setDate(7, Date.valueOf(day.getReviewDate()));
+    };
+
+    private static final ParameterizedPreparedStatementSetter<UserDailyStats.Key> STREAK = (PreparedStatement ps, UserDailyStats.Key day) -> {
+        ps.setLong(1, day.getUserId());
+        ps.setDate(2, Date.valueOf(day.getReviewDate().minusDays(1)));
+        ps.setLong(3, day.getUserId());
+        ps.setDate(4, Date.valueOf(day.getReviewDate()));
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserDailyStatsRepository userDailyStatsRepository;
+    private final MyUserDetailsService myUserDetailsService;
+    private final int defaultDays;
+    private final int maxDays;
+
+    public LearningStatsService(JdbcTemplate jdbcTemplate,
+                                UserDailyStatsRepository userDailyStatsRepository,
+                                MyUserDetailsService myUserDetailsService,
+                                @Value("${study.stats.default-days:30}") int defaultDays,
+                                @Value("${study.stats.max-days:366}") int maxDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userDailyStatsRepository = userDailyStatsRepository;
+        this.myUserDetailsService = myUserDetailsService;
+        this.defaultDays = defaultDays;
+        this.maxDays = maxDays;
+    }
+
+    /**
+     * Adds the reviews to their users' daily rollups: one UPDATE per (user, day) in the
+     * batch, and an INSERT for the days that had no row yet. New days get their streak
+     * from the day before; a day recorded late (offline reviews) also extends the streaks
+     * of the days after it. Must run inside the write transaction that appends the
+     * reviews, and never concurrently with another call.
+     */
+    public void rollUp(List<ReviewEvent> events) {
+        Map<UserDailyStats.Key, UserDailyStats> days = new LinkedHashMap<>();
+        for (ReviewEvent event : events) {
+            LocalDate date = event.getReviewedAt().toLocalDate();
+            UserDailyStats day = days.computeIfAbsent(new UserDailyStats.Key(event.getUserId(), date),
+                    key -> UserDailyStats.builder().userId(key.getUserId()).reviewDate(key.getReviewDate()).build());
+            day.setReviews(day.getReviews() + 1);
+            day.setCorrect(day.getCorrect() + (event.isCorrect() ? 1 : 0));
+            if (event.getElapsedSeconds() == null) {
+                day.setNewCards(day.getNewCards() + 1);
+            } else {
+                day.setRepeatReviews(day.getRepeatReviews() + 1);
+                day.setRepeatCorrect(day.getRepeatCorrect() + (event.isCorrect() ? 1 : 0));
+            }
+        }
+
+        List<UserDailyStats> rows = new ArrayList<>(days.values());
+        int[] updated = jdbcTemplate.batchUpdate(ADD, rows, rows.size(), COUNTS)[0];
+        List<UserDailyStats> missing = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (updated[i] == 0) {
+                missing.add(rows.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT, missing, missing.size(), COUNTS);
+            updateStreaks(missing);
+        }
+    }
+
+    private void updateStreaks(List<UserDailyStats> newDays) {
+        List<UserDailyStats.Key> days = newDays.stream()
+                .map(day -> new UserDailyStats.Key(day.getUserId(), day.getReviewDate()))
+                .sorted(Comparator.comparing(UserDailyStats.Key::getUserId).thenComparing(UserDailyStats.Key::getReviewDate))
+                .toList();
+        jdbcTemplate.batchUpdate(RESTREAK, days, days.size(), STREAK);
+
+        // Only days inserted before a day that already had a row have streaks after them to fix
+        List<UserDailyStats.Key> following = days.stream()
+                .map(day -> new UserDailyStats.Key(day.getUserId(), day.getReviewDate().plusDays(1)))
+                .filter(day -> !days.contains(day))
+                .toList();
+        while (!following.isEmpty()) {
+            int[] updated = jdbcTemplate.batchUpdate(RESTREAK, following, following.size(), STREAK)[0];
+            List<UserDailyStats.Key> next = new ArrayList<>();
+            for (int i = 0; i < following.size(); i++) {
+                if (updated[i] > 0) {
+                    UserDailyStats.Key day = following.get(i);
+                    next.add(new UserDailyStats.Key(day.getUserId(), day.getReviewDate().plusDays(1)));
+                }
+            }
+            following = next;
+        }
+    }
+
+    /**
+     * The current user's stats for the last {@code days} days including today, with every
+     * day listed (zeros for days without reviews). Retention is the accuracy on cards the
+     * user had seen before, or null when there were none. The rollups are fed by the review
+     * log, which delivers at most once (see {@link ReviewEventLog}): reviews still queued
+     * when the process dies are missing from the stats, but none is ever counted twice.
+     */
+    @Transactional(readOnly = true)
+    public LearningStatsRecord getStats(Integer days) {
+        int window = Math.clamp(days == null ? defaultDays : days, 1, maxDays);
+        Long userId = myUserDetailsService.getCurrentUserId();
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.minusDays(window - 1);
+
+        // Yesterday is read even for a one-day window: the current streak may end there
+        Map<LocalDate, UserDailyStats> rollups = userDailyStatsRepository
+                .findFrom(userId, from.isBefore(today) ? from : today.minusDays(1)).stream()
+                .collect(Collectors.toMap(UserDailyStats::getReviewDate, Function.identity()));
+        List<DailyStatsRecord> daily = new ArrayList<>(window);
+        int reviews = 0;
+        int correct = 0;
+        int newCards = 0;
+        int repeatReviews = 0;
+        int repeatCorrect = 0;
+        for (LocalDate date = from; !date.isAfter(today); date = date.plusDays(1)) {
+            UserDailyStats day = rollups.getOrDefault(date, new UserDailyStats());
+            daily.add(new DailyStatsRecord(date, day.getReviews(), day.getCorrect(), day.getNewCards(),
+                    ratio(day.getCorrect(), day.getReviews())));
+            reviews += day.getReviews();
+            correct += day.getCorrect();
+            newCards += day.getNewCards();
+            repeatReviews += day.getRepeatReviews();
+            repeatCorrect += day.getRepeatCorrect();
+        }
+
+        // The current streak is still alive until a whole day is missed
+        int currentStreak = Math.max(streakOn(rollups, today), streakOn(rollups, today.minusDays(1)));
+        Integer longestStreak = userDailyStatsRepository.findLongestStreak(userId);
+        return new LearningStatsRecord(from, today, reviews, correct, newCards, ratio(correct, reviews),
+                ratio(repeatCorrect, repeatReviews), currentStreak, longestStreak == null ? 0 : longestStreak, daily);
+    }
+
+    private static int streakOn(Map<LocalDate, UserDailyStats> rollups, LocalDate date) {
+        UserDailyStats day = rollups.get(date);
+        return day == null ? 0 : day.getStreak();
+    }
+
+    private static Double ratio(int part, int total) {
+        return total == 0 ? null : (double) part / total;
+    }
+}
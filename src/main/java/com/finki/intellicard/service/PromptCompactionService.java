@@ -0,0 +1,197 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.record.CompactedDocument;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes extracted document text before it is embedded in the generation prompt.
+ * Repeated page headers/footers, page numbers, hyphenation breaks and whitespace runs
+ * are removed so that the AI call only pays for actual content. Lines are only ever
+ * dropped from the first and last few lines of a page, and only when the text has page
+ * breaks: text without them is one stretch of body, kept as it is.
+ */
+@Service
+public class PromptCompactionService {
+
+    public static final String PAGE_SEPARATOR = "\f";
+
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final int PAGE_EDGE_LINES = 3;
+
+    private static final Pattern PAGE_NUMBER = Pattern.compile(
+            "^(page|p\\.|стр\\.?)?\\s*[-–]?\\s*\\d{1,4}\\s*[-–]?\\s*((of|/|од)\\s*\\d{1,4})?$",
+            Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+
+    private static final Pattern BOILERPLATE = Pattern.compile(
+            "^(©|\\(c\\)|copyright\\b).*|.*\\ball rights reserved\\b.*|.*\\bintentionally left blank\\b.*" +
+                    "|^(confidential|draft|printed on)\\b.*",
+            Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+
+    private static final Pattern HORIZONTAL_WHITESPACE = Pattern.compile("[\\h\\x0B]+");
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+
+    private final DistributionSummary rawTokens;
+    private final DistributionSummary compactedTokens;
+    private final double repeatedLineRatio;
+
+    public PromptCompactionService(MeterRegistry meterRegistry,
+                                   @Value("${generation.compaction.repeated-line-ratio:0.5}") double repeatedLineRatio) {
+        this.repeatedLineRatio = repeatedLineRatio;
+        this.rawTokens = DistributionSummary.builder("intellicard.generation.prompt.tokens")
+                .description("Estimated prompt tokens of the document content")
+                .baseUnit("tokens")
+                .tag("stage", "raw")
+                .register(meterRegistry);
+        this.compactedTokens = DistributionSummary.builder("intellicard.generation.prompt.tokens")
+                .description("Estimated prompt tokens of the document content")
+                .baseUnit("tokens")
+                .tag("stage", "compacted")
+                .register(meterRegistry);
+    }
+
+    public CompactedDocument compact(String text) {
+        if (text == null || text.isBlank()) {
+            return new CompactedDocument("", 0, 0);
+        }
+
+        List<List<String>> pages = splitPages(text);
+        Set<String> repeatedLines = findRepeatedLines(pages);
+
+        StringBuilder result = new StringBuilder(text.length());
+        boolean previousBlank = true;
+        String previousLine = null;
+
+        for (List<String> page : pages) {
+            Set<Integer> edges = pages.size() > 1 ? edgeLineIndexes(page) : Set.of();
+            for (int i = 0; i < page.size(); i++) {
+                String line = page.get(i);
+                if (line.isEmpty()) {
+                    if (!previousBlank) {
+                        result.append('\n');
+                        previousBlank = true;
+                    }
+                    continue;
+                }
+
+                // A header that also ended the previous page shows up twice in a row
+                if (edges.contains(i) && (isDroppable(line, repeatedLines) || line.equals(previousLine))) {
+                    continue;
+                }
+
+                if (!previousBlank && endsWithHyphenatedWord(result) && Character.isLowerCase(line.codePointAt(0))) {
+                    result.setLength(result.length() - 1);
+                    result.append(line);
+                } else {
+                    if (!previousBlank) {
+                        result.append('\n');
+                    }
+                    result.append(line);
+                }
+                previousBlank = false;
+                previousLine = line;
+            }
+        }
+
+        String compacted = result.toString().strip();
+        CompactedDocument document = new CompactedDocument(compacted, estimateTokens(text), estimateTokens(compacted));
+        rawTokens.record(document.originalTokens());
+        compactedTokens.record(document.compactedTokens());
+        return document;
+    }
+
+    /**
+     * Rough token estimate for English-like text (about four characters per token),
+     * good enough for comparing prompts before and after compaction.
+     */
+    public static int estimateTokens(String text) {
+        return text == null ? 0 : (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    private List<List<String>> splitPages(String text) {
+        String[] rawPages = text.replace("\r\n", "\n").replace('\r', '\n').split(PAGE_SEPARATOR, -1);
+        List<List<String>> pages = new ArrayList<>(rawPages.length);
+
+        for (String rawPage : rawPages) {
+            String[] rawLines = rawPage.split("\n", -1);
+            List<String> lines = new ArrayList<>(rawLines.length + 1);
+            for (String rawLine : rawLines) {
+                lines.add(HORIZONTAL_WHITESPACE.matcher(rawLine).replaceAll(" ").strip());
+            }
+            lines.add("");
+            pages.add(lines);
+        }
+        return pages;
+    }
+
+    private Set<String> findRepeatedLines(List<List<String>> pages) {
+        if (pages.size() < 3) {
+            return Set.of();
+        }
+
+        Map<String, Integer> pageCounts = new HashMap<>();
+        for (List<String> page : pages) {
+            Set<String> seenOnPage = new HashSet<>();
+            for (int index : edgeLineIndexes(page)) {
+                String shape = lineShape(page.get(index));
+                if (seenOnPage.add(shape)) {
+                    pageCounts.merge(shape, 1, Integer::sum);
+                }
+            }
+        }
+
+        int threshold = Math.max(2, (int) Math.ceil(pages.size() * repeatedLineRatio));
+        Set<String> repeated = new HashSet<>();
+        pageCounts.forEach((shape, count) -> {
+            if (count >= threshold) {
+                repeated.add(shape);
+            }
+        });
+        return repeated;
+    }
+
+    /**
+     * Headers and footers only ever sit at the top or bottom of a page, so repeated-line
+     * detection is limited to the first and last few non-empty lines.
+     */
+    private Set<Integer> edgeLineIndexes(List<String> page) {
+        List<Integer> nonEmpty = new ArrayList<>();
+        for (int i = 0; i < page.size(); i++) {
+            if (!page.get(i).isEmpty()) {
+                nonEmpty.add(i);
+            }
+        }
+
+        Set<Integer> edges = new HashSet<>();
+        for (int i = 0; i < nonEmpty.size(); i++) {
+            if (i < PAGE_EDGE_LINES || i >= nonEmpty.size() - PAGE_EDGE_LINES) {
+                edges.add(nonEmpty.get(i));
+            }
+        }
+        return edges;
+    }
+
+    private boolean isDroppable(String line, Set<String> repeatedLines) {
+        return PAGE_NUMBER.matcher(line).matches()
+                || BOILERPLATE.matcher(line).matches()
+                || repeatedLines.contains(lineShape(line));
+    }
+
+    private boolean endsWithHyphenatedWord(CharSequence text) {
+        int length = text.length();
+        if (length < 2) {
+            return false;
+        }
+        char last = text.charAt(length - 1);
+        return (last == '-' || last == '\u00AD') && Character.isLetter(text.charAt(length - 2));
+    }
+
+    private String lineShape(String line) {
+        return DIGITS.matcher(line.toLowerCase(Locale.ROOT)).replaceAll("#");
+    }
+}
@@ -0,0 +1,136 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.record.QueryShapeRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Rolling statistics per query shape (SQL with literals and IN-lists normalized away).
+ * Executions are collected into fixed time windows; the current and the previous window
+ * are reported together, so the view always covers between one and two windows.
+ */
+@Service
+public class QueryShapeStatistics {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final long windowMillis;
+    private final int maxShapes;
+
+    private volatile Window current;
+    private volatile Window previous;
+
+    public QueryShapeStatistics(
+            @Value("${sql.profile.window:15m}") Duration window,
+            @Value("${sql.profile.max-shapes:2000}") int maxShapes) {
+        this.windowMillis = window.toMillis();
+        this.maxShapes = maxShapes;
+        long now = System.currentTimeMillis();
+        this.current = new Window(now);
+        this.previous = new Window(now);
+    }
+
+    public static String normalize(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("in (...)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    public void record(String shape, long elapsedMillis) {
+        Window window = currentWindow();
+        ShapeStats stats = window.shapes.get(shape);
+        if (stats == null) {
+            if (window.shapes.size() >= maxShapes) {
+                return;
+            }
+            stats = window.shapes.computeIfAbsent(shape, key -> new ShapeStats());
+        }
+        stats.record(elapsedMillis);
+    }
+
+    /**
+     * The slowest query shapes over the rolling window, ordered by {@code total}, {@code mean}
+     * or {@code max} time.
+     */
+    public List<QueryShapeRecord> slowest(int limit, String orderBy) {
+        Window latest = currentWindow();
+        Map<String, long[]> merged = new HashMap<>();
+        for (Window window : List.of(previous, latest)) {
+            window.shapes.forEach((shape, stats) -> {
+                long[] totals = merged.computeIfAbsent(shape, key -> new long[3]);
+                totals[0] += stats.executions.sum();
+                totals[1] += stats.totalMillis.sum();
+                totals[2] = Math.max(totals[2], stats.maxMillis.get());
+            });
+        }
+
+        List<QueryShapeRecord> shapes = new ArrayList<>(merged.size());
+        merged.forEach((shape, totals) -> shapes.add(new QueryShapeRecord(
+                shape,
+                totals[0],
+                totals[1],
+                totals[0] == 0 ? 0 : (double) totals[1] / totals[0],
+                totals[2])));
+        Comparator<QueryShapeRecord> order = switch (orderBy) {
+            case "mean" -> Comparator.comparingDouble(QueryShapeRecord::meanMillis);
+            case "max" -> Comparator.comparingDouble(QueryShapeRecord::maxMillis);
+            case "total" -> Comparator.comparingDouble(QueryShapeRecord::totalMillis);
+            default -> throw new IllegalArgumentException("Unknown ordering: " + orderBy + ". Use total, mean or max");
+        };
+        shapes.sort(order.reversed());
+        return shapes.size() > limit ? shapes.subList(0, limit) : shapes;
+    }
+
+    private Window currentWindow() {
+        Window window = current;
+        long now = System.currentTimeMillis();
+        if (now - window.startedAt < windowMillis) {
+            return window;
+        }
+        synchronized (this) {
+            window = current;
+            if (now - window.startedAt >= windowMillis) {
+                previous = now - window.startedAt < 2 * windowMillis ? window : new Window(now);
+                window = new Window(now);
+                current = window;
+            }
+            return window;
+        }
+    }
+
+    private static final class Window {
+        private final long startedAt;
+        private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+
+        private Window(long startedAt) {
+            this.startedAt = startedAt;
+        }
+    }
+
+    private static final class ShapeStats {
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder totalMillis = new LongAdder();
+        private final AtomicLong maxMillis = new AtomicLong();
+
+        private void record(long elapsedMillis) {
+            executions.increment();
+            totalMillis.add(elapsedMillis);
+            maxMillis.accumulateAndGet(elapsedMillis, Math::max);
+        }
+    }
+}
@@ -1,31 +1,33 @@
 package com.finki.intellicard.service;
 
+import com.finki.intellicard.exceptions.AiProviderUnavailableException;
+import com.finki.intellicard.record.AiCompletion;
 import com.finki.intellicard.record.Document;
 import com.finki.intellicard.record.GeneratedCardDto;
 import com.finki.intellicard.record.GenerateQuestionsRequest;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
+import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 @Service
 public class QuestionGenerationService {
     private final RestTemplate restTemplate;
+    private final AiCallExecutor aiCallExecutor;
+    private final AiCompletionParser aiCompletionParser;
+    private final MeterRegistry meterRegistry;
     private final ObjectMapper objectMapper;
 
-    private static final Set<String> activeRequests = ConcurrentHashMap.newKeySet();
-
     @Value("${openai.api.url:https://api.openai.com/v1/chat/completions}")
     private String openaiApiUrl;
 
@@ -41,21 +43,15 @@ public class QuestionGenerationService {
     @Value("${openai.max-tokens:2500}")
     private int maxTokens;
 
-    public QuestionGenerationService(RestTemplate restTemplate) {
+    public QuestionGenerationService(RestTemplate restTemplate, AiCallExecutor aiCallExecutor, AiCompletionParser aiCompletionParser, MeterRegistry meterRegistry) {
         this.restTemplate = restTemplate;
+        this.aiCallExecutor = aiCallExecutor;
+        this.aiCompletionParser = aiCompletionParser;
+        this.meterRegistry = meterRegistry;
         this.objectMapper = new ObjectMapper();
     }
 
     public List<GeneratedCardDto> generateCardsFromDocument(Document document, GenerateQuestionsRequest request) {
-        String requestId = document.getTitle() + "_" + System.currentTimeMillis() + "_" +
-                request.getQuestionCount() + "_" + request.getDifficultyLevel();
-
-        if (activeRequests.contains(requestId)) {
-            return List.of();
-        }
-
-        activeRequests.add(requestId);
-
         try {
             List<GeneratedCardDto> generatedCards = callAiGenerationApi(document, request);
 
@@ -65,10 +61,10 @@ public class QuestionGenerationService {
 
             return generatedCards;
 
+        } catch (AiProviderUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Failed to generate cards: " + e.getMessage(), e);
-        } finally {
-            activeRequests.remove(requestId);
         }
     }
 
@@ -76,6 +72,8 @@ public class QuestionGenerationService {
         try {
             List<GeneratedCardDto> result = callConfiguredAiApi(document, request);
             return result;
+        } catch (AiProviderUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("OpenAI API call failed: " + e.getMessage(), e);
         }
@@ -104,25 +102,57 @@ public class QuestionGenerationService {
         requestBody.put("temperature", temperature);
         requestBody.put("max_tokens", maxTokens);
 
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
         try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(openaiApiUrl, entity, Map.class);
-
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                throw new RuntimeException("OpenAI API returned error: " + response.getStatusCode());
+            AiCompletion completion = aiCallExecutor.execute(() -> restTemplate.execute(openaiApiUrl, HttpMethod.POST,
+                    httpRequest -> {
+                        httpRequest.getHeaders().putAll(headers);
+                        objectMapper.writeValue(httpRequest.getBody(), requestBody);
+                    },
+                    httpResponse -> {
+                        try {
+                            return aiCompletionParser.readCompletion(httpResponse.getBody());
+                        } catch (JsonProcessingException e) {
+                            throw new IllegalStateException("Malformed OpenAI response: " + e.getOriginalMessage(), e);
+                        }
+                    }));
+
+            if (completion == null) {
+                throw new RuntimeException("OpenAI API returned an empty response");
             }
 
-            String aiResponse = extractContentFromAiResponse(response.getBody());
-            List<GeneratedCardDto> cards = parseCardsFromAiResponse(aiResponse);
-
-            return cards;
+            outcome = "success";
+            recordTokens("prompt", completion.promptTokens());
+            recordTokens("completion", completion.completionTokens());
+            return parseCardsFromAiResponse(completion.content());
 
+        } catch (AiProviderUnavailableException e) {
+            outcome = "unavailable";
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("OpenAI API call failed: " + e.getMessage(), e);
+        } finally {
+            sample.stop(Timer.builder("intellicard.ai.call")
+                    .description("AI completion latency, including retries")
+                    .tag("model", model)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
         }
     }
 
+    private void recordTokens(String type, Integer tokens) {
+        if (tokens == null) {
+            return;
+        }
+        Counter.builder("intellicard.ai.tokens")
+                .description("Tokens reported by the AI provider")
+                .tag("model", model)
+                .tag("type", type)
+                .register(meterRegistry)
+                .increment(tokens);
+    }
+
     private String buildPrompt(Document document, GenerateQuestionsRequest request) {
         String language = (request.getLanguage() != null && !request.getLanguage().isEmpty())
                 ? request.getLanguage() : "English";
@@ -176,128 +206,11 @@ public class QuestionGenerationService {
         };
     }
 
-    private String extractContentFromAiResponse(Map<String, Object> responseBody) {
+    List<GeneratedCardDto> parseCardsFromAiResponse(String aiResponse) {
         try {
-            if (responseBody == null) {
-                return "{}";
-            }
-
-            if (responseBody.containsKey("choices")) {
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> choices = (List<Map<String, Object>>) responseBody.get("choices");
-                if (!choices.isEmpty()) {
-                    Map<String, Object> firstChoice = choices.get(0);
-                    if (firstChoice.containsKey("message")) {
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> message = (Map<String, Object>) firstChoice.get("message");
-                        return (String) message.get("content");
-                    } else if (firstChoice.containsKey("text")) {
-                        return (String) firstChoice.get("text");
-                    }
-                }
-            }
-
-            if (responseBody.containsKey("generated_text")) {
-                return (String) responseBody.get("generated_text");
-            }
-
-            for (Object key : responseBody.keySet()) {
-                Object value = responseBody.get(key);
-                if (value instanceof String) {
-                    return (String) value;
-                }
-            }
-
-            return objectMapper.writeValueAsString(responseBody);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to parse OpenAI response", e);
-        }
-    }
-
-    private List<GeneratedCardDto> parseCardsFromAiResponse(String aiResponse) {
-        try {
-            String jsonContent = extractJsonFromText(aiResponse);
-
-            JsonNode jsonNode = objectMapper.readTree(jsonContent);
-
-            JsonNode jsonArray;
-            if (jsonNode.isArray()) {
-                jsonArray = jsonNode;
-            } else if (jsonNode.isObject()) {
-                ArrayNode arrayNode = objectMapper.createArrayNode();
-                arrayNode.add(jsonNode);
-                jsonArray = arrayNode;
-            } else {
-                throw new RuntimeException("Response is not a valid JSON array or object");
-            }
-
-            List<GeneratedCardDto> cards = StreamSupport.stream(jsonArray.spliterator(), false)
-                    .map(this::convertJsonNodeToCardDto)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
-
-            return cards;
-
-        } catch (Exception e) {
+            return aiCompletionParser.readCards(aiResponse);
+        } catch (IOException e) {
             throw new RuntimeException("Failed to parse generated cards: " + e.getMessage(), e);
         }
     }
-
-    private GeneratedCardDto convertJsonNodeToCardDto(JsonNode cardNode) {
-        try {
-            String term = null;
-            if (cardNode.has("term")) {
-                term = cardNode.get("term").asText();
-            } else if (cardNode.has("question")) {
-                term = cardNode.get("question").asText();
-            } else if (cardNode.has("text")) {
-                term = cardNode.get("text").asText();
-            }
-
-            String definition = null;
-            if (cardNode.has("definition")) {
-                definition = cardNode.get("definition").asText();
-            } else if (cardNode.has("answer")) {
-                definition = cardNode.get("answer").asText();
-            } else if (cardNode.has("explanation")) {
-                definition = cardNode.get("explanation").asText();
-            }
-
-            if (term == null || term.trim().isEmpty() ||
-                    definition == null || definition.trim().isEmpty()) {
-                return null;
-            }
-
-            if (definition.trim().length() < 10) {
-                return null;
-            }
-
-            return new GeneratedCardDto(term.trim(), definition.trim());
-
-        } catch (Exception e) {
-            return null;
-        }
-    }
-
-    private String extractJsonFromText(String text) {
-        if (text == null || text.trim().isEmpty()) {
-            return "[]";
-        }
-
-        int startIndex = text.indexOf("[");
-        int endIndex = text.lastIndexOf("]");
-
-        if (startIndex != -1 && endIndex != -1 && endIndex > startIndex) {
-            return text.substring(startIndex, endIndex + 1);
-        }
-
-        startIndex = text.indexOf("{");
-        endIndex = text.lastIndexOf("}");
-
-        if (startIndex != -1 && endIndex != -1 && endIndex > startIndex) {
-            return text.substring(startIndex, endIndex + 1);
-        }
-
-        return "[]";
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package com.finki.intellicard.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which users wrote recently so that their reads can be kept off a lagging
+ * replica for a short window and they always see their own changes. Keyed by the
+ * authenticated username of the current thread.
+ */
+@Service
+public class ReadYourWritesTracker {
+
+    private static final int MAX_TRACKED_USERS = 10_000;
+
+    private final long windowNanos;
+    private final Map<String, Long> lastWriteNanos = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(@Value("${datasource.replica.read-your-writes-window:5s}") Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public void recordWrite() {
+        String username = currentUsername();
+        if (username == null) {
+            return;
+        }
+        if (lastWriteNanos.size() > MAX_TRACKED_USERS) {
+            long now = System.nanoTime();
+            lastWriteNanos.values().removeIf(writtenAt -> now - writtenAt > windowNanos);
+        }
+        lastWriteNanos.put(username, System.nanoTime());
+    }
+
+    public boolean wroteRecently() {
+        String username = currentUsername();
+        if (username == null) {
+            return false;
+        }
+        Long writtenAt = lastWriteNanos.get(username);
+        return writtenAt != null && System.nanoTime() - writtenAt <= windowNanos;
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,203 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.model.ReviewEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends reviews to the {@code review_event} log off the request path. Callers hand over
+ * reviews once their progress update has committed; one thread writes whatever has queued
+ * up as a single batched INSERT, waiting up to {@code review.log.linger} for a batch to fill.
+ * A review therefore adds no statement to the request that made it, and under load the
+ * cost of a write transaction is shared by up to {@code review.log.batch-size} reviews.
+ * <p>
+ * The write cost per review is {@code intellicard.review.log.flush} (time per batch)
+ * divided by {@code intellicard.review.log.batch.size}. When the queue is full the caller
+ * writes its own reviews, so a slow database pushes back instead of growing the heap.
+ * Reviews still queued at shutdown are written before the writer stops. If the database
+ * rejects a batch, its reviews are retried one at a time, so only a review that fails on
+ * its own is counted in {@code intellicard.review.log.dropped} and lost.
+ * <p>
+ * Delivery is at most once: the queue lives in memory, so the reviews in it are lost if
+ * the process dies without shutting down, while the progress updates they describe have
+ * already committed. The log and the stats built on it can therefore miss a few reviews,
+ * but never count one twice.
+ * <p>
+ * Each batch also updates the daily stats rollups in the same transaction
+ * ({@link LearningStatsService#rollUp}), so the stats always agree with the log. Batches
+ * are written one at a time, so two of them never create the same day's rollup.
+ */
+@Service
+public class ReviewEventLog {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewEventLog.class);
+
+    private static final String INSERT = "INSERT INTO review_event " +
+            "(user_id, card_id, reviewed_at, correct, difficulty, elapsed_seconds) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LearningStatsService learningStatsService;
+    private final SingleWriterExecutor singleWriterExecutor;
+    private final int batchSize;
+    private final long lingerNanos;
+
+    private final BlockingQueue<ReviewEvent> queue;
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizes;
+    private final Counter dropped;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public ReviewEventLog(JdbcTemplate jdbcTemplate,
+                          LearningStatsService learningStatsService,
+                          SingleWriterExecutor singleWriterExecutor,
+                          MeterRegistry meterRegistry,
+                          @Value("${review.log.batch-size:500}") int batchSize,
+                          @Value("${review.log.linger:200ms}") Duration linger,
+                          @Value("${review.log.capacity:50000}") int capacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.learningStatsService = learningStatsService;
+        this.singleWriterExecutor = singleWriterExecutor;
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerNanos = linger.toNanos();
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, capacity));
+
+        Gauge.builder("intellicard.review.log.pending", queue, BlockingQueue::size)
+                .description("Reviews waiting to be appended to the review log")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("intellicard.review.log.flush")
+                .description("Time to append one batch to the review log")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("intellicard.review.log.batch.size")
+                .description("Reviews appended to the review log per batch")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("intellicard.review.log.dropped")
+                .description("Reviews the review log failed to write")
+                .register(meterRegistry);
+
+        writer = new Thread(this::drain, "review-event-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void append(ReviewEvent event) {
+        if (!running || !queue.offer(event)) {
+            write(List.of(event));
+        }
+    }
+
+    public void append(Collection<ReviewEvent> events) {
+        List<ReviewEvent> overflow = new ArrayList<>();
+        for (ReviewEvent event : events) {
+            if (!running || !queue.offer(event)) {
+                overflow.add(event);
+            }
+        }
+        if (!overflow.isEmpty()) {
+            write(overflow);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    private void drain() {
+        List<ReviewEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                ReviewEvent first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch);
+            } catch (InterruptedException e) {
+                // Write what was collected; the loop ends once the queue is empty
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void fill(List<ReviewEvent> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            ReviewEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private synchronized void write(List<ReviewEvent> batch) {
+        try {
+            insert(batch);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                dropped.increment();
+                log.warn("Could not append a review to the review log", e);
+                return;
+            }
+            log.debug("Could not append {} reviews to the review log, retrying them one by one", batch.size(), e);
+            int failed = 0;
+            for (ReviewEvent event : batch) {
+                try {
+                    insert(List.of(event));
+                } catch (RuntimeException single) {
+                    failed++;
+                    dropped.increment();
+                    log.debug("Could not append review of card {} by user {}", event.getCardId(), event.getUserId(), single);
+                }
+            }
+            if (failed > 0) {
+                log.warn("Could not append {} of {} reviews to the review log", failed, batch.size(), e);
+            }
+        }
+    }
+
+    private void insert(List<ReviewEvent> batch) {
+        flushTimer.record(() -> singleWriterExecutor.run(() -> {
+            jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), (PreparedStatement ps, ReviewEvent event) -> {
+                ps.setLong(1, event.getUserId());
+                ps.setLong(2, event.getCardId());
+                ps.setTimestamp(3, Timestamp.valueOf(event.getReviewedAt()));
+                ps.setBoolean(4, event.isCorrect());
+                ps.setShort(5, event.getDifficulty());
+                ps.setObject(6, event.getElapsedSeconds(), Types.INTEGER);
+            });
+            learningStatsService.rollUp(batch);
+        }));
+        batchSizes.record(batch.size());
+    }
+}
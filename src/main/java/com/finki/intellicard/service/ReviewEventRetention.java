@@ -0,0 +1,135 @@
+package com.finki.intellicard.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the review log's partitions ahead of the clock and drops the ones past retention.
+ * On PostgreSQL {@code review_event} is partitioned by month: every day this creates the
+ * partitions for the next {@code review.log.partitions-ahead} months and drops whole months
+ * older than {@code review.log.retention-months}, which costs nothing per row and leaves
+ * no dead tuples behind. Other databases have a plain table, so old rows are deleted.
+ * A retention of 0 keeps the log forever.
+ */
+@Service
+public class ReviewEventRetention {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewEventRetention.class);
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern PARTITION_NAME = Pattern.compile("review_event_p(\\d{6})");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SingleWriterExecutor singleWriterExecutor;
+    private final int retentionMonths;
+    private final int partitionsAhead;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "review-event-retention");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReviewEventRetention(JdbcTemplate jdbcTemplate,
+                                SingleWriterExecutor singleWriterExecutor,
+                                @Value("${review.log.retention-months:24}") int retentionMonths,
+                                @Value("${review.log.partitions-ahead:3}") int partitionsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.singleWriterExecutor = singleWriterExecutor;
+        this.retentionMonths = Math.max(0, retentionMonths);
+        this.partitionsAhead = Math.max(1, partitionsAhead);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleMaintenance() {
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                maintain();
+            } catch (RuntimeException e) {
+                log.warn("Review log maintenance failed; retrying in a day", e);
+            }
+        }, 0, 1, TimeUnit.DAYS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public void maintain() {
+        YearMonth now = YearMonth.now();
+        if (isPartitioned()) {
+            createPartitions(now);
+            if (retentionMonths > 0) {
+                dropPartitionsBefore(now.minusMonths(retentionMonths));
+            }
+        } else if (retentionMonths > 0) {
+            deleteBefore(now.minusMonths(retentionMonths));
+        }
+    }
+
+    private boolean isPartitioned() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equals(database);
+    }
+
+    private void createPartitions(YearMonth from) {
+        for (int i = 0; i <= partitionsAhead; i++) {
+            YearMonth month = from.plusMonths(i);
+            // Months are created before they start, so none of their rows are in the default partition
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month)
+                    + " PARTITION OF review_event FOR VALUES FROM ('" + month.atDay(1)
+                    + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        }
+    }
+
+    private void dropPartitionsBefore(YearMonth cutoff) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+                        "WHERE p.relname = 'review_event'", String.class);
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (matcher.matches() && YearMonth.parse(matcher.group(1), PARTITION_SUFFIX).isBefore(cutoff)) {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                log.info("Dropped review log partition {}", partition);
+            }
+        }
+        // Old offline uploads that predate the first partition
+        jdbcTemplate.update("DELETE FROM review_event_default WHERE reviewed_at < ?", startOf(cutoff));
+    }
+
+    private void deleteBefore(YearMonth cutoff) {
+        int deleted = singleWriterExecutor.execute(() ->
+                jdbcTemplate.update("DELETE FROM review_event WHERE reviewed_at < ?", startOf(cutoff)));
+        if (deleted > 0) {
+            log.info("Deleted {} reviews before {} from the review log", deleted, cutoff);
+        }
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "review_event_p" + month.format(PARTITION_SUFFIX);
+    }
+
+    private static Timestamp startOf(YearMonth month) {
+        return Timestamp.valueOf(month.atDay(1).atStartOfDay());
+    }
+}
@@ -0,0 +1,31 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.model.UserCardProgress;
+
+import java.time.LocalDateTime;
+
+/**
+ * Decides when a card is shown again. The active implementation is picked with
+ * {@code study.scheduler.algorithm} ({@code sm2}, the default, or {@code fsrs}).
+ * <p>
+ * When {@link #schedule} is called the review counters (times reviewed, times correct,
+ * consecutive correct) already include the new review, while {@code lastReviewed} still
+ * holds the previous one. Implementations set the interval and next review date, keep
+ * whatever memory state they need on the row and stamp it with {@link #version()}.
+ */
+public interface ReviewScheduler {
+
+    /**
+     * Identifies the algorithm and its parameters. Rows stamped with another version are
+     * rescheduled by {@link ScheduleRecomputeService}.
+     */
+    String version();
+
+    void schedule(UserCardProgress progress, boolean correct, int difficulty, LocalDateTime reviewedAt);
+
+    /**
+     * Recomputes the interval and next review date from the state stored on the row,
+     * without a new review. Cards that were never reviewed are only stamped.
+     */
+    void reschedule(UserCardProgress progress);
+}
@@ -0,0 +1,247 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.model.UserCardProgress;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reschedules the progress rows computed under another scheduler configuration, e.g.
+ * after switching from SM-2 to FSRS or changing the FSRS parameters. The stale id range is
+ * split across a fork-join pool down to chunks of {@code study.scheduler.recompute.chunk-size}
+ * ids. Each chunk is read and rescheduled on a pool thread and written back with one
+ * batched UPDATE in its own write transaction, which stamps the rows with the current
+ * {@link ReviewScheduler#version()}.
+ * <p>
+ * Committed chunks are never redone, so a run that is interrupted (shutdown, crash) picks up
+ * what is left the next time it runs. The UPDATE only touches rows that are still stale, so
+ * a card the learner reviewed in the meantime keeps its fresh schedule. Rows whose interval
+ * and next review date come out the same are only restamped; their {@code updated_at} is
+ * left alone, so they are not sent to syncing clients again.
+ */
+@Service
+public class ScheduleRecomputeService {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduleRecomputeService.class);
+
+    // Written as ranges rather than <> so that the schedule_version index can answer it
+    private static final String STALE = "(schedule_version IS NULL OR schedule_version < ? OR schedule_version > ?)";
+
+    private static final String RESCHEDULE = "UPDATE user_card_progress SET interval = ?, next_review_date = ?, " +
+            "stability = ?, difficulty = ?, schedule_version = ?, updated_at = ? WHERE id = ? AND " + STALE;
+
+    // Leaves updated_at alone, so syncing clients and card-list ETags see no change
+    private static final String RESTAMP = "UPDATE user_card_progress SET stability = ?, difficulty = ?, " +
+            "schedule_version = ? WHERE id = ? AND " + STALE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReviewScheduler reviewScheduler;
+    private final DailyQueueService dailyQueueService;
+    private final SingleWriterExecutor singleWriterExecutor;
+    private final int chunkSize;
+    private final int parallelism;
+    private final boolean onStartup;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopping;
+
+    public ScheduleRecomputeService(JdbcTemplate jdbcTemplate,
+                                    ReviewScheduler reviewScheduler,
+                                    DailyQueueService dailyQueueService,
+                                    SingleWriterExecutor singleWriterExecutor,
+                                    @Value("${study.scheduler.recompute.chunk-size:1000}") int chunkSize,
+                                    @Value("${study.scheduler.recompute.parallelism:0}") int parallelism,
+                                    @Value("${study.scheduler.recompute.on-startup:true}") boolean onStartup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reviewScheduler = reviewScheduler;
+        this.dailyQueueService = dailyQueueService;
+        this.singleWriterExecutor = singleWriterExecutor;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.onStartup = onStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recomputeOnStartup() {
+        if (!onStartup) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                recompute();
+            } catch (RuntimeException e) {
+                log.warn("Rescheduling progress for {} failed; the next run resumes it", reviewScheduler.version(), e);
+            }
+        }, "schedule-recompute");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Reschedules every stale row and returns how many were updated. Returns 0 at once if
+     * a run is already going.
+     */
+    public int recompute() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        String version = reviewScheduler.version();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Long[] range = jdbcTemplate.queryForObject(
+                    "SELECT MIN(id), MAX(id) FROM user_card_progress WHERE " + STALE,
+                    (rs, rowNum) -> new Long[]{nullableLong(rs, 1), nullableLong(rs, 2)},
+                    version, version);
+            if (range == null || range[0] == null) {
+                return 0;
+            }
+
+            log.info("Rescheduling progress {} to {} for {}", range[0], range[1], version);
+            int updated = pool.invoke(new Chunk(range[0], range[1], version));
+            dailyQueueService.evictAllDueCounts();
+            log.info("Rescheduled {} progress rows for {}{}", updated, version, stopping ? " before stopping" : "");
+            return updated;
+        } finally {
+            pool.shutdown();
+            running.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+    }
+
+    private int recomputeChunk(long fromId, long toId, String version) {
+        if (stopping) {
+            return 0;
+        }
+        List<UserCardProgress> rows = jdbcTemplate.query(
+                "SELECT p.id, p.times_reviewed, p.consecutive_correct, p.ease_factor, p.interval, p.last_reviewed, " +
+                        "p.next_review_date, p.stability, p.difficulty FROM user_card_progress p WHERE p.id BETWEEN ? AND ? AND " + STALE + " ORDER BY p.id",
+                ScheduleRecomputeService::toProgress, fromId, toId, version, version);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<UserCardProgress> rescheduled = new ArrayList<>();
+        List<UserCardProgress> unchanged = new ArrayList<>();
+        for (UserCardProgress progress : rows) {
+            Integer interval = progress.getInterval();
+            LocalDateTime nextReviewDate = progress.getNextReviewDate();
+            reviewScheduler.reschedule(progress);
+            boolean same = Objects.equals(interval, progress.getInterval())
+                    && Objects.equals(nextReviewDate, progress.getNextReviewDate());
+            (same ? unchanged : rescheduled).add(progress);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return singleWriterExecutor.execute(() -> {
+            int updated = 0;
+            if (!rescheduled.isEmpty()) {
+                updated += count(jdbcTemplate.batchUpdate(RESCHEDULE, rescheduled, rescheduled.size(),
+                        (PreparedStatement ps, UserCardProgress progress) -> {
+                            ps.setObject(1, progress.getInterval(), Types.INTEGER);
+                            ps.setTimestamp(2, progress.getNextReviewDate() == null ? null : Timestamp.valueOf(progress.getNextReviewDate()));
+                            ps.setObject(3, progress.getStability(), Types.DOUBLE);
+                            ps.setObject(4, progress.getDifficulty(), Types.DOUBLE);
+                            ps.setString(5, progress.getScheduleVersion());
+                            ps.setTimestamp(6, now);
+                            ps.setLong(7, progress.getId());
+                            ps.setString(8, version);
+                            ps.setString(9, version);
+                        }));
+            }
+            if (!unchanged.isEmpty()) {
+                updated += count(jdbcTemplate.batchUpdate(RESTAMP, unchanged, unchanged.size(),
+                        (PreparedStatement ps, UserCardProgress progress) -> {
+                            ps.setObject(1, progress.getStability(), Types.DOUBLE);
+                            ps.setObject(2, progress.getDifficulty(), Types.DOUBLE);
+                            ps.setString(3, progress.getScheduleVersion());
+                            ps.setLong(4, progress.getId());
+                            ps.setString(5, version);
+                            ps.setString(6, version);
+                        }));
+            }
+            return updated;
+        });
+    }
+
+    private static int count(int[][] counts) {
+        int updated = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // Some drivers only report that a batched statement succeeded
+                updated += count == PreparedStatement.SUCCESS_NO_INFO ? 1 : count;
+            }
+        }
+        return updated;
+    }
+
+    private static UserCardProgress toProgress(ResultSet rs, int rowNum) throws SQLException {
+        Timestamp lastReviewed = rs.getTimestamp("last_reviewed");
+        Timestamp nextReviewDate = rs.getTimestamp("next_review_date");
+        return UserCardProgress.builder()
+                .id(rs.getLong("id"))
+                .timesReviewed(rs.getInt("times_reviewed"))
+                .consecutiveCorrect(rs.getInt("consecutive_correct"))
+                .easeFactor(nullableDouble(rs, "ease_factor"))
+                .interval(rs.getObject("interval") == null ? null : rs.getInt("interval"))
+                .lastReviewed(lastReviewed == null ? null : lastReviewed.toLocalDateTime())
+                .nextReviewDate(nextReviewDate == null ? null : nextReviewDate.toLocalDateTime())
+                .stability(nullableDouble(rs, "stability"))
+                .difficulty(nullableDouble(rs, "difficulty"))
+                .build();
+    }
+
+    private static Long nullableLong(ResultSet rs, int column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Double nullableDouble(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private class Chunk extends RecursiveTask<Integer> {
+        private final long fromId;
+        private final long toId;
+        private final String version;
+
+        private Chunk(long fromId, long toId, String version) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.version = version;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (toId - fromId < chunkSize) {
+                return recomputeChunk(fromId, toId, version);
+            }
+            long middle = fromId + (toId - fromId) / 2;
+            Chunk left = new Chunk(fromId, middle, version);
+            Chunk right = new Chunk(middle + 1, toId, version);
+            left.fork();
+            return right.compute() + left.join();
+        }
+    }
+}
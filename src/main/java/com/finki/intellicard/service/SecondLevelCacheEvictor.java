@@ -0,0 +1,57 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.model.CardSet;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Evicts cached data that Hibernate cannot see change. Native inserts into join tables
+ * (such as approving a user through {@code accessible_sets}) refresh the query cache but
+ * not the cached collections mapped onto those tables, and plain JDBC writes (such as the
+ * batched card import) bypass Hibernate altogether. Evictions wait until the current
+ * transaction has finished, so a concurrent reader cannot put the old state back first.
+ */
+@Service
+public class SecondLevelCacheEvictor {
+
+    private static final String APPROVED_USERS_ROLE = CardSet.class.getName() + ".approvedUsers";
+    private static final String CARDS_ROLE = CardSet.class.getName() + ".cards";
+
+    private final Cache cache;
+
+    public SecondLevelCacheEvictor(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.getCache().unwrap(Cache.class);
+    }
+
+    public void evictApprovedUsers(Long cardSetId) {
+        afterTransaction(() -> cache.evictCollectionData(APPROVED_USERS_ROLE, cardSetId));
+    }
+
+    public void evictCards(Long cardSetId) {
+        afterTransaction(() -> cache.evictCollectionData(CARDS_ROLE, cardSetId));
+    }
+
+    /**
+     * Drops every cached entity, collection and query result on this node. Meant for
+     * out-of-band changes, e.g. a message from another node or a manual data fix.
+     */
+    public void evictAll() {
+        cache.evictAllRegions();
+    }
+
+    private static void afterTransaction(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                eviction.run();
+            }
+        });
+    }
+}
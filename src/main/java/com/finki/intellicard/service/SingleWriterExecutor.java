@@ -0,0 +1,235 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.exceptions.WriterBusyException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs every write transaction of the application. With a server database each write
+ * simply runs in its own transaction on the calling thread. In single-writer mode
+ * (SQLite, where the database file allows one writer at a time) writes are queued and
+ * executed by one thread, which commits whatever has queued up as one transaction, so a
+ * burst of small writes costs one fsync instead of many and never hits "database is
+ * locked". If a batch fails, its writes are retried one by one so that only the failing
+ * write reports an error.
+ * <p>
+ * A caller waits up to {@code persistence.single-writer.max-wait} for its write to start.
+ * A write that has not started by then is withdrawn and reported with
+ * {@link WriterBusyException}, so it is safe to retry; one that has started is waited for,
+ * so the caller always learns whether it committed.
+ */
+@Service
+public class SingleWriterExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(SingleWriterExecutor.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final Duration maxWait;
+
+    private final BlockingQueue<PendingWrite<?>> queue = new LinkedBlockingQueue<>();
+    private final DistributionSummary batchSize;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public SingleWriterExecutor(
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            ReadYourWritesTracker readYourWritesTracker,
+            @Value("${persistence.single-writer.enabled:false}") boolean enabled,
+            @Value("${persistence.single-writer.max-batch:64}") int maxBatch,
+            @Value("${persistence.single-writer.max-wait:30s}") Duration maxWait) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.enabled = enabled;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxWait = maxWait;
+
+        Gauge.builder("intellicard.writer.queue.depth", queue, BlockingQueue::size)
+                .description("Writes waiting for the single writer")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("intellicard.writer.batch.size")
+                .description("Writes committed together by the single writer")
+                .register(meterRegistry);
+
+        if (enabled) {
+            writer = new Thread(this::drain, "single-writer");
+            writer.setDaemon(true);
+            writer.start();
+        } else {
+            writer = null;
+        }
+    }
+
+    /**
+     * Runs the write in a transaction and returns its result once it has committed.
+     * <p>
+     * In single-writer mode the write may run more than once: when the batch it was part
+     * of fails, the batch is rolled back and each write runs again on its own. Writes must
+     * therefore only change state through the transaction (or reset anything else they
+     * collect at their start), and a failure of one write never reaches the others.
+     */
+    public <T> T execute(Supplier<T> write) {
+        T result = enabled && Thread.currentThread() != writer
+                ? enqueue(write)
+                : transactionTemplate.execute(status -> write.get());
+        readYourWritesTracker.recordWrite();
+        return result;
+    }
+
+    public void run(Runnable write) {
+        execute(() -> {
+            write.run();
+            return null;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(maxWait.toMillis());
+        }
+    }
+
+    private <T> T enqueue(Supplier<T> write) {
+        PendingWrite<T> pending = new PendingWrite<>(write, SecurityContextHolder.getContext());
+        queue.add(pending);
+        try {
+            try {
+                return pending.result.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (pending.withdraw()) {
+                    throw new WriterBusyException("The database is busy, please try again");
+                }
+                // Already running: its outcome is about to be known, so wait for it
+                return pending.result.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the database writer");
+        }
+    }
+
+    private void drain() {
+        List<PendingWrite<?>> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            PendingWrite<?> first;
+            try {
+                first = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, maxBatch - 1);
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    private void commit(List<PendingWrite<?>> batch) {
+        batch.removeIf(pending -> !pending.start());
+        if (batch.isEmpty()) {
+            return;
+        }
+        batchSize.record(batch.size());
+        if (batch.size() > 1) {
+            try {
+                List<Object> results = transactionTemplate.execute(status -> {
+                    List<Object> values = new ArrayList<>(batch.size());
+                    for (PendingWrite<?> pending : batch) {
+                        values.add(pending.run());
+                    }
+                    return values;
+                });
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).complete(results.get(i));
+                }
+                return;
+            } catch (RuntimeException | Error e) {
+                log.debug("Batch of {} writes failed, retrying them one by one", batch.size(), e);
+            }
+        }
+        for (PendingWrite<?> pending : batch) {
+            try {
+                pending.complete(transactionTemplate.execute(status -> pending.run()));
+            } catch (RuntimeException | Error e) {
+                pending.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static final class PendingWrite<T> {
+        private static final int QUEUED = 0;
+        private static final int STARTED = 1;
+        private static final int WITHDRAWN = 2;
+
+        private final Supplier<T> write;
+        private final SecurityContext securityContext;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        private PendingWrite(Supplier<T> write, SecurityContext securityContext) {
+            this.write = write;
+            this.securityContext = securityContext;
+        }
+
+        private T run() {
+            SecurityContextHolder.setContext(securityContext);
+            try {
+                return write.get();
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        }
+
+        // Exactly one of start() and withdraw() succeeds
+        private boolean start() {
+            return state.compareAndSet(QUEUED, STARTED);
+        }
+
+        private boolean withdraw() {
+            return state.compareAndSet(QUEUED, WITHDRAWN);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void complete(Object value) {
+            result.complete((T) value);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.model.UserCardProgress;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * SM-2 variant: 1 day, then 6 days, then the previous interval times the ease factor,
+ * which each correct answer adjusts by how hard it felt. A wrong answer starts over at
+ * one day.
+ */
+@Service
+@ConditionalOnProperty(name = "study.scheduler.algorithm", havingValue = "sm2", matchIfMissing = true)
+public class Sm2Scheduler implements ReviewScheduler {
+
+    static final String VERSION = "sm2";
+
+    @Override
+    public String version() {
+        return VERSION;
+    }
+
+    @Override
+    public void schedule(UserCardProgress progress, boolean correct, int difficulty, LocalDateTime reviewedAt) {
+        if (correct) {
+            double easeFactor = Math.max(1.3, progress.getEaseFactor() + (0.1 - (5 - difficulty) * (0.08 + (5 - difficulty) * 0.02)));
+            progress.setEaseFactor(easeFactor);
+
+            if (progress.getConsecutiveCorrect() == 1) {
+                progress.setInterval(1);
+            } else if (progress.getConsecutiveCorrect() == 2) {
+                progress.setInterval(6);
+            } else {
+                progress.setInterval((int) Math.round(progress.getInterval() * easeFactor));
+            }
+        } else {
+            progress.setInterval(1);
+        }
+        progress.setNextReviewDate(reviewedAt.plusDays(progress.getInterval()));
+        progress.setScheduleVersion(VERSION);
+    }
+
+    /**
+     * SM-2 keeps no state beyond the interval, so this only realigns the next review with
+     * the last one (intervals set by another scheduler are kept as they are).
+     */
+    @Override
+    public void reschedule(UserCardProgress progress) {
+        if (progress.getLastReviewed() != null && progress.getInterval() != null) {
+            progress.setNextReviewDate(progress.getLastReviewed().plusDays(progress.getInterval()));
+        }
+        progress.setScheduleVersion(VERSION);
+    }
+}
@@ -5,6 +5,7 @@ import com.finki.intellicard.exceptions.CardSetNotFoundException;
 import com.finki.intellicard.exceptions.UnauthorizedAccessException;
 import com.finki.intellicard.model.Card;
 import com.finki.intellicard.model.CardSet;
+import com.finki.intellicard.model.ReviewEvent;
 import com.finki.intellicard.model.User;
 import com.finki.intellicard.model.UserCardProgress;
 import com.finki.intellicard.model.enums.CardStatus;
@@ -16,6 +17,7 @@ import com.finki.intellicard.repository.UserCardProgressRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -27,41 +29,57 @@ public class SpacedRepetitionService {
     private final CardRepository cardRepository;
     private final CardSetRepository cardSetRepository;
     private final MyUserDetailsService myUserDetailsService;
+    private final ReviewScheduler reviewScheduler;
+    private final DailyQueueService dailyQueueService;
+    private final ReviewEventLog reviewEventLog;
+    private final LeaderboardService leaderboardService;
+    private final SingleWriterExecutor singleWriterExecutor;
 
-    public SpacedRepetitionService(UserCardProgressRepository userCardProgressRepository, CardRepository cardRepository, CardSetRepository cardSetRepository, MyUserDetailsService myUserDetailsService) {
+    public SpacedRepetitionService(UserCardProgressRepository userCardProgressRepository, CardRepository cardRepository, CardSetRepository cardSetRepository, MyUserDetailsService myUserDetailsService, ReviewScheduler reviewScheduler, DailyQueueService dailyQueueService, ReviewEventLog reviewEventLog, LeaderboardService leaderboardService, SingleWriterExecutor singleWriterExecutor) {
         this.userCardProgressRepository = userCardProgressRepository;
         this.cardRepository = cardRepository;
         this.cardSetRepository = cardSetRepository;
         this.myUserDetailsService = myUserDetailsService;
+        this.reviewScheduler = reviewScheduler;
+        this.dailyQueueService = dailyQueueService;
+        this.reviewEventLog = reviewEventLog;
+        this.leaderboardService = leaderboardService;
+        this.singleWriterExecutor = singleWriterExecutor;
     }
 
-    @Transactional
     public void reviewCard(Long cardId, boolean correct, int difficulty) {
-        Card card = cardRepository.findById(cardId)
-                .orElseThrow(() -> new CardNotFoundException("Card not found"));
-
-        verifyCardSetAccess(card.getCardSet());
-
-        Long currentUserId = myUserDetailsService.getUserIdByUsername(myUserDetailsService.getUsername());
-
-        UserCardProgress progress = userCardProgressRepository
-                .findByUserIdAndCardId(currentUserId, cardId)
-                .orElse(UserCardProgress.builder()
-                        .user(User.builder().id(currentUserId).build())
-                        .card(card)
-                        .build());
-
-        updateCardProgress(progress, correct, difficulty);
-        userCardProgressRepository.save(progress);
+        Reviewed reviewed = singleWriterExecutor.execute(() -> {
+            Card card = cardRepository.findById(cardId)
+                    .orElseThrow(() -> new CardNotFoundException("Card not found"));
+
+            String username = myUserDetailsService.getUsername();
+            Long currentUserId = myUserDetailsService.getUserIdByUsername(username);
+            verifyCardSetAccess(card.getCardSet(), currentUserId);
+
+            UserCardProgress progress = userCardProgressRepository
+                    .findByUserIdAndCardId(currentUserId, cardId)
+                    .orElse(UserCardProgress.builder()
+                            .user(User.builder().id(currentUserId).build())
+                            .card(card)
+                            .build());
+
+            CardStatus before = progress.getStatus();
+            ReviewEvent event = applyReview(progress, correct, difficulty, LocalDateTime.now());
+            userCardProgressRepository.save(progress);
+            return new Reviewed(event, prepareLeaderboard(card.getCardSet(), username, before, progress, event));
+        });
+        reviewEventLog.append(reviewed.event());
+        leaderboardService.apply(reviewed.leaderboard());
+        dailyQueueService.evictDueCount();
     }
 
+    @Transactional(readOnly = true)
     public List<CardRecord> getDueCardsForReview(Long cardSetId) {
-        CardSet cardSet = cardSetRepository.findById(cardSetId)
+        CardSet cardSet = cardSetRepository.findActiveById(cardSetId)
                 .orElseThrow(() -> new CardSetNotFoundException("CardSet not found"));
 
-        verifyCardSetAccess(cardSet);
-
         Long currentUserId = myUserDetailsService.getUserIdByUsername(myUserDetailsService.getUsername());
+        verifyCardSetAccess(cardSet, currentUserId);
 
         return userCardProgressRepository.findDueCardsForUser(currentUserId, cardSetId, LocalDateTime.now())
                 .stream()
@@ -69,13 +87,13 @@ public class SpacedRepetitionService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public StudySessionRecord getStudyOverview(Long cardSetId) {
-        CardSet cardSet = cardSetRepository.findById(cardSetId)
+        CardSet cardSet = cardSetRepository.findActiveById(cardSetId)
                 .orElseThrow(() -> new CardSetNotFoundException("CardSet not found"));
 
-        verifyCardSetAccess(cardSet);
-
         Long currentUserId = myUserDetailsService.getUserIdByUsername(myUserDetailsService.getUsername());
+        verifyCardSetAccess(cardSet, currentUserId);
 
         int totalCards = userCardProgressRepository.countTotalCardsInSet(cardSetId);
         int dueCards = userCardProgressRepository.countDueCardsForUser(currentUserId, cardSetId, LocalDateTime.now());
@@ -85,49 +103,67 @@ public class SpacedRepetitionService {
         return new StudySessionRecord(cardSetId, cardSet.getName(), totalCards, dueCards, masteredCards, learningCards);
     }
 
-    private void updateCardProgress(UserCardProgress progress, boolean correct, int difficulty) {
-        progress.setTimesReviewed(progress.getTimesReviewed() + 1);
-        progress.setLastReviewed(LocalDateTime.now());
+    /**
+     * Updates the progress like {@link #updateCardProgress} and returns the review for the
+     * review log. The progress must belong to a persisted user and card.
+     */
+    ReviewEvent applyReview(UserCardProgress progress, boolean correct, int difficulty, LocalDateTime reviewedAt) {
+        LocalDateTime previousReview = progress.getLastReviewed();
+        updateCardProgress(progress, correct, difficulty, reviewedAt);
+        return ReviewEvent.builder()
+                .userId(progress.getUser().getId())
+                .cardId(progress.getCard().getId())
+                .reviewedAt(reviewedAt)
+                .correct(correct)
+                .difficulty((short) difficulty)
+                .elapsedSeconds(previousReview == null ? null
+                        : (int) Math.min(Duration.between(previousReview, reviewedAt).toSeconds(), Integer.MAX_VALUE))
+                .build();
+    }
+
+    /**
+     * Captures a review applied with {@link #applyReview} for the set's leaderboard; apply
+     * the result once the write has committed.
+     */
+    LeaderboardService.PendingReview prepareLeaderboard(CardSet cardSet, String username, CardStatus before,
+                                                        UserCardProgress progress, ReviewEvent event) {
+        return leaderboardService.prepare(cardSet.getId(), event.getUserId(), username, before, progress.getStatus(),
+                event.isCorrect(), event.getReviewedAt().toLocalDate());
+    }
 
+    void updateCardProgress(UserCardProgress progress, boolean correct, int difficulty) {
+        updateCardProgress(progress, correct, difficulty, LocalDateTime.now());
+    }
+
+    /**
+     * Applies a review that happened at {@code reviewedAt}, which for reviews recorded
+     * offline can be well before now; the next review is scheduled from that moment.
+     */
+    void updateCardProgress(UserCardProgress progress, boolean correct, int difficulty, LocalDateTime reviewedAt) {
+        progress.setTimesReviewed(progress.getTimesReviewed() + 1);
         if (correct) {
             progress.setTimesCorrect(progress.getTimesCorrect() + 1);
             progress.setConsecutiveCorrect(progress.getConsecutiveCorrect() + 1);
-
-            double easeFactor = Math.max(1.3, progress.getEaseFactor() + (0.1 - (5 - difficulty) * (0.08 + (5 - difficulty) * 0.02)));
-            progress.setEaseFactor(easeFactor);
-
-            if (progress.getConsecutiveCorrect() == 1) {
-                progress.setInterval(1);
-            } else if (progress.getConsecutiveCorrect() == 2) {
-                progress.setInterval(6);
-            } else {
-                progress.setInterval((int) Math.round(progress.getInterval() * easeFactor));
-            }
-
-            progress.setNextReviewDate(LocalDateTime.now().plusDays(progress.getInterval()));
-
-            if (progress.getConsecutiveCorrect() >= 5) {
-                progress.setStatus(CardStatus.MASTERED);
-            } else if (progress.getConsecutiveCorrect() >= 2) {
-                progress.setStatus(CardStatus.REVIEW);
-            } else {
-                progress.setStatus(CardStatus.LEARNING);
-            }
         } else {
             progress.setConsecutiveCorrect(0);
-            progress.setInterval(1);
-            progress.setNextReviewDate(LocalDateTime.now().plusDays(1));
+        }
+
+        reviewScheduler.schedule(progress, correct, difficulty, reviewedAt);
+        progress.setLastReviewed(reviewedAt);
+
+        if (!correct || progress.getConsecutiveCorrect() < 2) {
             progress.setStatus(CardStatus.LEARNING);
+        } else if (progress.getConsecutiveCorrect() >= 5) {
+            progress.setStatus(CardStatus.MASTERED);
+        } else {
+            progress.setStatus(CardStatus.REVIEW);
         }
     }
 
-    private void verifyCardSetAccess(CardSet cardSet) {
-        String currentUsername = myUserDetailsService.getUsername();
-        Long currentUserId = myUserDetailsService.getUserIdByUsername(currentUsername);
-
+    private void verifyCardSetAccess(CardSet cardSet, Long currentUserId) {
         boolean hasAccess = cardSet.getCreator().getId().equals(currentUserId) ||
                 cardSet.isPublic() ||
-                cardSet.getApprovedUsers().stream().anyMatch(user -> user.getId().equals(currentUserId));
+                cardSetRepository.isApprovedUser(cardSet.getId(), currentUserId);
 
         if (!hasAccess) {
             throw new UnauthorizedAccessException("You are not authorized to access this card set");
@@ -145,4 +181,7 @@ public class SpacedRepetitionService {
                 progress != null ? progress.getStatus().toString() : "NEW"
         );
     }
-}
\ No newline at end of file
+
+    private record Reviewed(ReviewEvent event, LeaderboardService.PendingReview leaderboard) {
+    }
+}
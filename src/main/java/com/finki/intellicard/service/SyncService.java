@@ -0,0 +1,241 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.model.Card;
+import com.finki.intellicard.model.CardSet;
+import com.finki.intellicard.model.ReviewEvent;
+import com.finki.intellicard.model.User;
+import com.finki.intellicard.model.UserCardProgress;
+import com.finki.intellicard.model.enums.CardStatus;
+import com.finki.intellicard.record.OfflineReviewRecord;
+import com.finki.intellicard.record.OfflineReviewResultRecord;
+import com.finki.intellicard.record.SyncCardRecord;
+import com.finki.intellicard.record.SyncCardSetRecord;
+import com.finki.intellicard.record.SyncCursor;
+import com.finki.intellicard.record.SyncDeletionRecord;
+import com.finki.intellicard.record.SyncPageRecord;
+import com.finki.intellicard.record.SyncProgressRecord;
+import com.finki.intellicard.repository.CardRepository;
+import com.finki.intellicard.repository.CardSetRepository;
+import com.finki.intellicard.repository.TombstoneRepository;
+import com.finki.intellicard.repository.UserCardProgressRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Incremental sync for offline clients. A client's scope is every set it owns, has been
+ * approved for, or studies while it is public. A set that leaves the scope gets a
+ * tombstone for that user, so the client drops it. Sets, cards, the user's own progress and deletions are
+ * four streams, each read in (timestamp, id) order from where the cursor left off, so a
+ * page costs the same however much the user has. Rows younger than the commit grace
+ * period are left for the next call: a transaction that stamped an earlier time but
+ * commits later would otherwise be skipped for good.
+ */
+@Service
+public class SyncService {
+
+    public static final String APPLIED = "APPLIED";
+    public static final String STALE = "STALE";
+    public static final String CARD_NOT_FOUND = "CARD_NOT_FOUND";
+    public static final String FORBIDDEN = "FORBIDDEN";
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final CardSetRepository cardSetRepository;
+    private final CardRepository cardRepository;
+    private final UserCardProgressRepository userCardProgressRepository;
+    private final TombstoneRepository tombstoneRepository;
+    private final SpacedRepetitionService spacedRepetitionService;
+    private final MyUserDetailsService myUserDetailsService;
+    private final DailyQueueService dailyQueueService;
+    private final ReviewEventLog reviewEventLog;
+    private final LeaderboardService leaderboardService;
+    private final SingleWriterExecutor singleWriterExecutor;
+
+    @Value("${sync.page-size:500}")
+    private int defaultPageSize;
+
+    @Value("${sync.max-page-size:2000}")
+    private int maxPageSize;
+
+    @Value("${sync.commit-grace:5s}")
+    private Duration commitGrace;
+
+    @Value("${sync.max-review-batch:500}")
+    private int maxReviewBatch;
+
+    public SyncService(CardSetRepository cardSetRepository,
+                       CardRepository cardRepository,
+                       UserCardProgressRepository userCardProgressRepository,
+                       TombstoneRepository tombstoneRepository,
+                       SpacedRepetitionService spacedRepetitionService,
+                       MyUserDetailsService myUserDetailsService,
+                       DailyQueueService dailyQueueService,
+                       ReviewEventLog reviewEventLog,
+                       LeaderboardService leaderboardService,
+                       SingleWriterExecutor singleWriterExecutor) {
+        this.cardSetRepository = cardSetRepository;
+        this.cardRepository = cardRepository;
+        this.userCardProgressRepository = userCardProgressRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.spacedRepetitionService = spacedRepetitionService;
+        this.myUserDetailsService = myUserDetailsService;
+        this.dailyQueueService = dailyQueueService;
+        this.reviewEventLog = reviewEventLog;
+        this.leaderboardService = leaderboardService;
+        this.singleWriterExecutor = singleWriterExecutor;
+    }
+
+    @Transactional(readOnly = true)
+    public SyncPageRecord getChanges(String cursorToken, Integer limit) {
+        SyncCursor cursor = cursorToken == null || cursorToken.isBlank()
+                ? SyncCursor.from(ORIGIN)
+                : SyncCursor.decode(cursorToken);
+        int pageSize = limit == null ? defaultPageSize : Math.clamp(limit, 1, maxPageSize);
+        Limit page = Limit.of(pageSize);
+
+        Long userId = myUserDetailsService.getUserIdByUsername(myUserDetailsService.getUsername());
+        LocalDateTime upTo = LocalDateTime.now().minus(commitGrace);
+        Set<Long> scope = syncScope(userId);
+
+        List<SyncCardSetRecord> cardSets = scope.isEmpty() ? List.of() : cardSetRepository.findChangedSince(
+                scope, cursor.cardSets().after(), cursor.cardSets().afterId(), upTo, page);
+        List<SyncCardRecord> cards = scope.isEmpty() ? List.of() : cardRepository.findChangedSince(
+                scope, cursor.cards().after(), cursor.cards().afterId(), upTo, page);
+        List<SyncProgressRecord> progress = userCardProgressRepository.findChangedSince(
+                userId, cursor.progress().after(), cursor.progress().afterId(), upTo, page);
+        List<SyncDeletionRecord> deletions = tombstoneRepository.findChangedSince(
+                userId, scope,
+                cursor.deletions().after(), cursor.deletions().afterId(), upTo, page);
+
+        SyncCursor next = new SyncCursor(
+                advance(cursor.cardSets(), cardSets, SyncCardSetRecord::lastModified, SyncCardSetRecord::id),
+                advance(cursor.cards(), cards, SyncCardRecord::updatedAt, SyncCardRecord::id),
+                advance(cursor.progress(), progress, SyncProgressRecord::updatedAt, SyncProgressRecord::id),
+                advance(cursor.deletions(), deletions, SyncDeletionRecord::deletedAt, SyncDeletionRecord::id));
+        boolean hasMore = cardSets.size() == pageSize || cards.size() == pageSize
+                || progress.size() == pageSize || deletions.size() == pageSize;
+
+        return new SyncPageRecord(cardSets, cards, progress, deletions, next.encode(), hasMore);
+    }
+
+    /**
+     * Applies reviews recorded while offline, oldest first, in one write. A review no newer
+     * than the last one the server has for that card lost the race to another device and
+     * is reported as stale rather than applied on top.
+     */
+    public List<OfflineReviewResultRecord> applyOfflineReviews(List<OfflineReviewRecord> reviews) {
+        if (reviews == null || reviews.isEmpty()) {
+            return List.of();
+        }
+        if (reviews.size() > maxReviewBatch) {
+            throw new IllegalArgumentException("At most " + maxReviewBatch + " reviews can be uploaded at once");
+        }
+        for (OfflineReviewRecord review : reviews) {
+            if (review.cardId() == null || review.reviewedAt() == null) {
+                throw new IllegalArgumentException("Every review needs a cardId and reviewedAt");
+            }
+            if (review.difficulty() < 1 || review.difficulty() > 5) {
+                throw new IllegalArgumentException("Difficulty must be between 1 and 5");
+            }
+        }
+
+        List<ReviewEvent> events = new ArrayList<>();
+        List<LeaderboardService.PendingReview> leaderboard = new ArrayList<>();
+        List<OfflineReviewResultRecord> applied = singleWriterExecutor.execute(() -> {
+            // The single writer runs this again if the batch it was part of failed
+            events.clear();
+            leaderboard.clear();
+            String username = myUserDetailsService.getUsername();
+            Long userId = myUserDetailsService.getUserIdByUsername(username);
+            LocalDateTime now = LocalDateTime.now();
+            Set<Long> cardIds = reviews.stream().map(OfflineReviewRecord::cardId).collect(Collectors.toSet());
+
+            Map<Long, Card> cards = cardRepository.findAllById(cardIds).stream()
+                    .collect(Collectors.toMap(Card::getId, Function.identity()));
+            Map<Long, UserCardProgress> progressByCard = userCardProgressRepository
+                    .findByUserIdAndCardIdIn(userId, cardIds).stream()
+                    .collect(Collectors.toMap(p -> p.getCard().getId(), Function.identity()));
+            Map<Long, Boolean> accessBySet = new HashMap<>();
+            Set<UserCardProgress> changed = new HashSet<>();
+
+            List<OfflineReviewResultRecord> results = new ArrayList<>(reviews.size());
+            for (OfflineReviewRecord review : reviews.stream()
+                    .sorted(Comparator.comparing(OfflineReviewRecord::reviewedAt))
+                    .toList()) {
+                Card card = cards.get(review.cardId());
+                if (card == null) {
+                    results.add(result(review, CARD_NOT_FOUND));
+                    continue;
+                }
+                if (!accessBySet.computeIfAbsent(card.getCardSet().getId(), id -> hasAccess(card.getCardSet(), userId))) {
+                    results.add(result(review, FORBIDDEN));
+                    continue;
+                }
+
+                UserCardProgress progress = progressByCard.computeIfAbsent(card.getId(), id -> UserCardProgress.builder()
+                        .user(User.builder().id(userId).build())
+                        .card(card)
+                        .build());
+                LocalDateTime reviewedAt = review.reviewedAt().isAfter(now) ? now : review.reviewedAt();
+                if (progress.getLastReviewed() != null && !reviewedAt.isAfter(progress.getLastReviewed())) {
+                    results.add(result(review, STALE));
+                    continue;
+                }
+
+                CardStatus before = progress.getStatus();
+                ReviewEvent event = spacedRepetitionService.applyReview(progress, review.correct(), review.difficulty(), reviewedAt);
+                events.add(event);
+                leaderboard.add(spacedRepetitionService.prepareLeaderboard(card.getCardSet(), username, before, progress, event));
+                changed.add(progress);
+                results.add(result(review, APPLIED));
+            }
+
+            userCardProgressRepository.saveAll(changed);
+            return results;
+        });
+        reviewEventLog.append(events);
+        leaderboardService.apply(leaderboard);
+        dailyQueueService.evictDueCount();
+        return applied;
+    }
+
+    private Set<Long> syncScope(Long userId) {
+        Set<Long> scope = new HashSet<>(cardSetRepository.findIdsByCreatorId(userId));
+        scope.addAll(cardSetRepository.findIdsByApprovedUserId(userId));
+        scope.addAll(userCardProgressRepository.findPublicCardSetIdsByUserId(userId));
+        return scope;
+    }
+
+    private boolean hasAccess(CardSet cardSet, Long userId) {
+        return cardSet.getCreator().getId().equals(userId) ||
+                cardSet.isPublic() ||
+                cardSetRepository.isApprovedUser(cardSet.getId(), userId);
+    }
+
+    private static <T> SyncCursor.Position advance(SyncCursor.Position position, List<T> page,
+                                                   Function<T, LocalDateTime> timestamp, Function<T, Long> id) {
+        if (page.isEmpty()) {
+            return position;
+        }
+        T last = page.getLast();
+        return new SyncCursor.Position(timestamp.apply(last), id.apply(last));
+    }
+
+    private static OfflineReviewResultRecord result(OfflineReviewRecord review, String outcome) {
+        return new OfflineReviewResultRecord(review.cardId(), review.reviewedAt(), outcome);
+    }
+}
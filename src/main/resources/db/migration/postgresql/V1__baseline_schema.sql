@@ -0,0 +1,58 @@
+-- Schema as previously generated by Hibernate (ddl-auto=update). Existing databases
+-- are baselined at this version and only pick up later migrations.
+
+create table users (
+    id        bigint generated by default as identity primary key,
+    email     varchar(255) not null unique,
+    full_name varchar(255),
+    password  varchar(255) not null,
+    username  varchar(255) not null unique
+);
+
+create table card_set (
+    id            bigint generated by default as identity primary key,
+    created_at    timestamp(6),
+    is_public     boolean not null,
+    last_modified timestamp(6),
+    name          varchar(255),
+    creator_id    bigint not null references users
+);
+
+create table card (
+    id         bigint generated by default as identity primary key,
+    created_at timestamp(6),
+    definition varchar(255),
+    term       varchar(255),
+    updated_at timestamp(6),
+    set_id     bigint not null references card_set
+);
+
+create table accessible_sets (
+    set_id  bigint not null references card_set,
+    user_id bigint not null references users,
+    primary key (set_id, user_id)
+);
+
+create table access_request (
+    id           bigint generated by default as identity primary key,
+    status       varchar(255) not null check (status in ('PENDING', 'APPROVED', 'REJECTED', 'CANCELLED')),
+    set_id       bigint not null references card_set,
+    requester_id bigint not null references users
+);
+
+create table user_card_progress (
+    id                  bigint generated by default as identity primary key,
+    consecutive_correct integer,
+    created_at          timestamp(6),
+    ease_factor         float(53),
+    interval            integer,
+    last_reviewed       timestamp(6),
+    next_review_date    timestamp(6),
+    status              varchar(255) check (status in ('NEW', 'LEARNING', 'REVIEW', 'MASTERED')),
+    times_correct       integer,
+    times_reviewed      integer,
+    updated_at          timestamp(6),
+    card_id             bigint not null references card,
+    user_id             bigint not null references users,
+    unique (user_id, card_id)
+);
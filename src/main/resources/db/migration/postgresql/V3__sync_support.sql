@@ -0,0 +1,19 @@
+-- Deleted cards and sets, for incremental sync. No foreign keys: the rows they point at are gone.
+-- Card tombstones have no user; set tombstones have one row per user who could see the set.
+create table tombstone (
+    id          bigint generated by default as identity primary key,
+    entity_type varchar(255) not null check (entity_type in ('CARD', 'CARD_SET')),
+    entity_id   bigint not null,
+    card_set_id bigint not null,
+    user_id     bigint,
+    deleted_at  timestamp(6) not null
+);
+create index idx_tombstone_deleted_at on tombstone (deleted_at, id);
+
+-- Keyset scans of everything changed since a cursor.
+create index idx_card_set_last_modified on card_set (last_modified, id);
+create index idx_card_updated_at on card (updated_at, id);
+create index idx_user_card_progress_user_updated_at on user_card_progress (user_id, updated_at, id);
+
+-- Sets a user owns; the start of every sync.
+create index idx_card_set_creator on card_set (creator_id);
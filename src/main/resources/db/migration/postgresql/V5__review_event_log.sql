@@ -0,0 +1,34 @@
+-- Append-only log of every review. No foreign keys: the log outlives the cards and users
+-- it mentions, and inserts stay cheap. Partitioned by month so that old reviews are
+-- dropped a partition at a time (ReviewEventRetention) instead of deleted row by row.
+-- The application creates the partitions ahead of time; the default partition only
+-- catches reviews older than the first month (offline uploads).
+create table review_event (
+    id              bigint generated by default as identity,
+    user_id         bigint not null,
+    card_id         bigint not null,
+    reviewed_at     timestamp(6) not null,
+    correct         boolean not null,
+    difficulty      smallint not null,
+    elapsed_seconds integer,
+    primary key (id, reviewed_at)
+) partition by range (reviewed_at);
+
+create table review_event_default partition of review_event default;
+
+-- A learner's history, for stats and for fitting scheduler parameters.
+create index idx_review_event_user_reviewed_at on review_event (user_id, reviewed_at);
+
+-- This month and the next three, so that reviews never land in the default partition
+-- before the application has run its first maintenance.
+do $$
+declare
+    first_month date := date_trunc('month', current_date);
+    month_start date;
+begin
+    for i in 0..3 loop
+        month_start := first_month + make_interval(months => i);
+        execute format('create table review_event_p%s partition of review_event for values from (%L) to (%L)',
+                       to_char(month_start, 'YYYYMM'), month_start, (month_start + interval '1 month')::date);
+    end loop;
+end $$;
@@ -0,0 +1,23 @@
+-- Per-user daily rollups of the review log, updated in the same transaction as the reviews
+-- are appended. The stats page reads one row per active day instead of the reviews.
+-- Repeat reviews are reviews of cards seen before; their accuracy estimates retention.
+create table user_daily_stats (
+    user_id        bigint not null,
+    review_date    date not null,
+    reviews        integer not null,
+    correct        integer not null,
+    new_cards      integer not null,
+    repeat_reviews integer not null,
+    repeat_correct integer not null,
+    primary key (user_id, review_date)
+);
+
+-- Reviews logged before the rollups existed.
+insert into user_daily_stats (user_id, review_date, reviews, correct, new_cards, repeat_reviews, repeat_correct)
+select user_id, cast(reviewed_at as date), count(*),
+       count(*) filter (where correct),
+       count(*) filter (where elapsed_seconds is null),
+       count(elapsed_seconds),
+       count(elapsed_seconds) filter (where correct)
+from review_event
+group by user_id, cast(reviewed_at as date);
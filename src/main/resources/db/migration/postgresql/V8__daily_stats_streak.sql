@@ -0,0 +1,16 @@
+-- Streak of consecutive days with reviews ending on each day, maintained as rollup rows are
+-- inserted, so the stats page never reads a user's whole history to compute streaks.
+alter table user_daily_stats add column streak integer not null default 0;
+
+-- Days in a run share review_date minus their position in the user's history.
+update user_daily_stats s
+set streak = r.streak
+from (select user_id, review_date,
+             row_number() over (partition by user_id, run_start order by review_date) as streak
+      from (select user_id, review_date,
+                   review_date - cast(row_number() over (partition by user_id order by review_date) as integer) as run_start
+            from user_daily_stats) d) r
+where s.user_id = r.user_id
+  and s.review_date = r.review_date;
+
+create index idx_user_daily_stats_streak on user_daily_stats (user_id, streak);
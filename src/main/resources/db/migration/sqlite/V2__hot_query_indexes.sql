@@ -0,0 +1,14 @@
+-- Due cards: equality on the learner, range on the review date.
+create index idx_user_card_progress_user_next_review on user_card_progress (user_id, next_review_date);
+
+-- Cards of a set, in id order, and the card-id subquery of set-scoped deletes.
+create index idx_card_set_id on card (set_id, id);
+
+-- Owner's pending-request list.
+create index idx_access_request_set_status on access_request (set_id, status);
+
+-- Requester's own request for a set, and the catalog's PENDING/REJECTED probes.
+create index idx_access_request_requester_set on access_request (requester_id, set_id);
+
+-- The primary key leads with set_id; this covers lookups that start from the user.
+create index idx_accessible_sets_user_set on accessible_sets (user_id, set_id);
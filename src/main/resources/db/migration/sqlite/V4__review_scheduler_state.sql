@@ -0,0 +1,12 @@
+-- FSRS memory state, null until FSRS has scheduled the card, and the scheduler
+-- configuration that computed the current interval. Rows stamped with an older
+-- configuration are rescheduled by the recompute job.
+alter table user_card_progress add column stability float;
+alter table user_card_progress add column difficulty float;
+alter table user_card_progress add column schedule_version varchar(64);
+
+-- Every existing schedule was computed by SM-2, so only a switch away from it reschedules them.
+update user_card_progress set schedule_version = 'sm2';
+
+-- Lets the recompute job find stale rows without scanning the table.
+create index idx_user_card_progress_schedule_version on user_card_progress (schedule_version);
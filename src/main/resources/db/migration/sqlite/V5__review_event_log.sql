@@ -0,0 +1,15 @@
+-- Append-only log of every review. No foreign keys: the log outlives the cards and users
+-- it mentions, and inserts stay cheap. SQLite has no partitions, so retention deletes
+-- old rows by reviewed_at.
+create table review_event (
+    id              integer primary key,
+    user_id         bigint not null,
+    card_id         bigint not null,
+    reviewed_at     timestamp not null,
+    correct         boolean not null,
+    difficulty      smallint not null,
+    elapsed_seconds integer
+);
+
+-- A learner's history, for stats and for fitting scheduler parameters.
+create index idx_review_event_user_reviewed_at on review_event (user_id, reviewed_at);
@@ -0,0 +1,26 @@
+-- Per-user daily rollups of the review log, updated in the same transaction as the reviews
+-- are appended. The stats page reads one row per active day instead of the reviews.
+-- Repeat reviews are reviews of cards seen before; their accuracy estimates retention.
+create table user_daily_stats (
+    user_id        bigint not null,
+    review_date    date not null,
+    reviews        integer not null,
+    correct        integer not null,
+    new_cards      integer not null,
+    repeat_reviews integer not null,
+    repeat_correct integer not null,
+    primary key (user_id, review_date)
+);
+
+-- Reviews logged before the rollups existed. The driver stores timestamps and dates as
+-- epoch milliseconds; a date is the millisecond of its local midnight.
+insert into user_daily_stats (user_id, review_date, reviews, correct, new_cards, repeat_reviews, repeat_correct)
+select user_id, review_date, count(*),
+       sum(case when correct then 1 else 0 end),
+       sum(case when elapsed_seconds is null then 1 else 0 end),
+       count(elapsed_seconds),
+       sum(case when correct and elapsed_seconds is not null then 1 else 0 end)
+from (select user_id, correct, elapsed_seconds,
+             strftime('%s', date(reviewed_at / 1000, 'unixepoch', 'localtime'), 'utc') * 1000 as review_date
+      from review_event)
+group by user_id, review_date;
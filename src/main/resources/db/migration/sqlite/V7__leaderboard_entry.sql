@@ -0,0 +1,13 @@
+-- Periodic snapshot of the in-memory leaderboards of public sets. No foreign keys: rows of
+-- deleted sets are cleaned up by the application. last_review_date is the learner's last
+-- day studying the set, from which the streak continues after a restart.
+create table leaderboard_entry (
+    card_set_id      bigint not null,
+    user_id          bigint not null,
+    mastered         integer not null,
+    reviews          integer not null,
+    correct          integer not null,
+    streak           integer not null,
+    last_review_date date,
+    primary key (card_set_id, user_id)
+);
@@ -0,0 +1,18 @@
+-- Streak of consecutive days with reviews ending on each day, maintained as rollup rows are
+-- inserted, so the stats page never reads a user's whole history to compute streaks.
+alter table user_daily_stats add column streak integer not null default 0;
+
+-- Days in a run share their day number minus their position in the user's history. Dates
+-- are epoch milliseconds of local midnight, so the day number is taken from the local date.
+update user_daily_stats
+set streak = r.streak
+from (select user_id, review_date,
+             row_number() over (partition by user_id, run_start order by review_date) as streak
+      from (select user_id, review_date,
+                   julianday(date(review_date / 1000, 'unixepoch', 'localtime'))
+                       - row_number() over (partition by user_id order by review_date) as run_start
+            from user_daily_stats) d) r
+where user_daily_stats.user_id = r.user_id
+  and user_daily_stats.review_date = r.review_date;
+
+create index idx_user_daily_stats_streak on user_daily_stats (user_id, streak);
@@ -0,0 +1,5 @@
+-- Set when a large card set starts being deleted in the background, so the deletion is
+-- hidden from reads and resumed after a restart instead of leaving a half-deleted set.
+alter table card_set add column deleting_at timestamp;
+
+create index idx_card_set_deleting on card_set (deleting_at) where deleting_at is not null;
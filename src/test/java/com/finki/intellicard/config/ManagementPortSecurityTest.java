@@ -0,0 +1,52 @@
+package com.finki.intellicard.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Metrics and query shapes must only be reachable on the management port; the
+ * application port answers the probes and nothing else under the actuator.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ManagementPortSecurityTest {
+
+    @LocalServerPort
+    private int port;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void actuatorIsOnlyServedOnTheManagementPort() throws Exception {
+        assertThat(managementPort).isNotEqualTo(port);
+
+        // Tests only have the simple registry, so the Prometheus scrape itself is not served here
+        assertThat(status(managementPort, "/actuator/metrics")).isEqualTo(200);
+        assertThat(status(managementPort, "/actuator/queryshapes")).isEqualTo(200);
+        assertThat(status(managementPort, "/actuator/queryshapes?orderBy=mean")).isEqualTo(200);
+        assertThat(status(managementPort, "/actuator/queryshapes?orderBy=slowest")).isEqualTo(400);
+        assertThat(status(port, "/actuator/prometheus")).isEqualTo(403);
+        assertThat(status(port, "/actuator/metrics")).isEqualTo(403);
+        assertThat(status(port, "/actuator/queryshapes")).isEqualTo(403);
+        assertThat(status(port, "/livez")).isEqualTo(200);
+        assertThat(status(port, "/readyz")).isEqualTo(200);
+    }
+
+    private int status(int port, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,99 @@
+package com.finki.intellicard.config;
+
+import com.finki.intellicard.service.SingleWriterExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Points the replica at a second in-memory database whose {@code db_role} table says
+ * "replica", so each test can tell which data source a transaction actually ran on.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;NON_KEYWORDS=INTERVAL",
+        "datasource.replica.url=jdbc:h2:mem:routing-replica;NON_KEYWORDS=INTERVAL",
+        "datasource.replica.read-your-writes-window=1h"
+})
+@ActiveProfiles("test")
+class ReplicaRoutingTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SingleWriterExecutor singleWriterExecutor;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primary;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replica;
+
+    @BeforeEach
+    void labelDatabases() {
+        label(primary, "primary");
+        label(replica, "replica");
+    }
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        assertThat(roleSeenBy(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void readWriteTransactionsGoToThePrimary() {
+        assertThat(roleSeenBy(false)).isEqualTo("primary");
+    }
+
+    @Test
+    void readsRightAfterOwnWriteStayOnThePrimary() {
+        signIn("writer");
+        singleWriterExecutor.run(() -> jdbcTemplate.update("UPDATE db_role SET name = name"));
+        assertThat(roleSeenBy(true)).isEqualTo("primary");
+
+        signIn("someone-else");
+        assertThat(roleSeenBy(true)).isEqualTo("replica");
+    }
+
+    private String roleSeenBy(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM db_role", String.class));
+    }
+
+    private static void signIn(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    private static void label(DataSource dataSource, String role) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE IF NOT EXISTS db_role (name VARCHAR(20))");
+        template.update("DELETE FROM db_role");
+        template.update("INSERT INTO db_role (name) VALUES (?)", role);
+    }
+}
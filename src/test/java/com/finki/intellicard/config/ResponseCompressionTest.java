@@ -0,0 +1,85 @@
+package com.finki.intellicard.config;
+
+import com.finki.intellicard.model.Card;
+import com.finki.intellicard.model.CardSet;
+import com.finki.intellicard.model.User;
+import com.finki.intellicard.repository.CardRepository;
+import com.finki.intellicard.repository.CardSetRepository;
+import com.finki.intellicard.repository.UserRepository;
+import com.finki.intellicard.service.JWTService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compression is applied by the embedded server, so this needs a real port rather than MockMvc.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ResponseCompressionTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardSetRepository cardSetRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private JWTService jwtService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void largeResponsesAreCompressed() throws Exception {
+        HttpResponse<byte[]> json = fetchCards(100, "application/json");
+        HttpResponse<byte[]> smile = fetchCards(100, "application/x-jackson-smile");
+
+        assertThat(json.statusCode()).isEqualTo(200);
+        assertThat(json.headers().firstValue("Content-Encoding")).hasValue("gzip");
+        assertThat(smile.statusCode()).isEqualTo(200);
+        assertThat(smile.headers().firstValue("Content-Encoding")).hasValue("gzip");
+    }
+
+    private HttpResponse<byte[]> fetchCards(int cardCount, String accept) throws Exception {
+        String username = "compressed-" + UUID.randomUUID();
+        User owner = userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .password("x")
+                .build());
+        CardSet cardSet = cardSetRepository.save(CardSet.builder()
+                .name("Compressed")
+                .creator(owner)
+                .createdAt(LocalDateTime.now())
+                .lastModified(LocalDateTime.now())
+                .build());
+        cardRepository.saveAll(IntStream.range(0, cardCount)
+                .mapToObj(i -> Card.builder().term("Term " + i).definition("Definition number " + i).cardSet(cardSet).build())
+                .toList());
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/cards/cardset/" + cardSet.getId()))
+                .header("Authorization", "Bearer " + jwtService.generateToken(username))
+                .header("Accept", accept)
+                .header("Accept-Encoding", "gzip")
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
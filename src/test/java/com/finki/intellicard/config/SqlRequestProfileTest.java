@@ -0,0 +1,42 @@
+package com.finki.intellicard.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlRequestProfileTest {
+
+    @AfterEach
+    void stop() {
+        SqlRequestProfile.stop();
+    }
+
+    @Test
+    void countsEveryStatementAndKeepsTheSlowest() {
+        SqlRequestProfile profile = SqlRequestProfile.start(2);
+        assertThat(SqlRequestProfile.current()).isSameAs(profile);
+
+        profile.record("a", 5);
+        profile.record("b", 1);
+        profile.record("c", 9);
+        profile.record("d", 3);
+
+        assertThat(profile.getStatements()).isEqualTo(4);
+        assertThat(profile.getElapsedMillis()).isEqualTo(18);
+        assertThat(profile.getSlowest()).extracting(SqlRequestProfile.Statement::sql).containsExactly("c", "a");
+    }
+
+    @Test
+    void isOnlyOpenBetweenStartAndStop() throws InterruptedException {
+        SqlRequestProfile.start(1);
+        SqlRequestProfile[] seenElsewhere = new SqlRequestProfile[1];
+        Thread other = new Thread(() -> seenElsewhere[0] = SqlRequestProfile.current());
+        other.start();
+        other.join();
+        assertThat(seenElsewhere[0]).isNull();
+
+        SqlRequestProfile.stop();
+        assertThat(SqlRequestProfile.current()).isNull();
+    }
+}
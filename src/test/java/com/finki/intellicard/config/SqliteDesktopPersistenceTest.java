@@ -0,0 +1,111 @@
+package com.finki.intellicard.config;
+
+import com.finki.intellicard.service.SingleWriterExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the desktop persistence setup against a scratch SQLite file: WAL journaling,
+ * read-only transactions on query-only reader connections, and concurrent writes
+ * funnelled through the single writer without "database is locked" errors.
+ */
+@SpringBootTest
+@ActiveProfiles({"test", "desktop"})
+class SqliteDesktopPersistenceTest {
+
+    private static final int WRITERS = 8;
+    private static final int WRITES_PER_WRITER = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SingleWriterExecutor singleWriterExecutor;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @DynamicPropertySource
+    static void sqlite(DynamicPropertyRegistry registry) throws IOException {
+        Path database = Files.createTempFile("intellicard-desktop", ".db");
+        database.toFile().deleteOnExit();
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + database);
+        registry.add("spring.flyway.enabled", () -> "true");
+    }
+
+    @Test
+    void readOnlyTransactionsUseQueryOnlyReaders() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        Integer readerQueryOnly = readOnly.execute(status -> jdbcTemplate.queryForObject("PRAGMA query_only", Integer.class));
+        Integer writerQueryOnly = readWrite.execute(status -> jdbcTemplate.queryForObject("PRAGMA query_only", Integer.class));
+        String journalMode = readWrite.execute(status -> jdbcTemplate.queryForObject("PRAGMA journal_mode", String.class));
+
+        assertThat(readerQueryOnly).isEqualTo(1);
+        assertThat(writerQueryOnly).isEqualTo(0);
+        assertThat(journalMode).isEqualToIgnoringCase("wal");
+    }
+
+    @Test
+    void concurrentWritesAreAllCommitted() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int writer = 0; writer < WRITERS; writer++) {
+                int writerId = writer;
+                results.add(clients.submit(() -> {
+                    for (int i = 0; i < WRITES_PER_WRITER; i++) {
+                        String username = "writer-" + writerId + "-" + i;
+                        singleWriterExecutor.run(() -> jdbcTemplate.update(
+                                "INSERT INTO users (username, email, password) VALUES (?, ?, 'x')",
+                                username, username + "@example.com"));
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            clients.shutdown();
+        }
+
+        Integer written = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE username LIKE 'writer-%'", Integer.class);
+        assertThat(written).isEqualTo(WRITERS * WRITES_PER_WRITER);
+    }
+
+    @Test
+    void failingWriteDoesNotAffectOthers() {
+        singleWriterExecutor.run(() -> jdbcTemplate.update(
+                "INSERT INTO users (username, email, password) VALUES ('taken', 'taken@example.com', 'x')"));
+
+        assertThatThrownBy(() -> singleWriterExecutor.run(() -> jdbcTemplate.update(
+                "INSERT INTO users (username, email, password) VALUES ('taken', 'other@example.com', 'x')")))
+                .isInstanceOf(RuntimeException.class);
+
+        singleWriterExecutor.run(() -> jdbcTemplate.update(
+                "INSERT INTO users (username, email, password) VALUES ('free', 'free@example.com', 'x')"));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE username IN ('taken', 'free')", Integer.class))
+                .isEqualTo(2);
+    }
+}
@@ -0,0 +1,100 @@
+package com.finki.intellicard.controller;
+
+import com.finki.intellicard.model.AccessRequest;
+import com.finki.intellicard.model.CardSet;
+import com.finki.intellicard.model.User;
+import com.finki.intellicard.model.enums.AccessRequestStatus;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AccessRequestControllerQueryBudgetTest extends QueryBudgetIntegrationTest {
+
+    @ParameterizedTest(name = "{0} approved users and requests")
+    @MethodSource("datasetSizes")
+    void requestAccess(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        createCards(cardSet, size);
+        approve(cardSet, createUsers("reader", size));
+        for (User requester : createUsers("requester", size)) {
+            createAccessRequest(requester, cardSet, AccessRequestStatus.PENDING);
+        }
+        User requester = createUser("requester");
+
+        queryBudget.assertAtMost(5, () -> mockMvc.perform(post("/api/v1/cardsets/{id}/access-requests", cardSet.getId()).with(as(requester)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Request sent successfully!")));
+    }
+
+    @ParameterizedTest(name = "{0} pending requests")
+    @MethodSource("datasetSizes")
+    void listPendingRequests(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        for (User requester : createUsers("requester", size)) {
+            createAccessRequest(requester, cardSet, AccessRequestStatus.PENDING);
+        }
+
+        queryBudget.assertAtMost(2, () -> mockMvc.perform(get("/api/v1/cardsets/{id}/access-requests", cardSet.getId()).with(as(owner)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(size)));
+    }
+
+    @ParameterizedTest(name = "{0} pending requests")
+    @MethodSource("datasetSizes")
+    void approveRequest(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        approve(cardSet, createUsers("reader", size));
+        List<AccessRequest> requests = new ArrayList<>();
+        for (User requester : createUsers("requester", size)) {
+            requests.add(createAccessRequest(requester, cardSet, AccessRequestStatus.PENDING));
+        }
+
+        queryBudget.assertAtMost(5, () -> mockMvc.perform(put("/api/v1/cardsets/{id}/access-requests/{requestId}", cardSet.getId(), requests.get(0).getId())
+                        .param("approve", "true")
+                        .with(as(owner)))
+                .andExpect(status().isOk()));
+    }
+
+    @ParameterizedTest(name = "{0} pending requests")
+    @MethodSource("datasetSizes")
+    void rejectRequest(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        List<AccessRequest> requests = new ArrayList<>();
+        for (User requester : createUsers("requester", size)) {
+            requests.add(createAccessRequest(requester, cardSet, AccessRequestStatus.PENDING));
+        }
+
+        queryBudget.assertAtMost(3, () -> mockMvc.perform(put("/api/v1/cardsets/{id}/access-requests/{requestId}", cardSet.getId(), requests.get(0).getId())
+                        .param("approve", "false")
+                        .with(as(owner)))
+                .andExpect(status().isOk()));
+    }
+
+    @ParameterizedTest(name = "{0} pending requests")
+    @MethodSource("datasetSizes")
+    void revokeRequest(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        List<User> requesters = createUsers("requester", size);
+        for (User requester : requesters) {
+            createAccessRequest(requester, cardSet, AccessRequestStatus.PENDING);
+        }
+
+        queryBudget.assertAtMost(5, () -> mockMvc.perform(delete("/api/v1/cardsets/{id}/access-requests/revoke", cardSet.getId())
+                        .with(as(requesters.get(0))))
+                .andExpect(status().isOk()));
+    }
+}
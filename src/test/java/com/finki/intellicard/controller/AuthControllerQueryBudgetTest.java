@@ -0,0 +1,52 @@
+package com.finki.intellicard.controller;
+
+import com.finki.intellicard.model.User;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AuthControllerQueryBudgetTest extends QueryBudgetIntegrationTest {
+
+    @ParameterizedTest(name = "{0} existing users")
+    @MethodSource("datasetSizes")
+    void register(int size) throws Throwable {
+        createUsers("existing", size);
+        String username = "new-" + UUID.randomUUID();
+        String body = String.format("{\"fullName\":\"New User\",\"username\":\"%s\",\"password\":\"%s\",\"email\":\"%s@example.com\"}",
+                username, PASSWORD, username);
+
+        queryBudget.assertAtMost(3, () -> mockMvc.perform(post("/api/v1/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated()));
+    }
+
+    @ParameterizedTest(name = "{0} existing users")
+    @MethodSource("datasetSizes")
+    void login(int size) throws Throwable {
+        List<User> users = createUsers("existing", size);
+        String body = String.format("{\"username\":\"%s\",\"password\":\"%s\"}", users.get(0).getUsername(), PASSWORD);
+
+        queryBudget.assertAtMost(1, () -> mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk()));
+    }
+
+    @ParameterizedTest(name = "{0} existing users")
+    @MethodSource("datasetSizes")
+    void checkUsername(int size) throws Throwable {
+        List<User> users = createUsers("existing", size);
+
+        queryBudget.assertAtMost(1, () -> mockMvc.perform(get("/api/v1/auth/check-username")
+                        .param("username", users.get(0).getUsername()))
+                .andExpect(status().isOk()));
+    }
+}
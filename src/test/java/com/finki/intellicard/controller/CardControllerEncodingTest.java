@@ -0,0 +1,79 @@
+package com.finki.intellicard.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.finki.intellicard.model.Card;
+import com.finki.intellicard.model.CardSet;
+import com.finki.intellicard.model.User;
+import com.finki.intellicard.model.enums.CardStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CardControllerEncodingTest extends QueryBudgetIntegrationTest {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+
+    @Test
+    void cardsCanBeFetchedAsSmileOrCbor() throws Exception {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        List<Card> cards = createCards(cardSet, 50);
+        addProgress(owner, cards, LocalDateTime.now().plusDays(1), CardStatus.LEARNING);
+
+        MockHttpServletResponse json = fetchCards(cardSet, owner, MediaType.APPLICATION_JSON);
+        MockHttpServletResponse smile = fetchCards(cardSet, owner, SMILE);
+        MockHttpServletResponse cbor = fetchCards(cardSet, owner, CBOR);
+
+        JsonNode expected = new ObjectMapper().readTree(json.getContentAsByteArray());
+        assertThat(smile.getContentType()).isEqualTo(SMILE.toString());
+        assertThat(new SmileMapper().readTree(smile.getContentAsByteArray())).isEqualTo(expected);
+        assertThat(smile.getContentAsByteArray().length).isLessThan(json.getContentAsByteArray().length / 2);
+        assertThat(cbor.getContentType()).isEqualTo(CBOR.toString());
+        assertThat(new CBORMapper().readTree(cbor.getContentAsByteArray())).isEqualTo(expected);
+    }
+
+    @Test
+    void jsonStaysTheDefault() throws Exception {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        createCards(cardSet, 1);
+
+        assertThat(fetchCards(cardSet, owner, MediaType.ALL).getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    @Test
+    void requestBodiesCanBeSmile() throws Exception {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        byte[] body = new SmileMapper().writeValueAsBytes(new CardPayload("Osmosis", "Diffusion of water"));
+
+        mockMvc.perform(post("/api/v1/cards/cardset/{id}", cardSet.getId()).with(as(owner))
+                        .contentType(SMILE)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.term").value("Osmosis"));
+    }
+
+    private MockHttpServletResponse fetchCards(CardSet cardSet, User user, MediaType accept) throws Exception {
+        return mockMvc.perform(get("/api/v1/cards/cardset/{id}", cardSet.getId()).with(as(user)).accept(accept))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+    }
+
+    private record CardPayload(String term, String definition) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.finki.intellicard.controller;
+
+import com.finki.intellicard.exceptions.AiProviderUnavailableException;
+import com.finki.intellicard.exceptions.GenerationRejectedException;
+import com.finki.intellicard.service.CardImportService;
+import com.finki.intellicard.service.CardService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CardControllerGenerationTest {
+
+    private final CardService cardService = mock(CardService.class);
+    private final CardController controller = new CardController(cardService, mock(CardImportService.class));
+
+    @Test
+    void rejectedGenerationIsTooManyRequestsWithRetryAfter() {
+        when(cardService.generateCardsFromDocument(anyLong(), any(), anyInt(), anyString(), anyString()))
+                .thenThrow(new GenerationRejectedException("Generation queue is full", 10));
+
+        ResponseEntity<?> response = generate();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("10");
+    }
+
+    @Test
+    void unavailableProviderIsServiceUnavailableWithRetryAfter() {
+        when(cardService.generateCardsFromDocument(anyLong(), any(), anyInt(), anyString(), anyString()))
+                .thenThrow(new AiProviderUnavailableException("AI provider circuit is open", 25));
+
+        ResponseEntity<?> response = generate();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("25");
+    }
+
+    private ResponseEntity<?> generate() {
+        MockMultipartFile file = new MockMultipartFile("file", "notes.pdf", "application/pdf", new byte[]{1});
+        return controller.generateCardsFromDocument(1L, file, 5, "medium", "English");
+    }
+}
@@ -0,0 +1,126 @@
+package com.finki.intellicard.controller;
+
+import com.finki.intellicard.model.Card;
+import com.finki.intellicard.model.CardSet;
+import com.finki.intellicard.model.User;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.TestPropertySource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "cards.import.batch-size=100")
+class CardControllerImportTest extends QueryBudgetIntegrationTest {
+
+    @ParameterizedTest(name = "{0} batches")
+    @MethodSource("datasetSizes")
+    void importWritesWholeBatches(int batches) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        StringBuilder csv = new StringBuilder("term,definition\n");
+        for (int i = 0; i < batches * 100; i++) {
+            csv.append("Term ").append(i).append(",Definition ").append(i).append('\n');
+        }
+
+        queryBudget.assertAtMost(3 + 4 * batches, () -> mockMvc.perform(multipart("/api/v1/cards/cardset/{id}/import", cardSet.getId())
+                        .file(file("deck.csv", csv.toString()))
+                        .with(as(owner)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(batches * 100))
+                .andExpect(jsonPath("$.rejected").value(0)));
+    }
+
+    @Test
+    void csvRowsAreValidatedAndDeduplicated() throws Exception {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        Card existing = createCards(cardSet, 1).get(0);
+        cardList(owner, cardSet);
+
+        String csv = String.join("\n",
+                "Term,Definition",
+                "Osmosis,\"Diffusion of water, across a membrane\"",
+                "\"Mitosis\",\"Cell division\nin two lines\"",
+                "",
+                "Quote,\"He said \"\"hi\"\"\"",
+                "osmosis,Repeated later in the file",
+                existing.getTerm().toUpperCase() + ",Already in the set",
+                "Lonely",
+                ",No term",
+                "x".repeat(300) + ",Term too long",
+                "Broken,\"never closed");
+
+        String body = mockMvc.perform(multipart("/api/v1/cards/cardset/{id}/import", cardSet.getId())
+                        .file(file("deck.csv", csv))
+                        .with(as(owner)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(JsonPath.<Integer>read(body, "$.imported")).isEqualTo(3);
+        assertThat(JsonPath.<Integer>read(body, "$.duplicates")).isEqualTo(2);
+        assertThat(JsonPath.<List<Integer>>read(body, "$.errors[*].line")).containsExactly(9, 10, 11, 12);
+        assertThat(JsonPath.<Integer>read(body, "$.rejected")).isEqualTo(4);
+
+        String cards = cardList(owner, cardSet);
+        assertThat(JsonPath.<List<String>>read(cards, "$[*].definition")).contains(
+                "Diffusion of water, across a membrane", "Cell division\nin two lines", "He said \"hi\"");
+        assertThat(JsonPath.<List<Object>>read(cards, "$")).hasSize(4);
+    }
+
+    @Test
+    void ankiExportsHonourTheirHeader() throws Exception {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+
+        String anki = String.join("\n",
+                "#separator:Semicolon",
+                "#html:true",
+                "#guid column:1",
+                "#deck column:4",
+                "a1b2;<b>Photosynthesis</b>;\"Light&nbsp;to sugar<br>in chloroplasts\";Biology",
+                "c3d4;Enzyme;\"A &lt;protein&gt; catalyst\";Biology");
+
+        mockMvc.perform(multipart("/api/v1/cards/cardset/{id}/import", cardSet.getId())
+                        .file(file("Biology.txt", anki))
+                        .with(as(owner)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2));
+
+        String cards = cardList(owner, cardSet);
+        assertThat(JsonPath.<List<String>>read(cards, "$[*].term")).containsExactlyInAnyOrder("Photosynthesis", "Enzyme");
+        assertThat(JsonPath.<List<String>>read(cards, "$[*].definition"))
+                .containsExactlyInAnyOrder("Light to sugar\nin chloroplasts", "A <protein> catalyst");
+    }
+
+    @Test
+    void onlyTheOwnerCanImport() throws Exception {
+        User owner = createUser("owner");
+        User reader = createUser("reader");
+        CardSet cardSet = createCardSet(owner, true);
+
+        mockMvc.perform(multipart("/api/v1/cards/cardset/{id}/import", cardSet.getId())
+                        .file(file("deck.tsv", "Term\tDefinition\n"))
+                        .with(as(reader)))
+                .andExpect(status().isForbidden());
+    }
+
+    private String cardList(User user, CardSet cardSet) throws Exception {
+        return mockMvc.perform(get("/api/v1/cards/cardset/{id}", cardSet.getId()).with(as(user)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private static MockMultipartFile file(String name, String content) {
+        return new MockMultipartFile("file", name, "text/plain", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
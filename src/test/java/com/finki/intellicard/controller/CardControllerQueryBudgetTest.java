@@ -0,0 +1,186 @@
+package com.finki.intellicard.controller;
+
+import com.finki.intellicard.model.Card;
+import com.finki.intellicard.model.CardSet;
+import com.finki.intellicard.model.User;
+import com.finki.intellicard.model.enums.CardStatus;
+import com.finki.intellicard.record.GeneratedCardDto;
+import com.finki.intellicard.service.QuestionGenerationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CardControllerQueryBudgetTest extends QueryBudgetIntegrationTest {
+
+    private static final String CARD_JSON = "{\"term\":\"Osmosis\",\"definition\":\"Diffusion of water across a membrane\"}";
+
+    @MockitoBean
+    private QuestionGenerationService questionGenerationService;
+
+    @ParameterizedTest(name = "{0} cards")
+    @MethodSource("datasetSizes")
+    void listCardsAsOwner(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        List<Card> cards = createCards(cardSet, size);
+        addProgress(owner, cards, LocalDateTime.now().minusDays(1), CardStatus.REVIEW);
+        approve(cardSet, createUsers("reader", size));
+
+        queryBudget.assertAtMost(5, () -> mockMvc.perform(get("/api/v1/cards/cardset/{id}", cardSet.getId()).with(as(owner)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(size)));
+    }
+
+    @ParameterizedTest(name = "{0} cards")
+    @MethodSource("datasetSizes")
+    void listCardsAsApprovedUser(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        List<Card> cards = createCards(cardSet, size);
+        List<User> readers = createUsers("reader", size);
+        approve(cardSet, readers);
+        User reader = readers.get(size - 1);
+        addProgress(reader, cards, LocalDateTime.now().plusDays(1), CardStatus.LEARNING);
+
+        queryBudget.assertAtMost(6, () -> mockMvc.perform(get("/api/v1/cards/cardset/{id}", cardSet.getId()).with(as(reader)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(size))
+                .andExpect(jsonPath("$[0].status").value("LEARNING")));
+    }
+
+    @ParameterizedTest(name = "{0} cards")
+    @MethodSource("datasetSizes")
+    void listCardsNotModified(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        List<Card> cards = createCards(cardSet, size);
+        addProgress(owner, cards, LocalDateTime.now().minusDays(1), CardStatus.REVIEW);
+        String eTag = cardsETag(cardSet, owner);
+
+        queryBudget.assertAtMost(1, () -> mockMvc.perform(get("/api/v1/cards/cardset/{id}", cardSet.getId()).with(as(owner))
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag)));
+    }
+
+    @Test
+    void cardEditsChangeTheETag() throws Exception {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        List<Card> cards = createCards(cardSet, 2);
+        String initial = cardsETag(cardSet, owner);
+
+        mockMvc.perform(put("/api/v1/cards/{id}", cards.get(0).getId()).with(as(owner))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(CARD_JSON))
+                .andExpect(status().isOk());
+        String afterUpdate = cardsETag(cardSet, owner);
+
+        mockMvc.perform(delete("/api/v1/cards/{id}", cards.get(1).getId()).with(as(owner)))
+                .andExpect(status().isNoContent());
+        String afterDelete = cardsETag(cardSet, owner);
+
+        mockMvc.perform(get("/api/v1/cards/cardset/{id}", cardSet.getId()).with(as(owner))
+                        .header(HttpHeaders.IF_NONE_MATCH, initial))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+        assertThat(List.of(initial, afterUpdate, afterDelete)).doesNotHaveDuplicates();
+    }
+
+    private String cardsETag(CardSet cardSet, User user) throws Exception {
+        return mockMvc.perform(get("/api/v1/cards/cardset/{id}", cardSet.getId()).with(as(user)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    @ParameterizedTest(name = "{0} cards")
+    @MethodSource("datasetSizes")
+    void createCard(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        createCards(cardSet, size);
+
+        queryBudget.assertAtMost(4, () -> mockMvc.perform(post("/api/v1/cards/cardset/{id}", cardSet.getId()).with(as(owner))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(CARD_JSON))
+                .andExpect(status().isCreated()));
+    }
+
+    @ParameterizedTest(name = "{0} cards")
+    @MethodSource("datasetSizes")
+    void updateCard(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        List<Card> cards = createCards(cardSet, size);
+        addProgress(owner, cards, LocalDateTime.now().plusDays(1), CardStatus.LEARNING);
+
+        queryBudget.assertAtMost(7, () -> mockMvc.perform(put("/api/v1/cards/{id}", cards.get(0).getId()).with(as(owner))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(CARD_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("LEARNING")));
+    }
+
+    @ParameterizedTest(name = "{0} learners")
+    @MethodSource("datasetSizes")
+    void deleteCard(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, true);
+        List<Card> cards = createCards(cardSet, size);
+        for (User learner : createUsers("learner", size)) {
+            addProgress(learner, cards.subList(0, 1), LocalDateTime.now(), CardStatus.LEARNING);
+        }
+
+        queryBudget.assertAtMost(7, () -> mockMvc.perform(delete("/api/v1/cards/{id}", cards.get(0).getId()).with(as(owner)))
+                .andExpect(status().isNoContent()));
+    }
+
+    /**
+     * Every generated card is one insert (identity keys cannot be batched), so the budget
+     * grows by exactly one statement per card.
+     */
+    @ParameterizedTest(name = "{0} generated cards")
+    @MethodSource("datasetSizes")
+    void generateCards(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        createCards(cardSet, size);
+
+        List<GeneratedCardDto> generated = new ArrayList<>();
+        IntStream.range(0, size).forEach(i -> generated.add(new GeneratedCardDto("Term " + i, "Generated definition " + i)));
+        when(questionGenerationService.generateCardsFromDocument(any(), any())).thenReturn(generated);
+
+        MockMultipartFile file = new MockMultipartFile("file", "notes.txt", "text/plain",
+                "Photosynthesis converts light energy into chemical energy. ".repeat(5).getBytes());
+
+        queryBudget.assertAtMost(4 + size, () -> mockMvc.perform(multipart("/api/v1/cards/{id}/generate-cards", cardSet.getId())
+                        .file(file)
+                        .param("questionCount", String.valueOf(size))
+                        .param("difficultyLevel", "MEDIUM")
+                        .param("language", "English")
+                        .with(as(owner)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(size)));
+    }
+}
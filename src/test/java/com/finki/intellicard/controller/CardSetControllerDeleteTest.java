@@ -0,0 +1,139 @@
+package com.finki.intellicard.controller;
+
+import com.finki.intellicard.model.Card;
+import com.finki.intellicard.model.CardSet;
+import com.finki.intellicard.model.User;
+import com.finki.intellicard.model.enums.AccessRequestStatus;
+import com.finki.intellicard.model.enums.CardStatus;
+import com.finki.intellicard.repository.TombstoneRepository;
+import com.finki.intellicard.service.CardSetPurger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {"cardsets.delete.async-threshold=20", "cardsets.delete.chunk-size=7"})
+class CardSetControllerDeleteTest extends QueryBudgetIntegrationTest {
+
+    @Autowired
+    private TombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private CardSetPurger cardSetPurger;
+
+    @Test
+    void smallSetsAreDeletedAtOnce() throws Exception {
+        User owner = createUser("owner");
+        User reader = createUser("reader");
+        CardSet cardSet = createCardSet(owner, false);
+        List<Card> cards = createCards(cardSet, 20);
+        approve(cardSet, List.of(reader));
+        addProgress(reader, cards, LocalDateTime.now(), CardStatus.LEARNING);
+
+        mockMvc.perform(delete("/api/v1/cardsets/{id}", cardSet.getId()).with(as(owner)))
+                .andExpect(status().isNoContent());
+
+        assertDeleted(cardSet, cards, reader);
+    }
+
+    @Test
+    void largeSetsAreHiddenAndThenDeletedInChunks() throws Exception {
+        User owner = createUser("owner");
+        User reader = createUser("reader");
+        CardSet cardSet = createCardSet(owner, true);
+        List<Card> cards = createCards(cardSet, 50);
+        approve(cardSet, List.of(reader));
+        addProgress(reader, cards, LocalDateTime.now(), CardStatus.LEARNING);
+        createAccessRequest(createUser("requester"), cardSet, AccessRequestStatus.PENDING);
+
+        mockMvc.perform(delete("/api/v1/cardsets/{id}", cardSet.getId()).with(as(owner)))
+                .andExpect(status().isAccepted());
+        mockMvc.perform(get("/api/v1/cardsets/{id}", cardSet.getId()).with(as(reader)))
+                .andExpect(status().isNotFound());
+
+        awaitGone(cardSet);
+        assertDeleted(cardSet, cards, reader);
+        assertThat(accessRequestRepository.findByCardSetIdAndStatus(cardSet.getId(), AccessRequestStatus.PENDING)).isEmpty();
+    }
+
+    @Test
+    void onlyTheOwnerCanDelete() throws Exception {
+        User owner = createUser("owner");
+        User reader = createUser("reader");
+        CardSet cardSet = createCardSet(owner, true);
+        createCards(cardSet, 50);
+
+        mockMvc.perform(delete("/api/v1/cardsets/{id}", cardSet.getId()).with(as(reader)))
+                .andExpect(status().isForbidden());
+        assertThat(cardRepository.countByCardSetId(cardSet.getId())).isEqualTo(50);
+    }
+
+    @Test
+    void aDeletionARestartInterruptedStaysHiddenAndIsResumed() throws Exception {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        createCards(cardSet, 50);
+        long tombstones = markAsBeingDeleted(cardSet);
+
+        mockMvc.perform(get("/api/v1/cardsets").with(as(owner)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+        mockMvc.perform(get("/api/v1/cardsets/{id}", cardSet.getId()).with(as(owner)))
+                .andExpect(status().isNotFound());
+
+        cardSetPurger.resumeInterruptedDeletions();
+
+        awaitGone(cardSet);
+        assertThat(cardRepository.countByCardSetId(cardSet.getId())).isZero();
+        assertThat(tombstoneRepository.count()).isEqualTo(tombstones);
+    }
+
+    @Test
+    void deletingASetAgainQueuesItWithoutNewTombstones() throws Exception {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        createCards(cardSet, 50);
+        long tombstones = markAsBeingDeleted(cardSet);
+
+        mockMvc.perform(delete("/api/v1/cardsets/{id}", cardSet.getId()).with(as(owner)))
+                .andExpect(status().isAccepted());
+
+        awaitGone(cardSet);
+        assertThat(tombstoneRepository.count()).isEqualTo(tombstones);
+    }
+
+    // What a restart leaves of a background deletion: the set is marked and its tombstones
+    // are written, but nothing is queued
+    private long markAsBeingDeleted(CardSet cardSet) {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            tombstoneRepository.insertCardSetTombstones(cardSet.getId(), now);
+            cardSetRepository.findById(cardSet.getId()).orElseThrow().setDeletingAt(now);
+        });
+        return tombstoneRepository.count();
+    }
+
+    private void awaitGone(CardSet cardSet) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (cardSetRepository.existsById(cardSet.getId()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(cardSetRepository.existsById(cardSet.getId())).isFalse();
+    }
+
+    private void assertDeleted(CardSet cardSet, List<Card> cards, User reader) {
+        List<Long> cardIds = cards.stream().map(Card::getId).toList();
+        assertThat(cardSetRepository.existsById(cardSet.getId())).isFalse();
+        assertThat(cardRepository.findAllById(cardIds)).isEmpty();
+        assertThat(userCardProgressRepository.findByUserIdAndCardIdIn(reader.getId(), cardIds)).isEmpty();
+        assertThat(cardSetRepository.isApprovedUser(cardSet.getId(), reader.getId())).isFalse();
+    }
+}
@@ -0,0 +1,135 @@
+package com.finki.intellicard.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finki.intellicard.model.Card;
+import com.finki.intellicard.model.CardSet;
+import com.finki.intellicard.model.User;
+import com.finki.intellicard.model.enums.CardStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CardSetControllerExportTest extends QueryBudgetIntegrationTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void csvExportsCanBeImportedAgain() throws Exception {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        createCards(cardSet, 20);
+        cardRepository.save(Card.builder().term("Osmosis").definition("Water, \"moving\"\nacross a membrane").cardSet(cardSet).build());
+
+        MockHttpServletResponse export = export(owner, cardSet, "CSV", false);
+        assertThat(export.getContentType()).startsWith("text/csv");
+        assertThat(export.getHeader(HttpHeaders.CONTENT_DISPOSITION)).contains("attachment").contains(".csv");
+        assertThat(export.getContentAsString(StandardCharsets.UTF_8)).startsWith("term,definition\r\n");
+
+        CardSet copy = createCardSet(owner, false);
+        mockMvc.perform(multipart("/api/v1/cards/cardset/{id}/import", copy.getId())
+                        .file(new MockMultipartFile("file", "copy.csv", "text/csv", export.getContentAsByteArray()))
+                        .with(as(owner)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(21))
+                .andExpect(jsonPath("$.rejected").value(0));
+        assertThat(cardRepository.findByCardSetId(copy.getId()))
+                .anyMatch(card -> card.getDefinition().equals("Water, \"moving\"\nacross a membrane"));
+    }
+
+    @Test
+    void jsonLinesCarryTheCallersProgress() throws Exception {
+        User owner = createUser("owner");
+        User reader = createUser("reader");
+        CardSet cardSet = createCardSet(owner, true);
+        List<Card> cards = createCards(cardSet, 5);
+        addProgress(reader, cards.subList(0, 2), LocalDateTime.now().plusDays(3), CardStatus.REVIEW);
+        addProgress(owner, cards, LocalDateTime.now().plusDays(1), CardStatus.LEARNING);
+
+        String body = export(reader, cardSet, "JSONL", true).getContentAsString(StandardCharsets.UTF_8);
+
+        List<JsonNode> lines = body.lines().map(this::readTree).toList();
+        assertThat(lines).hasSize(5);
+        assertThat(lines.get(0).get("term").asText()).isEqualTo("Term 0");
+        assertThat(lines.get(0).get("status").asText()).isEqualTo("REVIEW");
+        assertThat(lines.get(1).has("nextReviewDate")).isTrue();
+        assertThat(lines.get(2).has("status")).isFalse();
+    }
+
+    @Test
+    void zipHoldsAManifestAndTheCards() throws Exception {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        createCards(cardSet, 3);
+
+        Map<String, String> entries = unzip(export(owner, cardSet, "ZIP", true).getContentAsByteArray());
+
+        assertThat(entries).containsOnlyKeys("cardset.json", "cards.csv");
+        JsonNode manifest = readTree(entries.get("cardset.json"));
+        assertThat(manifest.get("name").asText()).isEqualTo(cardSet.getName());
+        assertThat(manifest.get("includesProgress").asBoolean()).isTrue();
+        List<String> csv = entries.get("cards.csv").lines().toList();
+        assertThat(csv).hasSize(4);
+        assertThat(csv.get(0)).startsWith("term,definition,times_reviewed");
+    }
+
+    @Test
+    void privateSetsCannotBeExportedByOthers() throws Exception {
+        User owner = createUser("owner");
+        User stranger = createUser("stranger");
+        CardSet cardSet = createCardSet(owner, false);
+
+        mockMvc.perform(get("/api/v1/cardsets/{id}/export", cardSet.getId()).with(as(stranger)))
+                .andExpect(status().isForbidden());
+    }
+
+    private MockHttpServletResponse export(User user, CardSet cardSet, String format, boolean includeProgress) throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/v1/cardsets/{id}/export", cardSet.getId())
+                        .param("format", format)
+                        .param("includeProgress", String.valueOf(includeProgress))
+                        .with(as(user)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+    }
+
+    private JsonNode readTree(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, String> unzip(byte[] archive) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
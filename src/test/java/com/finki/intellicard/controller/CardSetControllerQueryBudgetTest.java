@@ -0,0 +1,146 @@
+package com.finki.intellicard.controller;
+
+import com.finki.intellicard.model.Card;
+import com.finki.intellicard.model.CardSet;
+import com.finki.intellicard.model.User;
+import com.finki.intellicard.model.enums.AccessRequestStatus;
+import com.finki.intellicard.model.enums.CardStatus;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CardSetControllerQueryBudgetTest extends QueryBudgetIntegrationTest {
+
+    private static final String CARD_SET_JSON = "{\"name\":\"Biology\",\"isPublic\":true}";
+
+    @ParameterizedTest(name = "{0} sets per kind")
+    @MethodSource("datasetSizes")
+    void listCatalog(int size) throws Throwable {
+        User viewer = createUser("viewer");
+        for (int i = 0; i < size; i++) {
+            User owner = createUser("owner");
+            CardSet publicSet = createCardSet(owner, true);
+            createCards(publicSet, 3);
+            CardSet approvedSet = createCardSet(owner, false);
+            approve(approvedSet, List.of(viewer));
+            CardSet requestedSet = createCardSet(owner, false);
+            createAccessRequest(viewer, requestedSet, AccessRequestStatus.PENDING);
+        }
+
+        queryBudget.assertAtMost(2, () -> mockMvc.perform(get("/api/v1/cardsets").with(as(viewer)))
+                .andExpect(status().isOk()));
+    }
+
+    @ParameterizedTest(name = "{0} existing sets")
+    @MethodSource("datasetSizes")
+    void createCardSet(int size) throws Throwable {
+        User owner = createUser("owner");
+        for (int i = 0; i < size; i++) {
+            createCardSet(owner, false);
+        }
+
+        queryBudget.assertAtMost(2, () -> mockMvc.perform(post("/api/v1/cardsets").with(as(owner))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(CARD_SET_JSON))
+                .andExpect(status().isCreated()));
+    }
+
+    @ParameterizedTest(name = "{0} cards and approved users")
+    @MethodSource("datasetSizes")
+    void getCardSetAsApprovedUser(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        createCards(cardSet, size);
+        List<User> readers = createUsers("reader", size);
+        approve(cardSet, readers);
+
+        queryBudget.assertAtMost(5, () -> mockMvc.perform(get("/api/v1/cardsets/{id}", cardSet.getId()).with(as(readers.get(size - 1))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessType").value("ACCESSIBLE"))
+                .andExpect(jsonPath("$.totalCards").value(size)));
+    }
+
+    @ParameterizedTest(name = "{0} cards and approved users")
+    @MethodSource("datasetSizes")
+    void getCardSetNotModified(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        createCards(cardSet, size);
+        List<User> readers = createUsers("reader", size);
+        approve(cardSet, readers);
+        User reader = readers.get(size - 1);
+        String eTag = mockMvc.perform(get("/api/v1/cardsets/{id}", cardSet.getId()).with(as(reader)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        queryBudget.assertAtMost(1, () -> mockMvc.perform(get("/api/v1/cardsets/{id}", cardSet.getId()).with(as(reader))
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag)));
+    }
+
+    @ParameterizedTest(name = "{0} cards")
+    @MethodSource("datasetSizes")
+    void updateCardSet(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        createCards(cardSet, size);
+
+        queryBudget.assertAtMost(4, () -> mockMvc.perform(put("/api/v1/cardsets/{id}", cardSet.getId()).with(as(owner))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(CARD_SET_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCards").value(size)));
+    }
+
+    @ParameterizedTest(name = "{0} cards")
+    @MethodSource("datasetSizes")
+    void cloneCardSet(int size) throws Throwable {
+        User owner = createUser("owner");
+        User student = createUser("student");
+        CardSet cardSet = createCardSet(owner, true);
+        createCards(cardSet, size);
+
+        queryBudget.assertAtMost(5, () -> mockMvc.perform(post("/api/v1/cardsets/{id}/clone", cardSet.getId()).with(as(student)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.name").value(cardSet.getName() + " (copy)"))
+                .andExpect(jsonPath("$.creatorId").value(student.getId()))
+                .andExpect(jsonPath("$.isPublic").value(false))
+                .andExpect(jsonPath("$.totalCards").value(size)));
+
+        Long copyId = cardSetRepository.findAll().stream()
+                .filter(set -> set.getCreator().getId().equals(student.getId()))
+                .findFirst().orElseThrow().getId();
+        mockMvc.perform(get("/api/v1/cards/cardset/{id}", copyId).with(as(student)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(size));
+    }
+
+    @ParameterizedTest(name = "{0} cards, learners and requests")
+    @MethodSource("datasetSizes")
+    void deleteCardSet(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        List<Card> cards = createCards(cardSet, size);
+        addProgress(owner, cards, LocalDateTime.now(), CardStatus.LEARNING);
+        approve(cardSet, createUsers("reader", size));
+        for (User requester : createUsers("requester", size)) {
+            createAccessRequest(requester, cardSet, AccessRequestStatus.PENDING);
+        }
+
+        queryBudget.assertAtMost(9, () -> mockMvc.perform(delete("/api/v1/cardsets/{id}", cardSet.getId()).with(as(owner)))
+                .andExpect(status().isNoContent()));
+    }
+}
@@ -0,0 +1,165 @@
+package com.finki.intellicard.controller;
+
+import com.finki.intellicard.model.AccessRequest;
+import com.finki.intellicard.model.Card;
+import com.finki.intellicard.model.CardSet;
+import com.finki.intellicard.model.User;
+import com.finki.intellicard.model.UserCardProgress;
+import com.finki.intellicard.model.UserPrincipal;
+import com.finki.intellicard.model.enums.AccessRequestStatus;
+import com.finki.intellicard.model.enums.CardStatus;
+import com.finki.intellicard.repository.AccessRequestRepository;
+import com.finki.intellicard.repository.CardRepository;
+import com.finki.intellicard.repository.CardSetRepository;
+import com.finki.intellicard.repository.UserCardProgressRepository;
+import com.finki.intellicard.repository.UserRepository;
+import com.finki.intellicard.service.SecondLevelCacheEvictor;
+import com.finki.intellicard.support.QueryBudget;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+
+/**
+ * Base class for the query-budget tests. Every endpoint is exercised through MockMvc against
+ * datasets of increasing size with a fixed statement budget, so a per-row query (N+1) fails
+ * as soon as the dataset grows.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(QueryBudget.class)
+abstract class QueryBudgetIntegrationTest {
+
+    static final String PASSWORD = "password";
+
+    private static String encodedPassword;
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected QueryBudget queryBudget;
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected CardSetRepository cardSetRepository;
+
+    @Autowired
+    protected CardRepository cardRepository;
+
+    @Autowired
+    protected UserCardProgressRepository userCardProgressRepository;
+
+    @Autowired
+    protected AccessRequestRepository accessRequestRepository;
+
+    @Autowired
+    protected TransactionTemplate transactionTemplate;
+
+    @Autowired
+    protected SecondLevelCacheEvictor secondLevelCacheEvictor;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    static IntStream datasetSizes() {
+        return IntStream.of(1, 10, 50);
+    }
+
+    protected static RequestPostProcessor as(User user) {
+        return user(new UserPrincipal(user));
+    }
+
+    protected User createUser(String prefix) {
+        String username = prefix + "-" + UUID.randomUUID();
+        return userRepository.save(User.builder()
+                .username(username)
+                .fullName(prefix)
+                .email(username + "@example.com")
+                .password(encodedPassword())
+                .build());
+    }
+
+    private String encodedPassword() {
+        if (encodedPassword == null) {
+            encodedPassword = passwordEncoder.encode(PASSWORD);
+        }
+        return encodedPassword;
+    }
+
+    protected List<User> createUsers(String prefix, int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(createUser(prefix));
+        }
+        return users;
+    }
+
+    protected CardSet createCardSet(User owner, boolean isPublic) {
+        return cardSetRepository.save(CardSet.builder()
+                .name("Set of " + owner.getFullName())
+                .isPublic(isPublic)
+                .creator(owner)
+                .createdAt(LocalDateTime.now())
+                .lastModified(LocalDateTime.now())
+                .build());
+    }
+
+    protected List<Card> createCards(CardSet cardSet, int count) {
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            cards.add(Card.builder()
+                    .term("Term " + i)
+                    .definition("Definition number " + i)
+                    .cardSet(cardSet)
+                    .build());
+        }
+        return cardRepository.saveAll(cards);
+    }
+
+    protected void addProgress(User user, List<Card> cards, LocalDateTime nextReviewDate, CardStatus status) {
+        List<UserCardProgress> progress = new ArrayList<>();
+        for (Card card : cards) {
+            progress.add(UserCardProgress.builder()
+                    .user(user)
+                    .card(card)
+                    .timesReviewed(1)
+                    .nextReviewDate(nextReviewDate)
+                    .lastReviewed(nextReviewDate.minusDays(1))
+                    .status(status)
+                    .build());
+        }
+        userCardProgressRepository.saveAll(progress);
+    }
+
+    protected void approve(CardSet cardSet, List<User> users) {
+        transactionTemplate.executeWithoutResult(status -> {
+            users.forEach(user -> cardSetRepository.addApprovedUser(cardSet.getId(), user.getId()));
+            secondLevelCacheEvictor.evictApprovedUsers(cardSet.getId());
+        });
+    }
+
+    protected AccessRequest createAccessRequest(User requester, CardSet cardSet, AccessRequestStatus status) {
+        AccessRequest request = new AccessRequest();
+        request.setRequester(requester);
+        request.setCardSet(cardSet);
+        request.setStatus(status);
+        return accessRequestRepository.save(request);
+    }
+}
@@ -0,0 +1,212 @@
+package com.finki.intellicard.controller;
+
+import com.finki.intellicard.model.Card;
+import com.finki.intellicard.model.CardSet;
+import com.finki.intellicard.model.User;
+import com.finki.intellicard.model.UserDailyStats;
+import com.finki.intellicard.model.enums.CardStatus;
+import com.finki.intellicard.repository.UserDailyStatsRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class StudyControllerQueryBudgetTest extends QueryBudgetIntegrationTest {
+
+    @Autowired
+    private UserDailyStatsRepository userDailyStatsRepository;
+
+    @ParameterizedTest(name = "{0} due cards")
+    @MethodSource("datasetSizes")
+    void dueCards(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        List<Card> cards = createCards(cardSet, size);
+        List<User> learners = createUsers("learner", size);
+        approve(cardSet, learners);
+        User learner = learners.get(size - 1);
+        addProgress(learner, cards, LocalDateTime.now().minusHours(1), CardStatus.REVIEW);
+
+        queryBudget.assertAtMost(4, () -> mockMvc.perform(get("/api/v1/study/cardset/{id}/due", cardSet.getId()).with(as(learner)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(size)));
+    }
+
+    @ParameterizedTest(name = "{0} cards and learners")
+    @MethodSource("datasetSizes")
+    void reviewFirstTime(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        List<Card> cards = createCards(cardSet, size);
+        List<User> learners = createUsers("learner", size);
+        approve(cardSet, learners);
+
+        queryBudget.assertAtMost(6, () -> mockMvc.perform(post("/api/v1/study/card/{id}/review", cards.get(0).getId())
+                        .param("correct", "true")
+                        .param("difficulty", "3")
+                        .with(as(learners.get(size - 1))))
+                .andExpect(status().isOk()));
+    }
+
+    @ParameterizedTest(name = "{0} cards and learners")
+    @MethodSource("datasetSizes")
+    void reviewAgain(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        List<Card> cards = createCards(cardSet, size);
+        List<User> learners = createUsers("learner", size);
+        approve(cardSet, learners);
+        User learner = learners.get(size - 1);
+        addProgress(learner, cards, LocalDateTime.now().minusHours(1), CardStatus.LEARNING);
+
+        queryBudget.assertAtMost(6, () -> mockMvc.perform(post("/api/v1/study/card/{id}/review", cards.get(0).getId())
+                        .param("correct", "false")
+                        .param("difficulty", "4")
+                        .with(as(learner)))
+                .andExpect(status().isOk()));
+    }
+
+    @ParameterizedTest(name = "{0} cards")
+    @MethodSource("datasetSizes")
+    void overview(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, true);
+        List<Card> cards = createCards(cardSet, size * 2);
+        User learner = createUser("learner");
+        addProgress(learner, cards.subList(0, size), LocalDateTime.now().minusHours(1), CardStatus.LEARNING);
+        addProgress(learner, cards.subList(size, size * 2), LocalDateTime.now().plusDays(10), CardStatus.MASTERED);
+
+        queryBudget.assertAtMost(6, () -> mockMvc.perform(get("/api/v1/study/cardset/{id}/overview", cardSet.getId()).with(as(learner)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dueCards").value(size))
+                .andExpect(jsonPath("$.masteredCards").value(size)));
+    }
+
+    @ParameterizedTest(name = "{0} cards per set")
+    @MethodSource("datasetSizes")
+    void dailyQueue(int size) throws Throwable {
+        User learner = createUser("learner");
+        User owner = createUser("owner");
+        createCards(createCardSet(learner, false), size);
+        CardSet shared = createCardSet(owner, false);
+        approve(shared, List.of(learner));
+        addProgress(learner, createCards(shared, size), LocalDateTime.now().minusHours(1), CardStatus.REVIEW);
+        CardSet studied = createCardSet(owner, true);
+        addProgress(learner, createCards(studied, size), LocalDateTime.now().minusDays(1), CardStatus.LEARNING);
+        createCards(createCardSet(owner, false), size);
+
+        queryBudget.assertAtMost(2, () -> mockMvc.perform(get("/api/v1/study/queue")
+                        .param("limit", "500")
+                        .param("perSetLimit", "500")
+                        .param("newPerSet", "500")
+                        .with(as(learner)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3 * size))
+                .andExpect(jsonPath("$[0].cardSetId").value(studied.getId()))
+                .andExpect(jsonPath("$[" + (3 * size - 1) + "].status").value("NEW")));
+    }
+
+    @ParameterizedTest(name = "{0} learners")
+    @MethodSource("datasetSizes")
+    void leaderboard(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, true);
+        List<Card> cards = createCards(cardSet, 5);
+        List<User> learners = createUsers("learner", size);
+        for (int i = 0; i < size; i++) {
+            addProgress(learners.get(i), cards.subList(0, i % cards.size() + 1), LocalDateTime.now().plusDays(1), CardStatus.MASTERED);
+        }
+        User learner = learners.get(size - 1);
+        int mastered = (size - 1) % cards.size() + 1;
+        mockMvc.perform(get("/api/v1/study/cardset/{id}/leaderboard", cardSet.getId()).with(as(learner)))
+                .andExpect(status().isOk());
+
+        queryBudget.assertAtMost(2, () -> mockMvc.perform(get("/api/v1/study/cardset/{id}/leaderboard", cardSet.getId())
+                        .param("limit", "3")
+                        .with(as(learner)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.learners").value(size))
+                .andExpect(jsonPath("$.top.length()").value(Math.min(3, size)))
+                .andExpect(jsonPath("$.top[0].rank").value(1))
+                .andExpect(jsonPath("$.top[0].mastered").value(Math.min(size, cards.size())))
+                .andExpect(jsonPath("$.you.mastered").value(mastered))
+                .andExpect(jsonPath("$.you.username").value(learner.getUsername())));
+    }
+
+    @Test
+    void dueCountIsCachedUntilTheLearnerReviews() throws Throwable {
+        User owner = createUser("owner");
+        User learner = createUser("learner");
+        CardSet cardSet = createCardSet(owner, true);
+        List<Card> cards = createCards(cardSet, 3);
+        addProgress(learner, cards, LocalDateTime.now().minusHours(1), CardStatus.LEARNING);
+
+        mockMvc.perform(get("/api/v1/study/due-count").with(as(learner)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dueCards").value(3));
+        queryBudget.assertAtMost(0, () -> mockMvc.perform(get("/api/v1/study/due-count").with(as(learner)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dueCards").value(3)));
+
+        mockMvc.perform(post("/api/v1/study/card/{id}/review", cards.get(0).getId())
+                        .param("correct", "true")
+                        .param("difficulty", "3")
+                        .with(as(learner)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/study/due-count").with(as(learner)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dueCards").value(2));
+    }
+
+    @Test
+    void reviewsAreLoggedOffTheRequestPath() throws Throwable {
+        User owner = createUser("owner");
+        User learner = createUser("learner");
+        CardSet cardSet = createCardSet(owner, true);
+        Card card = createCards(cardSet, 1).get(0);
+
+        for (boolean correct : new boolean[]{true, false}) {
+            List<String> statements = queryBudget.record(() -> mockMvc.perform(post("/api/v1/study/card/{id}/review", card.getId())
+                            .param("correct", String.valueOf(correct))
+                            .param("difficulty", "2")
+                            .with(as(learner)))
+                    .andExpect(status().isOk()));
+            assertThat(statements).noneMatch(sql -> sql.toLowerCase().contains("review_event"));
+        }
+    }
+
+    @Test
+    void stats() throws Throwable {
+        User learner = createUser("learner");
+        LocalDate today = LocalDate.now();
+        userDailyStatsRepository.saveAll(List.of(
+                new UserDailyStats(learner.getId(), today, 3, 2, 2, 1, 0, 3),
+                new UserDailyStats(learner.getId(), today.minusDays(1), 4, 3, 4, 0, 0, 2),
+                new UserDailyStats(learner.getId(), today.minusDays(2), 2, 2, 0, 2, 2, 1),
+                new UserDailyStats(learner.getId(), today.minusDays(10), 1, 1, 1, 0, 0, 4),
+                new UserDailyStats(learner.getId(), today.minusDays(11), 1, 1, 1, 0, 0, 3),
+                new UserDailyStats(learner.getId(), today.minusDays(12), 1, 1, 1, 0, 0, 2),
+                new UserDailyStats(learner.getId(), today.minusDays(13), 1, 1, 1, 0, 0, 1)));
+
+        queryBudget.assertAtMost(3, () -> mockMvc.perform(get("/api/v1/study/stats").param("days", "7").with(as(learner)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.days.length()").value(7))
+                .andExpect(jsonPath("$.days[6].date").value(today.toString()))
+                .andExpect(jsonPath("$.days[6].reviews").value(3))
+                .andExpect(jsonPath("$.reviews").value(9))
+                .andExpect(jsonPath("$.retention").value(2.0 / 3))
+                .andExpect(jsonPath("$.currentStreak").value(3))
+                .andExpect(jsonPath("$.longestStreak").value(4)));
+    }
+}
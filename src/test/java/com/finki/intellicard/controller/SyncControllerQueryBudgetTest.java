@@ -0,0 +1,260 @@
+package com.finki.intellicard.controller;
+
+import com.finki.intellicard.model.Card;
+import com.finki.intellicard.model.CardSet;
+import com.finki.intellicard.model.User;
+import com.finki.intellicard.model.enums.AccessRequestStatus;
+import com.finki.intellicard.model.enums.CardStatus;
+import com.finki.intellicard.repository.ReviewEventRepository;
+import com.finki.intellicard.support.ReviewEvents;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// No grace period, so rows written by a test are visible to its next sync call
+@TestPropertySource(properties = "sync.commit-grace=0s")
+class SyncControllerQueryBudgetTest extends QueryBudgetIntegrationTest {
+
+    @Autowired
+    private ReviewEventRepository reviewEventRepository;
+
+    @ParameterizedTest(name = "{0} cards per set")
+    @MethodSource("datasetSizes")
+    void fullSync(int size) throws Throwable {
+        User owner = createUser("owner");
+        User reader = createUser("reader");
+        CardSet own = createCardSet(reader, false);
+        createCards(own, size);
+        CardSet shared = createCardSet(owner, false);
+        List<Card> sharedCards = createCards(shared, size);
+        approve(shared, List.of(reader));
+        addProgress(reader, sharedCards, LocalDateTime.now().plusDays(1), CardStatus.LEARNING);
+
+        queryBudget.assertAtMost(8, () -> mockMvc.perform(get("/api/v1/sync").with(as(reader)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cardSets.length()").value(2))
+                .andExpect(jsonPath("$.cards.length()").value(2 * size))
+                .andExpect(jsonPath("$.progress.length()").value(size))
+                .andExpect(jsonPath("$.deletions.length()").value(0))
+                .andExpect(jsonPath("$.hasMore").value(false)));
+    }
+
+    @Test
+    void pagesFollowTheCursorWithoutGapsOrRepeats() throws Exception {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        List<Card> cards = createCards(cardSet, 25);
+
+        List<Integer> synced = new ArrayList<>();
+        String cursor = null;
+        boolean hasMore = true;
+        while (hasMore) {
+            String body = sync(owner, cursor, 10);
+            synced.addAll(JsonPath.read(body, "$.cards[*].id"));
+            cursor = JsonPath.read(body, "$.cursor");
+            hasMore = JsonPath.read(body, "$.hasMore");
+        }
+
+        assertThat(synced).containsExactlyElementsOf(cards.stream().map(card -> card.getId().intValue()).toList());
+    }
+
+    @Test
+    void incrementalSyncReturnsOnlyWhatChanged() throws Exception {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        List<Card> cards = createCards(cardSet, 3);
+        String cursor = JsonPath.read(sync(owner, null, null), "$.cursor");
+
+        mockMvc.perform(put("/api/v1/cards/{id}", cards.get(0).getId()).with(as(owner))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"term\":\"Edited\",\"definition\":\"Edited definition\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/v1/cards/{id}", cards.get(1).getId()).with(as(owner)))
+                .andExpect(status().isNoContent());
+
+        String body = sync(owner, cursor, null);
+        assertThat(JsonPath.<List<Integer>>read(body, "$.cards[*].id")).containsExactly(cards.get(0).getId().intValue());
+        assertThat(JsonPath.<List<String>>read(body, "$.deletions[*].entityType")).containsExactly("CARD");
+        assertThat(JsonPath.<List<Integer>>read(body, "$.deletions[*].entityId")).containsExactly(cards.get(1).getId().intValue());
+
+        String again = sync(owner, JsonPath.read(body, "$.cursor"), null);
+        assertThat(JsonPath.<List<Object>>read(again, "$.cards")).isEmpty();
+        assertThat(JsonPath.<List<Object>>read(again, "$.deletions")).isEmpty();
+    }
+
+    @Test
+    void deletedSetReachesEveryoneWhoCouldSeeIt() throws Exception {
+        User owner = createUser("owner");
+        User reader = createUser("reader");
+        User outsider = createUser("outsider");
+        CardSet cardSet = createCardSet(owner, false);
+        createCards(cardSet, 2);
+        approve(cardSet, List.of(reader));
+        String cursor = JsonPath.read(sync(reader, null, null), "$.cursor");
+
+        mockMvc.perform(delete("/api/v1/cardsets/{id}", cardSet.getId()).with(as(owner)))
+                .andExpect(status().is2xxSuccessful());
+
+        String body = sync(reader, cursor, null);
+        assertThat(JsonPath.<List<String>>read(body, "$.deletions[*].entityType")).containsExactly("CARD_SET");
+        assertThat(JsonPath.<List<Integer>>read(body, "$.deletions[*].entityId")).containsExactly(cardSet.getId().intValue());
+        assertThat(JsonPath.<List<Object>>read(sync(outsider, null, null), "$.deletions")).isEmpty();
+    }
+
+    @Test
+    void setMadePrivateLeavesTheScopeOfItsPublicLearners() throws Exception {
+        User owner = createUser("owner");
+        User reader = createUser("reader");
+        User learner = createUser("learner");
+        CardSet cardSet = createCardSet(owner, true);
+        List<Card> cards = createCards(cardSet, 2);
+        approve(cardSet, List.of(reader));
+        addProgress(reader, cards, LocalDateTime.now().plusDays(1), CardStatus.LEARNING);
+        addProgress(learner, cards, LocalDateTime.now().plusDays(1), CardStatus.LEARNING);
+        String cursor = JsonPath.read(sync(learner, null, null), "$.cursor");
+        String readerCursor = JsonPath.read(sync(reader, null, null), "$.cursor");
+
+        mockMvc.perform(put("/api/v1/cardsets/{id}", cardSet.getId()).with(as(owner))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Private now\",\"isPublic\":false}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/v1/cards/{id}", cards.get(0).getId()).with(as(owner))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"term\":\"edited\",\"definition\":\"after the set went private\"}"))
+                .andExpect(status().isOk());
+
+        String body = sync(learner, cursor, null);
+        assertThat(JsonPath.<List<Object>>read(body, "$.cardSets")).isEmpty();
+        assertThat(JsonPath.<List<Object>>read(body, "$.cards")).isEmpty();
+        assertThat(JsonPath.<List<String>>read(body, "$.deletions[*].entityType")).containsExactly("CARD_SET");
+        assertThat(JsonPath.<List<Integer>>read(body, "$.deletions[*].entityId")).containsExactly(cardSet.getId().intValue());
+
+        String readerBody = sync(reader, readerCursor, null);
+        assertThat(JsonPath.<List<Integer>>read(readerBody, "$.cards[*].id")).containsExactly(cards.get(0).getId().intValue());
+        assertThat(JsonPath.<List<Object>>read(readerBody, "$.deletions")).isEmpty();
+    }
+
+    @Test
+    void newlyApprovedSetShowsUpInTheNextSync() throws Exception {
+        User owner = createUser("owner");
+        User reader = createUser("reader");
+        CardSet cardSet = createCardSet(owner, false);
+        String cursor = JsonPath.read(sync(reader, null, null), "$.cursor");
+
+        Long requestId = createAccessRequest(reader, cardSet, AccessRequestStatus.PENDING).getId();
+        mockMvc.perform(put("/api/v1/cardsets/{cardSetId}/access-requests/{requestId}", cardSet.getId(), requestId)
+                        .param("approve", "true")
+                        .with(as(owner)))
+                .andExpect(status().isOk());
+
+        assertThat(JsonPath.<List<Integer>>read(sync(reader, cursor, null), "$.cardSets[*].id"))
+                .containsExactly(cardSet.getId().intValue());
+    }
+
+    @ParameterizedTest(name = "{0} reviews")
+    @MethodSource("datasetSizes")
+    void offlineReviewsAreAppliedInOneBatch(int size) throws Throwable {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+        List<Card> cards = createCards(cardSet, size);
+        StringBuilder reviews = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            reviews.append(i == 0 ? "" : ",")
+                    .append("{\"cardId\":").append(cards.get(i).getId())
+                    .append(",\"correct\":true,\"difficulty\":3,\"reviewedAt\":\"")
+                    .append(LocalDateTime.now().minusHours(1)).append("\"}");
+        }
+        reviews.append("]");
+
+        queryBudget.assertAtMost(5 + size, () -> mockMvc.perform(post("/api/v1/sync/reviews").with(as(owner))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(reviews.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(size))
+                .andExpect(jsonPath("$[0].outcome").value("APPLIED")));
+    }
+
+    @Test
+    void offlineReviewsReportConflicts() throws Exception {
+        User owner = createUser("owner");
+        User reader = createUser("reader");
+        CardSet readable = createCardSet(owner, true);
+        CardSet closed = createCardSet(owner, false);
+        Card card = createCards(readable, 1).get(0);
+        Card hidden = createCards(closed, 1).get(0);
+        LocalDateTime lastSeen = LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        addProgress(reader, List.of(card), lastSeen.plusDays(1), CardStatus.LEARNING);
+
+        LocalDateTime later = lastSeen.minusDays(1).plusHours(2);
+        String body = mockMvc.perform(post("/api/v1/sync/reviews").with(as(reader))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" +
+                                review(card.getId(), later) + "," +
+                                review(card.getId(), lastSeen.minusDays(2)) + "," +
+                                review(hidden.getId(), later) + "," +
+                                review(-1L, later) + "]"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(JsonPath.<List<String>>read(body, "$[*].outcome"))
+                .containsExactly("STALE", "STALE", "FORBIDDEN", "CARD_NOT_FOUND");
+
+        String applied = mockMvc.perform(post("/api/v1/sync/reviews").with(as(reader))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + review(card.getId(), lastSeen.plusHours(1)) + "]"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(JsonPath.<List<String>>read(applied, "$[*].outcome")).containsExactly("APPLIED");
+        assertThat(userCardProgressRepository.findByUserIdAndCardId(reader.getId(), card.getId()).orElseThrow()
+                .getNextReviewDate()).isEqualTo(lastSeen.plusHours(1).plusDays(1));
+
+        // Only the applied review is logged, an hour after the review the server had
+        assertThat(ReviewEvents.await(reviewEventRepository, reader.getId(), 1)).singleElement().satisfies(event -> {
+            assertThat(event.getCardId()).isEqualTo(card.getId());
+            assertThat(event.getReviewedAt()).isEqualTo(lastSeen.plusHours(1));
+            assertThat(event.getElapsedSeconds()).isEqualTo(3600);
+        });
+    }
+
+    @Test
+    void rejectsAMalformedCursor() throws Exception {
+        User owner = createUser("owner");
+
+        mockMvc.perform(get("/api/v1/sync").param("cursor", "not-a-cursor").with(as(owner)))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String sync(User user, String cursor, Integer limit) throws Exception {
+        var request = get("/api/v1/sync").with(as(user));
+        if (cursor != null) {
+            request.param("cursor", cursor);
+        }
+        if (limit != null) {
+            request.param("limit", limit.toString());
+        }
+        return mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private static String review(Long cardId, LocalDateTime reviewedAt) {
+        return "{\"cardId\":" + cardId + ",\"correct\":true,\"difficulty\":3,\"reviewedAt\":\"" + reviewedAt + "\"}";
+    }
+}
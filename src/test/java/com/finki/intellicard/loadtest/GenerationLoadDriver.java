@@ -0,0 +1,137 @@
+package com.finki.intellicard.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closed-loop load driver for {@code POST /api/v1/cards/{cardSetId}/generate-cards}.
+ * A fixed number of workers issue requests back to back, spread over the given
+ * clients (each client owns the set it generates into), and the driver reports
+ * throughput, latency percentiles and the status code mix.
+ */
+public class GenerationLoadDriver {
+
+    public record Client(String token, long cardSetId) {
+    }
+
+    public record LoadReport(
+            int requests,
+            int succeeded,
+            Map<Integer, Integer> statusCounts,
+            Duration elapsed,
+            double throughputPerSecond,
+            Duration p50,
+            Duration p95,
+            Duration p99,
+            Duration max) {
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "requests=%d succeeded=%d statuses=%s elapsed=%dms throughput=%.2f/s p50=%dms p95=%dms p99=%dms max=%dms",
+                    requests, succeeded, statusCounts, elapsed.toMillis(), throughputPerSecond,
+                    p50.toMillis(), p95.toMillis(), p99.toMillis(), max.toMillis());
+        }
+    }
+
+    private static final String BOUNDARY = "----intellicard-load-" + UUID.randomUUID();
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final String baseUrl;
+    private final byte[] document;
+
+    public GenerationLoadDriver(String baseUrl, String documentText) {
+        this.baseUrl = baseUrl;
+        this.document = multipartBody(documentText);
+    }
+
+    public LoadReport run(List<Client> clients, int concurrency, int totalRequests) throws InterruptedException {
+        AtomicInteger issued = new AtomicInteger();
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        ConcurrentHashMap<Integer, Integer> statuses = new ConcurrentHashMap<>();
+
+        long start = System.nanoTime();
+        try (ExecutorService workers = Executors.newFixedThreadPool(concurrency)) {
+            for (int worker = 0; worker < concurrency; worker++) {
+                workers.submit(() -> {
+                    int sequence;
+                    while ((sequence = issued.getAndIncrement()) < totalRequests) {
+                        Client client = clients.get(sequence % clients.size());
+                        long requestStart = System.nanoTime();
+                        int status = send(client);
+                        latencies.add(System.nanoTime() - requestStart);
+                        statuses.merge(status, 1, Integer::sum);
+                    }
+                });
+            }
+            workers.shutdown();
+            workers.awaitTermination(10, TimeUnit.MINUTES);
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        int succeeded = statuses.getOrDefault(200, 0);
+        return new LoadReport(
+                sorted.length,
+                succeeded,
+                new TreeMap<>(statuses),
+                elapsed,
+                sorted.length / Math.max(0.001, elapsed.toNanos() / 1e9),
+                percentile(sorted, 0.50),
+                percentile(sorted, 0.95),
+                percentile(sorted, 0.99),
+                percentile(sorted, 1.0));
+    }
+
+    private int send(Client client) {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/v1/cards/" + client.cardSetId() + "/generate-cards"))
+                .timeout(Duration.ofMinutes(3))
+                .header("Authorization", "Bearer " + client.token())
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(document))
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static Duration percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return Duration.ZERO;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return Duration.ofNanos(sorted[Math.max(0, Math.min(sorted.length - 1, index))]);
+    }
+
+    private static byte[] multipartBody(String documentText) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writePart(body, "Content-Disposition: form-data; name=\"file\"; filename=\"load-test.txt\"\r\n"
+                + "Content-Type: text/plain\r\n", documentText);
+        writePart(body, "Content-Disposition: form-data; name=\"questionCount\"\r\n", "10");
+        writePart(body, "Content-Disposition: form-data; name=\"difficultyLevel\"\r\n", "MEDIUM");
+        writePart(body, "Content-Disposition: form-data; name=\"language\"\r\n", "English");
+        body.writeBytes(("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return body.toByteArray();
+    }
+
+    private static void writePart(ByteArrayOutputStream body, String headers, String content) {
+        body.writeBytes(("--" + BOUNDARY + "\r\n" + headers + "\r\n" + content + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+}
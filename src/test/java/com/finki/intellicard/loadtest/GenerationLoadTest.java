@@ -0,0 +1,125 @@
+package com.finki.intellicard.loadtest;
+
+import com.finki.intellicard.record.CardSetRecord;
+import com.finki.intellicard.record.LoginRequestRecord;
+import com.finki.intellicard.record.RegisterRequestRecord;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load test of card generation against {@link OpenAiStubServer}. Excluded from
+ * the default build; run with {@code mvn test -Pload-test}. The load shape and stub
+ * behaviour can be tuned with {@code -Dload.*} system properties.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class GenerationLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(GenerationLoadTest.class);
+
+    private static final int USERS = Integer.getInteger("load.users", 8);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 8);
+    private static final int REQUESTS = Integer.getInteger("load.requests", 80);
+
+    private static OpenAiStubServer stub;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @BeforeAll
+    static void startStub() throws IOException {
+        StubBehavior behavior = StubBehavior
+                .healthy(StubBehavior.LatencyDistribution.logNormal(
+                        Duration.ofMillis(Long.getLong("load.latency.median-ms", 150)),
+                        Double.parseDouble(System.getProperty("load.latency.sigma", "0.5"))))
+                .withRateLimiting(Double.parseDouble(System.getProperty("load.rate-limit-rate", "0.02")), 1)
+                .withErrors(Double.parseDouble(System.getProperty("load.error-rate", "0.02")), 503)
+                .withMalformedResponses(Double.parseDouble(System.getProperty("load.malformed-rate", "0.01")));
+        stub = OpenAiStubServer.start(behavior);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @DynamicPropertySource
+    static void stubProperties(DynamicPropertyRegistry registry) {
+        registry.add("openai.api.url", () -> stub.completionsUrl());
+        registry.add("openai.retry.initial-backoff", () -> "50ms");
+        registry.add("generation.admission.max-concurrent", () -> CONCURRENCY);
+        registry.add("generation.admission.max-queued", () -> CONCURRENCY * 2);
+        registry.add("generation.admission.user-burst", () -> REQUESTS);
+        registry.add("generation.admission.user-per-minute", () -> 6000);
+    }
+
+    @Test
+    void generateCardsUnderConcurrency() throws InterruptedException {
+        List<GenerationLoadDriver.Client> clients = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            clients.add(createClient("load-user-" + i));
+        }
+
+        GenerationLoadDriver driver = new GenerationLoadDriver("http://localhost:" + port, documentText());
+        GenerationLoadDriver.LoadReport report = driver.run(clients, CONCURRENCY, REQUESTS);
+
+        log.info("Generation load test: {} stubRequests={} injectedErrors={}",
+                report, stub.requestCount(), stub.injectedErrorCount());
+
+        assertEquals(REQUESTS, report.requests());
+        assertTrue(report.statusCounts().getOrDefault(-1, 0) == 0, "Transport failures: " + report);
+        assertTrue(report.succeeded() >= REQUESTS / 2, "Too few successful generations: " + report);
+    }
+
+    private GenerationLoadDriver.Client createClient(String username) {
+        restTemplate.postForEntity("/api/v1/auth/register",
+                new RegisterRequestRecord("Load User", username, "password", username + "@example.com"), String.class);
+        String token = restTemplate.postForEntity("/api/v1/auth/login",
+                new LoginRequestRecord(username, "password"), String.class).getBody();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        ResponseEntity<CardSetRecord> cardSet = restTemplate.postForEntity("/api/v1/cardsets",
+                new HttpEntity<>(new CardSetRecord(null, username + " set", false, null, null, null, 0), headers),
+                CardSetRecord.class);
+        assertEquals(HttpStatus.CREATED, cardSet.getStatusCode());
+
+        return new GenerationLoadDriver.Client(token, cardSet.getBody().id());
+    }
+
+    private static String documentText() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            text.append("Photosynthesis converts light energy into chemical energy stored in glucose. ")
+                    .append("Section ").append(i).append(" covers chlorophyll, the Calvin cycle and ATP synthesis.\n");
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,188 @@
+package com.finki.intellicard.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Embedded stand-in for the OpenAI chat-completions endpoint. Answers with a JSON array
+ * of flashcards sized after the prompt, after a configurable latency, and can inject
+ * errors, rate limiting and malformed payloads. Requests with {@code "stream": true}
+ * are answered as server-sent events in the OpenAI chunk format.
+ */
+public class OpenAiStubServer implements AutoCloseable {
+
+    public static final String COMPLETIONS_PATH = "/v1/chat/completions";
+
+    private static final Pattern QUESTION_COUNT = Pattern.compile("Generate exactly (\\d+) flashcards");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StubBehavior behavior;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    private OpenAiStubServer(StubBehavior behavior) throws IOException {
+        this.behavior = behavior;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server.setExecutor(executor);
+        this.server.createContext(COMPLETIONS_PATH, this::handle);
+    }
+
+    public static OpenAiStubServer start(StubBehavior behavior) throws IOException {
+        OpenAiStubServer stub = new OpenAiStubServer(behavior);
+        stub.server.start();
+        return stub;
+    }
+
+    public String completionsUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + COMPLETIONS_PATH;
+    }
+
+    public long requestCount() {
+        return requests.get();
+    }
+
+    public long injectedErrorCount() {
+        return injectedErrors.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+
+            sleep(behavior.latency().sample());
+
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < behavior.rateLimitRate()) {
+                injectedErrors.incrementAndGet();
+                exchange.getResponseHeaders().add("Retry-After", String.valueOf(behavior.retryAfterSeconds()));
+                sendJson(exchange, 429, errorBody("rate_limit_exceeded", "Rate limit reached"));
+                return;
+            }
+            roll -= behavior.rateLimitRate();
+            if (roll < behavior.errorRate()) {
+                injectedErrors.incrementAndGet();
+                sendJson(exchange, behavior.errorStatus(), errorBody("server_error", "Injected failure"));
+                return;
+            }
+            roll -= behavior.errorRate();
+
+            String content = roll < behavior.malformedRate()
+                    ? "Sure! Here are your cards: [{\"term\": \"Unclosed"
+                    : cardsContent(questionCount(request));
+
+            if (request.path("stream").asBoolean(false)) {
+                stream(exchange, request.path("model").asText("stub"), content);
+            } else {
+                sendJson(exchange, 200, completionBody(request.path("model").asText("stub"), content));
+            }
+        }
+    }
+
+    private int questionCount(JsonNode request) {
+        for (JsonNode message : request.path("messages")) {
+            Matcher matcher = QUESTION_COUNT.matcher(message.path("content").asText());
+            if (matcher.find()) {
+                return Integer.parseInt(matcher.group(1));
+            }
+        }
+        return 5;
+    }
+
+    private String cardsContent(int count) throws IOException {
+        ArrayNode cards = objectMapper.createArrayNode();
+        for (int i = 1; i <= count; i++) {
+            cards.addObject()
+                    .put("term", "Stub term " + i)
+                    .put("definition", "Stub definition number " + i + " generated by the load-test stub");
+        }
+        return objectMapper.writeValueAsString(cards);
+    }
+
+    private String completionBody(String model, String content) throws IOException {
+        ObjectNode body = objectMapper.createObjectNode()
+                .put("id", "chatcmpl-" + UUID.randomUUID())
+                .put("object", "chat.completion")
+                .put("created", System.currentTimeMillis() / 1000)
+                .put("model", model);
+        ObjectNode choice = body.putArray("choices").addObject();
+        choice.put("index", 0).put("finish_reason", "stop");
+        choice.putObject("message").put("role", "assistant").put("content", content);
+        body.putObject("usage")
+                .put("prompt_tokens", 500)
+                .put("completion_tokens", content.length() / 4)
+                .put("total_tokens", 500 + content.length() / 4);
+        return objectMapper.writeValueAsString(body);
+    }
+
+    private void stream(HttpExchange exchange, String model, String content) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            int chunkSize = Math.max(1, behavior.streamChunkChars());
+            for (int start = 0; start < content.length(); start += chunkSize) {
+                String piece = content.substring(start, Math.min(content.length(), start + chunkSize));
+                ObjectNode chunk = objectMapper.createObjectNode()
+                        .put("object", "chat.completion.chunk")
+                        .put("model", model);
+                chunk.putArray("choices").addObject().put("index", 0)
+                        .putObject("delta").put("content", piece);
+                out.write(("data: " + objectMapper.writeValueAsString(chunk) + "\n\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                sleep(behavior.streamChunkDelay());
+            }
+            out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private String errorBody(String code, String message) throws IOException {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.putObject("error").put("message", message).put("type", code).put("code", code);
+        return objectMapper.writeValueAsString(body);
+    }
+
+    private void sendJson(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void sleep(Duration duration) {
+        if (duration.isZero() || duration.isNegative()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
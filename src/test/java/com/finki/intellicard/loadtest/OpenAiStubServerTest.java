@@ -0,0 +1,82 @@
+package com.finki.intellicard.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finki.intellicard.record.AiCompletion;
+import com.finki.intellicard.service.AiCompletionParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The stub itself, so that load runs can rely on what it sends: plain completions the
+ * application parses, and server-sent events in the OpenAI chunk format when asked to stream.
+ */
+class OpenAiStubServerTest {
+
+    private static final String PROMPT = "{\"model\": \"stub-model\", \"stream\": %s, \"messages\": " +
+            "[{\"role\": \"user\", \"content\": \"Generate exactly 3 flashcards from this text.\"}]}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void answersWithACompletionTheApplicationCanParse() throws Exception {
+        try (OpenAiStubServer stub = OpenAiStubServer.start(healthy())) {
+            HttpResponse<byte[]> response = httpClient.send(request(stub, false), HttpResponse.BodyHandlers.ofByteArray());
+
+            assertThat(response.statusCode()).isEqualTo(200);
+            AiCompletionParser parser = new AiCompletionParser();
+            AiCompletion completion = parser.readCompletion(new ByteArrayInputStream(response.body()));
+            assertThat(completion.model()).isEqualTo("stub-model");
+            assertThat(parser.readCards(completion.content())).hasSize(3);
+        }
+    }
+
+    @Test
+    void streamsTheContentAsChunkedEventsEndingWithDone() throws Exception {
+        StubBehavior behavior = healthy().withStreaming(16, Duration.ofMillis(1));
+        try (OpenAiStubServer stub = OpenAiStubServer.start(behavior)) {
+            HttpResponse<Stream<String>> response =
+                    httpClient.send(request(stub, true), HttpResponse.BodyHandlers.ofLines());
+
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(response.headers().firstValue("Content-Type")).hasValue("text/event-stream");
+
+            List<String> frames = response.body().filter(line -> !line.isEmpty()).toList();
+            assertThat(frames).allMatch(line -> line.startsWith("data: "));
+            assertThat(frames.getLast()).isEqualTo("data: [DONE]");
+
+            StringBuilder content = new StringBuilder();
+            for (String frame : frames.subList(0, frames.size() - 1)) {
+                JsonNode chunk = objectMapper.readTree(frame.substring("data: ".length()));
+                assertThat(chunk.path("object").asText()).isEqualTo("chat.completion.chunk");
+                String piece = chunk.path("choices").path(0).path("delta").path("content").asText();
+                assertThat(piece.length()).isLessThanOrEqualTo(16);
+                content.append(piece);
+            }
+            assertThat(frames.size() - 1).isGreaterThan(1);
+            assertThat(new AiCompletionParser().readCards(content.toString())).hasSize(3);
+        }
+    }
+
+    private static StubBehavior healthy() {
+        return StubBehavior.healthy(StubBehavior.LatencyDistribution.fixed(Duration.ZERO));
+    }
+
+    private static HttpRequest request(OpenAiStubServer stub, boolean stream) {
+        return HttpRequest.newBuilder(URI.create(stub.completionsUrl()))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(PROMPT.formatted(stream)))
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package com.finki.intellicard.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How {@link OpenAiStubServer} responds. Rates are fractions of all requests and are
+ * applied in order: rate limiting, server errors, then malformed content.
+ */
+public record StubBehavior(
+        LatencyDistribution latency,
+        double rateLimitRate,
+        long retryAfterSeconds,
+        double errorRate,
+        int errorStatus,
+        double malformedRate,
+        int streamChunkChars,
+        Duration streamChunkDelay) {
+
+    public static StubBehavior healthy(LatencyDistribution latency) {
+        return new StubBehavior(latency, 0, 1, 0, 503, 0, 64, Duration.ZERO);
+    }
+
+    public StubBehavior withRateLimiting(double rate, long retryAfterSeconds) {
+        return new StubBehavior(latency, rate, retryAfterSeconds, errorRate, errorStatus, malformedRate,
+                streamChunkChars, streamChunkDelay);
+    }
+
+    public StubBehavior withErrors(double rate, int status) {
+        return new StubBehavior(latency, rateLimitRate, retryAfterSeconds, rate, status, malformedRate,
+                streamChunkChars, streamChunkDelay);
+    }
+
+    public StubBehavior withMalformedResponses(double rate) {
+        return new StubBehavior(latency, rateLimitRate, retryAfterSeconds, errorRate, errorStatus, rate,
+                streamChunkChars, streamChunkDelay);
+    }
+
+    public StubBehavior withStreaming(int chunkChars, Duration chunkDelay) {
+        return new StubBehavior(latency, rateLimitRate, retryAfterSeconds, errorRate, errorStatus, malformedRate,
+                chunkChars, chunkDelay);
+    }
+
+    @FunctionalInterface
+    public interface LatencyDistribution {
+
+        Duration sample();
+
+        static LatencyDistribution fixed(Duration latency) {
+            return () -> latency;
+        }
+
+        static LatencyDistribution uniform(Duration min, Duration max) {
+            return () -> Duration.ofMillis(ThreadLocalRandom.current().nextLong(min.toMillis(), max.toMillis() + 1));
+        }
+
+        /**
+         * Log-normal latency with the given median; {@code sigma} around 0.5 gives the long
+         * tail typical for LLM completions.
+         */
+        static LatencyDistribution logNormal(Duration median, double sigma) {
+            double mu = Math.log(Math.max(1, median.toMillis()));
+            return () -> Duration.ofMillis(Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian())));
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.finki.intellicard.repository;
+
+import com.finki.intellicard.model.Card;
+import com.finki.intellicard.model.CardSet;
+import com.finki.intellicard.model.User;
+import com.finki.intellicard.service.SecondLevelCacheEvictor;
+import com.finki.intellicard.support.QueryBudget;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.ehcache.config.CacheRuntimeConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.cache.CacheManager;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reads of cached entities and queries must not reach the database, and every way the
+ * application writes (entity updates, JPQL bulk deletes, the native approval insert,
+ * inserts on the owning side of a cached collection) must invalidate what it touched.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(QueryBudget.class)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private QueryBudget queryBudget;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardSetRepository cardSetRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SecondLevelCacheEvictor secondLevelCacheEvictor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CacheManager hibernateCacheManager;
+
+    private User owner;
+    private CardSet cardSet;
+    private Card card;
+
+    @BeforeEach
+    void createSet() {
+        owner = createUser();
+        cardSet = cardSetRepository.save(CardSet.builder()
+                .name("Cached")
+                .creator(owner)
+                .createdAt(LocalDateTime.now())
+                .lastModified(LocalDateTime.now())
+                .build());
+        card = cardRepository.save(Card.builder().term("Term").definition("Definition").cardSet(cardSet).build());
+    }
+
+    @Test
+    void repeatedLookupsAreServedFromTheCache() throws Throwable {
+        cardSetRepository.findById(cardSet.getId());
+        cardRepository.findById(card.getId());
+        userRepository.findByUsername(owner.getUsername());
+        cardSetRepository.isApprovedUser(cardSet.getId(), owner.getId());
+
+        List<String> executed = queryBudget.record(() -> {
+            cardSetRepository.findById(cardSet.getId());
+            cardRepository.findById(card.getId());
+            userRepository.findByUsername(owner.getUsername());
+            cardSetRepository.isApprovedUser(cardSet.getId(), owner.getId());
+        });
+
+        assertThat(executed).isEmpty();
+    }
+
+    @Test
+    void updatesReplaceTheCachedEntity() {
+        cardSetRepository.findById(cardSet.getId());
+
+        transactionTemplate.executeWithoutResult(status ->
+                cardSetRepository.findById(cardSet.getId()).orElseThrow().setName("Renamed"));
+
+        assertThat(cardSetRepository.findById(cardSet.getId()).orElseThrow().getName()).isEqualTo("Renamed");
+    }
+
+    @Test
+    void nativeApprovalInvalidatesAccessChecksButKeepsOtherRegions() throws Throwable {
+        User reader = createUser();
+        assertThat(cardSetRepository.isApprovedUser(cardSet.getId(), reader.getId())).isFalse();
+        assertThat(approvedUserCount()).isZero();
+        cardRepository.findById(card.getId());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            cardSetRepository.addApprovedUser(cardSet.getId(), reader.getId());
+            secondLevelCacheEvictor.evictApprovedUsers(cardSet.getId());
+        });
+
+        assertThat(cardSetRepository.isApprovedUser(cardSet.getId(), reader.getId())).isTrue();
+        assertThat(approvedUserCount()).isEqualTo(1);
+        assertThat(queryBudget.record(() -> cardRepository.findById(card.getId()))).isEmpty();
+    }
+
+    @Test
+    void bulkDeleteEvictsCards() {
+        cardRepository.findById(card.getId());
+
+        transactionTemplate.executeWithoutResult(status -> cardRepository.deleteByCardSetId(cardSet.getId()));
+
+        assertThat(cardRepository.findById(card.getId())).isEmpty();
+    }
+
+    @Test
+    void addingACardEvictsTheCachedCardsCollection() {
+        assertThat(cardCount()).isEqualTo(1);
+
+        cardRepository.save(Card.builder().term("Second").definition("Definition").cardSet(cardSet).build());
+
+        assertThat(cardCount()).isEqualTo(2);
+    }
+
+    @Test
+    void accessChecksExpireSoonerThanEntities() {
+        assertThat(timeToLive("card-set.approved-users")).isEqualTo(Duration.ofSeconds(30));
+        assertThat(timeToLive("default-query-results-region")).isEqualTo(Duration.ofSeconds(30));
+        assertThat(timeToLive("card-set")).isEqualTo(Duration.ofMinutes(10));
+    }
+
+    @Test
+    void reportsHitsAndMissesPerRegion() {
+        cardSetRepository.findById(cardSet.getId());
+        cardSetRepository.findById(cardSet.getId());
+
+        FunctionCounter hits = meterRegistry.find("hibernate.second.level.cache.requests")
+                .tags("region", "card-set", "result", "hit")
+                .functionCounter();
+        assertThat(hits).isNotNull();
+        assertThat(hits.count()).isPositive();
+    }
+
+    private User createUser() {
+        String username = "cached-" + UUID.randomUUID();
+        return userRepository.save(User.builder()
+                .username(username)
+                .fullName("Cached")
+                .email(username + "@example.com")
+                .password("x")
+                .build());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Duration timeToLive(String region) {
+        CacheRuntimeConfiguration<Object, Object> configuration = (CacheRuntimeConfiguration<Object, Object>)
+                hibernateCacheManager.getCache(region)
+                        .getConfiguration(Eh107Configuration.class)
+                        .unwrap(CacheRuntimeConfiguration.class);
+        return configuration.getExpiryPolicy().getExpiryForCreation("key", "value");
+    }
+
+    private int approvedUserCount() {
+        Integer count = transactionTemplate.execute(status ->
+                cardSetRepository.findById(cardSet.getId()).orElseThrow().getApprovedUsers().size());
+        return count;
+    }
+
+    private int cardCount() {
+        Integer count = transactionTemplate.execute(status ->
+                cardSetRepository.findById(cardSet.getId()).orElseThrow().getCards().size());
+        return count;
+    }
+}
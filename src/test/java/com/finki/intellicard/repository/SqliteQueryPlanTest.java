@@ -0,0 +1,143 @@
+package com.finki.intellicard.repository;
+
+import com.finki.intellicard.model.User;
+import com.finki.intellicard.model.enums.AccessRequestStatus;
+import com.finki.intellicard.service.DailyQueueService;
+import com.finki.intellicard.support.QueryBudget;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Migrates a scratch SQLite database with the desktop migrations, captures the SQL that
+ * Hibernate generates for the hot repository queries and checks with EXPLAIN QUERY PLAN
+ * that SQLite searches the intended index instead of scanning the table.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(QueryBudget.class)
+class SqliteQueryPlanTest {
+
+    @Autowired
+    private QueryBudget queryBudget;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserCardProgressRepository userCardProgressRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private AccessRequestRepository accessRequestRepository;
+
+    @Autowired
+    private CardSetRepository cardSetRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DailyQueueService dailyQueueService;
+
+    @DynamicPropertySource
+    static void sqlite(DynamicPropertyRegistry registry) throws IOException {
+        Path database = Files.createTempFile("intellicard-plan", ".db");
+        database.toFile().deleteOnExit();
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + database);
+        registry.add("spring.datasource.driver-class-name", () -> "org.sqlite.JDBC");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.community.dialect.SQLiteDialect");
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("spring.flyway.locations", () -> "classpath:db/migration/sqlite");
+    }
+
+    @Test
+    void dueCardsSearchProgressByUserAndReviewDate() throws Throwable {
+        assertUsesIndex("idx_user_card_progress_user_next_review",
+                () -> userCardProgressRepository.findDueCardsForUser(1L, 1L, LocalDateTime.now()));
+        assertUsesIndex("idx_user_card_progress_user_next_review",
+                () -> userCardProgressRepository.countDueCardsForUser(1L, 1L, LocalDateTime.now()));
+    }
+
+    @Test
+    void cardsOfASetSearchBySetId() throws Throwable {
+        assertUsesIndex("idx_card_set_id", () -> cardRepository.findByCardSetId(1L));
+        assertUsesIndex("idx_card_set_id", () -> cardRepository.countByCardSetId(1L));
+    }
+
+    @Test
+    void pendingRequestsSearchBySetAndStatus() throws Throwable {
+        assertUsesIndex("idx_access_request_set_status",
+                () -> accessRequestRepository.findByCardSetIdAndStatus(1L, AccessRequestStatus.PENDING));
+    }
+
+    @Test
+    void requesterLookupsSearchByRequesterAndSet() throws Throwable {
+        assertUsesIndex("idx_access_request_requester_set",
+                () -> accessRequestRepository.findByCardSetIdAndRequesterId(1L, 1L));
+        assertUsesIndex("idx_access_request_requester_set",
+                () -> accessRequestRepository.findByRequesterId(1L));
+        assertUsesIndex("idx_access_request_requester_set",
+                () -> cardSetRepository.findAllPublicAndAccessibleCardsets(1L));
+    }
+
+    @Test
+    void approvedUserCheckSearchesAccessibleSetsByPrimaryKey() throws Throwable {
+        assertUsesIndex("sqlite_autoindex_accessible_sets_1", () -> cardSetRepository.isApprovedUser(1L, 1L));
+    }
+
+    @Test
+    void accessibleSetsOfAUserSearchByUserId() throws Throwable {
+        jdbcTemplate.update("INSERT INTO users (username, email, password) VALUES ('plan', 'plan@example.com', 'x')");
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'plan'", Long.class);
+
+        assertUsesIndex("idx_accessible_sets_user_set", () -> transactionTemplate.executeWithoutResult(status ->
+                userRepository.findById(userId).map(User::getAccessibleSets).ifPresent(Set::size)));
+    }
+
+    @Test
+    @WithMockUser("plan")
+    void dailyQueueSearchesDueCardsByUserAndReviewDate() throws Throwable {
+        assertUsesIndex("idx_user_card_progress_user_next_review", () -> dailyQueueService.getDailyQueue(null, null, null));
+        assertUsesIndex("idx_card_set_id", () -> dailyQueueService.getDailyQueue(null, null, null));
+    }
+
+    /**
+     * Explains the last statement the action executed, which is the one under test when the
+     * action first has to load an owning entity.
+     */
+    private void assertUsesIndex(String index, Executable action) throws Throwable {
+        List<String> statements = queryBudget.record(action);
+        String sql = statements.get(statements.size() - 1);
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN QUERY PLAN " + sql)
+                .stream()
+                .map(row -> String.valueOf(row.get("detail")))
+                .toList();
+        assertThat(plan)
+                .as("plan for %s", sql)
+                .anyMatch(step -> step.contains("USING INDEX " + index) || step.contains("USING COVERING INDEX " + index));
+    }
+}
@@ -0,0 +1,128 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.exceptions.AiProviderUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AiCallExecutorTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofMillis(200);
+
+    @Test
+    void retriesServerErrorsUntilTheCallSucceeds() {
+        AiCallExecutor executor = executor(4, Duration.ofSeconds(10), Duration.ZERO, 10);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = executor.execute(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            return "ok";
+        });
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(calls).hasValue(3);
+        assertThat(executor.getState()).isEqualTo(AiCallExecutor.CircuitState.CLOSED);
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        AiCallExecutor executor = executor(4, Duration.ofSeconds(10), Duration.ZERO, 10);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute(failing(calls, new HttpClientErrorException(HttpStatus.BAD_REQUEST))))
+                .isInstanceOf(HttpClientErrorException.class);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void givesUpWhenTheNextAttemptCouldNotFinishBeforeTheDeadline() {
+        AiCallExecutor executor = executor(4, Duration.ofSeconds(2), Duration.ofSeconds(5), 10);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute(failing(calls, new ResourceAccessException("read timed out"))))
+                .isInstanceOf(AiProviderUnavailableException.class)
+                .hasMessageContaining("after 1 attempt(s)");
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void honorsRetryAfterAndGivesUpWhenItExceedsTheDeadline() {
+        AiCallExecutor executor = executor(4, Duration.ofSeconds(2), Duration.ZERO, 10);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "30");
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute(failing(calls,
+                HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "slow down", headers, null, null))))
+                .isInstanceOfSatisfying(AiProviderUnavailableException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(30));
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void opensAfterConsecutiveFailuresAndClosesAfterASuccessfulTrial() throws InterruptedException {
+        AiCallExecutor executor = executor(1, Duration.ofSeconds(10), Duration.ZERO, 2);
+        AtomicInteger calls = new AtomicInteger();
+        Supplier<String> failing = failing(calls, new ResourceAccessException("connection refused"));
+
+        assertThatThrownBy(() -> executor.execute(failing)).isInstanceOf(AiProviderUnavailableException.class);
+        assertThatThrownBy(() -> executor.execute(failing)).isInstanceOf(AiProviderUnavailableException.class);
+        assertThat(executor.getState()).isEqualTo(AiCallExecutor.CircuitState.OPEN);
+        assertThat(executor.health().getStatus()).isEqualTo(Status.DOWN);
+
+        assertThatThrownBy(() -> executor.execute(failing))
+                .isInstanceOf(AiProviderUnavailableException.class)
+                .hasMessageContaining("circuit is open");
+        assertThat(calls).hasValue(2);
+
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+        assertThat(executor.getState()).isEqualTo(AiCallExecutor.CircuitState.HALF_OPEN);
+        assertThat(executor.execute(() -> "ok")).isEqualTo("ok");
+        assertThat(executor.getState()).isEqualTo(AiCallExecutor.CircuitState.CLOSED);
+        assertThat(executor.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void clientErrorOnTheTrialCallLeavesTheCircuitHalfOpen() throws InterruptedException {
+        AiCallExecutor executor = executor(1, Duration.ofSeconds(10), Duration.ZERO, 1);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute(failing(calls, new ResourceAccessException("connection refused"))))
+                .isInstanceOf(AiProviderUnavailableException.class);
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+
+        assertThatThrownBy(() -> executor.execute(failing(calls, new HttpClientErrorException(HttpStatus.BAD_REQUEST))))
+                .isInstanceOf(HttpClientErrorException.class);
+        assertThat(executor.getState()).isEqualTo(AiCallExecutor.CircuitState.HALF_OPEN);
+
+        assertThat(executor.execute(() -> "ok")).isEqualTo("ok");
+        assertThat(executor.getState()).isEqualTo(AiCallExecutor.CircuitState.CLOSED);
+    }
+
+    private static AiCallExecutor executor(int maxAttempts, Duration totalDeadline, Duration readTimeout,
+                                           int failureThreshold) {
+        return new AiCallExecutor(new SimpleMeterRegistry(), maxAttempts, Duration.ofMillis(1), Duration.ofMillis(5),
+                totalDeadline, Duration.ZERO, readTimeout, failureThreshold, OPEN_DURATION);
+    }
+
+    private static Supplier<String> failing(AtomicInteger calls, RuntimeException failure) {
+        return () -> {
+            calls.incrementAndGet();
+            throw failure;
+        };
+    }
+}
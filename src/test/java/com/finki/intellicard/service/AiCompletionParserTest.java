@@ -0,0 +1,114 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.record.AiCompletion;
+import com.finki.intellicard.record.GeneratedCardDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AiCompletionParserTest {
+
+    private final AiCompletionParser parser = new AiCompletionParser();
+
+    @Test
+    void readsContentAndUsageFromTheFirstChoice() throws IOException {
+        AiCompletion completion = parser.readCompletion(body("""
+                {"id": "chatcmpl-1", "model": "gpt-3.5-turbo",
+                 "choices": [
+                   {"index": 0, "message": {"role": "assistant", "content": "first"}, "finish_reason": "stop"},
+                   {"index": 1, "message": {"role": "assistant", "content": "second"}}
+                 ],
+                 "usage": {"prompt_tokens": 120, "completion_tokens": 40, "total_tokens": 160}}
+                """));
+
+        assertThat(completion).isEqualTo(new AiCompletion("gpt-3.5-turbo", "first", 120, 40));
+    }
+
+    @Test
+    void fallsBackToTextAndGeneratedTextEnvelopes() throws IOException {
+        assertThat(parser.readCompletion(body("{\"choices\": [{\"text\": \"legacy\"}]}")).content())
+                .isEqualTo("legacy");
+        assertThat(parser.readCompletion(body("{\"generated_text\": \"hosted\", \"model\": \"m\"}")).content())
+                .isEqualTo("hosted");
+    }
+
+    @Test
+    void truncatedEnvelopeIsAParseError() {
+        assertThatThrownBy(() -> parser.readCompletion(body(
+                "{\"model\": \"gpt-3.5-turbo\", \"choices\": [{\"message\": {\"content\": \"[{\\\"term\\\"")))
+                .isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> parser.readCompletion(body("[\"not an object\"]")))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void readsCardsWrappedInProseAndMarkdown() throws IOException {
+        List<GeneratedCardDto> cards = parser.readCards("""
+                Sure! Here are your flashcards:
+                ```json
+                [
+                  {"term": "Osmosis", "definition": "Diffusion of water across a membrane"},
+                  {"term": "Mitosis", "definition": "Division of a cell into two identical cells"}
+                ]
+                ```
+                Let me know if you need more [or fewer] cards.
+                """);
+
+        assertThat(cards).containsExactly(
+                new GeneratedCardDto("Osmosis", "Diffusion of water across a membrane"),
+                new GeneratedCardDto("Mitosis", "Division of a cell into two identical cells"));
+    }
+
+    @Test
+    void acceptsTrailingCommas() throws IOException {
+        List<GeneratedCardDto> cards = parser.readCards(
+                "[{\"term\": \"Osmosis\", \"definition\": \"Diffusion of water across a membrane\",},]");
+
+        assertThat(cards).containsExactly(new GeneratedCardDto("Osmosis", "Diffusion of water across a membrane"));
+    }
+
+    @Test
+    void acceptsFieldAliasesInOrderOfPreference() throws IOException {
+        List<GeneratedCardDto> cards = parser.readCards("""
+                [
+                  {"question": "What is ATP?", "answer": "The energy currency of the cell"},
+                  {"text": "Ribosome", "explanation": "Builds proteins from amino acids"},
+                  {"question": "Ignored", "term": "Chlorophyll", "explanation": "Ignored too",
+                   "definition": "Pigment that absorbs light", "tags": ["biology"]}
+                ]
+                """);
+
+        assertThat(cards).containsExactly(
+                new GeneratedCardDto("What is ATP?", "The energy currency of the cell"),
+                new GeneratedCardDto("Ribosome", "Builds proteins from amino acids"),
+                new GeneratedCardDto("Chlorophyll", "Pigment that absorbs light"));
+    }
+
+    @Test
+    void readsASingleCardObject() throws IOException {
+        assertThat(parser.readCards("Here you go: {\"term\": \"Enzyme\", \"definition\": \"A biological catalyst\"}"))
+                .containsExactly(new GeneratedCardDto("Enzyme", "A biological catalyst"));
+    }
+
+    @Test
+    void dropsIncompleteCardsAndIgnoresTruncatedContent() throws IOException {
+        assertThat(parser.readCards("""
+                [{"term": "", "definition": "Definition without a term"},
+                 {"term": "Short", "definition": "Too short"},
+                 {"term": "Osmosis"}]
+                """)).isEmpty();
+        assertThat(parser.readCards("Sure! Here are your cards: [{\"term\": \"Unclosed")).isEmpty();
+        assertThat(parser.readCards("I cannot help with that.")).isEmpty();
+        assertThat(parser.readCards(null)).isEmpty();
+    }
+
+    private static ByteArrayInputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
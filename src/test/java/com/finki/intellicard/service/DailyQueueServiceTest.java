@@ -0,0 +1,131 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.model.Card;
+import com.finki.intellicard.model.CardSet;
+import com.finki.intellicard.model.User;
+import com.finki.intellicard.model.UserCardProgress;
+import com.finki.intellicard.model.UserPrincipal;
+import com.finki.intellicard.model.enums.CardStatus;
+import com.finki.intellicard.record.DailyQueueCardRecord;
+import com.finki.intellicard.repository.CardRepository;
+import com.finki.intellicard.repository.CardSetRepository;
+import com.finki.intellicard.repository.UserCardProgressRepository;
+import com.finki.intellicard.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DailyQueueServiceTest {
+
+    @Autowired
+    private DailyQueueService dailyQueueService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardSetRepository cardSetRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserCardProgressRepository userCardProgressRepository;
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void isOrderedByOverdueAndCappedPerSet() {
+        User learner = createUser();
+        List<Card> firstCards = createCards(createCardSet(learner), 6);
+        addProgress(learner, firstCards.get(0), LocalDateTime.now().minusDays(3), CardStatus.REVIEW);
+        addProgress(learner, firstCards.get(1), LocalDateTime.now().minusHours(2), CardStatus.REVIEW);
+        addProgress(learner, firstCards.get(2), LocalDateTime.now().plusDays(2), CardStatus.REVIEW);
+        List<Card> secondCards = createCards(createCardSet(learner), 4);
+        addProgress(learner, secondCards.get(0), LocalDateTime.now().minusDays(1), CardStatus.LEARNING);
+
+        signIn(learner);
+        assertThat(dailyQueueService.getDailyQueue(null, 3, 2)).extracting(DailyQueueCardRecord::cardId).containsExactly(
+                firstCards.get(0).getId(),
+                secondCards.get(0).getId(),
+                firstCards.get(1).getId(),
+                secondCards.get(1).getId(),
+                firstCards.get(3).getId(),
+                secondCards.get(2).getId());
+        assertThat(dailyQueueService.getDailyQueue(2, null, null)).extracting(DailyQueueCardRecord::cardId)
+                .containsExactly(firstCards.get(0).getId(), secondCards.get(0).getId());
+    }
+
+    @Test
+    void takesTheFirstUnseenCardsOfEachSet() {
+        User learner = createUser();
+        List<Card> cards = createCards(createCardSet(learner), 6);
+        addProgress(learner, cards.get(0), LocalDateTime.now().plusDays(2), CardStatus.REVIEW);
+        addProgress(learner, cards.get(2), LocalDateTime.now().plusDays(2), CardStatus.REVIEW);
+
+        signIn(learner);
+        assertThat(dailyQueueService.getDailyQueue(null, null, 3)).extracting(DailyQueueCardRecord::cardId)
+                .containsExactly(cards.get(1).getId(), cards.get(3).getId(), cards.get(4).getId());
+        assertThat(dailyQueueService.getDailyQueue(null, null, 0)).isEmpty();
+    }
+
+    private User createUser() {
+        String username = "learner-" + UUID.randomUUID();
+        return userRepository.save(User.builder()
+                .username(username)
+                .fullName("learner")
+                .email(username + "@example.com")
+                .password("password")
+                .build());
+    }
+
+    private CardSet createCardSet(User owner) {
+        return cardSetRepository.save(CardSet.builder()
+                .name("Set of " + owner.getFullName())
+                .creator(owner)
+                .createdAt(LocalDateTime.now())
+                .lastModified(LocalDateTime.now())
+                .build());
+    }
+
+    private List<Card> createCards(CardSet cardSet, int count) {
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            cards.add(Card.builder().term("Term " + i).definition("Definition number " + i).cardSet(cardSet).build());
+        }
+        return cardRepository.saveAll(cards);
+    }
+
+    private void addProgress(User user, Card card, LocalDateTime nextReviewDate, CardStatus status) {
+        userCardProgressRepository.save(UserCardProgress.builder()
+                .user(user)
+                .card(card)
+                .timesReviewed(1)
+                .nextReviewDate(nextReviewDate)
+                .lastReviewed(nextReviewDate.minusDays(1))
+                .status(status)
+                .build());
+    }
+
+    private static void signIn(User user) {
+        UserPrincipal principal = new UserPrincipal(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
@@ -0,0 +1,89 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.model.UserCardProgress;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Reference values worked out by hand from the FSRS-4.5 formulas with the default weights.
+ * The reviews below come ten days after a card with stability 10 and difficulty 5 was last
+ * seen, so retrievability is (1 + 19/81 * 10/10)^-0.5 = 0.9 exactly.
+ */
+class FsrsSchedulerTest {
+
+    private static final LocalDateTime LAST_REVIEWED = LocalDateTime.of(2024, 3, 1, 9, 0);
+    private static final LocalDateTime REVIEWED_AT = LAST_REVIEWED.plusDays(10);
+
+    private final FsrsScheduler scheduler = new FsrsScheduler(new double[0], 0.9, 36500);
+
+    @Test
+    void gradesTheAppsRating() {
+        assertThat(FsrsScheduler.grade(false, 1)).isEqualTo(1);
+        assertThat(FsrsScheduler.grade(false, 5)).isEqualTo(1);
+        assertThat(FsrsScheduler.grade(true, 1)).isEqualTo(4);
+        assertThat(FsrsScheduler.grade(true, 2)).isEqualTo(4);
+        assertThat(FsrsScheduler.grade(true, 3)).isEqualTo(3);
+        assertThat(FsrsScheduler.grade(true, 4)).isEqualTo(2);
+        assertThat(FsrsScheduler.grade(true, 5)).isEqualTo(2);
+    }
+
+    @Test
+    void firstReviewStartsFromTheGradesInitialState() {
+        // S0 = w[grade - 1], D0 = w4 - (grade - 3) * w5
+        assertFirstReview(false, 3, 0.4872, 7.6214, 1);
+        assertFirstReview(true, 4, 1.4003, 6.3916, 1);
+        assertFirstReview(true, 3, 3.7145, 5.1618, 4);
+        assertFirstReview(true, 1, 13.8206, 3.9320, 14);
+    }
+
+    @Test
+    void recallGrowsStabilityByHowHardTheCardWasToRecall() {
+        // S' = S * (1 + e^w8 * (11 - D) * S^-w9 * (e^((1 - R) * w10) - 1) * penalty * bonus),
+        // D' = w7 * w4 + (1 - w7) * (D - w6 * (grade - 3))
+        assertReview(true, 4, 15.699061, 5.874693, 16);
+        assertReview(true, 3, 35.083894, 5.005016, 35);
+        assertReview(true, 1, 82.128738, 4.135338, 82);
+    }
+
+    @Test
+    void forgettingStartsStabilityOverFromTheOldState() {
+        // S' = w11 * D^-w12 * ((S + 1)^w13 - 1) * e^((1 - R) * w14)
+        assertReview(false, 3, 2.560383, 6.744371, 3);
+    }
+
+    @Test
+    void intervalIsWhenRecallFallsToTheDesiredRetention() {
+        // I = S / (19/81) * (r^-2 - 1), which is S itself at r = 0.9
+        assertThat(scheduler.nextInterval(10)).isEqualTo(10);
+        assertThat(new FsrsScheduler(new double[0], 0.8, 36500).nextInterval(10)).isEqualTo(24);
+        assertThat(scheduler.nextInterval(0.2)).isEqualTo(1);
+        assertThat(new FsrsScheduler(new double[0], 0.9, 30).nextInterval(100)).isEqualTo(30);
+    }
+
+    private void assertFirstReview(boolean correct, int rating, double stability, double difficulty, int interval) {
+        UserCardProgress progress = new UserCardProgress();
+        scheduler.schedule(progress, correct, rating, REVIEWED_AT);
+        assertState(progress, stability, difficulty, interval);
+    }
+
+    private void assertReview(boolean correct, int rating, double stability, double difficulty, int interval) {
+        UserCardProgress progress = new UserCardProgress();
+        progress.setLastReviewed(LAST_REVIEWED);
+        progress.setStability(10.0);
+        progress.setDifficulty(5.0);
+        scheduler.schedule(progress, correct, rating, REVIEWED_AT);
+        assertState(progress, stability, difficulty, interval);
+    }
+
+    private void assertState(UserCardProgress progress, double stability, double difficulty, int interval) {
+        assertThat(progress.getStability()).isCloseTo(stability, within(1e-6));
+        assertThat(progress.getDifficulty()).isCloseTo(difficulty, within(1e-6));
+        assertThat(progress.getInterval()).isEqualTo(interval);
+        assertThat(progress.getNextReviewDate()).isEqualTo(REVIEWED_AT.plusDays(interval));
+        assertThat(progress.getScheduleVersion()).isEqualTo(scheduler.version());
+    }
+}
@@ -0,0 +1,119 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.exceptions.GenerationRejectedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GenerationAdmissionServiceTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void rateLimitsAUserPastTheBurstWithTheTimeUntilTheNextToken() {
+        GenerationAdmissionService service = service(4, 4, Duration.ofSeconds(1), 2, 6);
+
+        assertThat(service.execute(1L, () -> "first")).isEqualTo("first");
+        assertThat(service.execute(1L, () -> "second")).isEqualTo("second");
+
+        assertThatThrownBy(() -> service.execute(1L, () -> "third"))
+                .isInstanceOfSatisfying(GenerationRejectedException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isBetween(9L, 10L));
+        assertThat(service.execute(2L, () -> "other user")).isEqualTo("other user");
+    }
+
+    @Test
+    void refillsTokensOverTime() throws InterruptedException {
+        GenerationAdmissionService service = service(4, 4, Duration.ofSeconds(1), 1, 600);
+
+        service.execute(1L, () -> "first");
+        assertThatThrownBy(() -> service.execute(1L, () -> "too soon")).isInstanceOf(GenerationRejectedException.class);
+
+        Thread.sleep(150);
+        assertThat(service.execute(1L, () -> "refilled")).isEqualTo("refilled");
+    }
+
+    @Test
+    void rejectsWhenTheQueueIsFullAndRunsQueuedCallsOnceAPermitFrees() throws Exception {
+        GenerationAdmissionService service = service(1, 1, Duration.ofSeconds(5), 10, 600);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> holder = CompletableFuture.supplyAsync(() -> service.execute(1L, () -> {
+            running.countDown();
+            await(release);
+            return "holder";
+        }));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<String> waiter = CompletableFuture.supplyAsync(() -> service.execute(2L, () -> "waiter"));
+        awaitQueueDepth(1);
+
+        assertThatThrownBy(() -> service.execute(3L, () -> "overflow"))
+                .isInstanceOfSatisfying(GenerationRejectedException.class, e -> {
+                    assertThat(e.getMessage()).contains("queue is full");
+                    assertThat(e.getRetryAfterSeconds()).isEqualTo(10);
+                });
+
+        release.countDown();
+        assertThat(holder.get(5, TimeUnit.SECONDS)).isEqualTo("holder");
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo("waiter");
+        assertThat(queueDepth()).isZero();
+    }
+
+    @Test
+    void rejectsQueuedCallsThatWaitTooLongAndRefundsTheirToken() throws Exception {
+        GenerationAdmissionService service = service(1, 1, Duration.ofMillis(50), 1, 0.001);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> holder = CompletableFuture.supplyAsync(() -> service.execute(1L, () -> {
+            running.countDown();
+            await(release);
+            return "holder";
+        }));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> service.execute(2L, () -> "late"))
+                .isInstanceOf(GenerationRejectedException.class)
+                .hasMessageContaining("Timed out");
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        assertThat(service.execute(2L, () -> "retried")).isEqualTo("retried");
+    }
+
+    private GenerationAdmissionService service(int maxConcurrent, int maxQueued, Duration maxWait, int burst,
+                                               double perMinute) {
+        return new GenerationAdmissionService(meterRegistry, maxConcurrent, maxQueued, maxWait, burst, perMinute,
+                Duration.ofSeconds(10));
+    }
+
+    private double queueDepth() {
+        return meterRegistry.get("intellicard.generation.admission.queue.depth").gauge().value();
+    }
+
+    private void awaitQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queueDepth() != depth && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(queueDepth()).isEqualTo(depth);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
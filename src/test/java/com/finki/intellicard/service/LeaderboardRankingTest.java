@@ -0,0 +1,59 @@
+package com.finki.intellicard.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LeaderboardRankingTest {
+
+    private final LeaderboardRanking ranking = new LeaderboardRanking();
+
+    @Test
+    void tiedLearnersShareARankAndAreListedByUserId() {
+        ranking.update(3, -1, 10);
+        ranking.update(1, -1, 10);
+        ranking.update(2, -1, 20);
+        ranking.update(4, -1, 5);
+
+        assertThat(ranking.top(10)).containsExactly(2L, 1L, 3L, 4L);
+        assertThat(ranking.top(2)).containsExactly(2L, 1L);
+        assertThat(ranking.rank(20)).isEqualTo(1);
+        assertThat(ranking.rank(10)).isEqualTo(2);
+        assertThat(ranking.rank(5)).isEqualTo(4);
+        assertThat(ranking.size()).isEqualTo(4);
+    }
+
+    @Test
+    void ranksStayCorrectWhenAScoreOutgrowsTheTree() {
+        for (long userId = 1; userId <= 5; userId++) {
+            ranking.update(userId, -1, (int) userId * 10);
+        }
+
+        ranking.update(1, 10, 1_000);
+        ranking.update(2, 20, 64);
+
+        assertThat(ranking.top(3)).containsExactly(1L, 2L, 5L);
+        assertThat(ranking.rank(1_000)).isEqualTo(1);
+        assertThat(ranking.rank(64)).isEqualTo(2);
+        assertThat(ranking.rank(50)).isEqualTo(3);
+        assertThat(ranking.rank(30)).isEqualTo(5);
+        assertThat(ranking.rank(5_000)).isEqualTo(1);
+    }
+
+    @Test
+    void movingAndRemovingLearnersUpdatesTheRanks() {
+        ranking.update(1, -1, 7);
+        ranking.update(2, -1, 7);
+        ranking.update(3, -1, 3);
+
+        ranking.update(1, 7, 2);
+        ranking.update(2, 7, -1);
+        ranking.update(3, 3, 3);
+
+        assertThat(ranking.top(10)).containsExactly(3L, 1L);
+        assertThat(ranking.rank(3)).isEqualTo(1);
+        assertThat(ranking.rank(2)).isEqualTo(2);
+        assertThat(ranking.rank(7)).isEqualTo(1);
+        assertThat(ranking.size()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,223 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.exceptions.UnauthorizedAccessException;
+import com.finki.intellicard.model.Card;
+import com.finki.intellicard.model.CardSet;
+import com.finki.intellicard.model.User;
+import com.finki.intellicard.model.UserCardProgress;
+import com.finki.intellicard.model.UserPrincipal;
+import com.finki.intellicard.model.enums.CardStatus;
+import com.finki.intellicard.model.enums.LeaderboardMetric;
+import com.finki.intellicard.record.CardSetRecord;
+import com.finki.intellicard.record.LeaderboardRecord;
+import com.finki.intellicard.repository.CardRepository;
+import com.finki.intellicard.repository.CardSetRepository;
+import com.finki.intellicard.repository.UserCardProgressRepository;
+import com.finki.intellicard.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class LeaderboardServiceTest {
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private SpacedRepetitionService spacedRepetitionService;
+
+    @Autowired
+    private CardSetService cardSetService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardSetRepository cardSetRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserCardProgressRepository userCardProgressRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void followsReviewsAndIsSnapshotted() {
+        User owner = createUser("owner");
+        User leader = createUser("leader");
+        User learner = createUser("learner");
+        CardSet cardSet = createCardSet(owner, true);
+        List<Card> cards = createCards(cardSet, 2);
+        cards.forEach(card -> addProgress(leader, card, CardStatus.MASTERED));
+
+        signIn(learner);
+        LeaderboardRecord before = leaderboardService.getLeaderboard(cardSet.getId(), null, null);
+        assertThat(before.metric()).isEqualTo(LeaderboardMetric.MASTERED);
+        assertThat(before.learners()).isEqualTo(1);
+        assertThat(before.top().get(0).username()).isEqualTo(leader.getUsername());
+        assertThat(before.you()).isNull();
+
+        spacedRepetitionService.reviewCard(cards.get(0).getId(), true, 3);
+        spacedRepetitionService.reviewCard(cards.get(1).getId(), false, 3);
+
+        LeaderboardRecord after = leaderboardService.getLeaderboard(cardSet.getId(), null, null);
+        assertThat(after.learners()).isEqualTo(2);
+        assertThat(after.top().get(1).username()).isEqualTo(learner.getUsername());
+        assertThat(after.you().rank()).isEqualTo(2);
+        assertThat(after.you().reviews()).isEqualTo(2);
+        assertThat(after.you().accuracy()).isEqualTo(0.5);
+        assertThat(after.you().streak()).isEqualTo(1);
+        // Too few reviews to be ranked by accuracy
+        LeaderboardRecord byAccuracy = leaderboardService.getLeaderboard(cardSet.getId(), LeaderboardMetric.ACCURACY, null);
+        assertThat(byAccuracy.learners()).isZero();
+        assertThat(byAccuracy.you().rank()).isNull();
+
+        leaderboardService.persist();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT streak FROM leaderboard_entry WHERE card_set_id = ? AND user_id = ?",
+                Integer.class, cardSet.getId(), learner.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void isOnlyKeptForPublicSets() {
+        User owner = createUser("owner");
+        CardSet cardSet = createCardSet(owner, false);
+
+        signIn(owner);
+        assertThatThrownBy(() -> leaderboardService.getLeaderboard(cardSet.getId(), null, null))
+                .isInstanceOf(UnauthorizedAccessException.class);
+    }
+
+    @Test
+    void aReviewThatCommitsAfterTheBoardLoadedIsCounted() {
+        User owner = createUser("owner");
+        User learner = createUser("learner");
+        CardSet cardSet = createCardSet(owner, true);
+        Card card = createCards(cardSet, 1).get(0);
+
+        // Prepared before the set had a board, committed after the first read loaded one
+        LeaderboardService.PendingReview review = leaderboardService.prepare(cardSet.getId(), learner.getId(),
+                learner.getUsername(), null, CardStatus.MASTERED, true, LocalDate.now());
+        signIn(learner);
+        assertThat(leaderboardService.getLeaderboard(cardSet.getId(), null, null).learners()).isZero();
+        addProgress(learner, card, CardStatus.MASTERED);
+        leaderboardService.apply(review);
+
+        LeaderboardRecord board = leaderboardService.getLeaderboard(cardSet.getId(), null, null);
+        assertThat(board.learners()).isEqualTo(1);
+        assertThat(board.you().mastered()).isEqualTo(1);
+        assertThat(board.you().reviews()).isEqualTo(1);
+        assertThat(board.you().streak()).isEqualTo(1);
+    }
+
+    @Test
+    void aReviewTheBoardLoadAlreadyReadIsNotCountedTwice() {
+        User owner = createUser("owner");
+        User learner = createUser("learner");
+        CardSet cardSet = createCardSet(owner, true);
+        Card card = createCards(cardSet, 1).get(0);
+
+        LeaderboardService.PendingReview review = leaderboardService.prepare(cardSet.getId(), learner.getId(),
+                learner.getUsername(), null, CardStatus.MASTERED, true, LocalDate.now());
+        addProgress(learner, card, CardStatus.MASTERED);
+        signIn(learner);
+        assertThat(leaderboardService.getLeaderboard(cardSet.getId(), null, null).you().reviews()).isEqualTo(1);
+        leaderboardService.apply(review);
+
+        LeaderboardRecord board = leaderboardService.getLeaderboard(cardSet.getId(), null, null);
+        assertThat(board.you().mastered()).isEqualTo(1);
+        assertThat(board.you().reviews()).isEqualTo(1);
+        assertThat(board.you().streak()).isEqualTo(1);
+    }
+
+    @Test
+    void aSetThatTurnsPrivateLosesItsBoard() {
+        User owner = createUser("owner");
+        User learner = createUser("learner");
+        CardSet cardSet = createCardSet(owner, true);
+        Card card = createCards(cardSet, 1).get(0);
+
+        signIn(owner);
+        assertThat(leaderboardService.getLeaderboard(cardSet.getId(), null, null).learners()).isZero();
+        cardSetService.updateCardSet(cardSet.getId(), record(cardSet, false));
+        // Progress the old board never saw; it is read when the set is public again
+        addProgress(learner, card, CardStatus.MASTERED);
+        cardSetService.updateCardSet(cardSet.getId(), record(cardSet, true));
+
+        assertThat(leaderboardService.getLeaderboard(cardSet.getId(), null, null).learners()).isEqualTo(1);
+    }
+
+    private static CardSetRecord record(CardSet cardSet, boolean isPublic) {
+        return new CardSetRecord(cardSet.getId(), cardSet.getName(), isPublic, null, null, null, null);
+    }
+
+    private User createUser(String prefix) {
+        String username = prefix + "-" + UUID.randomUUID();
+        return userRepository.save(User.builder()
+                .username(username)
+                .fullName(prefix)
+                .email(username + "@example.com")
+                .password("password")
+                .build());
+    }
+
+    private CardSet createCardSet(User owner, boolean isPublic) {
+        return cardSetRepository.save(CardSet.builder()
+                .name("Set of " + owner.getFullName())
+                .isPublic(isPublic)
+                .creator(owner)
+                .createdAt(LocalDateTime.now())
+                .lastModified(LocalDateTime.now())
+                .build());
+    }
+
+    private List<Card> createCards(CardSet cardSet, int count) {
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            cards.add(Card.builder().term("Term " + i).definition("Definition number " + i).cardSet(cardSet).build());
+        }
+        return cardRepository.saveAll(cards);
+    }
+
+    private void addProgress(User user, Card card, CardStatus status) {
+        userCardProgressRepository.save(UserCardProgress.builder()
+                .user(user)
+                .card(card)
+                .timesReviewed(1)
+                .timesCorrect(1)
+                .lastReviewed(LocalDateTime.now())
+                .nextReviewDate(LocalDateTime.now().plusDays(1))
+                .status(status)
+                .build());
+    }
+
+    private static void signIn(User user) {
+        UserPrincipal principal = new UserPrincipal(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
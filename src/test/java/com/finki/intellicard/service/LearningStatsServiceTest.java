@@ -0,0 +1,134 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.model.ReviewEvent;
+import com.finki.intellicard.model.User;
+import com.finki.intellicard.model.UserDailyStats;
+import com.finki.intellicard.model.UserPrincipal;
+import com.finki.intellicard.record.LearningStatsRecord;
+import com.finki.intellicard.repository.ReviewEventRepository;
+import com.finki.intellicard.repository.UserDailyStatsRepository;
+import com.finki.intellicard.repository.UserRepository;
+import com.finki.intellicard.support.ReviewEvents;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class LearningStatsServiceTest {
+
+    @Autowired
+    private LearningStatsService learningStatsService;
+
+    @Autowired
+    private ReviewEventLog reviewEventLog;
+
+    @Autowired
+    private ReviewEventRepository reviewEventRepository;
+
+    @Autowired
+    private UserDailyStatsRepository userDailyStatsRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void statsAreRolledUpAsReviewsArrive() throws InterruptedException {
+        User learner = createUser();
+        LocalDate today = LocalDate.now();
+        userDailyStatsRepository.saveAll(List.of(
+                new UserDailyStats(learner.getId(), today.minusDays(1), 4, 3, 4, 0, 0, 2),
+                new UserDailyStats(learner.getId(), today.minusDays(2), 2, 2, 0, 2, 2, 1),
+                new UserDailyStats(learner.getId(), today.minusDays(10), 1, 1, 1, 0, 0, 4),
+                new UserDailyStats(learner.getId(), today.minusDays(11), 1, 1, 1, 0, 0, 3),
+                new UserDailyStats(learner.getId(), today.minusDays(12), 1, 1, 1, 0, 0, 2),
+                new UserDailyStats(learner.getId(), today.minusDays(13), 1, 1, 1, 0, 0, 1)));
+
+        // Two cards seen for the first time and one seen again
+        LocalDateTime now = LocalDateTime.now();
+        reviewEventLog.append(List.of(
+                review(learner, 1L, now.minusMinutes(2), true, null),
+                review(learner, 1L, now.minusMinutes(1), false, 60),
+                review(learner, 2L, now, true, null)));
+        ReviewEvents.await(reviewEventRepository, learner.getId(), 3);
+
+        assertThat(userDailyStatsRepository.findFrom(learner.getId(), today)).singleElement()
+                .isEqualTo(new UserDailyStats(learner.getId(), today, 3, 2, 2, 1, 0, 3));
+
+        signIn(learner);
+        LearningStatsRecord stats = learningStatsService.getStats(7);
+        assertThat(stats.days()).hasSize(7);
+        assertThat(stats.days().get(6).date()).isEqualTo(today);
+        assertThat(stats.days().get(6).reviews()).isEqualTo(3);
+        assertThat(stats.days().get(6).newCards()).isEqualTo(2);
+        assertThat(stats.days().get(0).reviews()).isZero();
+        assertThat(stats.reviews()).isEqualTo(9);
+        assertThat(stats.correct()).isEqualTo(7);
+        assertThat(stats.newCards()).isEqualTo(6);
+        assertThat(stats.retention()).isEqualTo(2.0 / 3);
+        assertThat(stats.currentStreak()).isEqualTo(3);
+        assertThat(stats.longestStreak()).isEqualTo(4);
+    }
+
+    @Test
+    void aDayRecordedLateJoinsTheStreaksAroundIt() {
+        User learner = createUser();
+        LocalDate today = LocalDate.now();
+        userDailyStatsRepository.saveAll(List.of(
+                new UserDailyStats(learner.getId(), today.minusDays(3), 1, 1, 1, 0, 0, 1),
+                new UserDailyStats(learner.getId(), today.minusDays(1), 1, 1, 1, 0, 0, 1),
+                new UserDailyStats(learner.getId(), today, 1, 1, 1, 0, 0, 2)));
+
+        transactionTemplate.executeWithoutResult(status -> learningStatsService.rollUp(List.of(
+                review(learner, 1L, today.minusDays(2).atTime(20, 0), true, null))));
+
+        assertThat(userDailyStatsRepository.findFrom(learner.getId(), today.minusDays(3)))
+                .extracting(UserDailyStats::getStreak).containsExactly(1, 2, 3, 4);
+        signIn(learner);
+        LearningStatsRecord stats = learningStatsService.getStats(1);
+        assertThat(stats.currentStreak()).isEqualTo(4);
+        assertThat(stats.longestStreak()).isEqualTo(4);
+    }
+
+    private static ReviewEvent review(User learner, Long cardId, LocalDateTime reviewedAt, boolean correct,
+                                      Integer elapsedSeconds) {
+        return ReviewEvent.builder().userId(learner.getId()).cardId(cardId).reviewedAt(reviewedAt)
+                .correct(correct).difficulty((short) 3).elapsedSeconds(elapsedSeconds).build();
+    }
+
+    private User createUser() {
+        String username = "learner-" + UUID.randomUUID();
+        return userRepository.save(User.builder()
+                .username(username)
+                .fullName("learner")
+                .email(username + "@example.com")
+                .password("password")
+                .build());
+    }
+
+    private static void signIn(User user) {
+        UserPrincipal principal = new UserPrincipal(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
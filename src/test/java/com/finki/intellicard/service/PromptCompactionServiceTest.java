@@ -0,0 +1,68 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.record.CompactedDocument;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PromptCompactionServiceTest {
+
+    private final PromptCompactionService service = new PromptCompactionService(new SimpleMeterRegistry(), 0.5);
+
+    @Test
+    void dropsRepeatedHeadersPageNumbersAndBoilerplateAtPageEdges() {
+        String text = String.join(PromptCompactionService.PAGE_SEPARATOR,
+                page("Biology 101 - Lecture notes", "Cells are the unit of life.", "Page 1 of 3"),
+                page("Biology 101 - Lecture notes", "Mitochondria make energy.", "Page 2 of 3"),
+                page("Biology 101 - Lecture notes", "Ribosomes build proteins.", "Confidential - do not share"));
+
+        CompactedDocument document = service.compact(text);
+
+        assertThat(document.content()).isEqualTo(
+                "Cells are the unit of life.\nMitochondria make energy.\nRibosomes build proteins.");
+        assertThat(document.compactedTokens()).isLessThan(document.originalTokens());
+    }
+
+    @Test
+    void keepsBodyLinesThatLookLikeBoilerplate() {
+        List<String> body = List.of(
+                "Steps of the legislative process:",
+                "Draft legislation requires a sponsor.",
+                "Confidential sources are protected by law.",
+                "Printed on recycled paper, the bill is filed.",
+                "42",
+                "7",
+                "7",
+                "The committee then votes.");
+        String text = String.join(PromptCompactionService.PAGE_SEPARATOR,
+                page("Civics", "Chapter 3", "Section 1", String.join("\n", body), "Summary follows", "End", "Page 4"),
+                page("Civics", "Chapter 4", "Page 5"));
+
+        String compacted = service.compact(text).content();
+
+        assertThat(compacted.lines().toList()).containsSubsequence(body);
+        assertThat(compacted).doesNotContain("Page 4");
+    }
+
+    @Test
+    void keepsEveryLineOfTextWithoutPageBreaks() {
+        String text = page("1945", "The war in Europe ended in May.", "Victory", "Victory");
+
+        assertThat(service.compact(text).content()).isEqualTo(text);
+    }
+
+    @Test
+    void joinsHyphenatedWordsAndCollapsesWhitespace() {
+        String text = page("Header line", "Photo-", "synthesis   turns\tlight into sugar.", "More body text here.",
+                "And a bit more.", "Last line one", "Last line two", "Last line three");
+
+        assertThat(service.compact(text).content()).contains("Photosynthesis turns light into sugar.");
+    }
+
+    private static String page(String... lines) {
+        return String.join("\n", lines);
+    }
+}
@@ -0,0 +1,74 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.record.QueryShapeRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QueryShapeStatisticsTest {
+
+    @Test
+    void normalizesLiteralsInListsAndWhitespace() {
+        assertThat(QueryShapeStatistics.normalize(
+                "select *\n  from card where set_id = 42 and term = 'it''s' and id in (?, ?, ?) and ease > -1.5"))
+                .isEqualTo("select * from card where set_id = ? and term = ? and id in (...) and ease > ?");
+        // Digits inside identifiers are not literals
+        assertThat(QueryShapeStatistics.normalize("select c1_0.id from card c1_0 where c1_0.id = ?"))
+                .isEqualTo("select c1_0.id from card c1_0 where c1_0.id = ?");
+    }
+
+    @Test
+    void ordersShapesByTotalMeanOrMax() {
+        QueryShapeStatistics statistics = new QueryShapeStatistics(Duration.ofMinutes(15), 100);
+        statistics.record("frequent", 10);
+        statistics.record("frequent", 10);
+        statistics.record("frequent", 10);
+        statistics.record("spiky", 2);
+        statistics.record("spiky", 25);
+        statistics.record("slow", 20);
+
+        assertThat(statistics.slowest(10, "total")).extracting(QueryShapeRecord::sql)
+                .containsExactly("frequent", "spiky", "slow");
+        assertThat(statistics.slowest(10, "mean")).extracting(QueryShapeRecord::sql)
+                .containsExactly("slow", "spiky", "frequent");
+        assertThat(statistics.slowest(1, "max")).singleElement().satisfies(shape -> {
+            assertThat(shape.sql()).isEqualTo("spiky");
+            assertThat(shape.executions()).isEqualTo(2);
+            assertThat(shape.totalMillis()).isEqualTo(27);
+            assertThat(shape.meanMillis()).isEqualTo(13.5);
+            assertThat(shape.maxMillis()).isEqualTo(25);
+        });
+        assertThatThrownBy(() -> statistics.slowest(10, "median")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void stopsTrackingNewShapesAtTheCapButKeepsCountingKnownOnes() {
+        QueryShapeStatistics statistics = new QueryShapeStatistics(Duration.ofMinutes(15), 2);
+        statistics.record("a", 1);
+        statistics.record("b", 1);
+        statistics.record("c", 100);
+        statistics.record("a", 5);
+
+        List<QueryShapeRecord> shapes = statistics.slowest(10, "total");
+        assertThat(shapes).extracting(QueryShapeRecord::sql).containsExactly("a", "b");
+        assertThat(shapes.get(0).executions()).isEqualTo(2);
+    }
+
+    @Test
+    void forgetsShapesOlderThanTwoWindows() throws InterruptedException {
+        QueryShapeStatistics statistics = new QueryShapeStatistics(Duration.ofMillis(500), 100);
+        statistics.record("old", 1);
+        Thread.sleep(600);
+        statistics.record("recent", 1);
+
+        assertThat(statistics.slowest(10, "total")).extracting(QueryShapeRecord::sql)
+                .containsExactlyInAnyOrder("old", "recent");
+
+        Thread.sleep(1100);
+        assertThat(statistics.slowest(10, "total")).isEmpty();
+    }
+}
@@ -0,0 +1,115 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.model.Card;
+import com.finki.intellicard.model.CardSet;
+import com.finki.intellicard.model.ReviewEvent;
+import com.finki.intellicard.model.User;
+import com.finki.intellicard.model.UserPrincipal;
+import com.finki.intellicard.repository.CardRepository;
+import com.finki.intellicard.repository.CardSetRepository;
+import com.finki.intellicard.repository.ReviewEventRepository;
+import com.finki.intellicard.repository.UserRepository;
+import com.finki.intellicard.support.ReviewEvents;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReviewEventLogTest {
+
+    @Autowired
+    private ReviewEventLog reviewEventLog;
+
+    @Autowired
+    private SpacedRepetitionService spacedRepetitionService;
+
+    @Autowired
+    private ReviewEventRepository reviewEventRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardSetRepository cardSetRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void reviewsAreLoggedWithTheTimeSinceTheCardWasLastSeen() throws InterruptedException {
+        User owner = createUser("owner");
+        User learner = createUser("learner");
+        CardSet cardSet = cardSetRepository.save(CardSet.builder()
+                .name("Logged")
+                .isPublic(true)
+                .creator(owner)
+                .createdAt(LocalDateTime.now())
+                .lastModified(LocalDateTime.now())
+                .build());
+        Card card = cardRepository.save(Card.builder().term("Term").definition("Definition").cardSet(cardSet).build());
+
+        signIn(learner);
+        spacedRepetitionService.reviewCard(card.getId(), true, 2);
+        spacedRepetitionService.reviewCard(card.getId(), false, 2);
+
+        List<ReviewEvent> events = ReviewEvents.await(reviewEventRepository, learner.getId(), 2);
+        assertThat(events).extracting(ReviewEvent::isCorrect).containsExactly(true, false);
+        assertThat(events).allSatisfy(event -> {
+            assertThat(event.getCardId()).isEqualTo(card.getId());
+            assertThat(event.getDifficulty()).isEqualTo((short) 2);
+        });
+        assertThat(events.get(0).getElapsedSeconds()).isNull();
+        assertThat(events.get(1).getElapsedSeconds()).isNotNull().isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    void aReviewTheLogRejectsDoesNotDropTheRestOfItsBatch() throws InterruptedException {
+        User learner = createUser("learner");
+        double droppedBefore = meterRegistry.counter("intellicard.review.log.dropped").count();
+
+        reviewEventLog.append(List.of(
+                ReviewEvent.builder().cardId(1L).reviewedAt(LocalDateTime.now()).correct(true).difficulty((short) 3).build(),
+                ReviewEvent.builder().userId(learner.getId()).cardId(2L).reviewedAt(LocalDateTime.now())
+                        .correct(true).difficulty((short) 3).build()));
+
+        assertThat(ReviewEvents.await(reviewEventRepository, learner.getId(), 1))
+                .extracting(ReviewEvent::getCardId).containsExactly(2L);
+        assertThat(meterRegistry.counter("intellicard.review.log.dropped").count()).isEqualTo(droppedBefore + 1);
+    }
+
+    private User createUser(String prefix) {
+        String username = prefix + "-" + UUID.randomUUID();
+        return userRepository.save(User.builder()
+                .username(username)
+                .fullName(prefix)
+                .email(username + "@example.com")
+                .password("password")
+                .build());
+    }
+
+    private static void signIn(User user) {
+        UserPrincipal principal = new UserPrincipal(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
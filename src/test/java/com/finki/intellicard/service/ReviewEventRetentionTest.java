@@ -0,0 +1,39 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.model.ReviewEvent;
+import com.finki.intellicard.repository.ReviewEventRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReviewEventRetentionTest {
+
+    @Autowired
+    private ReviewEventRetention reviewEventRetention;
+
+    @Autowired
+    private ReviewEventRepository reviewEventRepository;
+
+    @Test
+    void dropsReviewsOlderThanTheRetentionPeriod() {
+        long userId = System.nanoTime();
+        reviewEventRepository.saveAll(List.of(
+                ReviewEvent.builder().userId(userId).cardId(1L).reviewedAt(LocalDateTime.now().minusYears(3))
+                        .correct(true).difficulty((short) 3).build(),
+                ReviewEvent.builder().userId(userId).cardId(1L).reviewedAt(LocalDateTime.now().minusMonths(1))
+                        .correct(false).difficulty((short) 3).build()));
+
+        reviewEventRetention.maintain();
+
+        assertThat(reviewEventRepository.findByUserIdOrderByReviewedAtAscIdAsc(userId))
+                .extracting(ReviewEvent::isCorrect).containsExactly(false);
+    }
+}
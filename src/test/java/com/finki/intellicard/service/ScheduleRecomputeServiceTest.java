@@ -0,0 +1,157 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.model.Card;
+import com.finki.intellicard.model.CardSet;
+import com.finki.intellicard.model.User;
+import com.finki.intellicard.model.UserCardProgress;
+import com.finki.intellicard.model.enums.CardStatus;
+import com.finki.intellicard.repository.CardRepository;
+import com.finki.intellicard.repository.CardSetRepository;
+import com.finki.intellicard.repository.UserCardProgressRepository;
+import com.finki.intellicard.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Switching to FSRS with a lower desired retention must reschedule every stale row in
+ * chunks spread over the pool, leave rows already on the current version alone and find
+ * nothing left to do on the next run.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "study.scheduler.algorithm=fsrs",
+        "study.scheduler.fsrs.desired-retention=0.8",
+        "study.scheduler.recompute.chunk-size=7",
+        "study.scheduler.recompute.parallelism=4"})
+class ScheduleRecomputeServiceTest {
+
+    @Autowired
+    private ScheduleRecomputeService scheduleRecomputeService;
+
+    @Autowired
+    private SpacedRepetitionService spacedRepetitionService;
+
+    @Autowired
+    private ReviewScheduler reviewScheduler;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardSetRepository cardSetRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserCardProgressRepository userCardProgressRepository;
+
+    private final LocalDateTime lastReviewed = LocalDateTime.now().minusDays(3).truncatedTo(ChronoUnit.SECONDS);
+    private List<Card> cards;
+    private User learner;
+
+    @BeforeEach
+    void createCards() {
+        String username = "learner-" + UUID.randomUUID();
+        learner = userRepository.save(User.builder()
+                .username(username)
+                .fullName("Learner")
+                .email(username + "@example.com")
+                .password("x")
+                .build());
+        CardSet cardSet = cardSetRepository.save(CardSet.builder()
+                .name("Recompute")
+                .creator(learner)
+                .createdAt(LocalDateTime.now())
+                .lastModified(LocalDateTime.now())
+                .build());
+        List<Card> created = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            created.add(Card.builder().term("Term " + i).definition("Definition " + i).cardSet(cardSet).build());
+        }
+        cards = cardRepository.saveAll(created);
+    }
+
+    @Test
+    void staleRowsAreRescheduledOnce() {
+        List<UserCardProgress> stale = new ArrayList<>();
+        for (Card card : cards.subList(0, 30)) {
+            stale.add(progress(card, lastReviewed, null));
+        }
+        stale = userCardProgressRepository.saveAll(stale);
+        UserCardProgress current = userCardProgressRepository.save(progress(cards.get(30), lastReviewed, reviewScheduler.version()));
+        UserCardProgress neverReviewed = userCardProgressRepository.save(progress(cards.get(31), null, null));
+        LocalDateTime neverReviewedUpdatedAt = userCardProgressRepository.findById(neverReviewed.getId()).orElseThrow().getUpdatedAt();
+
+        assertThat(scheduleRecomputeService.recompute()).isGreaterThanOrEqualTo(31);
+
+        for (UserCardProgress row : userCardProgressRepository.findAllById(stale.stream().map(UserCardProgress::getId).toList())) {
+            assertThat(row.getScheduleVersion()).isEqualTo(reviewScheduler.version());
+            assertThat(row.getStability()).isEqualTo(10.0);
+            assertThat(row.getDifficulty()).isCloseTo(5.0, within(1e-9));
+            // At 80% retention the next review comes well after the SM-2 interval
+            assertThat(row.getInterval()).isEqualTo(24);
+            assertThat(row.getNextReviewDate()).isEqualTo(lastReviewed.plusDays(24));
+        }
+        UserCardProgress untouched = userCardProgressRepository.findById(current.getId()).orElseThrow();
+        assertThat(untouched.getInterval()).isEqualTo(10);
+        assertThat(untouched.getStability()).isNull();
+        UserCardProgress stamped = userCardProgressRepository.findById(neverReviewed.getId()).orElseThrow();
+        assertThat(stamped.getScheduleVersion()).isEqualTo(reviewScheduler.version());
+        assertThat(stamped.getNextReviewDate()).isEqualTo(neverReviewed.getNextReviewDate());
+        // Nothing a client sees changed, so it is not synced again
+        assertThat(stamped.getUpdatedAt()).isEqualTo(neverReviewedUpdatedAt);
+
+        assertThat(scheduleRecomputeService.recompute()).isZero();
+    }
+
+    @Test
+    void reviewsAreScheduledByFsrs() {
+        UserCardProgress progress = UserCardProgress.builder().build();
+        LocalDateTime firstReview = LocalDateTime.now().minusDays(10);
+
+        spacedRepetitionService.updateCardProgress(progress, true, 3, firstReview);
+        assertThat(progress.getStability()).isCloseTo(FsrsScheduler.DEFAULT_WEIGHTS[2], within(1e-9));
+        assertThat(progress.getInterval()).isEqualTo(9);
+        assertThat(progress.getScheduleVersion()).isEqualTo(reviewScheduler.version());
+
+        spacedRepetitionService.updateCardProgress(progress, true, 3, firstReview.plusDays(9));
+        double stabilityAfterSuccess = progress.getStability();
+        int intervalAfterSuccess = progress.getInterval();
+        assertThat(stabilityAfterSuccess).isGreaterThan(FsrsScheduler.DEFAULT_WEIGHTS[2]);
+        assertThat(progress.getStatus()).isEqualTo(CardStatus.REVIEW);
+
+        spacedRepetitionService.updateCardProgress(progress, false, 3, firstReview.plusDays(40));
+        assertThat(progress.getStability()).isLessThan(stabilityAfterSuccess);
+        assertThat(progress.getInterval()).isLessThan(intervalAfterSuccess);
+        assertThat(progress.getStatus()).isEqualTo(CardStatus.LEARNING);
+    }
+
+    private UserCardProgress progress(Card card, LocalDateTime reviewedAt, String version) {
+        return UserCardProgress.builder()
+                .user(learner)
+                .card(card)
+                .timesReviewed(reviewedAt == null ? 0 : 3)
+                .consecutiveCorrect(reviewedAt == null ? 0 : 3)
+                .interval(10)
+                .lastReviewed(reviewedAt)
+                .nextReviewDate(reviewedAt == null ? LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS) : reviewedAt.plusDays(10))
+                .status(reviewedAt == null ? CardStatus.NEW : CardStatus.REVIEW)
+                .scheduleVersion(version)
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.finki.intellicard.service;
+
+import com.finki.intellicard.exceptions.WriterBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleWriterExecutorTest {
+
+    private final SingleWriterExecutor executor = new SingleWriterExecutor(new NoOpTransactionManager(),
+            new SimpleMeterRegistry(), new ReadYourWritesTracker(Duration.ofSeconds(5)), true, 64, Duration.ofMillis(200));
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+    }
+
+    @Test
+    void aWriteThatStartedIsWaitedForPastTheTimeout() {
+        assertThat(executor.execute(() -> {
+            sleep(500);
+            return "committed";
+        })).isEqualTo("committed");
+    }
+
+    @Test
+    void aWriteThatNeverStartedIsWithdrawnAndReportedAsRetryable() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> executor.execute(() -> {
+            started.countDown();
+            sleep(600);
+            return "slow";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        AtomicBoolean ran = new AtomicBoolean();
+        assertThatThrownBy(() -> executor.run(() -> ran.set(true))).isInstanceOf(WriterBusyException.class);
+
+        assertThat(slow.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+        assertThat(executor.execute(() -> "next")).isEqualTo("next");
+        assertThat(ran).isFalse();
+    }
+
+    @Test
+    void aFailingWriteDoesNotFailTheOthersInItsBatch() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Void> blocker = CompletableFuture.runAsync(() -> executor.run(() -> {
+            started.countDown();
+            sleep(100);
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Both queue up behind the blocker and are committed as one batch
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<Integer> good = CompletableFuture.supplyAsync(() -> executor.execute(runs::incrementAndGet));
+        CompletableFuture<Object> bad = CompletableFuture.supplyAsync(() -> executor.execute(() -> {
+            throw new IllegalStateException("constraint violated");
+        }));
+        blocker.get(5, TimeUnit.SECONDS);
+
+        assertThat(good.get(5, TimeUnit.SECONDS)).isEqualTo(runs.get());
+        assertThatThrownBy(() -> bad.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(runs.get()).isBetween(1, 2);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class NoOpTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
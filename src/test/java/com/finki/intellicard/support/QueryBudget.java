@@ -0,0 +1,66 @@
+package com.finki.intellicard.support;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Counts the SQL statements an operation executes on the calling thread and fails when it
+ * goes over budget. Import it into a Spring test context; the data source proxy picks it up
+ * as a listener. MockMvc runs requests on the test thread, so a whole request (filters,
+ * security, controller and service) is counted.
+ */
+public class QueryBudget implements QueryExecutionListener {
+
+    private volatile Thread recordingThread;
+    private final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (Thread.currentThread() != recordingThread) {
+            return;
+        }
+        for (QueryInfo queryInfo : queryInfoList) {
+            statements.add(queryInfo.getQuery());
+        }
+    }
+
+    /**
+     * Runs the action and returns the statements it executed, in order.
+     */
+    public List<String> record(Executable action) throws Throwable {
+        statements.clear();
+        recordingThread = Thread.currentThread();
+        try {
+            action.execute();
+        } finally {
+            recordingThread = null;
+        }
+        return List.copyOf(statements);
+    }
+
+    public List<String> assertAtMost(int maxStatements, Executable action) throws Throwable {
+        List<String> executed = record(action);
+        if (executed.size() > maxStatements) {
+            StringBuilder message = new StringBuilder()
+                    .append("Expected at most ").append(maxStatements)
+                    .append(" SQL statements but ").append(executed.size()).append(" were executed:");
+            for (String sql : executed) {
+                message.append("\n  ").append(sql);
+            }
+            fail(message.toString());
+        }
+        return executed;
+    }
+}
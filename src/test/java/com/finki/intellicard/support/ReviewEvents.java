@@ -0,0 +1,30 @@
+package com.finki.intellicard.support;
+
+import com.finki.intellicard.model.ReviewEvent;
+import com.finki.intellicard.repository.ReviewEventRepository;
+
+import java.util.List;
+
+/**
+ * The review log appends on its own writer thread, so tests wait for the rows to show up.
+ */
+public final class ReviewEvents {
+
+    private ReviewEvents() {
+    }
+
+    /**
+     * Waits up to ten seconds for the user to have {@code count} reviews in the log and
+     * returns them, oldest first.
+     */
+    public static List<ReviewEvent> await(ReviewEventRepository repository, Long userId, int count)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        List<ReviewEvent> events = repository.findByUserIdOrderByReviewedAtAscIdAsc(userId);
+        while (events.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            events = repository.findByUserIdOrderByReviewedAtAscIdAsc(userId);
+        }
+        return events;
+    }
+}